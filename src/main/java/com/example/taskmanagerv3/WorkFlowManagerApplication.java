@@ -1,6 +1,8 @@
 package com.example.taskmanagerv3;
 
 import com.example.taskmanagerv3.config.DatabaseConfig;
+import com.example.taskmanagerv3.service.TaskService;
+import com.example.taskmanagerv3.util.AppExecutors;
 import com.example.taskmanagerv3.websocket.WebSocketServer;
 
 import javafx.application.Application;
@@ -35,6 +37,7 @@ public class WorkFlowManagerApplication extends Application {
 
             // Handle application close
             primaryStage.setOnCloseRequest(event -> {
+                AppExecutors.getInstance().shutdown();
                 DatabaseConfig.closeConnection();
                 Platform.exit();
             });
@@ -90,6 +93,8 @@ public class WorkFlowManagerApplication extends Application {
             boolean started = server.start();
             if (started) {
                 logger.info("WebSocket server started successfully on port 9876");
+                // Server-wide upkeep runs in the process hosting the server
+                TaskService.scheduleStatisticsReconcile();
             } else {
                 logger.error("Failed to start WebSocket server");
             }
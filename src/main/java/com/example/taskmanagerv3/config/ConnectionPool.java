@@ -0,0 +1,712 @@
+package com.example.taskmanagerv3.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded, thread-safe JDBC connection pool.
+ * Callers borrow a connection and give it back by calling close() on it,
+ * so the usual try-with-resources idiom keeps working unchanged.
+ */
+public class ConnectionPool {
+    private static final Logger logger = LoggerFactory.getLogger(ConnectionPool.class);
+
+    private final String url;
+    private final String username;
+    private final String password;
+    private final int minSize;
+    private final int maxSize;
+    private final long maxWaitMillis;
+    private final long idleTimeoutMillis;
+    private final long leakThresholdMillis;
+    private final int validationTimeoutSeconds;
+    private final int statementCacheSize;
+
+    // Idle connections, most recently used first
+    private final LinkedBlockingDeque<PooledConnection> idleConnections = new LinkedBlockingDeque<>();
+    private final Set<PooledConnection> borrowedConnections = ConcurrentHashMap.newKeySet();
+    private final Semaphore permits;
+    private final AtomicInteger totalConnections = new AtomicInteger();
+    private final ScheduledExecutorService housekeeper;
+    private volatile boolean shutdown = false;
+
+    // Metrics
+    private final AtomicLong borrowCount = new AtomicLong();
+    private final AtomicLong totalWaitNanos = new AtomicLong();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+    private final AtomicLong createdCount = new AtomicLong();
+    private final AtomicLong destroyedCount = new AtomicLong();
+    private final AtomicLong validationFailures = new AtomicLong();
+    private final AtomicLong timeoutCount = new AtomicLong();
+    private final AtomicLong leakCount = new AtomicLong();
+    private final AtomicLong statementCacheHits = new AtomicLong();
+    private final AtomicLong statementCacheMisses = new AtomicLong();
+    private final AtomicLong statementCacheEvictions = new AtomicLong();
+
+    public ConnectionPool(String url, String username, String password,
+                          int minSize, int maxSize, long maxWaitMillis,
+                          long idleTimeoutMillis, long leakThresholdMillis,
+                          int validationTimeoutSeconds, int statementCacheSize) {
+        if (minSize < 0 || maxSize < 1 || minSize > maxSize) {
+            throw new IllegalArgumentException("Invalid pool size: min=" + minSize + ", max=" + maxSize);
+        }
+
+        this.url = url;
+        this.username = username;
+        this.password = password;
+        this.minSize = minSize;
+        this.maxSize = maxSize;
+        this.maxWaitMillis = maxWaitMillis;
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        this.leakThresholdMillis = leakThresholdMillis;
+        this.validationTimeoutSeconds = validationTimeoutSeconds;
+        this.statementCacheSize = statementCacheSize;
+        this.permits = new Semaphore(maxSize, true);
+
+        this.housekeeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "db-pool-housekeeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        housekeeper.execute(this::fillToMinimum);
+        housekeeper.scheduleWithFixedDelay(this::runHousekeeping, 30, 30, TimeUnit.SECONDS);
+
+        logger.info("Connection pool created (min={}, max={}, statementCache={})", minSize, maxSize, statementCacheSize);
+    }
+
+    /**
+     * Borrow a connection from the pool. Closing the returned connection gives it back.
+     */
+    public Connection getConnection() throws SQLException {
+        if (shutdown) {
+            throw new SQLException("Connection pool has been shut down");
+        }
+
+        long waitStart = System.nanoTime();
+        try {
+            if (!permits.tryAcquire(maxWaitMillis, TimeUnit.MILLISECONDS)) {
+                timeoutCount.incrementAndGet();
+                throw new SQLException(String.format(
+                    "Timed out after %d ms waiting for a database connection (active=%d, max=%d)",
+                    maxWaitMillis, borrowedConnections.size(), maxSize));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a database connection", e);
+        }
+        recordWait(System.nanoTime() - waitStart);
+
+        try {
+            PooledConnection pooled = acquire();
+            pooled.borrowedAt = System.currentTimeMillis();
+            pooled.borrowTrace = new Throwable("Connection borrowed by thread " + Thread.currentThread().getName());
+            pooled.leakReported = false;
+            borrowedConnections.add(pooled);
+            borrowCount.incrementAndGet();
+            pooled.currentHandle = pooled.newHandle();
+            return pooled.currentHandle;
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Take a validated idle connection, or open a new one
+     */
+    private PooledConnection acquire() throws SQLException {
+        PooledConnection pooled;
+        while ((pooled = idleConnections.pollFirst()) != null) {
+            if (isValid(pooled)) {
+                return pooled;
+            }
+            validationFailures.incrementAndGet();
+            logger.warn("Discarding invalid pooled connection");
+            destroy(pooled);
+        }
+        return createConnection();
+    }
+
+    private boolean isValid(PooledConnection pooled) {
+        try {
+            return !pooled.physical.isClosed() && pooled.physical.isValid(validationTimeoutSeconds);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private PooledConnection createConnection() throws SQLException {
+        Connection physical = DriverManager.getConnection(url, username, password);
+        totalConnections.incrementAndGet();
+        createdCount.incrementAndGet();
+        logger.debug("Opened new pooled connection (total={})", totalConnections.get());
+        return new PooledConnection(physical);
+    }
+
+    private void destroy(PooledConnection pooled) {
+        totalConnections.decrementAndGet();
+        destroyedCount.incrementAndGet();
+        pooled.statementCache.closeAll();
+        try {
+            pooled.physical.close();
+        } catch (SQLException e) {
+            logger.debug("Error closing pooled connection: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Return a borrowed connection to the pool, resetting any per-session state
+     */
+    private void release(PooledConnection pooled) {
+        if (!borrowedConnections.remove(pooled)) {
+            return;
+        }
+
+        try {
+            pooled.currentHandle = null;
+            pooled.statementCache.reclaimAll();
+
+            boolean reusable = !shutdown && !pooled.physical.isClosed();
+            if (reusable) {
+                try {
+                    if (!pooled.physical.getAutoCommit()) {
+                        pooled.physical.rollback();
+                        pooled.physical.setAutoCommit(true);
+                    }
+                    pooled.physical.clearWarnings();
+                } catch (SQLException e) {
+                    logger.warn("Failed to reset pooled connection, discarding it: {}", e.getMessage());
+                    reusable = false;
+                }
+            }
+
+            if (reusable) {
+                pooled.lastUsedAt = System.currentTimeMillis();
+                pooled.borrowTrace = null;
+                idleConnections.offerFirst(pooled);
+            } else {
+                destroy(pooled);
+            }
+        } catch (SQLException e) {
+            destroy(pooled);
+        } finally {
+            permits.release();
+        }
+    }
+
+    private void recordWait(long waitNanos) {
+        totalWaitNanos.addAndGet(waitNanos);
+        maxWaitNanos.accumulateAndGet(waitNanos, Math::max);
+    }
+
+    /**
+     * Periodic idle eviction, minimum-size refill and leak detection
+     */
+    private void runHousekeeping() {
+        try {
+            evictIdleConnections();
+            fillToMinimum();
+            detectLeaks();
+        } catch (Exception e) {
+            logger.error("Error during connection pool housekeeping", e);
+        }
+    }
+
+    private void evictIdleConnections() {
+        long cutoff = System.currentTimeMillis() - idleTimeoutMillis;
+        Iterator<PooledConnection> iterator = idleConnections.descendingIterator();
+        while (iterator.hasNext() && totalConnections.get() > minSize) {
+            PooledConnection pooled = iterator.next();
+            if (pooled.lastUsedAt < cutoff && idleConnections.remove(pooled)) {
+                destroy(pooled);
+                logger.debug("Evicted idle pooled connection (total={})", totalConnections.get());
+            }
+        }
+    }
+
+    private void fillToMinimum() {
+        while (!shutdown && totalConnections.get() < minSize && permits.tryAcquire()) {
+            try {
+                PooledConnection pooled = createConnection();
+                pooled.lastUsedAt = System.currentTimeMillis();
+                idleConnections.offerLast(pooled);
+            } catch (SQLException e) {
+                logger.warn("Could not pre-open pooled connection: {}", e.getMessage());
+                return;
+            } finally {
+                permits.release();
+            }
+        }
+    }
+
+    private void detectLeaks() {
+        long cutoff = System.currentTimeMillis() - leakThresholdMillis;
+        for (PooledConnection pooled : borrowedConnections) {
+            Throwable trace = pooled.borrowTrace;
+            if (!pooled.leakReported && trace != null && pooled.borrowedAt < cutoff) {
+                pooled.leakReported = true;
+                leakCount.incrementAndGet();
+                logger.warn("Possible connection leak: connection held for {} ms",
+                           System.currentTimeMillis() - pooled.borrowedAt, trace);
+            }
+        }
+    }
+
+    /**
+     * Close all connections and stop housekeeping
+     */
+    public void shutdown() {
+        if (shutdown) {
+            return;
+        }
+        shutdown = true;
+        housekeeper.shutdownNow();
+
+        PooledConnection pooled;
+        while ((pooled = idleConnections.pollFirst()) != null) {
+            destroy(pooled);
+        }
+        for (PooledConnection borrowed : borrowedConnections) {
+            logger.warn("Connection still in use at pool shutdown; it will be closed when returned", borrowed.borrowTrace);
+        }
+        logger.info("Connection pool shut down");
+    }
+
+    public boolean isShutdown() {
+        return shutdown;
+    }
+
+    /**
+     * Get a snapshot of pool usage metrics
+     */
+    public PoolStatistics getStatistics() {
+        long borrows = borrowCount.get();
+        return new PoolStatistics(
+            totalConnections.get(),
+            idleConnections.size(),
+            borrowedConnections.size(),
+            permits.getQueueLength(),
+            borrows,
+            createdCount.get(),
+            destroyedCount.get(),
+            validationFailures.get(),
+            timeoutCount.get(),
+            leakCount.get(),
+            borrows == 0 ? 0 : TimeUnit.NANOSECONDS.toMicros(totalWaitNanos.get() / borrows),
+            TimeUnit.NANOSECONDS.toMicros(maxWaitNanos.get())
+        );
+    }
+
+    /**
+     * Get a snapshot of prepared-statement cache metrics across all pooled connections
+     */
+    public StatementCacheStatistics getStatementCacheStatistics() {
+        int cachedStatements = 0;
+        for (PooledConnection pooled : idleConnections) {
+            cachedStatements += pooled.statementCache.size();
+        }
+        for (PooledConnection pooled : borrowedConnections) {
+            cachedStatements += pooled.statementCache.size();
+        }
+        return new StatementCacheStatistics(
+            statementCacheHits.get(),
+            statementCacheMisses.get(),
+            statementCacheEvictions.get(),
+            cachedStatements,
+            statementCacheSize
+        );
+    }
+
+    /**
+     * Physical connection owned by the pool
+     */
+    private class PooledConnection {
+        private final Connection physical;
+        private volatile long lastUsedAt;
+        private volatile long borrowedAt;
+        private volatile Throwable borrowTrace;
+        private volatile boolean leakReported;
+        private volatile Connection currentHandle;
+        private final StatementCache statementCache;
+
+        PooledConnection(Connection physical) {
+            this.physical = physical;
+            this.statementCache = new StatementCache(this);
+        }
+
+        /**
+         * Create the proxy handed out to a borrower; close() on it returns this connection to the pool
+         */
+        Connection newHandle() {
+            return (Connection) Proxy.newProxyInstance(
+                Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class},
+                new ConnectionHandle(this));
+        }
+    }
+
+    /**
+     * Invocation handler backing a borrowed connection
+     */
+    private class ConnectionHandle implements InvocationHandler {
+        private final PooledConnection pooled;
+        private boolean closed = false;
+
+        ConnectionHandle(PooledConnection pooled) {
+            this.pooled = pooled;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (!closed) {
+                        closed = true;
+                        release(pooled);
+                    }
+                    return null;
+                case "isClosed":
+                    return closed || pooled.physical.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "PooledConnection[" + pooled.physical + (closed ? ", closed]" : "]");
+                default:
+                    break;
+            }
+
+            if (closed) {
+                throw new SQLException("Connection has already been returned to the pool");
+            }
+
+            // Cache prepareStatement(sql) and prepareStatement(sql, autoGeneratedKeys)
+            if (statementCacheSize > 0 && "prepareStatement".equals(method.getName())
+                    && (args.length == 1 || (args.length == 2 && args[1] instanceof Integer))) {
+                return pooled.statementCache.prepare((String) args[0],
+                    args.length == 2 ? (Integer) args[1] : null);
+            }
+
+            try {
+                return method.invoke(pooled.physical, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+
+    /**
+     * Per-connection LRU cache of prepared statements keyed by SQL text.
+     * Borrowers get a proxy whose close() hands the statement back to the cache.
+     */
+    private class StatementCache {
+        private final PooledConnection owner;
+        private final LinkedHashMap<String, CachedStatement> statements;
+
+        StatementCache(PooledConnection owner) {
+            this.owner = owner;
+            this.statements = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, CachedStatement> eldest) {
+                    if (size() > statementCacheSize) {
+                        statementCacheEvictions.incrementAndGet();
+                        eldest.getValue().evict();
+                        return true;
+                    }
+                    return false;
+                }
+            };
+        }
+
+        synchronized PreparedStatement prepare(String sql, Integer autoGeneratedKeys) throws SQLException {
+            String key = autoGeneratedKeys == null ? sql : autoGeneratedKeys + "|" + sql;
+            CachedStatement cached = statements.get(key);
+
+            if (cached != null && !cached.inUse) {
+                statementCacheHits.incrementAndGet();
+                cached.inUse = true;
+                return cached.proxy;
+            }
+
+            statementCacheMisses.incrementAndGet();
+            PreparedStatement physical = autoGeneratedKeys == null
+                ? owner.physical.prepareStatement(sql)
+                : owner.physical.prepareStatement(sql, autoGeneratedKeys);
+
+            if (cached != null) {
+                // Same SQL is already open on this connection; hand out an uncached statement
+                return physical;
+            }
+
+            try {
+                cached = new CachedStatement(owner, physical);
+            } catch (SQLException e) {
+                physical.close();
+                throw e;
+            }
+            cached.inUse = true;
+            statements.put(key, cached);
+            return cached.proxy;
+        }
+
+        synchronized int size() {
+            return statements.size();
+        }
+
+        /**
+         * Take back statements the borrower forgot to close
+         */
+        synchronized void reclaimAll() {
+            for (CachedStatement cached : statements.values()) {
+                if (cached.inUse) {
+                    cached.giveBack();
+                }
+            }
+        }
+
+        synchronized void closeAll() {
+            for (CachedStatement cached : statements.values()) {
+                cached.inUse = false;
+                cached.evict();
+            }
+            statements.clear();
+        }
+    }
+
+    /**
+     * Invocation handler backing a cached prepared statement
+     */
+    private static class CachedStatement implements InvocationHandler {
+        private final PooledConnection owner;
+        private final PreparedStatement physical;
+        private final PreparedStatement proxy;
+        private final int defaultFetchSize;
+        private final int defaultMaxRows;
+        private final int defaultQueryTimeout;
+        private final List<ResultSet> openResults = new ArrayList<>(1);
+        private boolean inUse = false;
+        private boolean evicted = false;
+
+        CachedStatement(PooledConnection owner, PreparedStatement physical) throws SQLException {
+            this.owner = owner;
+            this.physical = physical;
+            this.defaultFetchSize = physical.getFetchSize();
+            this.defaultMaxRows = physical.getMaxRows();
+            this.defaultQueryTimeout = physical.getQueryTimeout();
+            this.proxy = (PreparedStatement) Proxy.newProxyInstance(
+                PreparedStatement.class.getClassLoader(),
+                new Class<?>[]{PreparedStatement.class},
+                this);
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            synchronized (owner.statementCache) {
+                switch (method.getName()) {
+                    case "close":
+                        giveBack();
+                        return null;
+                    case "isClosed":
+                        return !inUse || physical.isClosed();
+                    case "getConnection":
+                        return owner.currentHandle;
+                    case "equals":
+                        return proxy == args[0];
+                    case "hashCode":
+                        return System.identityHashCode(proxy);
+                    case "toString":
+                        return "CachedStatement[" + physical + "]";
+                    default:
+                        break;
+                }
+
+                if (!inUse) {
+                    throw new SQLException("Statement has already been closed");
+                }
+            }
+
+            Object result;
+            try {
+                result = method.invoke(physical, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+            if (result instanceof ResultSet) {
+                synchronized (owner.statementCache) {
+                    openResults.add((ResultSet) result); // Closed on give-back if the borrower did not
+                }
+            }
+            return result;
+        }
+
+        /**
+         * Return the statement to the cache, closing its result sets and resetting per-use
+         * state, so the next borrower starts from the driver defaults
+         */
+        void giveBack() {
+            if (!inUse) {
+                return;
+            }
+            inUse = false;
+            if (evicted) {
+                openResults.clear();
+                closePhysical();
+                return;
+            }
+            try {
+                for (ResultSet resultSet : openResults) {
+                    resultSet.close();
+                }
+                openResults.clear();
+                physical.clearParameters();
+                physical.clearBatch(); // A borrower that failed before executeBatch leaves its rows queued
+                physical.clearWarnings();
+                physical.setFetchSize(defaultFetchSize);
+                physical.setMaxRows(defaultMaxRows);
+                physical.setQueryTimeout(defaultQueryTimeout);
+            } catch (SQLException e) {
+                openResults.clear();
+                evicted = true;
+                closePhysical();
+            }
+        }
+
+        /**
+         * Drop from the cache; an in-use statement is closed once its borrower gives it back
+         */
+        void evict() {
+            evicted = true;
+            if (!inUse) {
+                closePhysical();
+            }
+        }
+
+        private void closePhysical() {
+            try {
+                physical.close();
+            } catch (SQLException e) {
+                logger.debug("Error closing cached statement: {}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Snapshot of connection pool metrics
+     */
+    public static class PoolStatistics {
+        private final int totalConnections;
+        private final int idleConnections;
+        private final int activeConnections;
+        private final int waitingThreads;
+        private final long borrowCount;
+        private final long createdCount;
+        private final long destroyedCount;
+        private final long validationFailures;
+        private final long timeoutCount;
+        private final long leakCount;
+        private final long averageWaitMicros;
+        private final long maxWaitMicros;
+
+        public PoolStatistics(int totalConnections, int idleConnections, int activeConnections,
+                              int waitingThreads, long borrowCount, long createdCount,
+                              long destroyedCount, long validationFailures, long timeoutCount,
+                              long leakCount, long averageWaitMicros, long maxWaitMicros) {
+            this.totalConnections = totalConnections;
+            this.idleConnections = idleConnections;
+            this.activeConnections = activeConnections;
+            this.waitingThreads = waitingThreads;
+            this.borrowCount = borrowCount;
+            this.createdCount = createdCount;
+            this.destroyedCount = destroyedCount;
+            this.validationFailures = validationFailures;
+            this.timeoutCount = timeoutCount;
+            this.leakCount = leakCount;
+            this.averageWaitMicros = averageWaitMicros;
+            this.maxWaitMicros = maxWaitMicros;
+        }
+
+        public int getTotalConnections() { return totalConnections; }
+        public int getIdleConnections() { return idleConnections; }
+        public int getActiveConnections() { return activeConnections; }
+        public int getWaitingThreads() { return waitingThreads; }
+        public long getBorrowCount() { return borrowCount; }
+        public long getCreatedCount() { return createdCount; }
+        public long getDestroyedCount() { return destroyedCount; }
+        public long getValidationFailures() { return validationFailures; }
+        public long getTimeoutCount() { return timeoutCount; }
+        public long getLeakCount() { return leakCount; }
+        public long getAverageWaitMicros() { return averageWaitMicros; }
+        public long getMaxWaitMicros() { return maxWaitMicros; }
+
+        @Override
+        public String toString() {
+            return String.format("Pool: total=%d, idle=%d, active=%d, waiting=%d, borrows=%d, created=%d, " +
+                               "destroyed=%d, validationFailures=%d, timeouts=%d, leaks=%d, avgWait=%dus, maxWait=%dus",
+                               totalConnections, idleConnections, activeConnections, waitingThreads, borrowCount,
+                               createdCount, destroyedCount, validationFailures, timeoutCount, leakCount,
+                               averageWaitMicros, maxWaitMicros);
+        }
+    }
+
+    /**
+     * Snapshot of prepared-statement cache metrics
+     */
+    public static class StatementCacheStatistics {
+        private final long hits;
+        private final long misses;
+        private final long evictions;
+        private final int cachedStatements;
+        private final int maxStatementsPerConnection;
+
+        public StatementCacheStatistics(long hits, long misses, long evictions,
+                                        int cachedStatements, int maxStatementsPerConnection) {
+            this.hits = hits;
+            this.misses = misses;
+            this.evictions = evictions;
+            this.cachedStatements = cachedStatements;
+            this.maxStatementsPerConnection = maxStatementsPerConnection;
+        }
+
+        public long getHits() { return hits; }
+        public long getMisses() { return misses; }
+        public long getEvictions() { return evictions; }
+        public int getCachedStatements() { return cachedStatements; }
+        public int getMaxStatementsPerConnection() { return maxStatementsPerConnection; }
+
+        public double getHitRatio() {
+            long lookups = hits + misses;
+            return lookups == 0 ? 0.0 : (double) hits / lookups;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("Statement cache: hits=%d, misses=%d, hitRatio=%.1f%%, evictions=%d, cached=%d (max %d per connection)",
+                               hits, misses, getHitRatio() * 100, evictions, cachedStatements, maxStatementsPerConnection);
+        }
+    }
+}
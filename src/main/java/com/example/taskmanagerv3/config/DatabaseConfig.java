@@ -4,7 +4,6 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.SQLException;
 import java.sql.Statement;
 
@@ -26,41 +25,73 @@ public class DatabaseConfig {
         SERVER, PORT, DATABASE
     );
     
-    private static Connection connection;
-    
+    // Connection pool parameters
+    private static final int POOL_MIN_SIZE = 2;
+    private static final int POOL_MAX_SIZE = 10;
+    private static final long POOL_MAX_WAIT_MILLIS = 10_000;
+    private static final long POOL_IDLE_TIMEOUT_MILLIS = 5 * 60_000;
+    private static final long POOL_LEAK_THRESHOLD_MILLIS = 60_000;
+    private static final int POOL_VALIDATION_TIMEOUT_SECONDS = 2;
+    private static final int STATEMENT_CACHE_SIZE = 50; // per pooled connection
+
+    private static ConnectionPool pool;
+
     /**
-     * Get database connection
+     * Get the connection pool, creating it on first use
      */
-    public static Connection getConnection() throws SQLException {
-        if (connection == null || connection.isClosed()) {
+    private static synchronized ConnectionPool getPool() throws SQLException {
+        if (pool == null || pool.isShutdown()) {
             try {
                 Class.forName("com.microsoft.sqlserver.jdbc.SQLServerDriver");
-                connection = DriverManager.getConnection(CONNECTION_URL, USERNAME, PASSWORD);
-                logger.info("Database connection established successfully");
             } catch (ClassNotFoundException e) {
                 logger.error("SQL Server JDBC Driver not found", e);
                 throw new SQLException("SQL Server JDBC Driver not found", e);
-            } catch (SQLException e) {
-                logger.error("Failed to connect to database", e);
-                throw e;
             }
+            pool = new ConnectionPool(CONNECTION_URL, USERNAME, PASSWORD,
+                POOL_MIN_SIZE, POOL_MAX_SIZE, POOL_MAX_WAIT_MILLIS,
+                POOL_IDLE_TIMEOUT_MILLIS, POOL_LEAK_THRESHOLD_MILLIS, POOL_VALIDATION_TIMEOUT_SECONDS,
+                STATEMENT_CACHE_SIZE);
+        }
+        return pool;
+    }
+
+    /**
+     * Get database connection from the pool.
+     * Closing the returned connection returns it to the pool.
+     */
+    public static Connection getConnection() throws SQLException {
+        try {
+            return getPool().getConnection();
+        } catch (SQLException e) {
+            logger.error("Failed to connect to database", e);
+            throw e;
         }
-        return connection;
     }
     
     /**
-     * Close database connection
+     * Close all pooled database connections
      */
-    public static void closeConnection() {
-        if (connection != null) {
-            try {
-                connection.close();
-                logger.info("Database connection closed");
-            } catch (SQLException e) {
-                logger.error("Error closing database connection", e);
-            }
+    public static synchronized void closeConnection() {
+        if (pool != null) {
+            pool.shutdown();
+            pool = null;
+            logger.info("Database connection pool closed");
         }
     }
+
+    /**
+     * Get connection pool usage metrics
+     */
+    public static synchronized ConnectionPool.PoolStatistics getPoolStatistics() {
+        return pool != null ? pool.getStatistics() : null;
+    }
+
+    /**
+     * Get prepared-statement cache metrics
+     */
+    public static synchronized ConnectionPool.StatementCacheStatistics getStatementCacheStatistics() {
+        return pool != null ? pool.getStatementCacheStatistics() : null;
+    }
     
     /**
      * Test database connection
@@ -106,29 +137,71 @@ public class DatabaseConfig {
                 CREATE TABLE Tasks (
                     task_id INT IDENTITY(1,1) PRIMARY KEY,
                     title NVARCHAR(200) NOT NULL,
-                    description NTEXT,
+                    description NVARCHAR(MAX),
                     status NVARCHAR(20) NOT NULL CHECK (status IN ('TODO', 'IN_PROGRESS', 'REVIEW', 'COMPLETED', 'CANCELLED')),
                     priority NVARCHAR(20) NOT NULL CHECK (priority IN ('LOW', 'MEDIUM', 'HIGH', 'URGENT')),
                     assigned_user_id INT NOT NULL,
                     created_by_user_id INT NOT NULL,
-                    created_at DATETIME2 DEFAULT GETDATE(),
+                    created_at DATETIME2 NOT NULL DEFAULT GETDATE(),
                     updated_at DATETIME2 DEFAULT GETDATE(),
                     due_date DATETIME2,
                     completed_at DATETIME2,
                     estimated_hours INT DEFAULT 0,
                     actual_hours INT DEFAULT 0,
                     progress_percentage DECIMAL(5,2) DEFAULT 0.00,
-                    comments NTEXT,
-                    attachments NTEXT,
+                    comments NVARCHAR(MAX),
+                    attachments NVARCHAR(MAX),
                     project_id INT,
                     FOREIGN KEY (assigned_user_id) REFERENCES Users(user_id),
                     FOREIGN KEY (created_by_user_id) REFERENCES Users(user_id)
                 )
                 """;
             
+            // Create chat_messages table
+            String createChatMessagesTable = """
+                IF NOT EXISTS (SELECT * FROM sysobjects WHERE name='chat_messages' AND xtype='U')
+                CREATE TABLE chat_messages (
+                    message_id INT IDENTITY(1,1) PRIMARY KEY,
+                    sender_id INT NOT NULL,
+                    sender_name NVARCHAR(100) NOT NULL,
+                    sender_role NVARCHAR(20) NOT NULL,
+                    receiver_id INT NOT NULL,
+                    receiver_name NVARCHAR(100),
+                    message NVARCHAR(MAX) NOT NULL,
+                    timestamp DATETIME2 DEFAULT GETDATE(),
+                    is_read BIT DEFAULT 0,
+                    has_attachments BIT DEFAULT 0,
+                    FOREIGN KEY (sender_id) REFERENCES Users(user_id),
+                    FOREIGN KEY (receiver_id) REFERENCES Users(user_id)
+                )
+                """;
+
+            // Create chat_files table
+            String createChatFilesTable = """
+                IF NOT EXISTS (SELECT * FROM sysobjects WHERE name='chat_files' AND xtype='U')
+                CREATE TABLE chat_files (
+                    file_id INT IDENTITY(1,1) PRIMARY KEY,
+                    message_id INT NOT NULL,
+                    file_name NVARCHAR(255) NOT NULL,
+                    original_file_name NVARCHAR(255) NOT NULL,
+                    file_path NVARCHAR(500) NOT NULL,
+                    file_type NVARCHAR(100),
+                    file_size BIGINT,
+                    uploaded_at DATETIME2 DEFAULT GETDATE(),
+                    uploaded_by INT NOT NULL,
+                    FOREIGN KEY (message_id) REFERENCES chat_messages(message_id),
+                    FOREIGN KEY (uploaded_by) REFERENCES Users(user_id)
+                )
+                """;
+
             // Execute table creation
             stmt.execute(createUsersTable);
             stmt.execute(createTasksTable);
+            stmt.execute(createChatMessagesTable);
+            stmt.execute(createChatFilesTable);
+
+            // Bring existing databases up to the current indexes and column types
+            SchemaMigrator.migrate(conn);
             
             logger.info("Database schema initialized successfully");
             
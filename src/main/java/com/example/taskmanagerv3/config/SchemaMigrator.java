@@ -0,0 +1,288 @@
+package com.example.taskmanagerv3.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Versioned schema migrations, applied once each at startup.
+ *
+ * Applied versions are recorded in the schema_version table. Each migration runs in its
+ * own transaction, so a failed migration leaves no partial changes and is retried on the
+ * next start. Add new migrations to the end of the list with the next version number;
+ * never edit one that has already shipped.
+ */
+public class SchemaMigrator {
+    private static final Logger logger = LoggerFactory.getLogger(SchemaMigrator.class);
+
+    private static final List<Migration> MIGRATIONS = List.of(
+        new Migration(1, "Convert NTEXT columns to NVARCHAR(MAX)",
+            // NTEXT is deprecated, cannot be compared with = and is always stored off-row
+            "ALTER TABLE Tasks ALTER COLUMN description NVARCHAR(MAX) NULL",
+            "ALTER TABLE Tasks ALTER COLUMN comments NVARCHAR(MAX) NULL",
+            "ALTER TABLE Tasks ALTER COLUMN attachments NVARCHAR(MAX) NULL",
+            "ALTER TABLE chat_messages ALTER COLUMN message NVARCHAR(MAX) NOT NULL",
+            // Rewrite the values so short ones move in-row
+            "UPDATE Tasks SET description = description, comments = comments, attachments = attachments",
+            "UPDATE chat_messages SET message = message"),
+
+        new Migration(2, "Index Tasks by assignee, creation order, status and update time",
+            // getTasksByUserId, user workload aggregates and per-user cache probes
+            """
+            CREATE INDEX IX_Tasks_assigned_user_created
+            ON Tasks (assigned_user_id, created_at DESC, task_id DESC)
+            INCLUDE (status, priority, due_date, updated_at)
+            """,
+            // getAllTasks and keyset pages
+            """
+            CREATE INDEX IX_Tasks_created
+            ON Tasks (created_at DESC, task_id DESC)
+            INCLUDE (status, priority, assigned_user_id)
+            """,
+            // Status filters and overdue counts
+            """
+            CREATE INDEX IX_Tasks_status_due
+            ON Tasks (status, due_date)
+            INCLUDE (assigned_user_id, priority)
+            """,
+            // MAX(updated_at) and changed-since probes
+            "CREATE INDEX IX_Tasks_updated ON Tasks (updated_at)"),
+
+        new Migration(3, "Index chat conversations, unread messages and attachments",
+            // getChatMessages reads each direction of a conversation newest first
+            """
+            CREATE INDEX IX_chat_messages_conversation
+            ON chat_messages (sender_id, receiver_id, message_id DESC)
+            INCLUDE (timestamp, is_read, has_attachments)
+            """,
+            // markMessagesAsRead and unread counts only touch unread rows
+            """
+            CREATE INDEX IX_chat_messages_unread
+            ON chat_messages (receiver_id, sender_id)
+            WHERE is_read = 0
+            """,
+            "CREATE INDEX IX_chat_files_message ON chat_files (message_id)"),
+
+        new Migration(4, "Add idempotency key to chat messages",
+            "ALTER TABLE chat_messages ADD client_message_id NVARCHAR(64) NULL",
+            """
+            CREATE UNIQUE INDEX UX_chat_messages_client_message_id
+            ON chat_messages (client_message_id)
+            WHERE client_message_id IS NOT NULL
+            """),
+
+        new Migration(5, "Index chat messages by receiver",
+            // Offline replay reads a receiver's messages after a message_id
+            """
+            CREATE INDEX IX_chat_messages_receiver
+            ON chat_messages (receiver_id, message_id)
+            INCLUDE (sender_id, timestamp)
+            """),
+
+        new Migration(6, "Add chat conversation summaries",
+            // One inbox row per participant: last message and unread count, kept current on writes
+            """
+            CREATE TABLE chat_conversations (
+                owner_id INT NOT NULL,
+                peer_id INT NOT NULL,
+                last_message_id INT NOT NULL,
+                last_message_at DATETIME2 NOT NULL,
+                last_sender_id INT NOT NULL,
+                last_snippet NVARCHAR(200) NULL,
+                unread_count INT NOT NULL DEFAULT 0,
+                CONSTRAINT PK_chat_conversations PRIMARY KEY (owner_id, peer_id),
+                FOREIGN KEY (owner_id) REFERENCES Users(user_id),
+                FOREIGN KEY (peer_id) REFERENCES Users(user_id)
+            )
+            """,
+            // Backfill from existing messages, one row for each side of every conversation
+            """
+            INSERT INTO chat_conversations (owner_id, peer_id, last_message_id, last_message_at,
+                                            last_sender_id, last_snippet, unread_count)
+            SELECT sides.owner_id, sides.peer_id, m.message_id, m.timestamp, m.sender_id, LEFT(m.message, 200),
+                   (SELECT COUNT(*) FROM chat_messages u
+                    WHERE u.receiver_id = sides.owner_id AND u.sender_id = sides.peer_id AND u.is_read = 0)
+            FROM (
+                SELECT sender_id AS owner_id, receiver_id AS peer_id, MAX(message_id) AS last_message_id
+                FROM (SELECT sender_id, receiver_id, message_id FROM chat_messages
+                      UNION ALL
+                      SELECT receiver_id, sender_id, message_id FROM chat_messages) AS both_sides
+                GROUP BY sender_id, receiver_id
+            ) AS sides
+            JOIN chat_messages m ON m.message_id = sides.last_message_id
+            """),
+
+        new Migration(7, "Add daily task statistics rollup",
+            // Tasks created and completed per day, assignee, status and priority, kept current on writes
+            """
+            CREATE TABLE task_daily_stats (
+                stat_date DATE NOT NULL,
+                user_id INT NOT NULL,
+                status NVARCHAR(20) NOT NULL,
+                priority NVARCHAR(20) NOT NULL,
+                created_count INT NOT NULL DEFAULT 0,
+                completed_count INT NOT NULL DEFAULT 0,
+                CONSTRAINT PK_task_daily_stats PRIMARY KEY (stat_date, user_id, status, priority)
+            )
+            """,
+            // Per-user weekly charts
+            """
+            CREATE INDEX IX_task_daily_stats_user
+            ON task_daily_stats (user_id, stat_date)
+            INCLUDE (created_count, completed_count)
+            """,
+            // Backfill from existing tasks
+            """
+            INSERT INTO task_daily_stats (stat_date, user_id, status, priority, created_count, completed_count)
+            SELECT stat_date, user_id, status, priority, SUM(created), SUM(completed)
+            FROM (
+                SELECT CAST(created_at AS DATE) AS stat_date, assigned_user_id AS user_id, status, priority,
+                       1 AS created, 0 AS completed
+                FROM Tasks
+                WHERE created_at IS NOT NULL
+                UNION ALL
+                SELECT CAST(completed_at AS DATE), assigned_user_id, status, priority, 0, 1
+                FROM Tasks
+                WHERE completed_at IS NOT NULL
+            ) AS contributions
+            GROUP BY stat_date, user_id, status, priority
+            """),
+
+        new Migration(8, "Make Tasks.created_at NOT NULL",
+            // Keyset pages compare and order on created_at, which skips NULL rows.
+            // The rollup left those rows out, so count them on the day they are given first.
+            """
+            MERGE task_daily_stats AS target
+            USING (
+                SELECT CAST(COALESCE(updated_at, GETDATE()) AS DATE) AS stat_date, assigned_user_id AS user_id,
+                       status, priority, COUNT(*) AS created
+                FROM Tasks
+                WHERE created_at IS NULL
+                GROUP BY CAST(COALESCE(updated_at, GETDATE()) AS DATE), assigned_user_id, status, priority
+            ) AS source
+            ON target.stat_date = source.stat_date AND target.user_id = source.user_id
+               AND target.status = source.status AND target.priority = source.priority
+            WHEN MATCHED THEN
+                UPDATE SET created_count = target.created_count + source.created
+            WHEN NOT MATCHED THEN
+                INSERT (stat_date, user_id, status, priority, created_count, completed_count)
+                VALUES (source.stat_date, source.user_id, source.status, source.priority, source.created, 0);
+            """,
+            "UPDATE Tasks SET created_at = COALESCE(updated_at, GETDATE()) WHERE created_at IS NULL",
+            // The column cannot be altered while indexes depend on it
+            "DROP INDEX IX_Tasks_assigned_user_created ON Tasks",
+            "DROP INDEX IX_Tasks_created ON Tasks",
+            "ALTER TABLE Tasks ALTER COLUMN created_at DATETIME2 NOT NULL",
+            """
+            CREATE INDEX IX_Tasks_assigned_user_created
+            ON Tasks (assigned_user_id, created_at DESC, task_id DESC)
+            INCLUDE (status, priority, due_date, updated_at)
+            """,
+            """
+            CREATE INDEX IX_Tasks_created
+            ON Tasks (created_at DESC, task_id DESC)
+            INCLUDE (status, priority, assigned_user_id)
+            """),
+
+        new Migration(9, "Index chat files by content hash",
+            // Attachment downloads check the messages that carry a hash
+            "CREATE INDEX IX_chat_files_file_name ON chat_files (file_name) INCLUDE (message_id)")
+    );
+
+    private SchemaMigrator() {
+    }
+
+    /**
+     * Apply every migration that has not been recorded yet
+     */
+    public static void migrate(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("""
+                IF NOT EXISTS (SELECT * FROM sysobjects WHERE name='schema_version' AND xtype='U')
+                CREATE TABLE schema_version (
+                    version INT PRIMARY KEY,
+                    description NVARCHAR(200) NOT NULL,
+                    applied_at DATETIME2 DEFAULT GETDATE()
+                )
+                """);
+        }
+
+        Set<Integer> applied = getAppliedVersions(conn);
+        int count = 0;
+
+        for (Migration migration : MIGRATIONS) {
+            if (!applied.contains(migration.version)) {
+                apply(conn, migration);
+                count++;
+            }
+        }
+
+        if (count > 0) {
+            logger.info("Applied {} schema migration(s), schema is at version {}",
+                count, MIGRATIONS.get(MIGRATIONS.size() - 1).version);
+        }
+    }
+
+    private static Set<Integer> getAppliedVersions(Connection conn) throws SQLException {
+        Set<Integer> versions = new HashSet<>();
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT version FROM schema_version")) {
+            while (rs.next()) {
+                versions.add(rs.getInt(1));
+            }
+        }
+        return versions;
+    }
+
+    private static void apply(Connection conn, Migration migration) throws SQLException {
+        logger.info("Applying schema migration {}: {}", migration.version, migration.description);
+        boolean autoCommit = conn.getAutoCommit();
+        conn.setAutoCommit(false);
+
+        try {
+            try (Statement stmt = conn.createStatement()) {
+                for (String sql : migration.statements) {
+                    stmt.execute(sql);
+                }
+            }
+
+            try (PreparedStatement stmt = conn.prepareStatement(
+                    "INSERT INTO schema_version (version, description) VALUES (?, ?)")) {
+                stmt.setInt(1, migration.version);
+                stmt.setString(2, migration.description);
+                stmt.executeUpdate();
+            }
+
+            conn.commit();
+
+        } catch (SQLException e) {
+            conn.rollback();
+            throw new SQLException("Schema migration " + migration.version + " failed: " + e.getMessage(), e);
+        } finally {
+            conn.setAutoCommit(autoCommit);
+        }
+    }
+
+    /**
+     * One schema version: a description and the statements that produce it
+     */
+    private static class Migration {
+        private final int version;
+        private final String description;
+        private final String[] statements;
+
+        Migration(int version, String description, String... statements) {
+            this.version = version;
+            this.description = description;
+            this.statements = statements;
+        }
+    }
+}
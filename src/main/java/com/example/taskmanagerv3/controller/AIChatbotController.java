@@ -1,6 +1,7 @@
 package com.example.taskmanagerv3.controller;
 
 import com.example.taskmanagerv3.service.AIChatbotService;
+import com.example.taskmanagerv3.util.AppExecutors;
 import com.example.taskmanagerv3.util.SessionManager;
 import javafx.application.Platform;
 import javafx.fxml.FXML;
@@ -132,7 +133,7 @@ public class AIChatbotController {
         statusLabel.setStyle("-fx-text-fill: #3498db;");
 
         // Process message in background thread
-        new Thread(() -> {
+        if (!AppExecutors.getInstance().execute(() -> {
             try {
                 int currentUserId = sessionManager.getCurrentUserId();
                 String response = chatbotService.processMessage(userMessage, currentUserId);
@@ -149,7 +150,10 @@ public class AIChatbotController {
                     updateStatusLabel();
                 });
             }
-        }).start();
+        })) {
+            addBotMessage("I'm busy with other requests right now. Please try again in a moment.");
+            updateStatusLabel();
+        }
     }
 
     /**
@@ -286,7 +290,7 @@ public class AIChatbotController {
     private void testApiConnection() {
         addBotMessage("🔧 Testing Gemini API connection...");
 
-        new Thread(() -> {
+        if (!AppExecutors.getInstance().execute(() -> {
             try {
                 AIChatbotService service = new AIChatbotService();
                 String result = service.testApiDirectly();
@@ -301,7 +305,9 @@ public class AIChatbotController {
                     addBotMessage("🔧 API Test Failed: " + e.getMessage());
                 });
             }
-        }).start();
+        })) {
+            addBotMessage("🔧 API Test Failed: the application is busy, please try again");
+        }
     }
 
     /**
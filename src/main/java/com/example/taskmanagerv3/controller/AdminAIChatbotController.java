@@ -1,6 +1,7 @@
 package com.example.taskmanagerv3.controller;
 
 import com.example.taskmanagerv3.service.AdminAIChatbotService;
+import com.example.taskmanagerv3.util.AppExecutors;
 import com.example.taskmanagerv3.util.SessionManager;
 import javafx.application.Platform;
 import javafx.fxml.FXML;
@@ -140,7 +141,7 @@ public class AdminAIChatbotController {
         statusLabel.setStyle("-fx-text-fill: #3498db;");
 
         // Process message in background thread
-        new Thread(() -> {
+        if (!AppExecutors.getInstance().execute(() -> {
             try {
                 int currentUserId = sessionManager.getCurrentUserId();
                 String response = chatbotService.processMessage(userMessage, currentUserId);
@@ -157,7 +158,10 @@ public class AdminAIChatbotController {
                     updateStatusLabel();
                 });
             }
-        }).start();
+        })) {
+            addBotMessage("I'm busy with other requests right now. Please try again in a moment.");
+            updateStatusLabel();
+        }
     }
 
     /**
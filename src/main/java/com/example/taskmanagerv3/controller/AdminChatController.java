@@ -2,19 +2,24 @@ package com.example.taskmanagerv3.controller;
 
 import com.example.taskmanagerv3.model.ChatFile;
 import com.example.taskmanagerv3.model.ChatMessage;
+import com.example.taskmanagerv3.model.ConversationSummary;
 import com.example.taskmanagerv3.model.User;
 import com.example.taskmanagerv3.model.UserRole;
 import com.example.taskmanagerv3.service.ChatService;
+import com.example.taskmanagerv3.service.ThumbnailService;
 import com.example.taskmanagerv3.service.UserService;
 import com.example.taskmanagerv3.websocket.WebSocketClient;
 import com.example.taskmanagerv3.websocket.WebSocketMessageListener;
 import com.example.taskmanagerv3.websocket.MessageType;
 
+import com.example.taskmanagerv3.util.AppExecutors;
+import com.example.taskmanagerv3.util.ImageCache;
 import com.example.taskmanagerv3.util.SessionManager;
 import javafx.application.Platform;
 import javafx.fxml.FXML;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
+import javafx.scene.Node;
 import javafx.scene.control.*;
 import javafx.scene.image.Image;
 import javafx.scene.image.ImageView;
@@ -30,18 +35,23 @@ import org.slf4j.LoggerFactory;
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
+import java.nio.file.Paths;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Controller for admin chat functionality
  */
 public class AdminChatController implements WebSocketMessageListener {
     private static final Logger logger = LoggerFactory.getLogger(AdminChatController.class);
+    private static final int HISTORY_PAGE_SIZE = 50;
 
     // FXML Components - Header
     @FXML private Label onlineUsersLabel;
@@ -92,9 +102,17 @@ public class AdminChatController implements WebSocketMessageListener {
     private User selectedUser;
     private List<User> allUsers;
     private List<File> selectedFiles;
-    private Map<Integer, Integer> unreadCounts; // userId -> unread count
+    private Map<Integer, ConversationSummary> conversations; // userId -> inbox row
     private boolean isTyping = false;
+    // Messages the chat server is storing, by message id, until its MESSAGE_ACK arrives
+    private final Map<String, ChatMessage> pendingMessages = new ConcurrentHashMap<>();
     private WebSocketClient webSocketClient;
+    // Stored messages of the selected conversation on screen, so a delta refresh does not add them twice
+    private final Set<Integer> displayedMessageIds = new HashSet<>();
+    private Integer oldestLoadedMessageId;
+    private Integer newestLoadedMessageId;
+    private boolean hasOlderMessages = false;
+    private boolean loadingOlderMessages = false;
 
     @FXML
     private void initialize() {
@@ -105,7 +123,7 @@ public class AdminChatController implements WebSocketMessageListener {
         sessionManager = SessionManager.getInstance();
         selectedFiles = new ArrayList<>();
         allUsers = new ArrayList<>();
-        unreadCounts = new HashMap<>();
+        conversations = new HashMap<>();
 
         setupUI();
         loadCurrentAdmin();
@@ -154,12 +172,23 @@ public class AdminChatController implements WebSocketMessageListener {
         quickReply2.setOnAction(e -> sendQuickReply("🔍 Could you please provide more details about your issue? This will help me assist you better."));
         quickReply3.setOnAction(e -> sendQuickReply("⏳ I'm currently working on your request. I'll get back to you shortly with an update."));
 
-        // Auto-scroll to bottom when new messages are added
+        // Auto-scroll to bottom when new messages are added, except when older ones were prepended
         messagesContainer.heightProperty().addListener((obs, oldHeight, newHeight) -> {
+            if (loadingOlderMessages) {
+                keepScrollPosition(newHeight.doubleValue() - oldHeight.doubleValue(), newHeight.doubleValue());
+                return;
+            }
             Platform.runLater(() -> {
                 messagesScrollPane.setVvalue(1.0);
             });
         });
+
+        // Infinite scroll: reaching the top loads the previous page
+        messagesScrollPane.vvalueProperty().addListener((obs, oldValue, newValue) -> {
+            if (newValue.doubleValue() <= messagesScrollPane.getVmin() && oldValue.doubleValue() > newValue.doubleValue()) {
+                loadOlderMessages();
+            }
+        });
     }
 
     /**
@@ -182,15 +211,21 @@ public class AdminChatController implements WebSocketMessageListener {
 
 
     /**
-     * Load all users for chat
+     * Load all users for chat, with their last message and unread count
      */
     private void loadAllUsers() {
         try {
-            allUsers = userService.getAllActiveUsers();
-            // Remove current admin from list
-            allUsers.removeIf(user -> user.getUserId() == currentAdmin.getUserId());
+            List<ConversationSummary> summaries = chatService.getConversationSummaries(currentAdmin.getUserId());
+            List<User> users = new ArrayList<>();
+            Map<Integer, ConversationSummary> byUser = new HashMap<>();
+            for (ConversationSummary summary : summaries) {
+                users.add(summary.getPeer());
+                byUser.put(summary.getPeer().getUserId(), summary);
+            }
 
             Platform.runLater(() -> {
+                allUsers = users;
+                conversations = byUser;
                 updateUsersDisplay();
                 updateStats();
             });
@@ -241,9 +276,11 @@ public class AdminChatController implements WebSocketMessageListener {
         Region spacer = new Region();
         HBox.setHgrow(spacer, Priority.ALWAYS);
 
+        ConversationSummary summary = conversations.get(user.getUserId());
+
         // Unread count badge
         Label unreadBadge = new Label();
-        int unreadCount = unreadCounts.getOrDefault(user.getUserId(), 0);
+        int unreadCount = summary != null ? summary.getUnreadCount() : 0;
         if (unreadCount > 0) {
             unreadBadge.setText(String.valueOf(unreadCount));
             unreadBadge.setStyle("-fx-background-color: #dc3545; -fx-text-fill: white; -fx-background-radius: 10; -fx-padding: 2 6; -fx-font-size: 10px;");
@@ -255,8 +292,17 @@ public class AdminChatController implements WebSocketMessageListener {
         userInfo.getChildren().addAll(avatar, userDetails, spacer, unreadBadge);
 
         // Last message preview
-        Label lastMessageLabel = new Label("Click to start conversation");
-        lastMessageLabel.setStyle("-fx-font-size: 11px; -fx-text-fill: #6c757d; -fx-font-style: italic;");
+        Label lastMessageLabel;
+        if (summary != null && summary.getLastSnippet() != null) {
+            String prefix = summary.getLastSenderId() == currentAdmin.getUserId() ? "You: " : "";
+            lastMessageLabel = new Label(prefix + summary.getLastSnippet().replace('\n', ' ')
+                + "  •  " + summary.getLastMessageTime());
+            lastMessageLabel.setStyle("-fx-font-size: 11px; -fx-text-fill: #6c757d;");
+            lastMessageLabel.setMaxWidth(220);
+        } else {
+            lastMessageLabel = new Label("Click to start conversation");
+            lastMessageLabel.setStyle("-fx-font-size: 11px; -fx-text-fill: #6c757d; -fx-font-style: italic;");
+        }
 
         userCard.getChildren().addAll(userInfo, lastMessageLabel);
 
@@ -296,15 +342,19 @@ public class AdminChatController implements WebSocketMessageListener {
             selectedUserName.setText(user.getFullName());
             selectedUserStatus.setText("@" + user.getUsername() + " • " + user.getRole());
 
+            // Mark messages as read
+            chatService.markMessagesAsRead(user.getUserId(), currentAdmin.getUserId());
+            ConversationSummary summary = conversations.get(user.getUserId());
+            if (summary != null) {
+                summary.setUnreadCount(0);
+            }
+
             // Update user card selection
             updateUsersDisplay();
+            updateStats();
 
             // Load chat history
             loadChatHistory();
-
-            // Mark messages as read
-            chatService.markMessagesAsRead(user.getUserId(), currentAdmin.getUserId());
-            unreadCounts.put(user.getUserId(), 0);
         });
 
         logger.info("Selected user for chat: {}", user.getUsername());
@@ -317,9 +367,14 @@ public class AdminChatController implements WebSocketMessageListener {
         if (selectedUser == null) return;
 
         try {
-            List<ChatMessage> messages = chatService.getChatMessages(currentAdmin.getUserId(), selectedUser.getUserId(), 50);
+            List<ChatMessage> messages = chatService.getChatMessages(currentAdmin.getUserId(), selectedUser.getUserId(), HISTORY_PAGE_SIZE);
             Platform.runLater(() -> {
                 messagesContainer.getChildren().clear();
+                displayedMessageIds.clear();
+                oldestLoadedMessageId = messages.isEmpty() ? null : messages.get(0).getMessageId();
+                newestLoadedMessageId = null;
+                hasOlderMessages = messages.size() == HISTORY_PAGE_SIZE;
+                loadingOlderMessages = false;
 
                 // Add messages in chronological order (oldest first)
                 for (ChatMessage message : messages) {
@@ -337,10 +392,138 @@ public class AdminChatController implements WebSocketMessageListener {
         }
     }
 
+    /**
+     * Fetch only the messages of the selected conversation newer than the newest one shown
+     */
+    private void refreshChatHistory() {
+        if (selectedUser == null) return;
+        if (newestLoadedMessageId == null) {
+            loadChatHistory();
+            return;
+        }
+
+        User user = selectedUser;
+        int afterId = newestLoadedMessageId;
+        AppExecutors.getInstance().execute(() -> {
+            List<ChatMessage> newer = chatService.getMessagesAfter(currentAdmin.getUserId(), user.getUserId(), afterId);
+            Platform.runLater(() -> {
+                if (selectedUser != user) {
+                    return; // Another conversation was opened meanwhile
+                }
+                if (newer.size() >= ChatService.MAX_DELTA_MESSAGES) {
+                    loadChatHistory(); // Too far behind for a delta
+                    return;
+                }
+                int added = 0;
+                for (ChatMessage message : newer) {
+                    // Own sends still waiting for their ack are already on screen
+                    if (displayedMessageIds.contains(message.getMessageId())
+                            || (message.getClientMessageId() != null && pendingMessages.containsKey(message.getClientMessageId()))) {
+                        continue;
+                    }
+                    addMessageToUI(message);
+                    added++;
+                }
+                logger.info("Refreshed chat with {}: {} new message(s) after {}", user.getUsername(), added, afterId);
+                if (added > 0) {
+                    chatService.markMessagesAsRead(user.getUserId(), currentAdmin.getUserId());
+                }
+            });
+        });
+    }
+
+    /**
+     * Prepend the page of messages before the oldest one shown
+     */
+    private void loadOlderMessages() {
+        if (selectedUser == null || loadingOlderMessages || !hasOlderMessages || oldestLoadedMessageId == null) {
+            return;
+        }
+        loadingOlderMessages = true;
+
+        User user = selectedUser;
+        int beforeId = oldestLoadedMessageId;
+        if (!AppExecutors.getInstance().execute(() -> {
+            List<ChatMessage> older = chatService.getMessagesBefore(
+                currentAdmin.getUserId(), user.getUserId(), beforeId, HISTORY_PAGE_SIZE);
+            Platform.runLater(() -> {
+                if (selectedUser != user) {
+                    loadingOlderMessages = false;
+                    return; // Another conversation was opened meanwhile
+                }
+                hasOlderMessages = older.size() == HISTORY_PAGE_SIZE;
+                if (older.isEmpty()) {
+                    loadingOlderMessages = false;
+                    return;
+                }
+
+                List<Node> nodes = new ArrayList<>();
+                for (ChatMessage message : older) {
+                    HBox messageRow = createMessageRow(message);
+                    if (messageRow != null) {
+                        nodes.add(messageRow);
+                        displayedMessageIds.add(message.getMessageId());
+                    }
+                }
+                oldestLoadedMessageId = older.get(0).getMessageId();
+                // The height listener restores the scroll position and clears loadingOlderMessages
+                messagesContainer.getChildren().addAll(0, nodes);
+                logger.info("Loaded {} older message(s) before {}", older.size(), beforeId);
+            });
+        })) {
+            loadingOlderMessages = false;
+        }
+    }
+
+    /**
+     * Keep the messages that were in view in place after content was added above them
+     */
+    private void keepScrollPosition(double addedHeight, double contentHeight) {
+        loadingOlderMessages = false;
+        double scrollable = contentHeight - messagesScrollPane.getViewportBounds().getHeight();
+        if (scrollable > 0) {
+            messagesScrollPane.setVvalue(Math.min(1.0, addedHeight / scrollable));
+        }
+    }
+
     /**
      * Add message to UI (Zalo-style compact design)
      */
     private void addMessageToUI(ChatMessage message) {
+        HBox messageRow = createMessageRow(message);
+        if (messageRow == null) {
+            return;
+        }
+        messagesContainer.getChildren().add(messageRow);
+        trackDisplayedMessage(message);
+
+        // Auto-scroll to bottom after adding message
+        Platform.runLater(() -> {
+            messagesScrollPane.setVvalue(1.0);
+        });
+    }
+
+    /**
+     * Remember a stored message as shown; unsaved messages (id 0) are tracked on their ack
+     */
+    private void trackDisplayedMessage(ChatMessage message) {
+        int messageId = message.getMessageId();
+        if (messageId <= 0) {
+            return;
+        }
+        displayedMessageIds.add(messageId);
+        if (newestLoadedMessageId == null || messageId > newestLoadedMessageId) {
+            newestLoadedMessageId = messageId;
+        }
+        if (oldestLoadedMessageId == null) {
+            oldestLoadedMessageId = messageId;
+        }
+    }
+
+    /**
+     * Build the row for a message
+     */
+    private HBox createMessageRow(ChatMessage message) {
         try {
             // Determine if message is from admin (current user)
             boolean isFromAdmin = message.getSenderId() == currentAdmin.getUserId();
@@ -394,15 +577,11 @@ public class AdminChatController implements WebSocketMessageListener {
             }
 
             messageRow.getChildren().add(messageBubble);
-            messagesContainer.getChildren().add(messageRow);
-
-            // Auto-scroll to bottom after adding message
-            Platform.runLater(() -> {
-                messagesScrollPane.setVvalue(1.0);
-            });
+            return messageRow;
 
         } catch (Exception e) {
             logger.error("Error adding message to UI", e);
+            return null;
         }
     }
 
@@ -465,20 +644,6 @@ public class AdminChatController implements WebSocketMessageListener {
      */
     private VBox createCompactImagePreview(ChatFile file, boolean isFromAdmin) {
         try {
-            // Load image data
-            byte[] imageData = chatService.getFileData(file.getFilePath());
-            if (imageData == null) {
-                logger.error("Could not load image data for: {}", file.getOriginalFileName());
-                return null;
-            }
-
-            // Create image from byte array
-            Image image = new Image(new java.io.ByteArrayInputStream(imageData));
-            if (image.isError()) {
-                logger.error("Error loading image: {}", file.getOriginalFileName());
-                return null;
-            }
-
             VBox imageContainer = new VBox(3);
             imageContainer.setAlignment(Pos.CENTER_LEFT);
             imageContainer.setMaxWidth(200);
@@ -506,26 +671,13 @@ public class AdminChatController implements WebSocketMessageListener {
 
             headerBox.getChildren().addAll(iconLabel, nameLabel, downloadButton);
 
-            // Image preview (compact)
-            ImageView imageView = new ImageView(image);
-
-            // Calculate appropriate size (max 180px width for compact view)
-            double maxWidth = 180;
-            double maxHeight = 120;
-
-            double imageWidth = image.getWidth();
-            double imageHeight = image.getHeight();
-
-            if (imageWidth > maxWidth || imageHeight > maxHeight) {
-                double widthRatio = maxWidth / imageWidth;
-                double heightRatio = maxHeight / imageHeight;
-                double ratio = Math.min(widthRatio, heightRatio);
-
-                imageView.setFitWidth(imageWidth * ratio);
-                imageView.setFitHeight(imageHeight * ratio);
-            } else {
-                imageView.setFitWidth(imageWidth);
-                imageView.setFitHeight(imageHeight);
+            // Image preview (compact) from the stored thumbnail, made on a worker if it is missing
+            ImageView imageView = new ImageView();
+            Image image = ImageCache.getInstance().getThumbnail(
+                Paths.get(file.getFilePath()), ThumbnailService.Size.CHAT_PREVIEW,
+                loaded -> showCompactImagePreview(imageView, loaded, file));
+            if (image != null) {
+                showCompactImagePreview(imageView, image, file);
             }
 
             imageView.setPreserveRatio(true);
@@ -535,7 +687,7 @@ public class AdminChatController implements WebSocketMessageListener {
             // Click to view full size
             imageView.setOnMouseClicked(e -> {
                 if (e.getClickCount() == 1) {
-                    showFullSizeImage(image, file.getOriginalFileName());
+                    openFullSizeImage(file);
                 }
             });
 
@@ -554,6 +706,50 @@ public class AdminChatController implements WebSocketMessageListener {
         }
     }
 
+    /**
+     * Show a preview image scaled to at most 180x120, keeping its aspect ratio; hide the
+     * preview if the image could not be read
+     */
+    private void showCompactImagePreview(ImageView imageView, Image image, ChatFile file) {
+        if (image == null) {
+            logger.error("Could not load image preview for: {}", file.getOriginalFileName());
+            imageView.setVisible(false);
+            imageView.setManaged(false);
+            return;
+        }
+
+        double maxWidth = 180;
+        double maxHeight = 120;
+        double ratio = Math.min(1.0, Math.min(maxWidth / image.getWidth(), maxHeight / image.getHeight()));
+        imageView.setFitWidth(image.getWidth() * ratio);
+        imageView.setFitHeight(image.getHeight() * ratio);
+        imageView.setImage(image);
+    }
+
+    /**
+     * Decode the original image only when it is opened
+     */
+    private void openFullSizeImage(ChatFile file) {
+        if (needsFetch(file)) {
+            fetchAttachment(file, () -> openFullSizeImage(file));
+            return;
+        }
+        try (java.io.InputStream imageStream = chatService.openFileStream(file.getFilePath())) {
+            if (imageStream == null) {
+                showAlert("Error", "File not found or corrupted.");
+                return;
+            }
+            Image image = new Image(imageStream);
+            if (image.isError()) {
+                logger.error("Error loading image: {}", file.getOriginalFileName());
+                return;
+            }
+            showFullSizeImage(image, file.getOriginalFileName());
+        } catch (IOException e) {
+            logger.error("Error opening image: {}", file.getOriginalFileName(), e);
+        }
+    }
+
     /**
      * Show full size image in a new window
      */
@@ -644,6 +840,24 @@ public class AdminChatController implements WebSocketMessageListener {
             );
             chatMessage.setSenderRole(currentAdmin.getRole());
 
+            String clientMessageId = WebSocketClient.newMessageId();
+            chatMessage.setClientMessageId(clientMessageId);
+
+            // Text-only messages are stored by the chat server, which acks with the message_id
+            if (selectedFiles.isEmpty() && webSocketClient.isConnected()) {
+                pendingMessages.put(clientMessageId, chatMessage);
+                if (webSocketClient.sendChatMessage(clientMessageId, actualMessageText, selectedUser.getUserId())) {
+                    Platform.runLater(() -> {
+                        addMessageToUI(chatMessage);
+                        messageTextArea.clear();
+                    });
+                    logger.info("Admin message {} sent to user {}, waiting for server ack",
+                               clientMessageId, selectedUser.getUsername());
+                    return;
+                }
+                pendingMessages.remove(clientMessageId);
+            }
+
             // Save to database
             ChatMessage savedMessage = chatService.saveChatMessage(chatMessage);
             if (savedMessage != null) {
@@ -651,19 +865,19 @@ public class AdminChatController implements WebSocketMessageListener {
                 if (!selectedFiles.isEmpty()) {
                     for (File file : selectedFiles) {
                         try {
-                            byte[] fileData = Files.readAllBytes(file.toPath());
                             String fileType = Files.probeContentType(file.toPath());
 
                             ChatFile chatFile = chatService.saveChatFile(
                                 savedMessage.getMessageId(),
                                 file.getName(),
-                                fileData,
+                                file.toPath(),
                                 fileType,
                                 currentAdmin.getUserId()
                             );
 
                             if (chatFile != null) {
                                 savedMessage.addAttachment(chatFile);
+                                shareWithChatServer(chatFile);
                             }
                         } catch (IOException e) {
                             logger.error("Error processing file: {}", file.getName(), e);
@@ -688,8 +902,9 @@ public class AdminChatController implements WebSocketMessageListener {
 
                 // Send via WebSocket - Only send notification with the actual message content
                 // This prevents sending empty messages when only files are attached
+                // The same message id lets the server recognise the row that is already stored
                 logger.info("Notifying user about new message via WebSocket with text: '{}'", actualMessageText);
-                webSocketClient.sendChatMessage(actualMessageText, selectedUser.getUserId());
+                webSocketClient.sendChatMessage(clientMessageId, actualMessageText, selectedUser.getUserId());
 
                 logger.info("Admin message sent to user: {}", selectedUser.getUsername());
             }
@@ -773,7 +988,7 @@ public class AdminChatController implements WebSocketMessageListener {
             if (isImage) {
                 // Create image preview
                 try {
-                    Image image = new Image(file.toURI().toString());
+                    Image image = new Image(file.toURI().toString(), 80, 60, true, true);
                     if (!image.isError()) {
                         ImageView imageView = new ImageView(image);
                         imageView.setFitWidth(80);
@@ -889,12 +1104,10 @@ public class AdminChatController implements WebSocketMessageListener {
             File saveFile = fileChooser.showSaveDialog(stage);
 
             if (saveFile != null) {
-                byte[] fileData = chatService.getFileData(file.getFilePath());
-                if (fileData != null) {
-                    Files.write(saveFile.toPath(), fileData);
-                    showAlert("Success", "File downloaded successfully!");
+                if (needsFetch(file)) {
+                    fetchAttachment(file, () -> saveFileCopy(file, saveFile));
                 } else {
-                    showAlert("Error", "File not found or corrupted.");
+                    saveFileCopy(file, saveFile);
                 }
             }
 
@@ -904,6 +1117,50 @@ public class AdminChatController implements WebSocketMessageListener {
         }
     }
 
+    private void saveFileCopy(ChatFile file, File saveFile) {
+        if (chatService.copyFile(file.getFilePath(), saveFile.toPath())) {
+            showAlert("Success", "File downloaded successfully!");
+        } else {
+            showAlert("Error", "File not found or corrupted.");
+        }
+    }
+
+    /**
+     * Push a new attachment to the chat server's store, for clients on other machines
+     */
+    private void shareWithChatServer(ChatFile chatFile) {
+        if (webSocketClient.isConnected()) {
+            webSocketClient.uploadAttachment(chatFile.getFileName(), Paths.get(chatFile.getFilePath()))
+                .exceptionally(error -> {
+                    logger.warn("Could not upload {} to chat server: {}", chatFile.getOriginalFileName(), error.getMessage());
+                    return null;
+                });
+        }
+    }
+
+    /**
+     * Whether an attachment was uploaded from another machine and has to be fetched first
+     */
+    private boolean needsFetch(ChatFile file) {
+        return !Files.exists(Paths.get(file.getFilePath())) && webSocketClient.isConnected();
+    }
+
+    /**
+     * Fetch an attachment from the chat server into the local store, then run the action on the FX thread
+     */
+    private void fetchAttachment(ChatFile file, Runnable action) {
+        webSocketClient.downloadAttachment(file.getFileName(), file.getFileSize())
+            .whenComplete((path, error) -> {
+                if (error == null && Files.exists(Paths.get(file.getFilePath()))) {
+                    Platform.runLater(action);
+                } else {
+                    logger.warn("Could not fetch {}: {}", file.getOriginalFileName(),
+                               error != null ? error.getMessage() : "stored under another path");
+                    showAlert("Error", "File not found or corrupted.");
+                }
+            });
+    }
+
     /**
      * Filter users based on search text
      */
@@ -918,7 +1175,7 @@ public class AdminChatController implements WebSocketMessageListener {
     private void updateStats() {
         // Calculate total messages and unread count
         final int totalMessages = 0; // TODO: Calculate actual total messages
-        final int totalUnread = unreadCounts.values().stream().mapToInt(Integer::intValue).sum();
+        final int totalUnread = conversations.values().stream().mapToInt(ConversationSummary::getUnreadCount).sum();
 
         Platform.runLater(() -> {
             totalMessagesLabel.setText(totalMessages + " messages");
@@ -934,7 +1191,7 @@ public class AdminChatController implements WebSocketMessageListener {
     private void refreshData() {
         loadAllUsers();
         if (selectedUser != null) {
-            loadChatHistory();
+            refreshChatHistory();
         }
     }
 
@@ -971,6 +1228,7 @@ public class AdminChatController implements WebSocketMessageListener {
             alert.showAndWait().ifPresent(response -> {
                 if (response == ButtonType.OK) {
                     messagesContainer.getChildren().clear();
+                    hasOlderMessages = false;
                     // TODO: Implement database chat clearing
                 }
             });
@@ -1004,7 +1262,7 @@ public class AdminChatController implements WebSocketMessageListener {
         try {
             if (currentAdmin != null) {
                 webSocketClient.addMessageListener(this);
-                boolean connected = webSocketClient.connect(
+                boolean connected = webSocketClient.ensureConnected(
                     currentAdmin.getUserId(),
                     currentAdmin.getUsername(),
                     true // isAdmin = true
@@ -1048,6 +1306,16 @@ public class AdminChatController implements WebSocketMessageListener {
                         connectionStatusLabel.setText("🟢 Connected");
                         connectionStatusLabel.setStyle("-fx-text-fill: #28a745;");
                         break;
+                    case MESSAGE_ACK:
+                        handleMessageAck(message);
+                        break;
+                    case HISTORY_GAP:
+                        // The server could not replay everything missed while disconnected
+                        refreshChatHistory();
+                        break;
+                    case ERROR:
+                        handleMessageError(message);
+                        break;
                 }
             } catch (Exception e) {
                 logger.error("Error handling WebSocket message", e);
@@ -1066,6 +1334,7 @@ public class AdminChatController implements WebSocketMessageListener {
 
     @Override
     public void onDisconnected() {
+        storeUnacknowledgedMessages(new ArrayList<>(pendingMessages.keySet()));
         Platform.runLater(() -> {
             connectionStatusLabel.setText("🔴 Disconnected");
             connectionStatusLabel.setStyle("-fx-text-fill: #dc3545;");
@@ -1081,6 +1350,58 @@ public class AdminChatController implements WebSocketMessageListener {
         });
     }
 
+    /**
+     * Server stored a sent message; record its message_id
+     */
+    private void handleMessageAck(com.example.taskmanagerv3.websocket.ChatMessage ack) {
+        ChatMessage pending = pendingMessages.remove(ack.getMessageId());
+        if (pending != null && ack.getData() instanceof Integer) {
+            pending.setMessageId((Integer) ack.getData());
+            if (selectedUser != null && pending.getReceiverId() == selectedUser.getUserId()) {
+                trackDisplayedMessage(pending);
+            }
+            logger.debug("Message {} stored as {}", ack.getMessageId(), pending.getMessageId());
+        }
+    }
+
+    /**
+     * Server could not store a sent message; store it from here
+     */
+    private void handleMessageError(com.example.taskmanagerv3.websocket.ChatMessage error) {
+        logger.warn("Server error for message {}: {}", error.getMessageId(), error.getData());
+        if (error.getMessageId() != null) {
+            storeUnacknowledgedMessages(List.of(error.getMessageId()));
+        }
+    }
+
+    /**
+     * Save sent messages the server has not acknowledged. Saves are keyed by message id,
+     * so a message the server did store before its ack was lost is not duplicated.
+     */
+    private void storeUnacknowledgedMessages(List<String> clientMessageIds) {
+        List<ChatMessage> unacknowledged = new ArrayList<>();
+        for (String clientMessageId : clientMessageIds) {
+            ChatMessage pending = pendingMessages.remove(clientMessageId);
+            if (pending != null) {
+                unacknowledged.add(pending);
+            }
+        }
+        if (unacknowledged.isEmpty()) {
+            return;
+        }
+
+        if (!AppExecutors.getInstance().execute(() -> {
+            for (ChatMessage message : unacknowledged) {
+                if (chatService.saveChatMessage(message) == null) {
+                    logger.error("Failed to store unacknowledged message {}", message.getClientMessageId());
+                }
+            }
+        })) {
+            // Keep them pending so the next disconnect or error tries again
+            unacknowledged.forEach(message -> pendingMessages.put(message.getClientMessageId(), message));
+        }
+    }
+
     /**
      * Handle incoming chat message from WebSocket
      */
@@ -1120,33 +1441,35 @@ public class AdminChatController implements WebSocketMessageListener {
                        chatMessage.getReceiverName(), chatMessage.getReceiverId(),
                        chatMessage.getMessage());
 
-            // Check for duplicate messages before saving
-            boolean isDuplicate = chatService.isDuplicateMessage(
-                chatMessage.getSenderId(),
-                chatMessage.getReceiverId(),
-                chatMessage.getMessage(),
-                chatMessage.getTimestamp()
-            );
-
-            if (isDuplicate) {
-                logger.warn("Admin - Duplicate message detected - IGNORING to prevent database duplication");
-                return;
+            // The server stores relayed messages and sends the assigned message_id along
+            ChatMessage savedMessage;
+            if (wsMessage.getPersistedId() != null) {
+                chatMessage.setMessageId(wsMessage.getPersistedId());
+                savedMessage = chatMessage;
+            } else {
+                // Not stored by the server; keyed by message id so the sender's own save cannot duplicate it
+                chatMessage.setClientMessageId(wsMessage.getMessageId());
+                savedMessage = chatService.saveChatMessage(chatMessage);
             }
 
-            // Save message to database
-            ChatMessage savedMessage = chatService.saveChatMessage(chatMessage);
             if (savedMessage != null) {
-                logger.info("Admin - Saved incoming message to database: ID={}", savedMessage.getMessageId());
+                logger.info("Admin - Incoming message stored: ID={}", savedMessage.getMessageId());
 
                 // Add to UI if this is the selected user
                 if (selectedUser != null && selectedUser.getUserId() == wsMessage.getSenderId()) {
                     addMessageToUI(savedMessage);
+                    if (conversations.containsKey(wsMessage.getSenderId())) {
+                        conversations.get(wsMessage.getSenderId()).recordMessage(savedMessage);
+                    }
                     // Mark as read
                     chatService.markMessagesAsRead(wsMessage.getSenderId(), currentAdmin.getUserId());
                 } else {
                     // Update unread count
-                    int currentUnread = unreadCounts.getOrDefault(wsMessage.getSenderId(), 0);
-                    unreadCounts.put(wsMessage.getSenderId(), currentUnread + 1);
+                    ConversationSummary summary = conversations.get(wsMessage.getSenderId());
+                    if (summary != null) {
+                        summary.recordMessage(savedMessage);
+                        summary.setUnreadCount(summary.getUnreadCount() + 1);
+                    }
                     updateUsersDisplay();
                     updateStats();
                 }
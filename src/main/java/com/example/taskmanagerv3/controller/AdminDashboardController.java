@@ -3,11 +3,17 @@ package com.example.taskmanagerv3.controller;
 import com.example.taskmanagerv3.controller.CreateTaskController;
 import com.example.taskmanagerv3.controller.CreateUserController;
 import com.example.taskmanagerv3.model.PasswordResetRequest;
+import com.example.taskmanagerv3.model.TaskChangeEvent;
 import com.example.taskmanagerv3.model.User;
 import com.example.taskmanagerv3.service.PasswordResetService;
 import com.example.taskmanagerv3.service.UserService;
 import com.example.taskmanagerv3.service.TaskService;
 import com.example.taskmanagerv3.util.SessionManager;
+import com.example.taskmanagerv3.util.ViewScope;
+import com.example.taskmanagerv3.websocket.ChatMessage;
+import com.example.taskmanagerv3.websocket.MessageType;
+import com.example.taskmanagerv3.websocket.WebSocketClient;
+import com.example.taskmanagerv3.websocket.WebSocketMessageListener;
 import javafx.application.Platform;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
@@ -24,12 +30,15 @@ import org.slf4j.LoggerFactory;
 import java.io.IOException;
 import java.time.format.DateTimeFormatter;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Controller for Admin Dashboard
  */
-public class AdminDashboardController {
+public class AdminDashboardController implements WebSocketMessageListener {
     private static final Logger logger = LoggerFactory.getLogger(AdminDashboardController.class);
+    // Task changes are pushed while connected to the chat server; polled only while not
+    private static final int FALLBACK_POLL_SECONDS = 60;
 
     // Header components
     @FXML private Label welcomeLabel;
@@ -77,6 +86,18 @@ public class AdminDashboardController {
     private TaskService taskService;
     private PasswordResetService passwordResetService;
     private SessionManager sessionManager;
+    private WebSocketClient webSocketClient;
+    // Set when the connection drops, so the reconnect reloads what was missed meanwhile
+    private volatile boolean missedTaskChanges;
+    // Clock, polling and loads; stopped when the dashboard is replaced
+    private final ViewScope viewScope = new ViewScope("admin-dashboard");
+
+    // Task counts on the cards, re-read on task change events
+    private int totalTasks;
+    private int completedTasks;
+    private int pendingTasks;
+    private boolean reloadingTaskCounts;
+    private boolean taskCountsStale;
 
     @FXML
     private void initialize() {
@@ -84,10 +105,13 @@ public class AdminDashboardController {
         taskService = new TaskService();
         passwordResetService = new PasswordResetService();
         sessionManager = SessionManager.getInstance();
+        webSocketClient = WebSocketClient.getInstance();
 
+        viewScope.bindTo(mainContentContainer);
         setupUI();
         loadDashboardData();
         startTimeUpdater();
+        listenForTaskChanges();
 
         logger.info("Admin dashboard initialized for user: {}",
                    sessionManager.getCurrentUsername());
@@ -124,7 +148,7 @@ public class AdminDashboardController {
      */
     private void loadDashboardData() {
         // Load in background thread to avoid blocking UI
-        new Thread(() -> {
+        viewScope.execute(() -> {
             try {
                 // Get user statistics
                 List<User> allUsers = userService.getAllActiveUsers();
@@ -132,16 +156,14 @@ public class AdminDashboardController {
 
                 // Get task statistics
                 TaskService.TaskStatistics taskStats = taskService.getTaskStatistics();
-                int totalTasks = taskStats.getTotalTasks();
-                int completedTasks = taskStats.getCompletedTasks();
-                int pendingTasks = taskStats.getPendingTasks();
 
                 // Update UI on JavaFX thread
                 Platform.runLater(() -> {
                     totalUsersLabel.setText(String.valueOf(totalUsers));
-                    totalTasksLabel.setText(String.valueOf(totalTasks));
-                    completedTasksLabel.setText(String.valueOf(completedTasks));
-                    pendingTasksLabel.setText(String.valueOf(pendingTasks));
+                    totalTasks = taskStats.getTotalTasks();
+                    completedTasks = taskStats.getCompletedTasks();
+                    pendingTasks = taskStats.getPendingTasks();
+                    showTaskCounts();
 
                     loadRecentActivities();
                 });
@@ -152,7 +174,88 @@ public class AdminDashboardController {
                     showAlert("Error", "Failed to load dashboard data: " + e.getMessage());
                 });
             }
-        }).start();
+        });
+    }
+
+    private void showTaskCounts() {
+        totalTasksLabel.setText(String.valueOf(totalTasks));
+        completedTasksLabel.setText(String.valueOf(completedTasks));
+        pendingTasksLabel.setText(String.valueOf(pendingTasks));
+    }
+
+    /**
+     * Receive task change events over the chat server connection, and poll while it is down
+     */
+    private void listenForTaskChanges() {
+        webSocketClient.addMessageListener(this);
+        viewScope.onClose(() -> webSocketClient.removeMessageListener(this));
+
+        User currentUser = sessionManager.getCurrentUser();
+        if (currentUser != null) {
+            viewScope.execute(() -> webSocketClient.ensureConnected(
+                currentUser.getUserId(), currentUser.getUsername(), true));
+        }
+
+        viewScope.scheduleOnFxThread(() -> {
+            if (!webSocketClient.isConnected()) {
+                loadDashboardData();
+            }
+        }, FALLBACK_POLL_SECONDS, FALLBACK_POLL_SECONDS, TimeUnit.SECONDS);
+    }
+
+    @Override
+    public void onMessageReceived(ChatMessage message) {
+        if (message.getType() == MessageType.TASK_CHANGED && message.getData() instanceof TaskChangeEvent) {
+            TaskChangeEvent event = (TaskChangeEvent) message.getData();
+            logger.debug("Received {}", event);
+            Platform.runLater(this::reloadTaskCounts);
+        }
+    }
+
+    @Override
+    public void onConnected() {
+        if (missedTaskChanges) {
+            missedTaskChanges = false;
+            Platform.runLater(this::loadDashboardData);
+        }
+    }
+
+    @Override
+    public void onDisconnected() {
+        missedTaskChanges = true;
+    }
+
+    /**
+     * Re-read the task counts after a pushed change. Events come from other clients and
+     * carry no task data, so the counts are read from the rollup rather than patched.
+     * Changes that arrive while a read is running are picked up by one more read.
+     */
+    private void reloadTaskCounts() {
+        if (viewScope.isClosed()) {
+            return;
+        }
+        if (reloadingTaskCounts) {
+            taskCountsStale = true;
+            return;
+        }
+        reloadingTaskCounts = true;
+        taskCountsStale = false;
+
+        if (!viewScope.execute(() -> {
+            TaskService.TaskStatistics taskStats = taskService.getTaskStatistics();
+            Platform.runLater(() -> {
+                reloadingTaskCounts = false;
+                totalTasks = taskStats.getTotalTasks();
+                completedTasks = taskStats.getCompletedTasks();
+                pendingTasks = taskStats.getPendingTasks();
+                showTaskCounts();
+                if (taskCountsStale) {
+                    reloadTaskCounts();
+                }
+            });
+        })) {
+            reloadingTaskCounts = false;
+        }
     }
 
     /**
@@ -171,27 +274,12 @@ public class AdminDashboardController {
     }
 
     /**
-     * Start time updater thread
+     * Tick the clock every second on the shared scheduler
      */
     private void startTimeUpdater() {
-        Thread timeUpdater = new Thread(() -> {
-            while (!Thread.currentThread().isInterrupted()) {
-                try {
-                    Platform.runLater(() -> {
-                        currentTimeLabel.setText(
-                            java.time.LocalDateTime.now()
-                                .format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss"))
-                        );
-                    });
-                    Thread.sleep(1000);
-                } catch (InterruptedException e) {
-                    Thread.currentThread().interrupt();
-                    break;
-                }
-            }
-        });
-        timeUpdater.setDaemon(true);
-        timeUpdater.start();
+        DateTimeFormatter format = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+        viewScope.scheduleOnFxThread(() -> currentTimeLabel.setText(java.time.LocalDateTime.now().format(format)),
+            0, 1, TimeUnit.SECONDS);
     }
 
     /**
@@ -1,12 +1,13 @@
 package com.example.taskmanagerv3.controller;
 
 import com.example.taskmanagerv3.model.Task;
-import com.example.taskmanagerv3.model.TaskStatus;
 import com.example.taskmanagerv3.model.User;
 import com.example.taskmanagerv3.service.TaskService;
 import com.example.taskmanagerv3.service.UserService;
 import com.example.taskmanagerv3.service.StatisticsExportService;
 import com.example.taskmanagerv3.service.LogExportService;
+import com.example.taskmanagerv3.util.AppExecutors;
+import com.example.taskmanagerv3.util.TaskTablePager;
 import javafx.application.Platform;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
@@ -25,13 +26,14 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
 
 /**
  * Controller for Admin Reports Interface
  */
 public class AdminReportsController {
     private static final Logger logger = LoggerFactory.getLogger(AdminReportsController.class);
+    private static final int TASK_REPORT_PAGE_SIZE = 200;
 
     // Navigation buttons
     @FXML private Button overviewButton;
@@ -106,6 +108,8 @@ public class AdminReportsController {
     private TaskService taskService;
     private StatisticsExportService statisticsExportService;
     private LogExportService logExportService;
+    private Map<Integer, TaskService.UserWorkload> userWorkloads = Map.of();
+    private TaskTablePager taskReportPager;
 
     @FXML
     private void initialize() {
@@ -163,6 +167,15 @@ public class AdminReportsController {
         // User Stats Table
         userNameColumn.setCellValueFactory(new PropertyValueFactory<>("displayName"));
         userRoleColumn.setCellValueFactory(new PropertyValueFactory<>("role"));
+        userTasksColumn.setCellValueFactory(cellData ->
+            new javafx.beans.property.SimpleObjectProperty<>(
+                getWorkload(cellData.getValue()).getTotalTasks()));
+        userCompletedColumn.setCellValueFactory(cellData ->
+            new javafx.beans.property.SimpleObjectProperty<>(
+                getWorkload(cellData.getValue()).getCompletedTasks()));
+        userCompletionRateColumn.setCellValueFactory(cellData ->
+            new javafx.beans.property.SimpleStringProperty(
+                String.format("%.0f%%", getWorkload(cellData.getValue()).getCompletionRate())));
         userLastLoginColumn.setCellValueFactory(cellData -> {
             if (cellData.getValue().getLastLogin() != null) {
                 return new javafx.beans.property.SimpleStringProperty(
@@ -185,22 +198,29 @@ public class AdminReportsController {
         taskProgressColumn.setCellValueFactory(cellData ->
             new javafx.beans.property.SimpleStringProperty(
                 String.format("%.0f%%", cellData.getValue().getProgressPercentage())));
+
+        // Pages of tasks load as the table is scrolled near the bottom
+        taskReportPager = new TaskTablePager(taskStatsTable, taskService, TASK_REPORT_PAGE_SIZE,
+            e -> showAlert("Error", "Failed to load task report: " + e.getMessage()));
     }
 
     /**
      * Load report data
      */
     private void loadReportData() {
-        new Thread(() -> {
+        // The newest page of task summaries loads alongside the aggregates
+        taskReportPager.reload(new TaskService.TaskQuery(), null);
+
+        AppExecutors.getInstance().execute(() -> {
             try {
-                // Load users and tasks
+                // Load users and aggregate counts
                 List<User> users = userService.getAllActiveUsers();
-                List<Task> tasks = taskService.getAllTasks();
+                TaskService.TaskStatistics taskStatistics = taskService.getTaskStatistics();
+                Map<Integer, TaskService.UserWorkload> workloads = taskService.getUserWorkloads();
 
                 Platform.runLater(() -> {
-                    updateSystemOverview(users, tasks);
-                    updateUserReports(users, tasks);
-                    updateTaskReports(tasks);
+                    updateSystemOverview(users, taskStatistics);
+                    updateUserReports(users, workloads);
                     updatePerformanceReports();
                     updateActivityLogs();
                 });
@@ -211,19 +231,17 @@ public class AdminReportsController {
                     showAlert("Error", "Failed to load report data: " + e.getMessage());
                 });
             }
-        }).start();
+        });
     }
 
     /**
      * Update system overview
      */
-    private void updateSystemOverview(List<User> users, List<Task> tasks) {
+    private void updateSystemOverview(List<User> users, TaskService.TaskStatistics taskStatistics) {
         int totalUsers = users.size();
         int activeUsers = (int) users.stream().filter(User::isActive).count();
-        int totalTasks = tasks.size();
-        int completedTasks = (int) tasks.stream()
-            .filter(task -> task.getStatus() == TaskStatus.COMPLETED)
-            .count();
+        int totalTasks = taskStatistics.getTotalTasks();
+        int completedTasks = taskStatistics.getCompletedTasks();
 
         totalUsersLabel.setText(String.valueOf(totalUsers));
         activeUsersLabel.setText(String.valueOf(activeUsers));
@@ -244,31 +262,18 @@ public class AdminReportsController {
     /**
      * Update user reports
      */
-    private void updateUserReports(List<User> users, List<Task> tasks) {
+    private void updateUserReports(List<User> users, Map<Integer, TaskService.UserWorkload> workloads) {
+        userWorkloads = workloads;
         userStatsTable.getItems().clear();
-
-        for (User user : users) {
-            // Calculate user task statistics
-            List<Task> userTasks = tasks.stream()
-                .filter(task -> task.getAssignedUserId() == user.getUserId())
-                .collect(Collectors.toList());
-
-            int totalUserTasks = userTasks.size();
-            int completedUserTasks = (int) userTasks.stream()
-                .filter(task -> task.getStatus() == TaskStatus.COMPLETED)
-                .count();
-
-            // Set calculated values (in a real app, you'd extend the User model or create a UserStats class)
-            userStatsTable.getItems().add(user);
-        }
+        userStatsTable.getItems().addAll(users);
     }
 
     /**
-     * Update task reports
+     * Get task counts for a user row, empty if the user has no tasks
      */
-    private void updateTaskReports(List<Task> tasks) {
-        taskStatsTable.getItems().clear();
-        taskStatsTable.getItems().addAll(tasks);
+    private TaskService.UserWorkload getWorkload(User user) {
+        TaskService.UserWorkload workload = userWorkloads.get(user.getUserId());
+        return workload != null ? workload : new TaskService.UserWorkload(user.getUserId());
     }
 
     /**
@@ -371,12 +376,13 @@ public class AdminReportsController {
         File selectedFile = fileChooser.showSaveDialog(stage);
 
         if (selectedFile != null) {
-            new Thread(() -> {
+            if (!AppExecutors.getInstance().execute(() -> {
                 try {
-                    List<Task> tasks = taskService.getAllTasks();
                     List<User> users = userService.getAllActiveUsers();
 
-                    boolean success = statisticsExportService.exportStatisticsToExcel(selectedFile, tasks, users);
+                    // Tasks are streamed from the database into the workbook rather than loaded first
+                    boolean success = statisticsExportService.exportStatisticsToExcel(
+                        selectedFile, new TaskService.TaskQuery(), users);
 
                     Platform.runLater(() -> {
                         if (success) {
@@ -391,7 +397,9 @@ public class AdminReportsController {
                         showAlert("Error", "Failed to export report: " + e.getMessage());
                     });
                 }
-            }).start();
+            })) {
+                showAlert("Error", "The application is busy, please try again");
+            }
         }
     }
 
@@ -410,7 +418,7 @@ public class AdminReportsController {
         File selectedFile = fileChooser.showSaveDialog(stage);
 
         if (selectedFile != null) {
-            new Thread(() -> {
+            if (!AppExecutors.getInstance().execute(() -> {
                 LocalDateTime fromDateTime = fromDatePicker.getValue().atStartOfDay();
                 LocalDateTime toDateTime = toDatePicker.getValue().atTime(23, 59, 59);
 
@@ -423,7 +431,9 @@ public class AdminReportsController {
                         showAlert("Error", "Failed to export logs");
                     }
                 });
-            }).start();
+            })) {
+                showAlert("Error", "The application is busy, please try again");
+            }
         }
     }
 
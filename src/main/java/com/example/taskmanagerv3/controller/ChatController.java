@@ -4,14 +4,18 @@ import com.example.taskmanagerv3.model.ChatFile;
 import com.example.taskmanagerv3.model.ChatMessage;
 import com.example.taskmanagerv3.model.User;
 import com.example.taskmanagerv3.service.ChatService;
+import com.example.taskmanagerv3.service.ThumbnailService;
 import com.example.taskmanagerv3.websocket.WebSocketClient;
 import com.example.taskmanagerv3.websocket.WebSocketMessageListener;
 import com.example.taskmanagerv3.websocket.MessageType;
+import com.example.taskmanagerv3.util.AppExecutors;
+import com.example.taskmanagerv3.util.ImageCache;
 import com.example.taskmanagerv3.util.SessionManager;
 import javafx.application.Platform;
 import javafx.fxml.FXML;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
+import javafx.scene.Node;
 import javafx.scene.control.*;
 import javafx.scene.image.Image;
 import javafx.scene.image.ImageView;
@@ -26,16 +30,22 @@ import org.slf4j.LoggerFactory;
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
+import java.nio.file.Paths;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Controller for chat functionality
  */
 public class ChatController implements WebSocketMessageListener {
     private static final Logger logger = LoggerFactory.getLogger(ChatController.class);
+    private static final int HISTORY_PAGE_SIZE = 50;
 
     // FXML Components
     @FXML private Label connectionStatusLabel;
@@ -66,6 +76,14 @@ public class ChatController implements WebSocketMessageListener {
     private int currentAdminId = -1; // Default admin to chat with
     private List<File> selectedFiles;
     private boolean isTyping = false;
+    // Messages the chat server is storing, by message id, until its MESSAGE_ACK arrives
+    private final Map<String, ChatMessage> pendingMessages = new ConcurrentHashMap<>();
+    // Stored messages on screen, so a delta refresh does not add them twice
+    private final Set<Integer> displayedMessageIds = new HashSet<>();
+    private Integer oldestLoadedMessageId;
+    private Integer newestLoadedMessageId;
+    private boolean hasOlderMessages = false;
+    private boolean loadingOlderMessages = false;
 
     @FXML
     private void initialize() {
@@ -119,10 +137,21 @@ public class ChatController implements WebSocketMessageListener {
         bugReportButton.setOnAction(e -> sendQuickMessage("🐛 I found a bug that needs to be reported."));
         featureRequestButton.setOnAction(e -> sendQuickMessage("💡 I have a feature request to discuss."));
 
-        // Auto-scroll to bottom
+        // Auto-scroll to bottom, except when older messages were prepended
         messagesContainer.heightProperty().addListener((obs, oldHeight, newHeight) -> {
+            if (loadingOlderMessages) {
+                keepScrollPosition(newHeight.doubleValue() - oldHeight.doubleValue(), newHeight.doubleValue());
+                return;
+            }
             Platform.runLater(() -> messagesScrollPane.setVvalue(1.0));
         });
+
+        // Infinite scroll: reaching the top loads the previous page
+        messagesScrollPane.vvalueProperty().addListener((obs, oldValue, newValue) -> {
+            if (newValue.doubleValue() <= messagesScrollPane.getVmin() && oldValue.doubleValue() > newValue.doubleValue()) {
+                loadOlderMessages();
+            }
+        });
     }
 
     /**
@@ -174,12 +203,17 @@ public class ChatController implements WebSocketMessageListener {
             logger.info("=== LOADING CHAT HISTORY ===");
             logger.info("Current user ID: {}, Admin ID: {}", currentUser.getUserId(), currentAdminId);
 
-            List<ChatMessage> messages = chatService.getChatMessages(currentUser.getUserId(), currentAdminId, 50);
+            List<ChatMessage> messages = chatService.getChatMessages(currentUser.getUserId(), currentAdminId, HISTORY_PAGE_SIZE);
 
             logger.info("Retrieved {} messages from database", messages.size());
 
             Platform.runLater(() -> {
                 messagesContainer.getChildren().clear();
+                displayedMessageIds.clear();
+                oldestLoadedMessageId = messages.isEmpty() ? null : messages.get(0).getMessageId();
+                newestLoadedMessageId = null;
+                hasOlderMessages = messages.size() == HISTORY_PAGE_SIZE;
+                loadingOlderMessages = false;
                 logger.info("Cleared messages container, adding {} messages to UI", messages.size());
 
                 // Add welcome message if no history
@@ -279,6 +313,23 @@ public class ChatController implements WebSocketMessageListener {
                        currentUser.getFullName(), currentUser.getUserId(),
                        adminName, currentAdminId, actualMessageText);
 
+            String clientMessageId = WebSocketClient.newMessageId();
+            chatMessage.setClientMessageId(clientMessageId);
+
+            // Text-only messages are stored by the chat server, which acks with the message_id
+            if (selectedFiles.isEmpty() && webSocketClient.isConnected()) {
+                pendingMessages.put(clientMessageId, chatMessage);
+                if (webSocketClient.sendChatMessage(clientMessageId, actualMessageText, currentAdminId)) {
+                    Platform.runLater(() -> {
+                        addMessageToUI(chatMessage);
+                        messageTextArea.clear();
+                    });
+                    logger.info("Message {} sent, waiting for server ack", clientMessageId);
+                    return;
+                }
+                pendingMessages.remove(clientMessageId);
+            }
+
             // Save to database
             ChatMessage savedMessage = chatService.saveChatMessage(chatMessage);
             if (savedMessage != null) {
@@ -286,19 +337,19 @@ public class ChatController implements WebSocketMessageListener {
                 if (!selectedFiles.isEmpty()) {
                     for (File file : selectedFiles) {
                         try {
-                            byte[] fileData = Files.readAllBytes(file.toPath());
                             String fileType = Files.probeContentType(file.toPath());
 
                             ChatFile chatFile = chatService.saveChatFile(
                                 savedMessage.getMessageId(),
                                 file.getName(),
-                                fileData,
+                                file.toPath(),
                                 fileType,
                                 currentUser.getUserId()
                             );
 
                             if (chatFile != null) {
                                 savedMessage.addAttachment(chatFile);
+                                shareWithChatServer(chatFile);
                             }
                         } catch (IOException e) {
                             logger.error("Error processing file: {}", file.getName(), e);
@@ -329,8 +380,9 @@ public class ChatController implements WebSocketMessageListener {
 
                 // Send via WebSocket - Only send notification with the actual message content
                 // This prevents sending empty messages when only files are attached
+                // The same message id lets the server recognise the row that is already stored
                 logger.info("Notifying admin about new message via WebSocket with text: '{}'", actualMessageText);
-                webSocketClient.sendChatMessage(actualMessageText, currentAdminId);
+                webSocketClient.sendChatMessage(clientMessageId, actualMessageText, currentAdminId);
 
                 logger.info("Message sent successfully");
             }
@@ -414,7 +466,7 @@ public class ChatController implements WebSocketMessageListener {
             if (isImage) {
                 // Create image preview
                 try {
-                    javafx.scene.image.Image image = new javafx.scene.image.Image(file.toURI().toString());
+                    javafx.scene.image.Image image = new javafx.scene.image.Image(file.toURI().toString(), 80, 60, true, true);
                     if (!image.isError()) {
                         javafx.scene.image.ImageView imageView = new javafx.scene.image.ImageView(image);
                         imageView.setFitWidth(80);
@@ -518,10 +570,90 @@ public class ChatController implements WebSocketMessageListener {
     }
 
     /**
-     * Refresh chat
+     * Refresh chat: fetch only messages newer than the newest one shown
      */
     private void refreshChat() {
-        loadChatHistory();
+        if (currentUser == null || currentAdminId == -1) {
+            return;
+        }
+        if (newestLoadedMessageId == null) {
+            loadChatHistory();
+            return;
+        }
+
+        int afterId = newestLoadedMessageId;
+        AppExecutors.getInstance().execute(() -> {
+            List<ChatMessage> newer = chatService.getMessagesAfter(currentUser.getUserId(), currentAdminId, afterId);
+            Platform.runLater(() -> {
+                if (newer.size() >= ChatService.MAX_DELTA_MESSAGES) {
+                    loadChatHistory(); // Too far behind for a delta
+                    return;
+                }
+                int added = 0;
+                for (ChatMessage message : newer) {
+                    // Own sends still waiting for their ack are already on screen
+                    if (displayedMessageIds.contains(message.getMessageId())
+                            || (message.getClientMessageId() != null && pendingMessages.containsKey(message.getClientMessageId()))) {
+                        continue;
+                    }
+                    addMessageToUI(message);
+                    added++;
+                }
+                logger.info("Refreshed chat: {} new message(s) after {}", added, afterId);
+                if (added > 0) {
+                    chatService.markMessagesAsRead(currentAdminId, currentUser.getUserId());
+                }
+            });
+        });
+    }
+
+    /**
+     * Prepend the page of messages before the oldest one shown
+     */
+    private void loadOlderMessages() {
+        if (loadingOlderMessages || !hasOlderMessages || oldestLoadedMessageId == null) {
+            return;
+        }
+        loadingOlderMessages = true;
+
+        int beforeId = oldestLoadedMessageId;
+        if (!AppExecutors.getInstance().execute(() -> {
+            List<ChatMessage> older = chatService.getMessagesBefore(
+                currentUser.getUserId(), currentAdminId, beforeId, HISTORY_PAGE_SIZE);
+            Platform.runLater(() -> {
+                hasOlderMessages = older.size() == HISTORY_PAGE_SIZE;
+                if (older.isEmpty()) {
+                    loadingOlderMessages = false;
+                    return;
+                }
+
+                List<Node> nodes = new ArrayList<>();
+                for (ChatMessage message : older) {
+                    VBox messageBox = createMessageBox(message);
+                    if (messageBox != null) {
+                        nodes.add(messageBox);
+                        displayedMessageIds.add(message.getMessageId());
+                    }
+                }
+                oldestLoadedMessageId = older.get(0).getMessageId();
+                // The height listener restores the scroll position and clears loadingOlderMessages
+                messagesContainer.getChildren().addAll(0, nodes);
+                logger.info("Loaded {} older message(s) before {}", older.size(), beforeId);
+            });
+        })) {
+            loadingOlderMessages = false;
+        }
+    }
+
+    /**
+     * Keep the messages that were in view in place after content was added above them
+     */
+    private void keepScrollPosition(double addedHeight, double contentHeight) {
+        loadingOlderMessages = false;
+        double scrollable = contentHeight - messagesScrollPane.getViewportBounds().getHeight();
+        if (scrollable > 0) {
+            messagesScrollPane.setVvalue(Math.min(1.0, addedHeight / scrollable));
+        }
     }
 
 
@@ -530,6 +662,40 @@ public class ChatController implements WebSocketMessageListener {
      * Add message to UI
      */
     private void addMessageToUI(ChatMessage message) {
+        VBox messageBox = createMessageBox(message);
+        if (messageBox == null) {
+            return;
+        }
+        messagesContainer.getChildren().add(messageBox);
+        trackDisplayedMessage(message);
+
+        // Auto-scroll to bottom to show the new message
+        Platform.runLater(() -> {
+            messagesScrollPane.setVvalue(1.0);
+        });
+    }
+
+    /**
+     * Remember a stored message as shown; unsaved messages (id 0) are tracked on their ack
+     */
+    private void trackDisplayedMessage(ChatMessage message) {
+        int messageId = message.getMessageId();
+        if (messageId <= 0) {
+            return;
+        }
+        displayedMessageIds.add(messageId);
+        if (newestLoadedMessageId == null || messageId > newestLoadedMessageId) {
+            newestLoadedMessageId = messageId;
+        }
+        if (oldestLoadedMessageId == null) {
+            oldestLoadedMessageId = messageId;
+        }
+    }
+
+    /**
+     * Build the bubble for a message
+     */
+    private VBox createMessageBox(ChatMessage message) {
         try {
             VBox messageBox = new VBox(5);
             messageBox.setPadding(new Insets(10));
@@ -603,15 +769,11 @@ public class ChatController implements WebSocketMessageListener {
                            message.isHasAttachments(), message.getAttachments());
             }
 
-            messagesContainer.getChildren().add(messageBox);
-
-            // Auto-scroll to bottom to show the new message
-            Platform.runLater(() -> {
-                messagesScrollPane.setVvalue(1.0);
-            });
+            return messageBox;
 
         } catch (Exception e) {
             logger.error("Error adding message to UI", e);
+            return null;
         }
     }
 
@@ -719,20 +881,6 @@ public class ChatController implements WebSocketMessageListener {
         try {
             logger.info("=== CREATING IMAGE PREVIEW ===");
 
-            // Load image data
-            byte[] imageData = chatService.getFileData(file.getFilePath());
-            if (imageData == null) {
-                logger.error("Could not load image data for: {}", file.getOriginalFileName());
-                return null;
-            }
-
-            // Create image from byte array
-            javafx.scene.image.Image image = new javafx.scene.image.Image(new java.io.ByteArrayInputStream(imageData));
-            if (image.isError()) {
-                logger.error("Error loading image: {}", file.getOriginalFileName());
-                return null;
-            }
-
             VBox imageContainer = new VBox(5);
             imageContainer.setAlignment(Pos.CENTER_LEFT);
             imageContainer.setStyle("-fx-background-color: #f5f5f5; -fx-padding: 10; -fx-background-radius: 8; -fx-border-color: #ddd; -fx-border-width: 1; -fx-border-radius: 8;");
@@ -760,26 +908,14 @@ public class ChatController implements WebSocketMessageListener {
 
             headerBox.getChildren().addAll(iconLabel, fileInfo, downloadButton);
 
-            // Image preview
-            javafx.scene.image.ImageView imageView = new javafx.scene.image.ImageView(image);
-
-            // Calculate appropriate size (max 300px width, maintain aspect ratio)
-            double maxWidth = 300;
-            double maxHeight = 200;
-
-            double imageWidth = image.getWidth();
-            double imageHeight = image.getHeight();
-
-            if (imageWidth > maxWidth || imageHeight > maxHeight) {
-                double widthRatio = maxWidth / imageWidth;
-                double heightRatio = maxHeight / imageHeight;
-                double ratio = Math.min(widthRatio, heightRatio);
-
-                imageView.setFitWidth(imageWidth * ratio);
-                imageView.setFitHeight(imageHeight * ratio);
-            } else {
-                imageView.setFitWidth(imageWidth);
-                imageView.setFitHeight(imageHeight);
+            // Image preview from the stored thumbnail; the full image is only decoded when opened.
+            // Older attachments may have no thumbnail yet; it is made on a worker and shown when ready.
+            javafx.scene.image.ImageView imageView = new javafx.scene.image.ImageView();
+            javafx.scene.image.Image image = ImageCache.getInstance().getThumbnail(
+                Paths.get(file.getFilePath()), ThumbnailService.Size.CHAT_PREVIEW,
+                loaded -> showImagePreview(imageView, loaded, file));
+            if (image != null) {
+                showImagePreview(imageView, image, file);
             }
 
             imageView.setPreserveRatio(true);
@@ -789,7 +925,7 @@ public class ChatController implements WebSocketMessageListener {
             // Click to view full size
             imageView.setOnMouseClicked(e -> {
                 if (e.getClickCount() == 1) {
-                    showFullSizeImage(image, file.getOriginalFileName());
+                    openFullSizeImage(file);
                 }
             });
 
@@ -808,6 +944,50 @@ public class ChatController implements WebSocketMessageListener {
         }
     }
 
+    /**
+     * Show a preview image scaled to at most 300x200, keeping its aspect ratio; hide the
+     * preview if the image could not be read
+     */
+    private void showImagePreview(javafx.scene.image.ImageView imageView, javafx.scene.image.Image image, ChatFile file) {
+        if (image == null) {
+            logger.error("Could not load image preview for: {}", file.getOriginalFileName());
+            imageView.setVisible(false);
+            imageView.setManaged(false);
+            return;
+        }
+
+        double maxWidth = 300;
+        double maxHeight = 200;
+        double ratio = Math.min(1.0, Math.min(maxWidth / image.getWidth(), maxHeight / image.getHeight()));
+        imageView.setFitWidth(image.getWidth() * ratio);
+        imageView.setFitHeight(image.getHeight() * ratio);
+        imageView.setImage(image);
+    }
+
+    /**
+     * Decode the original image only when it is opened
+     */
+    private void openFullSizeImage(ChatFile file) {
+        if (needsFetch(file)) {
+            fetchAttachment(file, () -> openFullSizeImage(file));
+            return;
+        }
+        try (java.io.InputStream imageStream = chatService.openFileStream(file.getFilePath())) {
+            if (imageStream == null) {
+                showAlert("Error", "File not found or corrupted.");
+                return;
+            }
+            javafx.scene.image.Image image = new javafx.scene.image.Image(imageStream);
+            if (image.isError()) {
+                logger.error("Error loading image: {}", file.getOriginalFileName());
+                return;
+            }
+            showFullSizeImage(image, file.getOriginalFileName());
+        } catch (IOException e) {
+            logger.error("Error opening image: {}", file.getOriginalFileName(), e);
+        }
+    }
+
     /**
      * Show full size image in a new window
      */
@@ -867,12 +1047,10 @@ public class ChatController implements WebSocketMessageListener {
             File saveFile = fileChooser.showSaveDialog(stage);
 
             if (saveFile != null) {
-                byte[] fileData = chatService.getFileData(file.getFilePath());
-                if (fileData != null) {
-                    Files.write(saveFile.toPath(), fileData);
-                    showAlert("Success", "File downloaded successfully!");
+                if (needsFetch(file)) {
+                    fetchAttachment(file, () -> saveFileCopy(file, saveFile));
                 } else {
-                    showAlert("Error", "File not found or corrupted.");
+                    saveFileCopy(file, saveFile);
                 }
             }
 
@@ -882,6 +1060,50 @@ public class ChatController implements WebSocketMessageListener {
         }
     }
 
+    private void saveFileCopy(ChatFile file, File saveFile) {
+        if (chatService.copyFile(file.getFilePath(), saveFile.toPath())) {
+            showAlert("Success", "File downloaded successfully!");
+        } else {
+            showAlert("Error", "File not found or corrupted.");
+        }
+    }
+
+    /**
+     * Push a new attachment to the chat server's store, for clients on other machines
+     */
+    private void shareWithChatServer(ChatFile chatFile) {
+        if (webSocketClient.isConnected()) {
+            webSocketClient.uploadAttachment(chatFile.getFileName(), Paths.get(chatFile.getFilePath()))
+                .exceptionally(error -> {
+                    logger.warn("Could not upload {} to chat server: {}", chatFile.getOriginalFileName(), error.getMessage());
+                    return null;
+                });
+        }
+    }
+
+    /**
+     * Whether an attachment was uploaded from another machine and has to be fetched first
+     */
+    private boolean needsFetch(ChatFile file) {
+        return !Files.exists(Paths.get(file.getFilePath())) && webSocketClient.isConnected();
+    }
+
+    /**
+     * Fetch an attachment from the chat server into the local store, then run the action on the FX thread
+     */
+    private void fetchAttachment(ChatFile file, Runnable action) {
+        webSocketClient.downloadAttachment(file.getFileName(), file.getFileSize())
+            .whenComplete((path, error) -> {
+                if (error == null && Files.exists(Paths.get(file.getFilePath()))) {
+                    Platform.runLater(action);
+                } else {
+                    logger.warn("Could not fetch {}: {}", file.getOriginalFileName(),
+                               error != null ? error.getMessage() : "stored under another path");
+                    showAlert("Error", "File not found or corrupted.");
+                }
+            });
+    }
+
     /**
      * Show alert dialog
      */
@@ -902,7 +1124,7 @@ public class ChatController implements WebSocketMessageListener {
         try {
             if (currentUser != null) {
                 webSocketClient.addMessageListener(this);
-                boolean connected = webSocketClient.connect(
+                boolean connected = webSocketClient.ensureConnected(
                     currentUser.getUserId(),
                     currentUser.getUsername(),
                     false // isAdmin = false
@@ -946,6 +1168,16 @@ public class ChatController implements WebSocketMessageListener {
                         connectionStatusLabel.setText("Connected");
                         onlineStatusLabel.setText("🟢 Online");
                         break;
+                    case MESSAGE_ACK:
+                        handleMessageAck(message);
+                        break;
+                    case HISTORY_GAP:
+                        // The server could not replay everything missed while disconnected
+                        refreshChat();
+                        break;
+                    case ERROR:
+                        handleMessageError(message);
+                        break;
                 }
             } catch (Exception e) {
                 logger.error("Error handling WebSocket message", e);
@@ -964,6 +1196,7 @@ public class ChatController implements WebSocketMessageListener {
 
     @Override
     public void onDisconnected() {
+        storeUnacknowledgedMessages(new ArrayList<>(pendingMessages.keySet()));
         Platform.runLater(() -> {
             connectionStatusLabel.setText("Disconnected");
             onlineStatusLabel.setText("🔴 Offline");
@@ -979,6 +1212,56 @@ public class ChatController implements WebSocketMessageListener {
         });
     }
 
+    /**
+     * Server stored a sent message; record its message_id
+     */
+    private void handleMessageAck(com.example.taskmanagerv3.websocket.ChatMessage ack) {
+        ChatMessage pending = pendingMessages.remove(ack.getMessageId());
+        if (pending != null && ack.getData() instanceof Integer) {
+            pending.setMessageId((Integer) ack.getData());
+            trackDisplayedMessage(pending);
+            logger.debug("Message {} stored as {}", ack.getMessageId(), pending.getMessageId());
+        }
+    }
+
+    /**
+     * Server could not store a sent message; store it from here
+     */
+    private void handleMessageError(com.example.taskmanagerv3.websocket.ChatMessage error) {
+        logger.warn("Server error for message {}: {}", error.getMessageId(), error.getData());
+        if (error.getMessageId() != null) {
+            storeUnacknowledgedMessages(List.of(error.getMessageId()));
+        }
+    }
+
+    /**
+     * Save sent messages the server has not acknowledged. Saves are keyed by message id,
+     * so a message the server did store before its ack was lost is not duplicated.
+     */
+    private void storeUnacknowledgedMessages(List<String> clientMessageIds) {
+        List<ChatMessage> unacknowledged = new ArrayList<>();
+        for (String clientMessageId : clientMessageIds) {
+            ChatMessage pending = pendingMessages.remove(clientMessageId);
+            if (pending != null) {
+                unacknowledged.add(pending);
+            }
+        }
+        if (unacknowledged.isEmpty()) {
+            return;
+        }
+
+        if (!AppExecutors.getInstance().execute(() -> {
+            for (ChatMessage message : unacknowledged) {
+                if (chatService.saveChatMessage(message) == null) {
+                    logger.error("Failed to store unacknowledged message {}", message.getClientMessageId());
+                }
+            }
+        })) {
+            // Keep them pending so the next disconnect or error tries again
+            unacknowledged.forEach(message -> pendingMessages.put(message.getClientMessageId(), message));
+        }
+    }
+
     /**
      * Handle incoming chat message from WebSocket
      */
@@ -1019,26 +1302,19 @@ public class ChatController implements WebSocketMessageListener {
                        chatMessage.getReceiverName(), chatMessage.getReceiverId(),
                        chatMessage.getMessage());
 
-            // Check for duplicate messages before saving
-            // This prevents saving the same message multiple times
-            boolean isDuplicate = chatService.isDuplicateMessage(
-                chatMessage.getSenderId(),
-                chatMessage.getReceiverId(),
-                chatMessage.getMessage(),
-                chatMessage.getTimestamp()
-            );
-
-            if (isDuplicate) {
-                logger.warn("Duplicate message detected - IGNORING to prevent database duplication");
-                logger.warn("Message: '{}' from {} to {}",
-                           chatMessage.getMessage(), chatMessage.getSenderId(), chatMessage.getReceiverId());
-                return;
+            // The server stores relayed messages and sends the assigned message_id along
+            ChatMessage savedMessage;
+            if (wsMessage.getPersistedId() != null) {
+                chatMessage.setMessageId(wsMessage.getPersistedId());
+                savedMessage = chatMessage;
+            } else {
+                // Not stored by the server; keyed by message id so the sender's own save cannot duplicate it
+                chatMessage.setClientMessageId(wsMessage.getMessageId());
+                savedMessage = chatService.saveChatMessage(chatMessage);
             }
 
-            // Save message to database
-            ChatMessage savedMessage = chatService.saveChatMessage(chatMessage);
             if (savedMessage != null) {
-                logger.info("Saved incoming message to database: ID={}", savedMessage.getMessageId());
+                logger.info("Incoming message stored: ID={}", savedMessage.getMessageId());
 
                 // Add to UI
                 addMessageToUI(savedMessage);
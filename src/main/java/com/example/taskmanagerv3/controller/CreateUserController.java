@@ -3,6 +3,7 @@ package com.example.taskmanagerv3.controller;
 import com.example.taskmanagerv3.model.User;
 import com.example.taskmanagerv3.model.UserRole;
 import com.example.taskmanagerv3.service.UserService;
+import com.example.taskmanagerv3.util.AppExecutors;
 import com.example.taskmanagerv3.util.SessionManager;
 import javafx.fxml.FXML;
 import javafx.scene.control.*;
@@ -122,7 +123,7 @@ public class CreateUserController {
         }
         
         // Check if username exists (in background)
-        new Thread(() -> {
+        AppExecutors.getInstance().execute(() -> {
             if (userService.usernameExists(username)) {
                 javafx.application.Platform.runLater(() -> {
                     usernameValidationLabel.setText("Username already exists");
@@ -136,7 +137,7 @@ public class CreateUserController {
                     usernameValidationLabel.setVisible(true);
                 });
             }
-        }).start();
+        });
     }
     
     /**
@@ -160,7 +161,7 @@ public class CreateUserController {
         }
         
         // Check if email exists (in background)
-        new Thread(() -> {
+        AppExecutors.getInstance().execute(() -> {
             if (userService.emailExists(email)) {
                 javafx.application.Platform.runLater(() -> {
                     emailValidationLabel.setText("Email already exists");
@@ -174,7 +175,7 @@ public class CreateUserController {
                     emailValidationLabel.setVisible(true);
                 });
             }
-        }).start();
+        });
     }
     
     /**
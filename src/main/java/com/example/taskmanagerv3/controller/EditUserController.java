@@ -6,6 +6,7 @@ import com.example.taskmanagerv3.model.User;
 import com.example.taskmanagerv3.model.UserRole;
 import com.example.taskmanagerv3.service.TaskService;
 import com.example.taskmanagerv3.service.UserService;
+import com.example.taskmanagerv3.util.AppExecutors;
 import javafx.application.Platform;
 import javafx.fxml.FXML;
 import javafx.scene.control.*;
@@ -151,7 +152,7 @@ public class EditUserController {
      * Load user statistics
      */
     private void loadUserStatistics() {
-        new Thread(() -> {
+        AppExecutors.getInstance().execute(() -> {
             try {
                 List<Task> userTasks = taskService.getTasksByUserId(currentUser.getUserId());
                 int totalTasks = userTasks.size();
@@ -171,7 +172,7 @@ public class EditUserController {
                     completedTasksLabel.setText("Error");
                 });
             }
-        }).start();
+        });
     }
 
     /**
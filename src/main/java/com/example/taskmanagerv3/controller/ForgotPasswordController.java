@@ -1,6 +1,7 @@
 package com.example.taskmanagerv3.controller;
 
 import com.example.taskmanagerv3.service.PasswordResetService;
+import com.example.taskmanagerv3.util.AppExecutors;
 import javafx.fxml.FXML;
 import javafx.scene.control.*;
 import javafx.stage.Stage;
@@ -71,7 +72,7 @@ public class ForgotPasswordController {
         showStatus("Submitting request...", false);
 
         // Submit request in background thread
-        new Thread(() -> {
+        if (!AppExecutors.getInstance().execute(() -> {
             try {
                 boolean success = passwordResetService.submitPasswordResetRequest(usernameOrEmail, reason);
 
@@ -93,7 +94,10 @@ public class ForgotPasswordController {
                     showError("An error occurred while submitting your request. Please try again.");
                 });
             }
-        }).start();
+        })) {
+            submitButton.setDisable(false);
+            showError("The application is busy, please try again.");
+        }
     }
 
     @FXML
@@ -3,6 +3,7 @@ package com.example.taskmanagerv3.controller;
 import com.example.taskmanagerv3.model.User;
 import com.example.taskmanagerv3.service.PasswordResetService;
 import com.example.taskmanagerv3.service.UserService;
+import com.example.taskmanagerv3.util.AppExecutors;
 import com.example.taskmanagerv3.util.SessionManager;
 import com.example.taskmanagerv3.util.UserPreferences;
 import javafx.application.Platform;
@@ -99,7 +100,7 @@ public class LoginController {
         showStatus("Authenticating...", false);
 
         // Perform authentication in background thread
-        new Thread(() -> {
+        if (!AppExecutors.getInstance().execute(() -> {
             try {
                 Optional<User> userOpt = userService.authenticate(username, password);
 
@@ -136,7 +137,10 @@ public class LoginController {
                     showError("Login failed: " + e.getMessage());
                 });
             }
-        }).start();
+        })) {
+            loginButton.setDisable(false);
+            showError("The application is busy, please try again");
+        }
 
 
 
@@ -2,6 +2,7 @@ package com.example.taskmanagerv3.controller;
 
 import com.example.taskmanagerv3.model.Task;
 import com.example.taskmanagerv3.service.TaskService;
+import com.example.taskmanagerv3.util.AppExecutors;
 import com.example.taskmanagerv3.util.SessionManager;
 import javafx.application.Platform;
 import javafx.fxml.FXML;
@@ -117,7 +118,7 @@ public class RequestHelpController {
      * Load user's tasks for the related task dropdown
      */
     private void loadUserTasks() {
-        new Thread(() -> {
+        AppExecutors.getInstance().execute(() -> {
             try {
                 int currentUserId = sessionManager.getCurrentUserId();
                 List<Task> userTasks = taskService.getTasksByUserId(currentUserId);
@@ -136,7 +137,7 @@ public class RequestHelpController {
             } catch (Exception e) {
                 logger.error("Error loading user tasks", e);
             }
-        }).start();
+        });
     }
 
     /**
@@ -1,8 +1,9 @@
 package com.example.taskmanagerv3.controller;
 
-import com.example.taskmanagerv3.model.Task;
 import com.example.taskmanagerv3.model.User;
 import com.example.taskmanagerv3.service.*;
+import com.example.taskmanagerv3.util.AppExecutors;
+import com.example.taskmanagerv3.util.ChartImageCache;
 import javafx.application.Platform;
 import javafx.fxml.FXML;
 import javafx.fxml.Initializable;
@@ -15,16 +16,16 @@ import org.jfree.chart.JFreeChart;
 import org.jfree.chart.ChartUtils;
 import javafx.scene.image.Image;
 import javafx.scene.image.ImageView;
-import javafx.embed.swing.SwingFXUtils;
-import java.awt.image.BufferedImage;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.net.URL;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 import java.util.ResourceBundle;
 
 /**
@@ -69,8 +70,9 @@ public class StatisticsExportController implements Initializable {
     @FXML private Button closeButton;
 
     // Data
-    private List<Task> allTasks;
+    private TaskReportStatistics reportStatistics;
     private List<User> allUsers;
+    private Map<LocalDate, TaskStatsRollup.DailyCounts> trendCounts;
 
     @Override
     public void initialize(URL location, ResourceBundle resources) {
@@ -126,10 +128,17 @@ public class StatisticsExportController implements Initializable {
      * Load data from database
      */
     private void loadData() {
-        new Thread(() -> {
+        AppExecutors.getInstance().execute(() -> {
             try {
-                allTasks = taskService.getAllTasks();
+                // Counted row by row; only the statistics are kept, not the tasks
+                TaskReportStatistics statistics = TaskReportStatistics.counting();
+                if (!taskService.forEachTask(new TaskService.TaskQuery(), statistics::add)) {
+                    throw new IllegalStateException("Could not read tasks");
+                }
+                reportStatistics = statistics;
                 allUsers = userService.getAllActiveUsers();
+                LocalDate today = LocalDate.now();
+                trendCounts = taskService.getDailyTaskCounts(today.minusDays(ChartGeneratorService.TREND_DAYS), today);
 
                 Platform.runLater(() -> {
                     updateChart();
@@ -142,35 +151,35 @@ public class StatisticsExportController implements Initializable {
                     showAlert("Error", "Failed to load data: " + e.getMessage());
                 });
             }
-        }).start();
+        });
     }
 
     /**
      * Update the displayed chart based on selected type
      */
     private void updateChart() {
-        if (allTasks == null || allUsers == null) return;
+        if (reportStatistics == null || allUsers == null) return;
 
         String chartType = chartTypeComboBox.getValue();
         if (chartType == null) return;
 
         try {
             JFreeChart chart = switch (chartType) {
-                case "Task Status Distribution" -> chartGeneratorService.generateTaskStatusChart(allTasks);
-                case "Task Priority Distribution" -> chartGeneratorService.generateTaskPriorityChart(allTasks);
-                case "Tasks per User" -> chartGeneratorService.generateTasksPerUserChart(allTasks, allUsers);
-                case "Task Completion Trend" -> chartGeneratorService.generateTaskCompletionTrendChart(allTasks);
-                case "Workload Distribution" -> chartGeneratorService.generateWorkloadDistributionChart(allTasks, allUsers);
-                case "Estimated vs Actual Hours" -> chartGeneratorService.generateEstimatedVsActualHoursChart(allTasks);
-                default -> chartGeneratorService.generateTaskStatusChart(allTasks);
+                case "Task Status Distribution" -> chartGeneratorService.generateTaskStatusChart(reportStatistics);
+                case "Task Priority Distribution" -> chartGeneratorService.generateTaskPriorityChart(reportStatistics);
+                case "Tasks per User" -> chartGeneratorService.generateTasksPerUserChart(reportStatistics, allUsers);
+                case "Task Completion Trend" -> chartGeneratorService.generateTaskCompletionTrendChart(trendCounts);
+                case "Workload Distribution" -> chartGeneratorService.generateWorkloadDistributionChart(reportStatistics, allUsers);
+                case "Estimated vs Actual Hours" -> chartGeneratorService.generateEstimatedVsActualHoursChart(reportStatistics);
+                default -> chartGeneratorService.generateTaskStatusChart(reportStatistics);
             };
 
             // Clear previous chart and add new one
             chartContainer.getChildren().clear();
 
-            // Convert JFreeChart to JavaFX Image
-            BufferedImage bufferedImage = chart.createBufferedImage(800, 600);
-            Image fxImage = SwingFXUtils.toFXImage(bufferedImage, null);
+            // Rendered once per dataset; switching back to a chart or refreshing unchanged data reuses it
+            byte[] png = ChartImageCache.getInstance().getPng(chart, 800, 600);
+            Image fxImage = new Image(new ByteArrayInputStream(png));
 
             ImageView imageView = new ImageView(fxImage);
             imageView.setFitWidth(800);
@@ -204,14 +213,14 @@ public class StatisticsExportController implements Initializable {
         File selectedDirectory = directoryChooser.showDialog(stage);
 
         if (selectedDirectory != null) {
-            new Thread(() -> {
+            if (!AppExecutors.getInstance().execute(() -> {
                 Platform.runLater(() -> {
                     exportProgressBar.setVisible(true);
                     exportStatusLabel.setText("Exporting charts...");
                 });
 
                 boolean success = statisticsExportService.exportChartsAsImages(
-                    selectedDirectory.getAbsolutePath(), allTasks, allUsers);
+                    selectedDirectory.getAbsolutePath(), reportStatistics, allUsers);
 
                 Platform.runLater(() -> {
                     exportProgressBar.setVisible(false);
@@ -223,7 +232,9 @@ public class StatisticsExportController implements Initializable {
                         showAlert("Error", "Failed to export charts");
                     }
                 });
-            }).start();
+            })) {
+                showAlert("Error", "The application is busy, please try again");
+            }
         }
     }
 
@@ -241,14 +252,14 @@ public class StatisticsExportController implements Initializable {
         File selectedFile = fileChooser.showSaveDialog(stage);
 
         if (selectedFile != null) {
-            new Thread(() -> {
+            if (!AppExecutors.getInstance().execute(() -> {
                 Platform.runLater(() -> {
                     exportProgressBar.setVisible(true);
                     exportStatusLabel.setText("Exporting statistics...");
                 });
 
                 boolean success = statisticsExportService.exportStatisticsToExcel(
-                    selectedFile, allTasks, allUsers);
+                    selectedFile, new TaskService.TaskQuery(), allUsers);
 
                 Platform.runLater(() -> {
                     exportProgressBar.setVisible(false);
@@ -260,7 +271,9 @@ public class StatisticsExportController implements Initializable {
                         showAlert("Error", "Failed to export statistics");
                     }
                 });
-            }).start();
+            })) {
+                showAlert("Error", "The application is busy, please try again");
+            }
         }
     }
 
@@ -316,7 +329,7 @@ public class StatisticsExportController implements Initializable {
         File selectedFile = fileChooser.showSaveDialog(stage);
 
         if (selectedFile != null) {
-            new Thread(() -> {
+            if (!AppExecutors.getInstance().execute(() -> {
                 Platform.runLater(() -> {
                     exportProgressBar.setVisible(true);
                     exportStatusLabel.setText("Exporting logs...");
@@ -342,7 +355,9 @@ public class StatisticsExportController implements Initializable {
                         showAlert("Error", "Failed to export logs");
                     }
                 });
-            }).start();
+            })) {
+                showAlert("Error", "The application is busy, please try again");
+            }
         }
     }
 
@@ -355,7 +370,7 @@ public class StatisticsExportController implements Initializable {
 
         if (fromDate == null || toDate == null) return;
 
-        new Thread(() -> {
+        AppExecutors.getInstance().execute(() -> {
             LocalDateTime fromDateTime = fromDate.atStartOfDay();
             LocalDateTime toDateTime = toDate.atTime(23, 59, 59);
 
@@ -373,7 +388,7 @@ public class StatisticsExportController implements Initializable {
                     "Total entries: " + stats.getTotalEntries() + "\n\n" +
                     "Use the export button to save the complete log data.");
             });
-        }).start();
+        });
     }
 
     /**
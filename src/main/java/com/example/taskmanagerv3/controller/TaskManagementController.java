@@ -5,7 +5,10 @@ import com.example.taskmanagerv3.model.TaskStatus;
 import com.example.taskmanagerv3.model.User;
 import com.example.taskmanagerv3.service.TaskService;
 import com.example.taskmanagerv3.service.UserService;
+import com.example.taskmanagerv3.util.AppExecutors;
 import com.example.taskmanagerv3.util.SessionManager;
+import com.example.taskmanagerv3.util.TaskTablePager;
+import javafx.animation.PauseTransition;
 import javafx.application.Platform;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
@@ -18,6 +21,7 @@ import javafx.scene.control.cell.PropertyValueFactory;
 import javafx.scene.layout.VBox;
 import javafx.stage.Modality;
 import javafx.stage.Stage;
+import javafx.util.Duration;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -33,6 +37,7 @@ import java.util.stream.Collectors;
  */
 public class TaskManagementController {
     private static final Logger logger = LoggerFactory.getLogger(TaskManagementController.class);
+    private static final int PAGE_SIZE = 100;
 
     @FXML private TableView<Task> tasksTable;
     @FXML private TableColumn<Task, Integer> idColumn;
@@ -57,17 +62,19 @@ public class TaskManagementController {
     private TaskService taskService;
     private UserService userService;
     private SessionManager sessionManager;
-    private ObservableList<Task> allTasks;
     private ObservableList<Task> filteredTasks;
     private Map<Integer, String> userIdToNameMap;
 
+    private TaskTablePager pager;
+    private boolean loadingTaskForEdit; // Double-clicks while the full task loads are ignored
+    private PauseTransition searchDebounce;
+
     @FXML
     private void initialize() {
         taskService = new TaskService();
         userService = new UserService();
         sessionManager = SessionManager.getInstance();
 
-        allTasks = FXCollections.observableArrayList();
         filteredTasks = FXCollections.observableArrayList();
 
         setupTable();
@@ -130,6 +137,10 @@ public class TaskManagementController {
         // Set table data
         tasksTable.setItems(filteredTasks);
 
+        // Pages load as the table is scrolled near the bottom
+        pager = new TaskTablePager(tasksTable, taskService, PAGE_SIZE,
+            e -> showAlert("Error", "Failed to load task data: " + e.getMessage()));
+
         // Selection listener
         tasksTable.getSelectionModel().selectedItemProperty().addListener((obs, oldSelection, newSelection) -> {
             updateSelectedTaskInfo(newSelection);
@@ -182,8 +193,10 @@ public class TaskManagementController {
             }
         });
 
-        // Filter listeners
-        searchField.textProperty().addListener((obs, oldText, newText) -> applyFilters());
+        // Filter listeners; search waits for typing to pause before querying the database
+        searchDebounce = new PauseTransition(Duration.millis(300));
+        searchDebounce.setOnFinished(e -> applyFilters());
+        searchField.textProperty().addListener((obs, oldText, newText) -> searchDebounce.playFromStart());
         statusFilterComboBox.valueProperty().addListener((obs, oldValue, newValue) -> applyFilters());
     }
 
@@ -205,21 +218,16 @@ public class TaskManagementController {
      * Load data from database
      */
     private void loadData() {
-        new Thread(() -> {
+        AppExecutors.getInstance().execute(() -> {
             try {
                 // Load users for mapping
                 List<User> users = userService.getAllActiveUsers();
-                userIdToNameMap = users.stream()
+                Map<Integer, String> userNames = users.stream()
                     .collect(Collectors.toMap(User::getUserId, User::getDisplayName));
 
-                // Load tasks
-                List<Task> tasks = taskService.getAllTasks();
-
                 Platform.runLater(() -> {
-                    allTasks.clear();
-                    allTasks.addAll(tasks);
+                    userIdToNameMap = userNames;
                     applyFilters();
-                    updateTaskCount();
                 });
 
             } catch (Exception e) {
@@ -228,41 +236,28 @@ public class TaskManagementController {
                     showAlert("Error", "Failed to load task data: " + e.getMessage());
                 });
             }
-        }).start();
+        });
     }
 
     /**
-     * Apply search and status filters
+     * Apply search and status filters by reloading the first page from the database
      */
     private void applyFilters() {
-        String searchText = searchField.getText().toLowerCase().trim();
-        TaskStatus statusFilter = statusFilterComboBox.getValue();
-
-        List<Task> filtered = allTasks.stream()
-            .filter(task -> {
-                // Search filter
-                if (!searchText.isEmpty()) {
-                    return task.getTitle().toLowerCase().contains(searchText) ||
-                           task.getDescription().toLowerCase().contains(searchText);
-                }
-                return true;
-            })
-            .filter(task -> {
-                // Status filter
-                return statusFilter == null || task.getStatus() == statusFilter;
-            })
-            .collect(Collectors.toList());
-
-        filteredTasks.clear();
-        filteredTasks.addAll(filtered);
-        updateTaskCount();
+        pager.reload(buildQuery(), this::updateTaskCount);
+    }
+
+    private TaskService.TaskQuery buildQuery() {
+        TaskService.TaskQuery query = new TaskService.TaskQuery();
+        query.setSearchText(searchField.getText());
+        query.setStatus(statusFilterComboBox.getValue());
+        return query;
     }
 
     /**
      * Update task count label
      */
-    private void updateTaskCount() {
-        totalTasksLabel.setText(String.format("Total: %d tasks", filteredTasks.size()));
+    private void updateTaskCount(int total) {
+        totalTasksLabel.setText(String.format("Total: %d tasks", total));
     }
 
     /**
@@ -322,12 +317,49 @@ public class TaskManagementController {
      */
     @FXML
     private void editSelectedTask() {
-        Task selectedTask = tasksTable.getSelectionModel().getSelectedItem();
-        if (selectedTask == null) {
+        Task selectedRow = tasksTable.getSelectionModel().getSelectedItem();
+        if (selectedRow == null) {
             showAlert("No Selection", "Please select a task to edit");
             return;
         }
 
+        if (loadingTaskForEdit) {
+            return;
+        }
+
+        // Table rows are summaries; load the full task (description, comments) for editing
+        int taskId = selectedRow.getTaskId();
+        loadingTaskForEdit = true;
+        editTaskButton.setDisable(true);
+        if (!AppExecutors.getInstance().execute(() -> {
+            try {
+                Optional<Task> fullTask = taskService.getTaskById(taskId);
+                Platform.runLater(() -> {
+                    loadingTaskForEdit = false;
+                    updateButtonStates();
+                    if (fullTask.isEmpty()) {
+                        showAlert("Error", "Task no longer exists");
+                        loadData();
+                        return;
+                    }
+                    showEditTaskDialog(fullTask.get());
+                });
+            } catch (Exception e) {
+                logger.error("Error loading task {} for editing", taskId, e);
+                Platform.runLater(() -> {
+                    loadingTaskForEdit = false;
+                    updateButtonStates();
+                    showAlert("Error", "Failed to load task: " + e.getMessage());
+                });
+            }
+        })) {
+            loadingTaskForEdit = false;
+            updateButtonStates();
+            showAlert("Error", "The application is busy, please try again");
+        }
+    }
+
+    private void showEditTaskDialog(Task selectedTask) {
         try {
             FXMLLoader loader = new FXMLLoader(getClass().getResource("/com/example/taskmanagerv3/edit-task-dialog.fxml"));
             VBox dialogContent = loader.load();
@@ -3,6 +3,7 @@ package com.example.taskmanagerv3.controller;
 import com.example.taskmanagerv3.model.Task;
 import com.example.taskmanagerv3.model.TaskStatus;
 import com.example.taskmanagerv3.service.TaskService;
+import com.example.taskmanagerv3.util.AppExecutors;
 import com.example.taskmanagerv3.util.SessionManager;
 import javafx.application.Platform;
 import javafx.fxml.FXML;
@@ -124,7 +125,7 @@ public class UserCalendarController {
      * Load user's tasks
      */
     private void loadTasks() {
-        new Thread(() -> {
+        AppExecutors.getInstance().execute(() -> {
             try {
                 int currentUserId = sessionManager.getCurrentUserId();
                 allTasks = taskService.getTasksByUserId(currentUserId);
@@ -140,7 +141,7 @@ public class UserCalendarController {
                     showAlert("Error", "Failed to load tasks: " + e.getMessage());
                 });
             }
-        }).start();
+        });
     }
 
     /**
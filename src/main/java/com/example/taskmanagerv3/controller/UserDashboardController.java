@@ -2,12 +2,18 @@ package com.example.taskmanagerv3.controller;
 
 import com.example.taskmanagerv3.controller.UpdateProgressController;
 import com.example.taskmanagerv3.model.Task;
+import com.example.taskmanagerv3.model.TaskChangeEvent;
 import com.example.taskmanagerv3.model.TaskStatus;
 import com.example.taskmanagerv3.model.TaskPriority;
 import com.example.taskmanagerv3.model.User;
 import com.example.taskmanagerv3.service.TaskService;
 
 import com.example.taskmanagerv3.util.SessionManager;
+import com.example.taskmanagerv3.util.ViewScope;
+import com.example.taskmanagerv3.websocket.ChatMessage;
+import com.example.taskmanagerv3.websocket.MessageType;
+import com.example.taskmanagerv3.websocket.WebSocketClient;
+import com.example.taskmanagerv3.websocket.WebSocketMessageListener;
 import javafx.application.Platform;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
@@ -28,15 +34,19 @@ import java.time.format.DateTimeFormatter;
 import java.time.format.TextStyle;
 import java.time.temporal.ChronoUnit;
 import java.time.Duration;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Locale;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 /**
  * Controller for User Dashboard
  */
-public class UserDashboardController {
+public class UserDashboardController implements WebSocketMessageListener {
     private static final Logger logger = LoggerFactory.getLogger(UserDashboardController.class);
+    // Task changes are pushed while connected to the chat server; polled only while not
+    private static final int FALLBACK_POLL_SECONDS = 60;
 
     // Header components
     @FXML private Label welcomeLabel;
@@ -108,13 +118,17 @@ public class UserDashboardController {
 
     private TaskService taskService;
     private SessionManager sessionManager;
+    private WebSocketClient webSocketClient;
+    // Set when the connection drops, so the reconnect reloads what was missed meanwhile
+    private volatile boolean missedTaskChanges;
 
-    // Auto-refresh timer
-    private Thread autoRefreshThread;
+    // Clock, auto-refresh and loads; stopped when the dashboard is replaced
+    private final ViewScope viewScope = new ViewScope("user-dashboard");
 
     // Calendar fields
     private YearMonth currentMonth;
     private LocalDate selectedDate;
+    // The user's tasks, shared by the dashboard and calendar and patched by task change events
     private List<Task> allTasks;
 
     // Calendar view options
@@ -137,18 +151,19 @@ public class UserDashboardController {
     private void initialize() {
         taskService = new TaskService();
         sessionManager = SessionManager.getInstance();
+        webSocketClient = WebSocketClient.getInstance();
 
         // Initialize calendar fields
         currentMonth = YearMonth.now();
         selectedDate = LocalDate.now();
 
-
-
+        viewScope.bindTo(mainContentContainer);
         setupUI();
         initializeCharts();
         loadDashboardData();
         startTimeUpdater();
         startAutoRefresh();
+        listenForTaskChanges();
 
         logger.info("User dashboard initialized for user: {}",
                    sessionManager.getCurrentUsername());
@@ -210,43 +225,20 @@ public class UserDashboardController {
      */
     private void loadDashboardData() {
         // Load in background thread to avoid blocking UI
-        new Thread(() -> {
+        viewScope.execute(() -> {
             try {
                 int currentUserId = sessionManager.getCurrentUserId();
 
                 // Get user's tasks
                 java.util.List<Task> userTasks = taskService.getTasksByUserId(currentUserId);
 
-                // Calculate statistics
-                int myTasks = userTasks.size();
-                int completedTasks = (int) userTasks.stream()
-                    .filter(task -> task.getStatus() == TaskStatus.COMPLETED)
-                    .count();
-                int overdueTasks = (int) userTasks.stream()
-                    .filter(Task::isOverdue)
-                    .count();
-                int inProgressTasks = (int) userTasks.stream()
-                    .filter(task -> task.getStatus() == TaskStatus.IN_PROGRESS || task.getStatus() == TaskStatus.REVIEW)
-                    .count();
-                int pendingTasks = (int) userTasks.stream()
-                    .filter(task -> task.getStatus() == TaskStatus.TODO && !task.isOverdue())
-                    .count();
-
                 // Update UI on JavaFX thread
                 Platform.runLater(() -> {
-                    myTasksLabel.setText(String.valueOf(myTasks));
-                    completedTasksLabel.setText(String.valueOf(completedTasks));
-                    pendingTasksLabel.setText(String.valueOf(pendingTasks));
-                    overdueTasksLabel.setText(String.valueOf(overdueTasks));
-
-                    // Update charts with real data
-                    updateProgressCharts(myTasks, completedTasks, inProgressTasks, pendingTasks, overdueTasks);
+                    allTasks = userTasks;
+                    showDashboardData();
 
                     // Update weekly activity chart
                     updateWeeklyActivityChart(currentUserId);
-
-                    loadMyTasks(userTasks);
-                    loadRecentActivities(userTasks);
                 });
 
             } catch (Exception e) {
@@ -255,7 +247,40 @@ public class UserDashboardController {
                     showAlert("Error", "Failed to load dashboard data: " + e.getMessage());
                 });
             }
-        }).start();
+        });
+    }
+
+    /**
+     * Show statistics, charts and lists computed from the in-memory tasks
+     */
+    private void showDashboardData() {
+        List<Task> userTasks = allTasks != null ? allTasks : List.of();
+
+        // Calculate statistics
+        int myTasks = userTasks.size();
+        int completedTasks = (int) userTasks.stream()
+            .filter(task -> task.getStatus() == TaskStatus.COMPLETED)
+            .count();
+        int overdueTasks = (int) userTasks.stream()
+            .filter(Task::isOverdue)
+            .count();
+        int inProgressTasks = (int) userTasks.stream()
+            .filter(task -> task.getStatus() == TaskStatus.IN_PROGRESS || task.getStatus() == TaskStatus.REVIEW)
+            .count();
+        int pendingTasks = (int) userTasks.stream()
+            .filter(task -> task.getStatus() == TaskStatus.TODO && !task.isOverdue())
+            .count();
+
+        myTasksLabel.setText(String.valueOf(myTasks));
+        completedTasksLabel.setText(String.valueOf(completedTasks));
+        pendingTasksLabel.setText(String.valueOf(pendingTasks));
+        overdueTasksLabel.setText(String.valueOf(overdueTasks));
+
+        // Update charts with real data
+        updateProgressCharts(myTasks, completedTasks, inProgressTasks, pendingTasks, overdueTasks);
+
+        loadMyTasks(userTasks);
+        loadRecentActivities(userTasks);
     }
 
     /**
@@ -323,69 +348,135 @@ public class UserDashboardController {
     }
 
     /**
-     * Start time updater thread
+     * Tick the clock every second on the shared scheduler
      */
     private void startTimeUpdater() {
-        Thread timeUpdater = new Thread(() -> {
-            while (!Thread.currentThread().isInterrupted()) {
-                try {
-                    Platform.runLater(() -> {
-                        currentTimeLabel.setText(getEnhancedTimeDisplay());
-                    });
-                    Thread.sleep(1000);
-                } catch (InterruptedException e) {
-                    Thread.currentThread().interrupt();
-                    break;
-                }
-            }
-        });
-        timeUpdater.setDaemon(true);
-        timeUpdater.start();
+        viewScope.scheduleOnFxThread(() -> currentTimeLabel.setText(getEnhancedTimeDisplay()),
+            0, 1, TimeUnit.SECONDS);
     }
 
     /**
-     * Start auto-refresh thread for dashboard data
+     * Poll for task changes on the shared scheduler while they cannot be pushed
      */
     private void startAutoRefresh() {
-        autoRefreshThread = new Thread(() -> {
-            while (!Thread.currentThread().isInterrupted()) {
-                try {
-                    // Wait 30 seconds between refreshes
-                    Thread.sleep(30000);
-
-                    Platform.runLater(() -> {
-                        try {
-                            // Refresh dashboard data if we're on dashboard view
-                            if (dashboardContent.isVisible()) {
-                                loadDashboardData();
-                                logger.debug("Auto-refreshed dashboard data");
-                            }
-                            // Refresh task management data if we're on task management view
-                            else if (taskManagementContent.isVisible()) {
-                                refreshTaskManagementContent();
-                                logger.debug("Auto-refreshed task management data");
-                            }
-                            // Refresh calendar data if we're on calendar view
-                            else if (calendarContent.isVisible()) {
-                                loadCalendarTasks();
-                                logger.debug("Auto-refreshed calendar data");
-                            }
-                            // Profile content doesn't need auto-refresh as it's mostly static
-                        } catch (Exception e) {
-                            logger.warn("Error during auto-refresh: {}", e.getMessage());
-                        }
-                    });
-
-                } catch (InterruptedException e) {
-                    Thread.currentThread().interrupt();
+        viewScope.scheduleOnFxThread(() -> {
+            if (!webSocketClient.isConnected()) {
+                autoRefresh();
+            }
+        }, FALLBACK_POLL_SECONDS, FALLBACK_POLL_SECONDS, TimeUnit.SECONDS);
+        logger.info("Fallback polling started with {}-second interval", FALLBACK_POLL_SECONDS);
+    }
+
+    /**
+     * Receive task change events over the chat server connection, connecting if no other
+     * view has yet
+     */
+    private void listenForTaskChanges() {
+        webSocketClient.addMessageListener(this);
+        viewScope.onClose(() -> webSocketClient.removeMessageListener(this));
+
+        User currentUser = sessionManager.getCurrentUser();
+        if (currentUser != null) {
+            viewScope.execute(() -> webSocketClient.ensureConnected(
+                currentUser.getUserId(), currentUser.getUsername(), false));
+        }
+    }
+
+    @Override
+    public void onMessageReceived(ChatMessage message) {
+        if (message.getType() == MessageType.TASK_CHANGED && message.getData() instanceof TaskChangeEvent) {
+            TaskChangeEvent event = (TaskChangeEvent) message.getData();
+            // Events come from other clients and carry no task data: read the task as stored
+            viewScope.execute(() -> {
+                Task task = taskService.reloadTask(event.getTaskId()).orElse(null);
+                Platform.runLater(() -> applyTaskChange(event, task));
+            });
+        }
+    }
+
+    @Override
+    public void onConnected() {
+        if (missedTaskChanges) {
+            missedTaskChanges = false;
+            Platform.runLater(this::autoRefresh);
+        }
+    }
+
+    @Override
+    public void onDisconnected() {
+        missedTaskChanges = true;
+    }
+
+    /**
+     * Patch the in-memory tasks with a changed task as now stored, or null if it is gone,
+     * and redraw the visible content
+     */
+    private void applyTaskChange(TaskChangeEvent event, Task task) {
+        if (viewScope.isClosed()) {
+            return;
+        }
+        int currentUserId = sessionManager.getCurrentUserId();
+        Task mine = task != null && task.getAssignedUserId() == currentUserId ? task : null;
+
+        int index = -1;
+        if (allTasks != null) {
+            for (int i = 0; i < allTasks.size(); i++) {
+                if (allTasks.get(i).getTaskId() == event.getTaskId()) {
+                    index = i;
                     break;
                 }
             }
-        });
-        autoRefreshThread.setDaemon(true);
-        autoRefreshThread.start();
+        }
+        if (index < 0 && mine == null) {
+            return; // Neither shown here before nor now
+        }
+
+        if (allTasks != null) {
+            List<Task> tasks = new ArrayList<>(allTasks);
+            if (mine == null) {
+                tasks.remove(index);
+            } else if (index >= 0) {
+                tasks.set(index, mine);
+            } else {
+                tasks.add(0, mine); // Newest first
+            }
+            allTasks = tasks;
+        }
 
-        logger.info("Auto-refresh started with 30-second interval");
+        if (dashboardContent.isVisible()) {
+            showDashboardData();
+            if (event.getKind() != TaskChangeEvent.Kind.UPDATED) {
+                updateWeeklyActivityChart(currentUserId);
+            }
+        } else if (taskManagementContent.isVisible()) {
+            refreshTaskManagementContent();
+        } else if (calendarContent.isVisible()) {
+            refreshCalendarDisplay();
+        }
+        logger.debug("Applied {}", event);
+    }
+
+    private void autoRefresh() {
+        try {
+            // Refresh dashboard data if we're on dashboard view
+            if (dashboardContent.isVisible()) {
+                loadDashboardData();
+                logger.debug("Auto-refreshed dashboard data");
+            }
+            // Refresh task management data if we're on task management view
+            else if (taskManagementContent.isVisible()) {
+                refreshTaskManagementContent();
+                logger.debug("Auto-refreshed task management data");
+            }
+            // Refresh calendar data if we're on calendar view
+            else if (calendarContent.isVisible()) {
+                loadCalendarTasks();
+                logger.debug("Auto-refreshed calendar data");
+            }
+            // Profile content doesn't need auto-refresh as it's mostly static
+        } catch (Exception e) {
+            logger.warn("Error during auto-refresh: {}", e.getMessage());
+        }
     }
 
 
@@ -1754,12 +1845,13 @@ public class UserDashboardController {
      * Load user's tasks for calendar (asynchronous for refresh)
      */
     private void loadCalendarTasks() {
-        new Thread(() -> {
+        viewScope.execute(() -> {
             try {
                 int currentUserId = sessionManager.getCurrentUserId();
-                allTasks = taskService.getTasksByUserId(currentUserId);
+                List<Task> userTasks = taskService.getTasksByUserId(currentUserId);
 
                 Platform.runLater(() -> {
+                    allTasks = userTasks;
                     // Only refresh the calendar grid, not the entire content
                     if (calendarContent.isVisible()) {
                         refreshCalendarDisplay();
@@ -1769,7 +1861,7 @@ public class UserDashboardController {
             } catch (Exception e) {
                 logger.error("Error loading tasks for calendar", e);
             }
-        }).start();
+        });
     }
 
     /**
@@ -2650,13 +2742,12 @@ public class UserDashboardController {
     }
 
     /**
-     * Stop auto-refresh thread when controller is destroyed
+     * Stop the clock and auto-refresh when controller is destroyed. Also happens on its
+     * own once another scene replaces the dashboard.
      */
     public void shutdown() {
-        if (autoRefreshThread != null && !autoRefreshThread.isInterrupted()) {
-            autoRefreshThread.interrupt();
-            logger.info("Auto-refresh thread stopped");
-        }
+        viewScope.close();
+        logger.info("Auto-refresh stopped");
     }
 
 
@@ -3,6 +3,7 @@ package com.example.taskmanagerv3.controller;
 import com.example.taskmanagerv3.model.User;
 import com.example.taskmanagerv3.model.UserRole;
 import com.example.taskmanagerv3.service.UserService;
+import com.example.taskmanagerv3.util.AppExecutors;
 import com.example.taskmanagerv3.util.SessionManager;
 import javafx.application.Platform;
 import javafx.collections.FXCollections;
@@ -206,7 +207,7 @@ public class UserManagementController {
      * Load data from database
      */
     private void loadData() {
-        new Thread(() -> {
+        AppExecutors.getInstance().execute(() -> {
             try {
                 List<User> users = userService.getAllActiveUsers();
 
@@ -223,7 +224,7 @@ public class UserManagementController {
                     showAlert("Error", "Failed to load user data: " + e.getMessage());
                 });
             }
-        }).start();
+        });
     }
 
     /**
@@ -6,7 +6,10 @@ import com.example.taskmanagerv3.model.TaskStatus;
 import com.example.taskmanagerv3.model.User;
 import com.example.taskmanagerv3.service.AchievementService;
 import com.example.taskmanagerv3.service.TaskService;
+import com.example.taskmanagerv3.service.ThumbnailService;
 import com.example.taskmanagerv3.service.UserService;
+import com.example.taskmanagerv3.util.AppExecutors;
+import com.example.taskmanagerv3.util.ImageCache;
 import com.example.taskmanagerv3.util.SessionManager;
 import javafx.application.Platform;
 import javafx.fxml.FXML;
@@ -292,7 +295,7 @@ public class UserProfileController {
      * Load user statistics with enhanced dashboard
      */
     private void loadUserStatistics() {
-        new Thread(() -> {
+        AppExecutors.getInstance().execute(() -> {
             try {
                 // Validate session manager and current user
                 if (sessionManager == null || currentUser == null) {
@@ -379,7 +382,7 @@ public class UserProfileController {
                     }
                 });
             }
-        }).start();
+        });
     }
 
     /**
@@ -693,6 +696,10 @@ public class UserProfileController {
                 Path targetPath = avatarsDir.resolve(fileName);
                 Files.copy(selectedFile.toPath(), targetPath, StandardCopyOption.REPLACE_EXISTING);
 
+                // The file name is reused, so replace the old thumbnail and drop it from the cache
+                new ThumbnailService().generate(targetPath, ThumbnailService.Size.AVATAR);
+                ImageCache.getInstance().invalidate(targetPath);
+
                 // Update user profile picture path in database
                 currentUser.setProfilePicture(targetPath.toString());
                 boolean updateSuccess = userService.updateUser(currentUser);
@@ -746,11 +753,11 @@ public class UserProfileController {
 
             File imageFile = new File(imagePath);
             if (imageFile.exists() && imageFile.isFile()) {
-                // Load image with error handling
-                Image image = new Image(imageFile.toURI().toString());
+                // Load the avatar-sized thumbnail rather than the uploaded original
+                Image image = ImageCache.getInstance().getThumbnail(imageFile.toPath(), ThumbnailService.Size.AVATAR);
 
                 // Check if image loaded successfully
-                if (!image.isError()) {
+                if (image != null) {
                     ImagePattern imagePattern = new ImagePattern(image);
 
                     // Update UI on JavaFX Application Thread
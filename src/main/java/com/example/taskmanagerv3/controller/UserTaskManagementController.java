@@ -4,6 +4,7 @@ import com.example.taskmanagerv3.model.Task;
 import com.example.taskmanagerv3.model.TaskStatus;
 import com.example.taskmanagerv3.model.TaskPriority;
 import com.example.taskmanagerv3.service.TaskService;
+import com.example.taskmanagerv3.util.AppExecutors;
 import com.example.taskmanagerv3.util.SessionManager;
 import javafx.application.Platform;
 import javafx.fxml.FXML;
@@ -120,7 +121,7 @@ public class UserTaskManagementController {
      * Load user's tasks
      */
     private void loadTasks() {
-        new Thread(() -> {
+        AppExecutors.getInstance().execute(() -> {
             try {
                 int currentUserId = sessionManager.getCurrentUserId();
                 allTasks = taskService.getTasksByUserId(currentUserId);
@@ -136,7 +137,7 @@ public class UserTaskManagementController {
                     showAlert("Error", "Failed to load tasks: " + e.getMessage());
                 });
             }
-        }).start();
+        });
     }
 
     /**
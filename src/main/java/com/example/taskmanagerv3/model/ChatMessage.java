@@ -23,6 +23,7 @@ public class ChatMessage implements Serializable {
     private boolean isRead;
     private boolean hasAttachments;
     private List<ChatFile> attachments;
+    private String clientMessageId; // Idempotency key chosen by the sending client
     
     // Constructors
     public ChatMessage() {
@@ -138,6 +139,14 @@ public class ChatMessage implements Serializable {
         this.hasAttachments = true;
     }
     
+    public String getClientMessageId() {
+        return clientMessageId;
+    }
+    
+    public void setClientMessageId(String clientMessageId) {
+        this.clientMessageId = clientMessageId;
+    }
+    
     // Utility methods
     public String getFormattedTimestamp() {
         DateTimeFormatter formatter = DateTimeFormatter.ofPattern("MMM dd, yyyy HH:mm");
@@ -0,0 +1,99 @@
+package com.example.taskmanagerv3.model;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * One row of a user's chat inbox: the other participant, the last message exchanged
+ * and how many of their messages are still unread
+ */
+public class ConversationSummary {
+    private User peer;
+    private Integer lastMessageId; // null if the two users never chatted
+    private LocalDateTime lastMessageAt;
+    private String lastSnippet;
+    private int lastSenderId;
+    private int unreadCount;
+
+    public ConversationSummary() {}
+
+    public ConversationSummary(User peer) {
+        this.peer = peer;
+    }
+
+    // Getters and Setters
+    public User getPeer() {
+        return peer;
+    }
+
+    public void setPeer(User peer) {
+        this.peer = peer;
+    }
+
+    public Integer getLastMessageId() {
+        return lastMessageId;
+    }
+
+    public void setLastMessageId(Integer lastMessageId) {
+        this.lastMessageId = lastMessageId;
+    }
+
+    public LocalDateTime getLastMessageAt() {
+        return lastMessageAt;
+    }
+
+    public void setLastMessageAt(LocalDateTime lastMessageAt) {
+        this.lastMessageAt = lastMessageAt;
+    }
+
+    public String getLastSnippet() {
+        return lastSnippet;
+    }
+
+    public void setLastSnippet(String lastSnippet) {
+        this.lastSnippet = lastSnippet;
+    }
+
+    public int getLastSenderId() {
+        return lastSenderId;
+    }
+
+    public void setLastSenderId(int lastSenderId) {
+        this.lastSenderId = lastSenderId;
+    }
+
+    public int getUnreadCount() {
+        return unreadCount;
+    }
+
+    public void setUnreadCount(int unreadCount) {
+        this.unreadCount = unreadCount;
+    }
+
+    // Utility methods
+    public boolean hasMessages() {
+        return lastMessageId != null;
+    }
+
+    /**
+     * Record a message shown live, without re-reading the summary
+     */
+    public void recordMessage(ChatMessage message) {
+        if (message.getMessageId() > 0) {
+            lastMessageId = message.getMessageId();
+        }
+        lastMessageAt = message.getTimestamp();
+        lastSnippet = message.getMessage();
+        lastSenderId = message.getSenderId();
+    }
+
+    public String getLastMessageTime() {
+        return lastMessageAt != null ? lastMessageAt.format(DateTimeFormatter.ofPattern("dd/MM HH:mm")) : "";
+    }
+
+    @Override
+    public String toString() {
+        return String.format("ConversationSummary{peer=%s, lastMessageId=%s, unread=%d}",
+                           peer != null ? peer.getUsername() : null, lastMessageId, unreadCount);
+    }
+}
@@ -1,12 +1,15 @@
 package com.example.taskmanagerv3.model;
 
+import java.io.Serializable;
 import java.time.LocalDateTime;
 import java.util.Objects;
 
 /**
  * Task model class representing tasks in the system
  */
-public class Task {
+public class Task implements Serializable {
+    private static final long serialVersionUID = 1L;
+
     private int taskId;
     private String title;
     private String description;
@@ -43,6 +46,27 @@ public class Task {
         this.createdByUserId = createdByUserId;
     }
 
+    // Copy constructor
+    public Task(Task other) {
+        this.taskId = other.taskId;
+        this.title = other.title;
+        this.description = other.description;
+        this.status = other.status;
+        this.priority = other.priority;
+        this.assignedUserId = other.assignedUserId;
+        this.createdByUserId = other.createdByUserId;
+        this.createdAt = other.createdAt;
+        this.updatedAt = other.updatedAt;
+        this.dueDate = other.dueDate;
+        this.completedAt = other.completedAt;
+        this.estimatedHours = other.estimatedHours;
+        this.actualHours = other.actualHours;
+        this.progressPercentage = other.progressPercentage;
+        this.comments = other.comments;
+        this.attachments = other.attachments;
+        this.projectId = other.projectId;
+    }
+
     // Getters and Setters
     public int getTaskId() {
         return taskId;
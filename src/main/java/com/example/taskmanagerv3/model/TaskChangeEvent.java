@@ -0,0 +1,52 @@
+package com.example.taskmanagerv3.model;
+
+import java.io.Serializable;
+
+/**
+ * A task created, updated or deleted through TaskService, pushed to open dashboards so
+ * they can refresh what they show of that task instead of reloading everything.
+ *
+ * Events are relayed by the chat server from whichever client made the change, so they
+ * carry no task data: receivers read the task with TaskService.getTaskById. The assignee
+ * only routes the event and must not be trusted either.
+ */
+public class TaskChangeEvent implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    public enum Kind {
+        CREATED,
+        UPDATED,
+        DELETED
+    }
+
+    private final Kind kind;
+    private final int taskId;
+    private final int assignedUserId;
+
+    private TaskChangeEvent(Kind kind, int taskId, int assignedUserId) {
+        this.kind = kind;
+        this.taskId = taskId;
+        this.assignedUserId = assignedUserId;
+    }
+
+    public static TaskChangeEvent created(Task task) {
+        return new TaskChangeEvent(Kind.CREATED, task.getTaskId(), task.getAssignedUserId());
+    }
+
+    public static TaskChangeEvent updated(Task task) {
+        return new TaskChangeEvent(Kind.UPDATED, task.getTaskId(), task.getAssignedUserId());
+    }
+
+    public static TaskChangeEvent deleted(int taskId, int assignedUserId) {
+        return new TaskChangeEvent(Kind.DELETED, taskId, assignedUserId);
+    }
+
+    public Kind getKind() { return kind; }
+    public int getTaskId() { return taskId; }
+    public int getAssignedUserId() { return assignedUserId; }
+
+    @Override
+    public String toString() {
+        return String.format("TaskChangeEvent{%s task=%d, assignee=%d}", kind, taskId, assignedUserId);
+    }
+}
@@ -13,6 +13,7 @@ import java.time.LocalTime;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -227,12 +228,14 @@ public class AdminAIChatbotService {
     private String handleTeamStatusRequest(int adminUserId) {
         try {
             List<User> allUsers = userService.getAllActiveUsers();
+            Map<Integer, TaskService.UserWorkload> workloads = taskService.getUserWorkloads();
             StringBuilder response = new StringBuilder("## 👥 **Team Status Overview**\n\n");
 
             for (User user : allUsers) {
-                List<Task> userTasks = taskService.getTasksByUserId(user.getUserId());
-                long pendingTasks = userTasks.stream().filter(t -> t.getStatus() != TaskStatus.COMPLETED).count();
-                long completedTasks = userTasks.stream().filter(t -> t.getStatus() == TaskStatus.COMPLETED).count();
+                TaskService.UserWorkload workload = workloads.getOrDefault(
+                    user.getUserId(), new TaskService.UserWorkload(user.getUserId()));
+                int pendingTasks = workload.getActiveTasks();
+                int completedTasks = workload.getCompletedTasks();
 
                 response.append(String.format("""
                     **%s** (@%s)
@@ -263,7 +266,7 @@ public class AdminAIChatbotService {
     private String buildAdminContext(int adminUserId) {
         try {
             List<User> allUsers = userService.getAllActiveUsers();
-            List<Task> allTasks = taskService.getAllTasks();
+            int totalTasks = taskService.getTaskStatistics().getTotalTasks();
 
             return String.format("""
                 Total Users: %d
@@ -271,7 +274,7 @@ public class AdminAIChatbotService {
                 Available Users: %s
                 """,
                 allUsers.size(),
-                allTasks.size(),
+                totalTasks,
                 allUsers.stream().map(User::getUsername).reduce((a, b) -> a + ", " + b).orElse("None")
             );
 
@@ -29,18 +29,17 @@ import java.util.stream.Collectors;
  */
 public class ChartGeneratorService {
     private static final Logger logger = LoggerFactory.getLogger(ChartGeneratorService.class);
+    // Days before today shown by the completion trend chart
+    public static final int TREND_DAYS = 30;
     
     /**
      * Generate task status distribution pie chart
      */
-    public JFreeChart generateTaskStatusChart(List<Task> tasks) {
+    public JFreeChart generateTaskStatusChart(TaskReportStatistics statistics) {
         DefaultPieDataset<String> dataset = new DefaultPieDataset<>();
         
-        Map<TaskStatus, Long> statusCounts = tasks.stream()
-            .collect(Collectors.groupingBy(Task::getStatus, Collectors.counting()));
-        
         for (TaskStatus status : TaskStatus.values()) {
-            long count = statusCounts.getOrDefault(status, 0L);
+            int count = statistics.getCount(status);
             if (count > 0) {
                 dataset.setValue(status.toString(), count);
             }
@@ -61,14 +60,11 @@ public class ChartGeneratorService {
     /**
      * Generate task priority distribution pie chart
      */
-    public JFreeChart generateTaskPriorityChart(List<Task> tasks) {
+    public JFreeChart generateTaskPriorityChart(TaskReportStatistics statistics) {
         DefaultPieDataset<String> dataset = new DefaultPieDataset<>();
         
-        Map<TaskPriority, Long> priorityCounts = tasks.stream()
-            .collect(Collectors.groupingBy(Task::getPriority, Collectors.counting()));
-        
         for (TaskPriority priority : TaskPriority.values()) {
-            long count = priorityCounts.getOrDefault(priority, 0L);
+            int count = statistics.getCount(priority);
             if (count > 0) {
                 dataset.setValue(priority.toString(), count);
             }
@@ -89,18 +85,15 @@ public class ChartGeneratorService {
     /**
      * Generate tasks per user bar chart
      */
-    public JFreeChart generateTasksPerUserChart(List<Task> tasks, List<User> users) {
+    public JFreeChart generateTasksPerUserChart(TaskReportStatistics statistics, List<User> users) {
         DefaultCategoryDataset dataset = new DefaultCategoryDataset();
         
         Map<Integer, String> userIdToName = users.stream()
             .collect(Collectors.toMap(User::getUserId, User::getDisplayName));
         
-        Map<Integer, Long> taskCounts = tasks.stream()
-            .collect(Collectors.groupingBy(Task::getAssignedUserId, Collectors.counting()));
-        
-        for (Map.Entry<Integer, Long> entry : taskCounts.entrySet()) {
-            String userName = userIdToName.getOrDefault(entry.getKey(), "Unknown User");
-            dataset.addValue(entry.getValue(), "Tasks", userName);
+        for (TaskService.UserWorkload workload : statistics.getWorkloads().values()) {
+            String userName = userIdToName.getOrDefault(workload.getUserId(), "Unknown User");
+            dataset.addValue(workload.getTotalTasks(), "Tasks", userName);
         }
         
         JFreeChart chart = ChartFactory.createBarChart(
@@ -115,37 +108,24 @@ public class ChartGeneratorService {
     }
     
     /**
-     * Generate task completion trend over time
+     * Generate task completion trend chart for the last 30 days from daily created and
+     * completed counts (see TaskService.getDailyTaskCounts)
      */
-    public JFreeChart generateTaskCompletionTrendChart(List<Task> tasks) {
+    public JFreeChart generateTaskCompletionTrendChart(Map<LocalDate, TaskStatsRollup.DailyCounts> dailyCounts) {
         TimeSeries completedSeries = new TimeSeries("Completed Tasks");
         TimeSeries createdSeries = new TimeSeries("Created Tasks");
-        
-        Map<LocalDate, Long> completedByDate = tasks.stream()
-            .filter(task -> task.getCompletedAt() != null)
-            .collect(Collectors.groupingBy(
-                task -> task.getCompletedAt().toLocalDate(),
-                Collectors.counting()
-            ));
-        
-        Map<LocalDate, Long> createdByDate = tasks.stream()
-            .collect(Collectors.groupingBy(
-                task -> task.getCreatedAt().toLocalDate(),
-                Collectors.counting()
-            ));
+        TaskStatsRollup.DailyCounts none = new TaskStatsRollup.DailyCounts(0, 0);
         
         // Add data points for the last 30 days
         LocalDate endDate = LocalDate.now();
-        LocalDate startDate = endDate.minusDays(30);
+        LocalDate startDate = endDate.minusDays(TREND_DAYS);
         
         for (LocalDate date = startDate; !date.isAfter(endDate); date = date.plusDays(1)) {
             Day day = new Day(java.util.Date.from(date.atStartOfDay(ZoneId.systemDefault()).toInstant()));
+            TaskStatsRollup.DailyCounts counts = dailyCounts.getOrDefault(date, none);
             
-            long completedCount = completedByDate.getOrDefault(date, 0L);
-            long createdCount = createdByDate.getOrDefault(date, 0L);
-            
-            completedSeries.add(day, completedCount);
-            createdSeries.add(day, createdCount);
+            completedSeries.add(day, counts.getCompleted());
+            createdSeries.add(day, counts.getCreated());
         }
         
         TimeSeriesCollection dataset = new TimeSeriesCollection();
@@ -169,23 +149,17 @@ public class ChartGeneratorService {
     /**
      * Generate workload distribution chart
      */
-    public JFreeChart generateWorkloadDistributionChart(List<Task> tasks, List<User> users) {
+    public JFreeChart generateWorkloadDistributionChart(TaskReportStatistics statistics, List<User> users) {
         DefaultCategoryDataset dataset = new DefaultCategoryDataset();
         
         Map<Integer, String> userIdToName = users.stream()
             .collect(Collectors.toMap(User::getUserId, User::getDisplayName));
         
-        Map<Integer, Map<TaskStatus, Long>> userTaskStatus = tasks.stream()
-            .collect(Collectors.groupingBy(
-                Task::getAssignedUserId,
-                Collectors.groupingBy(Task::getStatus, Collectors.counting())
-            ));
-        
-        for (Map.Entry<Integer, Map<TaskStatus, Long>> userEntry : userTaskStatus.entrySet()) {
-            String userName = userIdToName.getOrDefault(userEntry.getKey(), "Unknown User");
+        for (TaskService.UserWorkload workload : statistics.getWorkloads().values()) {
+            String userName = userIdToName.getOrDefault(workload.getUserId(), "Unknown User");
             
             for (TaskStatus status : TaskStatus.values()) {
-                long count = userEntry.getValue().getOrDefault(status, 0L);
+                int count = workload.getCount(status);
                 if (count > 0) {
                     dataset.addValue(count, status.toString(), userName);
                 }
@@ -206,14 +180,11 @@ public class ChartGeneratorService {
     /**
      * Generate estimated vs actual hours chart
      */
-    public JFreeChart generateEstimatedVsActualHoursChart(List<Task> tasks) {
+    public JFreeChart generateEstimatedVsActualHoursChart(TaskReportStatistics statistics) {
         DefaultCategoryDataset dataset = new DefaultCategoryDataset();
         
-        List<Task> completedTasks = tasks.stream()
-            .filter(task -> task.getStatus() == TaskStatus.COMPLETED)
-            .filter(task -> task.getEstimatedHours() > 0 || task.getActualHours() > 0)
-            .limit(20) // Show only top 20 tasks to avoid cluttering
-            .collect(Collectors.toList());
+        // Only the first MAX_COMPLETED_WITH_HOURS are kept, to avoid cluttering
+        List<Task> completedTasks = statistics.getCompletedWithHours();
         
         for (int i = 0; i < completedTasks.size(); i++) {
             Task task = completedTasks.get(i);
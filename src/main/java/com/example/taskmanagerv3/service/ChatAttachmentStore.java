@@ -0,0 +1,258 @@
+package com.example.taskmanagerv3.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.regex.Pattern;
+
+/**
+ * Content-addressed store for chat attachments on disk.
+ *
+ * Each file is stored once under its SHA-256, as {@code <root>/<first two hex digits>/<hash>},
+ * so identical uploads share one copy. Files are never held in memory: uploads are
+ * hashed through a fixed buffer and copied with {@link FileChannel#transferTo}, and reads
+ * go through streams, channel transfers or ranged reads. New content is written to a
+ * temporary file and moved into place, so a stored path always holds complete content.
+ * Files received over the chat socket are assembled under {@code <root>/partial} and
+ * only stored once their hash has been checked.
+ */
+public class ChatAttachmentStore {
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final String PARTIAL_DIR = "partial";
+    private static final Pattern HASH_PATTERN = Pattern.compile("[0-9a-f]{64}");
+
+    private final Path root;
+
+    public ChatAttachmentStore(Path root) {
+        this.root = root;
+    }
+
+    /**
+     * Store a file from disk. Returns the stored file; {@code isNew()} is false if the same
+     * content was already stored.
+     */
+    public StoredFile store(Path source) throws IOException {
+        String hash;
+        long size;
+        try (FileChannel in = FileChannel.open(source, StandardOpenOption.READ)) {
+            hash = hash(in);
+            size = in.size();
+        }
+
+        Path target = pathFor(hash);
+        if (Files.exists(target)) {
+            return new StoredFile(target, hash, size, false);
+        }
+
+        Path temp = createTempFile();
+        try {
+            try (FileChannel in = FileChannel.open(source, StandardOpenOption.READ);
+                 FileChannel out = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                long position = 0;
+                while (position < size) {
+                    position += in.transferTo(position, size - position, out);
+                }
+            }
+            return new StoredFile(target, hash, size, moveIntoPlace(temp, target));
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Store content read from a stream, hashing it while it is written out
+     */
+    public StoredFile store(InputStream source) throws IOException {
+        MessageDigest digest = newDigest();
+        Path temp = createTempFile();
+        try {
+            long size;
+            try (DigestInputStream in = new DigestInputStream(source, digest)) {
+                size = Files.copy(in, temp, StandardCopyOption.REPLACE_EXISTING);
+            }
+            String hash = HexFormat.of().formatHex(digest.digest());
+            Path target = pathFor(hash);
+            return new StoredFile(target, hash, size, moveIntoPlace(temp, target));
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Open a stored file for streaming
+     */
+    public InputStream openStream(Path file) throws IOException {
+        return Files.newInputStream(file);
+    }
+
+    /**
+     * Copy a stored file to a channel without passing it through the heap; returns the bytes sent
+     */
+    public long transferTo(Path file, long offset, long count, WritableByteChannel target) throws IOException {
+        try (FileChannel in = FileChannel.open(file, StandardOpenOption.READ)) {
+            long end = Math.min(in.size(), offset + count);
+            long position = offset;
+            while (position < end) {
+                long sent = in.transferTo(position, end - position, target);
+                if (sent <= 0) {
+                    break;
+                }
+                position += sent;
+            }
+            return position - offset;
+        }
+    }
+
+    /**
+     * Copy a whole stored file to a destination path
+     */
+    public long copyTo(Path file, Path destination) throws IOException {
+        try (FileChannel out = FileChannel.open(destination, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            return transferTo(file, 0, Long.MAX_VALUE, out);
+        }
+    }
+
+    /**
+     * Read bytes starting at offset into the buffer; returns the count read, or -1 at end of file
+     */
+    public int readRange(Path file, long offset, ByteBuffer destination) throws IOException {
+        try (FileChannel in = FileChannel.open(file, StandardOpenOption.READ)) {
+            return in.read(destination, offset);
+        }
+    }
+
+    /**
+     * Where content with this SHA-256 is (or would be) stored
+     */
+    public Path pathFor(String hash) {
+        return root.resolve(hash.substring(0, 2)).resolve(hash);
+    }
+
+    /**
+     * Whether content with this SHA-256 is stored
+     */
+    public boolean contains(String hash) {
+        return isValidHash(hash) && Files.exists(pathFor(hash));
+    }
+
+    /**
+     * Where a transfer of this content keeps the bytes received so far, so it can resume
+     */
+    public Path partialPath(String hash) throws IOException {
+        Path partials = root.resolve(PARTIAL_DIR);
+        Files.createDirectories(partials);
+        return partials.resolve(hash + ".part");
+    }
+
+    /**
+     * Store a completely received partial file under its hash. The content is hashed again
+     * first; if it does not match, the partial file is deleted and an IOException thrown.
+     */
+    public StoredFile commitPartial(String expectedHash, Path partial) throws IOException {
+        String hash;
+        long size;
+        try (FileChannel in = FileChannel.open(partial, StandardOpenOption.READ)) {
+            hash = hash(in);
+            size = in.size();
+        }
+        if (!hash.equals(expectedHash)) {
+            Files.deleteIfExists(partial);
+            throw new IOException("Content hash mismatch: expected " + expectedHash + ", got " + hash);
+        }
+
+        Path target = pathFor(hash);
+        boolean isNew = moveIntoPlace(partial, target);
+        Files.deleteIfExists(partial);
+        return new StoredFile(target, hash, size, isNew);
+    }
+
+    /**
+     * Whether a string is a SHA-256 in the store's form, and so safe to build a path from
+     */
+    public static boolean isValidHash(String hash) {
+        return hash != null && HASH_PATTERN.matcher(hash).matches();
+    }
+
+    private String hash(FileChannel in) throws IOException {
+        MessageDigest digest = newDigest();
+        ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        while (in.read(buffer) != -1) {
+            buffer.flip();
+            digest.update(buffer);
+            buffer.clear();
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private Path createTempFile() throws IOException {
+        Files.createDirectories(root);
+        return Files.createTempFile(root, "upload-", ".tmp");
+    }
+
+    /**
+     * Move new content to its address. Returns false if another upload of the same content
+     * got there first; that copy is identical, so this one is dropped.
+     */
+    private boolean moveIntoPlace(Path temp, Path target) throws IOException {
+        if (Files.exists(target)) {
+            return false;
+        }
+        Files.createDirectories(target.getParent());
+        try {
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            try {
+                Files.move(temp, target);
+            } catch (FileAlreadyExistsException alreadyStored) {
+                return false;
+            }
+        } catch (FileAlreadyExistsException e) {
+            return false;
+        }
+        return true;
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /**
+     * A stored attachment: its path, content hash and size
+     */
+    public static class StoredFile {
+        private final Path path;
+        private final String hash;
+        private final long size;
+        private final boolean isNew;
+
+        public StoredFile(Path path, String hash, long size, boolean isNew) {
+            this.path = path;
+            this.hash = hash;
+            this.size = size;
+            this.isNew = isNew;
+        }
+
+        public Path getPath() { return path; }
+        public String getHash() { return hash; }
+        public long getSize() { return size; }
+        public boolean isNew() { return isNew; }
+    }
+}
@@ -2,14 +2,18 @@ package com.example.taskmanagerv3.service;
 
 import com.example.taskmanagerv3.model.ChatFile;
 import com.example.taskmanagerv3.model.ChatMessage;
+import com.example.taskmanagerv3.model.ConversationSummary;
 import com.example.taskmanagerv3.model.User;
 import com.example.taskmanagerv3.model.UserRole;
 import com.example.taskmanagerv3.config.DatabaseConfig;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
@@ -19,18 +23,25 @@ import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * Service class for managing chat functionality
  */
 public class ChatService {
     private static final Logger logger = LoggerFactory.getLogger(ChatService.class);
-    private static final String CHAT_FILES_DIR = "chat_files";
+    public static final String CHAT_FILES_DIR = "chat_files";
+    private final ChatAttachmentStore attachmentStore = new ChatAttachmentStore(Paths.get(CHAT_FILES_DIR));
+    private final ThumbnailService thumbnailService = new ThumbnailService();
+    // Most messages a delta refresh returns; a larger gap reloads the conversation
+    public static final int MAX_DELTA_MESSAGES = 200;
 
     public ChatService() {
         createChatFilesDirectory();
-        initializeChatTables();
     }
 
     /**
@@ -49,66 +60,24 @@ public class ChatService {
     }
 
     /**
-     * Initialize chat tables in database
+     * Save chat message to database. If the message carries a client message id that is
+     * already stored, the existing row is returned instead of inserting a duplicate.
      */
-    private void initializeChatTables() {
-        try (Connection conn = DatabaseConfig.getConnection()) {
-            // Create chat_messages table
-            String createMessagesTable = """
-                IF NOT EXISTS (SELECT * FROM sysobjects WHERE name='chat_messages' AND xtype='U')
-                CREATE TABLE chat_messages (
-                    message_id INT IDENTITY(1,1) PRIMARY KEY,
-                    sender_id INT NOT NULL,
-                    sender_name NVARCHAR(100) NOT NULL,
-                    sender_role NVARCHAR(20) NOT NULL,
-                    receiver_id INT NOT NULL,
-                    receiver_name NVARCHAR(100),
-                    message NTEXT NOT NULL,
-                    timestamp DATETIME2 DEFAULT GETDATE(),
-                    is_read BIT DEFAULT 0,
-                    has_attachments BIT DEFAULT 0,
-                    FOREIGN KEY (sender_id) REFERENCES users(user_id),
-                    FOREIGN KEY (receiver_id) REFERENCES users(user_id)
-                )
-            """;
-
-            // Create chat_files table
-            String createFilesTable = """
-                IF NOT EXISTS (SELECT * FROM sysobjects WHERE name='chat_files' AND xtype='U')
-                CREATE TABLE chat_files (
-                    file_id INT IDENTITY(1,1) PRIMARY KEY,
-                    message_id INT NOT NULL,
-                    file_name NVARCHAR(255) NOT NULL,
-                    original_file_name NVARCHAR(255) NOT NULL,
-                    file_path NVARCHAR(500) NOT NULL,
-                    file_type NVARCHAR(100),
-                    file_size BIGINT,
-                    uploaded_at DATETIME2 DEFAULT GETDATE(),
-                    uploaded_by INT NOT NULL,
-                    FOREIGN KEY (message_id) REFERENCES chat_messages(message_id),
-                    FOREIGN KEY (uploaded_by) REFERENCES users(user_id)
-                )
-            """;
-
-            try (Statement stmt = conn.createStatement()) {
-                stmt.execute(createMessagesTable);
-                stmt.execute(createFilesTable);
-                logger.info("Chat tables initialized successfully");
+    public ChatMessage saveChatMessage(ChatMessage message) {
+        String clientMessageId = message.getClientMessageId();
+        if (clientMessageId != null) {
+            Integer existingId = findMessageIdByClientId(clientMessageId);
+            if (existingId != null) {
+                message.setMessageId(existingId);
+                logger.debug("Chat message {} already stored as {}", clientMessageId, existingId);
+                return message;
             }
-
-        } catch (SQLException e) {
-            logger.error("Error initializing chat tables", e);
         }
-    }
 
-    /**
-     * Save chat message to database
-     */
-    public ChatMessage saveChatMessage(ChatMessage message) {
         String sql = """
             INSERT INTO chat_messages (sender_id, sender_name, sender_role, receiver_id, receiver_name,
-                                     message, timestamp, is_read, has_attachments)
-            VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)
+                                     message, timestamp, is_read, has_attachments, client_message_id)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
         """;
 
         try (Connection conn = DatabaseConfig.getConnection();
@@ -126,6 +95,7 @@ public class ChatService {
             pstmt.setTimestamp(7, Timestamp.valueOf(message.getTimestamp()));
             pstmt.setBoolean(8, message.isRead());
             pstmt.setBoolean(9, message.isHasAttachments());
+            pstmt.setString(10, clientMessageId);
 
             int affectedRows = pstmt.executeUpdate();
             if (affectedRows > 0) {
@@ -135,6 +105,8 @@ public class ChatService {
                     }
                 }
 
+                refreshConversationSummaries(conn, message.getSenderId(), message.getReceiverId());
+
                 // Explicit commit
                 conn.commit();
                 logger.debug("Chat message saved and committed: {}", message.getMessageId());
@@ -147,6 +119,15 @@ public class ChatService {
             return message;
 
         } catch (SQLException e) {
+            // The relay (or a retry) stored the same client message id first
+            if (clientMessageId != null && isUniqueViolation(e)) {
+                Integer existingId = findMessageIdByClientId(clientMessageId);
+                if (existingId != null) {
+                    message.setMessageId(existingId);
+                    return message;
+                }
+            }
+
             logger.error("Error saving chat message", e);
             // Try to rollback if connection is still available
             try (Connection conn = DatabaseConfig.getConnection()) {
@@ -158,18 +139,240 @@ public class ChatService {
         }
     }
 
+    /**
+     * Save a batch of relayed messages in one transaction and return the message id
+     * stored for each client message id. Sender and receiver names and roles are read
+     * from Users in the same statement. Messages whose client message id is already
+     * stored are not inserted again but their existing ids are returned. Messages that
+     * could not be stored are missing from the result.
+     */
+    public Map<String, Integer> saveChatMessageBatch(List<ChatMessage> messages) {
+        Map<String, Integer> ids = new HashMap<>();
+        if (messages.isEmpty()) {
+            return ids;
+        }
+
+        String sql = """
+            INSERT INTO chat_messages (sender_id, sender_name, sender_role, receiver_id, receiver_name,
+                                     message, timestamp, is_read, has_attachments, client_message_id)
+            SELECT s.user_id, s.full_name, s.role, r.user_id, r.full_name, ?, ?, 0, 0, ?
+            FROM Users s
+            JOIN Users r ON r.user_id = ?
+            WHERE s.user_id = ?
+              AND NOT EXISTS (SELECT 1 FROM chat_messages WHERE client_message_id = ?)
+        """;
+
+        try (Connection conn = DatabaseConfig.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+            conn.setAutoCommit(false);
+            try {
+                for (ChatMessage message : messages) {
+                    bindBatchInsert(pstmt, message);
+                    pstmt.addBatch();
+                }
+                pstmt.executeBatch();
+                conn.commit();
+
+            } catch (SQLException e) {
+                // Usually a concurrent save of one of the same client ids; store the rows one at a time
+                conn.rollback();
+                pstmt.clearBatch();
+                logger.warn("Chat message batch of {} failed, retrying individually: {}",
+                    messages.size(), e.getMessage());
+
+                conn.setAutoCommit(true);
+                for (ChatMessage message : messages) {
+                    try {
+                        bindBatchInsert(pstmt, message);
+                        pstmt.executeUpdate();
+                    } catch (SQLException rowError) {
+                        if (!isUniqueViolation(rowError)) {
+                            logger.error("Error saving chat message {}", message.getClientMessageId(), rowError);
+                        }
+                    }
+                }
+            }
+
+            conn.setAutoCommit(true);
+            ids.putAll(findMessageIdsByClientIds(conn, messages));
+
+            Set<List<Integer>> conversations = new LinkedHashSet<>();
+            for (ChatMessage message : messages) {
+                conversations.add(List.of(Math.min(message.getSenderId(), message.getReceiverId()),
+                                          Math.max(message.getSenderId(), message.getReceiverId())));
+            }
+            for (List<Integer> pair : conversations) {
+                refreshConversationSummaries(conn, pair.get(0), pair.get(1));
+            }
+            logger.debug("Saved chat message batch: {} of {} stored", ids.size(), messages.size());
+
+        } catch (SQLException e) {
+            logger.error("Error saving chat message batch", e);
+        }
+
+        return ids;
+    }
+
+    private void bindBatchInsert(PreparedStatement pstmt, ChatMessage message) throws SQLException {
+        pstmt.setString(1, message.getMessage());
+        pstmt.setTimestamp(2, Timestamp.valueOf(message.getTimestamp()));
+        pstmt.setString(3, message.getClientMessageId());
+        pstmt.setInt(4, message.getReceiverId());
+        pstmt.setInt(5, message.getSenderId());
+        pstmt.setString(6, message.getClientMessageId());
+    }
+
+    private Map<String, Integer> findMessageIdsByClientIds(Connection conn, List<ChatMessage> messages)
+            throws SQLException {
+        Map<String, Integer> ids = new HashMap<>();
+        String placeholders = String.join(", ", Collections.nCopies(messages.size(), "?"));
+        String sql = "SELECT client_message_id, message_id FROM chat_messages WHERE client_message_id IN ("
+            + placeholders + ")";
+
+        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            for (int i = 0; i < messages.size(); i++) {
+                pstmt.setString(i + 1, messages.get(i).getClientMessageId());
+            }
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    ids.put(rs.getString("client_message_id"), rs.getInt("message_id"));
+                }
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * Recompute both inbox rows of a conversation from chat_messages. Reading the current
+     * state back, rather than adding to counters, keeps the summary right when a save is
+     * retried or skipped as a duplicate. Both lookups are index seeks. A failure only
+     * leaves the summary stale until the next message, so it does not fail the save.
+     */
+    private void refreshConversationSummaries(Connection conn, int userId1, int userId2) {
+        String sql = """
+            MERGE chat_conversations WITH (HOLDLOCK) AS target
+            USING (
+                SELECT sides.owner_id, sides.peer_id, last_message.message_id, last_message.timestamp,
+                       last_message.sender_id, LEFT(last_message.message, 200) AS snippet,
+                       (SELECT COUNT(*) FROM chat_messages
+                        WHERE receiver_id = sides.owner_id AND sender_id = sides.peer_id AND is_read = 0) AS unread_count
+                FROM (VALUES (?, ?), (?, ?)) AS sides (owner_id, peer_id)
+                CROSS APPLY (
+                    SELECT TOP (1) message_id, timestamp, sender_id, message
+                    FROM chat_messages
+                    WHERE (sender_id = sides.owner_id AND receiver_id = sides.peer_id)
+                       OR (sender_id = sides.peer_id AND receiver_id = sides.owner_id)
+                    ORDER BY message_id DESC
+                ) AS last_message
+            ) AS source
+            ON target.owner_id = source.owner_id AND target.peer_id = source.peer_id
+            WHEN MATCHED THEN
+                UPDATE SET last_message_id = source.message_id, last_message_at = source.timestamp,
+                           last_sender_id = source.sender_id, last_snippet = source.snippet,
+                           unread_count = source.unread_count
+            WHEN NOT MATCHED THEN
+                INSERT (owner_id, peer_id, last_message_id, last_message_at, last_sender_id, last_snippet, unread_count)
+                VALUES (source.owner_id, source.peer_id, source.message_id, source.timestamp, source.sender_id,
+                        source.snippet, source.unread_count);
+        """;
+
+        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setInt(1, userId1);
+            pstmt.setInt(2, userId2);
+            pstmt.setInt(3, userId2);
+            pstmt.setInt(4, userId1);
+            pstmt.executeUpdate();
+        } catch (SQLException e) {
+            logger.warn("Could not update conversation summary of users {} and {}: {}", userId1, userId2, e.getMessage());
+        }
+    }
+
+    /**
+     * Inbox of a user: every other active user with the summary of their conversation,
+     * most recent conversation first, in a single query
+     */
+    public List<ConversationSummary> getConversationSummaries(int ownerId) {
+        List<ConversationSummary> summaries = new ArrayList<>();
+        String sql = """
+            SELECT u.user_id, u.username, u.email, u.password_hash, u.full_name, u.role, u.is_active,
+                   u.created_at, u.last_login, u.profile_picture, u.department, u.phone_number,
+                   c.last_message_id, c.last_message_at, c.last_sender_id, c.last_snippet, c.unread_count
+            FROM Users u
+            LEFT JOIN chat_conversations c ON c.owner_id = ? AND c.peer_id = u.user_id
+            WHERE u.is_active = 1 AND u.user_id <> ?
+            ORDER BY CASE WHEN c.last_message_at IS NULL THEN 1 ELSE 0 END, c.last_message_at DESC, u.full_name
+        """;
+
+        UserService userService = new UserService();
+        try (Connection conn = DatabaseConfig.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+            pstmt.setInt(1, ownerId);
+            pstmt.setInt(2, ownerId);
+
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    ConversationSummary summary = new ConversationSummary(userService.mapResultSetToUser(rs));
+                    int lastMessageId = rs.getInt("last_message_id");
+                    if (!rs.wasNull()) {
+                        summary.setLastMessageId(lastMessageId);
+                        summary.setLastMessageAt(rs.getTimestamp("last_message_at").toLocalDateTime());
+                        summary.setLastSenderId(rs.getInt("last_sender_id"));
+                        summary.setLastSnippet(rs.getString("last_snippet"));
+                        summary.setUnreadCount(rs.getInt("unread_count"));
+                    }
+                    summaries.add(summary);
+                }
+            }
+
+        } catch (SQLException e) {
+            logger.error("Error getting conversation summaries for user {}", ownerId, e);
+        }
+
+        return summaries;
+    }
+
+    /**
+     * Message id stored for a client message id, or null if it has not been saved
+     */
+    public Integer findMessageIdByClientId(String clientMessageId) {
+        String sql = "SELECT message_id FROM chat_messages WHERE client_message_id = ?";
+
+        try (Connection conn = DatabaseConfig.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+            pstmt.setString(1, clientMessageId);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (rs.next()) {
+                    return rs.getInt("message_id");
+                }
+            }
+
+        } catch (SQLException e) {
+            logger.error("Error looking up chat message {}", clientMessageId, e);
+        }
+        return null;
+    }
+
+    /**
+     * SQL Server duplicate key errors: 2601 (unique index) and 2627 (unique constraint)
+     */
+    private boolean isUniqueViolation(SQLException e) {
+        return e.getErrorCode() == 2601 || e.getErrorCode() == 2627;
+    }
+
     /**
      * Get chat messages between two users
      */
     public List<ChatMessage> getChatMessages(int userId1, int userId2, int limit) {
-        List<ChatMessage> messages = new ArrayList<>();
         logger.info("Loading chat messages between user {} and user {}, limit: {}", userId1, userId2, limit);
 
         // Load recent messages and then reverse for chronological display
         String sql = """
             SELECT * FROM (
                 SELECT TOP (?) message_id, sender_id, sender_name, sender_role, receiver_id, receiver_name,
-                       message, timestamp, is_read, has_attachments
+                       message, timestamp, is_read, has_attachments, client_message_id
                 FROM chat_messages
                 WHERE (sender_id = ? AND receiver_id = ?) OR (sender_id = ? AND receiver_id = ?)
                 ORDER BY message_id DESC
@@ -177,164 +380,260 @@ public class ChatService {
             ORDER BY message_id ASC
         """;
 
-        // Use manual connection management to avoid premature closure
-        Connection conn = null;
-        PreparedStatement pstmt = null;
-        ResultSet rs = null;
+        List<ChatMessage> messages = queryConversation(sql, limit, userId1, userId2, null);
+        logger.info("Returning {} messages in chronological order (oldest first)", messages.size());
+        return messages;
+    }
+
+    /**
+     * Get the messages between two users that are newer than a message id, oldest first.
+     * Returns at most MAX_DELTA_MESSAGES; a full result means the gap is larger and the
+     * caller should reload the conversation instead.
+     */
+    public List<ChatMessage> getMessagesAfter(int userId1, int userId2, int afterMessageId) {
+        String sql = """
+            SELECT TOP (?) message_id, sender_id, sender_name, sender_role, receiver_id, receiver_name,
+                   message, timestamp, is_read, has_attachments, client_message_id
+            FROM chat_messages
+            WHERE ((sender_id = ? AND receiver_id = ?) OR (sender_id = ? AND receiver_id = ?))
+              AND message_id > ?
+            ORDER BY message_id ASC
+        """;
+
+        return queryConversation(sql, MAX_DELTA_MESSAGES, userId1, userId2, afterMessageId);
+    }
 
-        try {
-            conn = DatabaseConfig.getConnection();
-            logger.debug("Database connection established for loading messages");
+    /**
+     * Get up to limit messages between two users that are older than a message id, oldest first
+     */
+    public List<ChatMessage> getMessagesBefore(int userId1, int userId2, int beforeMessageId, int limit) {
+        String sql = """
+            SELECT * FROM (
+                SELECT TOP (?) message_id, sender_id, sender_name, sender_role, receiver_id, receiver_name,
+                       message, timestamp, is_read, has_attachments, client_message_id
+                FROM chat_messages
+                WHERE ((sender_id = ? AND receiver_id = ?) OR (sender_id = ? AND receiver_id = ?))
+                  AND message_id < ?
+                ORDER BY message_id DESC
+            ) AS older_messages
+            ORDER BY message_id ASC
+        """;
+
+        return queryConversation(sql, limit, userId1, userId2, beforeMessageId);
+    }
+
+    /**
+     * Run a conversation query (limit, both directions, optional message id bound) and load
+     * the attachments of the returned messages on the same connection
+     */
+    private List<ChatMessage> queryConversation(String sql, int limit, int userId1, int userId2,
+                                                Integer boundMessageId) {
+        List<ChatMessage> messages = new ArrayList<>();
 
-            pstmt = conn.prepareStatement(sql);
-            logger.debug("Preparing SQL query with parameters: limit={}, userId1={}, userId2={}", limit, userId1, userId2);
+        try (Connection conn = DatabaseConfig.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
 
             pstmt.setInt(1, limit);
             pstmt.setInt(2, userId1);
             pstmt.setInt(3, userId2);
             pstmt.setInt(4, userId2);
             pstmt.setInt(5, userId1);
+            if (boundMessageId != null) {
+                pstmt.setInt(6, boundMessageId);
+            }
 
-            logger.debug("Executing SQL query...");
-            rs = pstmt.executeQuery();
-            logger.debug("SQL query executed successfully, processing results...");
-
-            // Load all data into memory first to avoid connection issues
-            List<Object[]> rawData = new ArrayList<>();
-            while (rs.next()) {
-                Object[] row = new Object[10];
-                row[0] = rs.getInt("message_id");
-                row[1] = rs.getInt("sender_id");
-                row[2] = rs.getString("sender_name");
-                row[3] = rs.getString("sender_role");
-                row[4] = rs.getInt("receiver_id");
-                row[5] = rs.getString("receiver_name");
-                row[6] = rs.getString("message");
-                row[7] = rs.getTimestamp("timestamp");
-                row[8] = rs.getBoolean("is_read");
-                row[9] = rs.getBoolean("has_attachments");
-                rawData.add(row);
-            }
-
-            logger.info("Loaded {} raw message records from database", rawData.size());
-
-            // Close resources early
-            rs.close();
-            pstmt.close();
-            conn.close();
-
-            // Process data into ChatMessage objects
-            for (int i = 0; i < rawData.size(); i++) {
-                Object[] row = rawData.get(i);
-
-                ChatMessage message = new ChatMessage();
-                message.setMessageId((Integer) row[0]);
-                message.setSenderId((Integer) row[1]);
-                message.setSenderName((String) row[2]);
-
-                // Handle role conversion safely
-                String roleString = (String) row[3];
-                UserRole role;
-                try {
-                    role = UserRole.valueOf(roleString.toUpperCase());
-                } catch (IllegalArgumentException e) {
-                    // Fallback for old data
-                    role = roleString.equalsIgnoreCase("admin") ? UserRole.ADMIN : UserRole.USER;
-                }
-                message.setSenderRole(role);
-
-                message.setReceiverId((Integer) row[4]);
-                message.setReceiverName((String) row[5]);
-                message.setMessage((String) row[6]);
-                message.setTimestamp(((Timestamp) row[7]).toLocalDateTime());
-                message.setRead((Boolean) row[8]);
-                message.setHasAttachments((Boolean) row[9]);
-
-                logger.debug("Processing message {}: ID={}, Sender={}, Text='{}'",
-                           i + 1, message.getMessageId(), message.getSenderId(),
-                           message.getMessage() != null && message.getMessage().length() > 30 ?
-                           message.getMessage().substring(0, 30) + "..." : message.getMessage());
-
-                // Load attachments if any (using fresh connection)
-                if (message.isHasAttachments()) {
-                    message.setAttachments(getChatFiles(message.getMessageId()));
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    ChatMessage message = mapResultSetToChatMessage(rs);
+                    message.setClientMessageId(rs.getString("client_message_id"));
+                    messages.add(message);
                 }
-
-                messages.add(message);
             }
 
-            logger.info("Successfully processed {} chat messages", messages.size());
+            loadAttachments(conn, messages);
 
         } catch (SQLException e) {
             logger.error("Error getting chat messages between user {} and user {}", userId1, userId2, e);
-            return new ArrayList<>(); // Return empty list on error
-        } finally {
-            // Ensure all resources are closed
-            try {
-                if (rs != null) rs.close();
-                if (pstmt != null) pstmt.close();
-                if (conn != null) conn.close();
-            } catch (SQLException e) {
-                logger.error("Error closing database resources", e);
+            return new ArrayList<>();
+        }
+
+        return messages;
+    }
+
+    /**
+     * Fill in the attachments of every message flagged has_attachments with one IN-list query
+     */
+    private void loadAttachments(Connection conn, List<ChatMessage> messages) throws SQLException {
+        Map<Integer, ChatMessage> withAttachments = new HashMap<>();
+        for (ChatMessage message : messages) {
+            if (message.isHasAttachments()) {
+                withAttachments.put(message.getMessageId(), message);
             }
         }
+        if (withAttachments.isEmpty()) {
+            return;
+        }
 
-        // Messages are already in chronological order (oldest first) due to ORDER BY message_id ASC
-        // This is correct for chat UI where oldest messages appear at top and newest at bottom
-        logger.info("Returning {} messages in chronological order (oldest first)", messages.size());
+        String placeholders = String.join(", ", Collections.nCopies(withAttachments.size(), "?"));
+        String sql = "SELECT * FROM chat_files WHERE message_id IN (" + placeholders + ") ORDER BY file_id";
+
+        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            int index = 1;
+            for (Integer messageId : withAttachments.keySet()) {
+                pstmt.setInt(index++, messageId);
+            }
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    ChatFile file = mapResultSetToChatFile(rs);
+                    withAttachments.get(file.getMessageId()).addAttachment(file);
+                }
+            }
+        }
+    }
+
+    /**
+     * Get a page of the messages a user received in a message id range (after afterMessageId,
+     * up to and including upToMessageId), oldest first. Used to replay what a reconnecting
+     * user missed. Returns null if the query failed.
+     */
+    public List<ChatMessage> getMessagesReceivedBetween(int receiverId, int afterMessageId, int upToMessageId,
+                                                        int limit) {
+        List<ChatMessage> messages = new ArrayList<>();
+        String sql = """
+            SELECT TOP (?) message_id, sender_id, sender_name, sender_role, receiver_id, receiver_name,
+                   message, timestamp, is_read, has_attachments, client_message_id
+            FROM chat_messages
+            WHERE receiver_id = ? AND message_id > ? AND message_id <= ?
+            ORDER BY message_id ASC
+        """;
+
+        try (Connection conn = DatabaseConfig.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+            pstmt.setInt(1, limit);
+            pstmt.setInt(2, receiverId);
+            pstmt.setInt(3, afterMessageId);
+            pstmt.setInt(4, upToMessageId);
+
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    ChatMessage message = mapResultSetToChatMessage(rs);
+                    message.setClientMessageId(rs.getString("client_message_id"));
+                    messages.add(message);
+                }
+            }
+
+        } catch (SQLException e) {
+            logger.error("Error getting messages for user {} after {}", receiverId, afterMessageId, e);
+            return null;
+        }
 
         return messages;
     }
 
     /**
-     * Save chat file
+     * Map a chat_messages row; attachments are not loaded
+     */
+    private ChatMessage mapResultSetToChatMessage(ResultSet rs) throws SQLException {
+        ChatMessage message = new ChatMessage();
+        message.setMessageId(rs.getInt("message_id"));
+        message.setSenderId(rs.getInt("sender_id"));
+        message.setSenderName(rs.getString("sender_name"));
+
+        String roleString = rs.getString("sender_role");
+        try {
+            message.setSenderRole(UserRole.valueOf(roleString.toUpperCase()));
+        } catch (IllegalArgumentException e) {
+            // Fallback for old data
+            message.setSenderRole(roleString.equalsIgnoreCase("admin") ? UserRole.ADMIN : UserRole.USER);
+        }
+
+        message.setReceiverId(rs.getInt("receiver_id"));
+        message.setReceiverName(rs.getString("receiver_name"));
+        message.setMessage(rs.getString("message"));
+        message.setTimestamp(rs.getTimestamp("timestamp").toLocalDateTime());
+        message.setRead(rs.getBoolean("is_read"));
+        message.setHasAttachments(rs.getBoolean("has_attachments"));
+        return message;
+    }
+
+    /**
+     * Save chat file from disk. The content is streamed into the attachment store, where
+     * identical files are kept once.
+     */
+    public ChatFile saveChatFile(int messageId, String originalFileName, Path source, String fileType, int uploadedBy) {
+        try {
+            ChatAttachmentStore.StoredFile stored = attachmentStore.store(source);
+            createPreview(stored, fileType);
+            return insertChatFile(messageId, originalFileName, stored, fileType, uploadedBy);
+        } catch (IOException e) {
+            logger.error("Error saving chat file {}", originalFileName, e);
+            return null;
+        }
+    }
+
+    /**
+     * Save chat file from memory
      */
     public ChatFile saveChatFile(int messageId, String originalFileName, byte[] fileData, String fileType, int uploadedBy) {
         try {
-            // Generate unique file name
-            String fileExtension = getFileExtension(originalFileName);
-            String fileName = "chat_" + System.currentTimeMillis() + "_" + uploadedBy + "." + fileExtension;
-            Path filePath = Paths.get(CHAT_FILES_DIR, fileName);
-
-            // Save file to disk
-            Files.write(filePath, fileData);
-
-            // Save file info to database
-            String sql = """
-                INSERT INTO chat_files (message_id, file_name, original_file_name, file_path,
-                                      file_type, file_size, uploaded_by)
-                VALUES (?, ?, ?, ?, ?, ?, ?)
-            """;
+            ChatAttachmentStore.StoredFile stored = attachmentStore.store(new ByteArrayInputStream(fileData));
+            createPreview(stored, fileType);
+            return insertChatFile(messageId, originalFileName, stored, fileType, uploadedBy);
+        } catch (IOException e) {
+            logger.error("Error saving chat file {}", originalFileName, e);
+            return null;
+        }
+    }
 
-            try (Connection conn = DatabaseConfig.getConnection();
-                 PreparedStatement pstmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
-
-                pstmt.setInt(1, messageId);
-                pstmt.setString(2, fileName);
-                pstmt.setString(3, originalFileName);
-                pstmt.setString(4, filePath.toString());
-                pstmt.setString(5, fileType);
-                pstmt.setLong(6, fileData.length);
-                pstmt.setInt(7, uploadedBy);
-
-                int affectedRows = pstmt.executeUpdate();
-                if (affectedRows > 0) {
-                    try (ResultSet generatedKeys = pstmt.getGeneratedKeys()) {
-                        if (generatedKeys.next()) {
-                            ChatFile chatFile = new ChatFile(fileName, filePath.toString(), fileType, fileData.length);
-                            chatFile.setFileId(generatedKeys.getInt(1));
-                            chatFile.setMessageId(messageId);
-                            chatFile.setOriginalFileName(originalFileName);
-                            chatFile.setUploadedBy(uploadedBy);
-
-                            logger.debug("Chat file saved: {}", chatFile.getFileId());
-                            return chatFile;
-                        }
+    /**
+     * Generate the chat preview of an uploaded image once, so history renders from it
+     */
+    private void createPreview(ChatAttachmentStore.StoredFile stored, String fileType) {
+        if (fileType != null && fileType.toLowerCase().startsWith("image/")) {
+            thumbnailService.getOrCreate(stored.getPath(), ThumbnailService.Size.CHAT_PREVIEW);
+        }
+    }
+
+    private ChatFile insertChatFile(int messageId, String originalFileName, ChatAttachmentStore.StoredFile stored,
+                                    String fileType, int uploadedBy) {
+        String fileName = stored.getHash();
+        String filePath = stored.getPath().toString();
+        String sql = """
+            INSERT INTO chat_files (message_id, file_name, original_file_name, file_path,
+                                  file_type, file_size, uploaded_by)
+            VALUES (?, ?, ?, ?, ?, ?, ?)
+        """;
+
+        try (Connection conn = DatabaseConfig.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+
+            pstmt.setInt(1, messageId);
+            pstmt.setString(2, fileName);
+            pstmt.setString(3, originalFileName);
+            pstmt.setString(4, filePath);
+            pstmt.setString(5, fileType);
+            pstmt.setLong(6, stored.getSize());
+            pstmt.setInt(7, uploadedBy);
+
+            int affectedRows = pstmt.executeUpdate();
+            if (affectedRows > 0) {
+                try (ResultSet generatedKeys = pstmt.getGeneratedKeys()) {
+                    if (generatedKeys.next()) {
+                        ChatFile chatFile = new ChatFile(fileName, filePath, fileType, stored.getSize());
+                        chatFile.setFileId(generatedKeys.getInt(1));
+                        chatFile.setMessageId(messageId);
+                        chatFile.setOriginalFileName(originalFileName);
+                        chatFile.setUploadedBy(uploadedBy);
+
+                        logger.debug("Chat file saved: {} ({})", chatFile.getFileId(),
+                                     stored.isNew() ? "new content" : "deduplicated");
+                        return chatFile;
                     }
                 }
             }
 
-        } catch (IOException | SQLException e) {
+        } catch (SQLException e) {
             logger.error("Error saving chat file", e);
         }
 
@@ -355,18 +654,7 @@ public class ChatService {
 
             try (ResultSet rs = pstmt.executeQuery()) {
                 while (rs.next()) {
-                    ChatFile file = new ChatFile();
-                    file.setFileId(rs.getInt("file_id"));
-                    file.setMessageId(rs.getInt("message_id"));
-                    file.setFileName(rs.getString("file_name"));
-                    file.setOriginalFileName(rs.getString("original_file_name"));
-                    file.setFilePath(rs.getString("file_path"));
-                    file.setFileType(rs.getString("file_type"));
-                    file.setFileSize(rs.getLong("file_size"));
-                    file.setUploadedAt(rs.getTimestamp("uploaded_at").toLocalDateTime());
-                    file.setUploadedBy(rs.getInt("uploaded_by"));
-
-                    files.add(file);
+                    files.add(mapResultSetToChatFile(rs));
                 }
             }
 
@@ -378,69 +666,70 @@ public class ChatService {
     }
 
     /**
-     * Update message has_attachments flag
+     * Whether a user sent or received a message carrying the attachment with this content hash
      */
-    public void updateMessageAttachments(int messageId, boolean hasAttachments) {
-        String sql = "UPDATE chat_messages SET has_attachments = ? WHERE message_id = ?";
+    public boolean isAttachmentParticipant(String fileHash, int userId) {
+        String sql = """
+            SELECT CASE WHEN EXISTS (
+                SELECT 1
+                FROM chat_files f
+                JOIN chat_messages m ON m.message_id = f.message_id
+                WHERE f.file_name = ? AND (m.sender_id = ? OR m.receiver_id = ?)
+            ) THEN 1 ELSE 0 END
+            """;
 
         try (Connection conn = DatabaseConfig.getConnection();
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
 
-            pstmt.setBoolean(1, hasAttachments);
-            pstmt.setInt(2, messageId);
+            pstmt.setString(1, fileHash);
+            pstmt.setInt(2, userId);
+            pstmt.setInt(3, userId);
 
-            int updatedRows = pstmt.executeUpdate();
-            if (updatedRows > 0) {
-                logger.debug("Updated message {} has_attachments to {}", messageId, hasAttachments);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return rs.next() && rs.getInt(1) == 1;
             }
 
         } catch (SQLException e) {
-            logger.error("Error updating message attachments flag", e);
+            logger.error("Error checking access to attachment {}", fileHash, e);
         }
+
+        return false;
+    }
+
+    private ChatFile mapResultSetToChatFile(ResultSet rs) throws SQLException {
+        ChatFile file = new ChatFile();
+        file.setFileId(rs.getInt("file_id"));
+        file.setMessageId(rs.getInt("message_id"));
+        file.setFileName(rs.getString("file_name"));
+        file.setOriginalFileName(rs.getString("original_file_name"));
+        file.setFilePath(rs.getString("file_path"));
+        file.setFileType(rs.getString("file_type"));
+        file.setFileSize(rs.getLong("file_size"));
+        file.setUploadedAt(rs.getTimestamp("uploaded_at").toLocalDateTime());
+        file.setUploadedBy(rs.getInt("uploaded_by"));
+        return file;
     }
 
     /**
-     * Check if a message is duplicate based on sender, receiver, content and timestamp
-     * This prevents saving the same message multiple times
+     * Update message has_attachments flag
      */
-    public boolean isDuplicateMessage(int senderId, int receiverId, String message, LocalDateTime timestamp) {
-        String sql = """
-            SELECT COUNT(*) FROM chat_messages
-            WHERE sender_id = ? AND receiver_id = ? AND message = ?
-            AND ABS(DATEDIFF(SECOND, timestamp, ?)) < 5
-            """;
+    public void updateMessageAttachments(int messageId, boolean hasAttachments) {
+        String sql = "UPDATE chat_messages SET has_attachments = ? WHERE message_id = ?";
 
         try (Connection conn = DatabaseConfig.getConnection();
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
 
-            pstmt.setInt(1, senderId);
-            pstmt.setInt(2, receiverId);
-            pstmt.setString(3, message);
-            pstmt.setTimestamp(4, Timestamp.valueOf(timestamp));
-
-            try (ResultSet rs = pstmt.executeQuery()) {
-                if (rs.next()) {
-                    int count = rs.getInt(1);
-                    boolean isDuplicate = count > 0;
-
-                    if (isDuplicate) {
-                        logger.warn("Duplicate message detected: Sender={}, Receiver={}, Message='{}', Count={}",
-                                   senderId, receiverId,
-                                   message.length() > 50 ? message.substring(0, 50) + "..." : message,
-                                   count);
-                    }
+            pstmt.setBoolean(1, hasAttachments);
+            pstmt.setInt(2, messageId);
 
-                    return isDuplicate;
-                }
+            int updatedRows = pstmt.executeUpdate();
+            if (updatedRows > 0) {
+                logger.debug("Updated message {} has_attachments to {}", messageId, hasAttachments);
             }
 
         } catch (SQLException e) {
-            logger.error("Error checking for duplicate message", e);
-            // In case of error, assume not duplicate to avoid blocking legitimate messages
-            return false;
+            logger.error("Error updating message attachments flag", e);
         }
-
-        return false;
     }
 
     /**
@@ -565,7 +854,10 @@ public class ChatService {
                     logger.info("Deleted {} records from chat_files table", deletedFiles);
                 }
 
-                // Step 3: Delete from chat_messages table
+                // Step 3: Delete conversation summaries and chat_messages
+                try (PreparedStatement pstmt = conn.prepareStatement("DELETE FROM chat_conversations")) {
+                    pstmt.executeUpdate();
+                }
                 String deleteMessagesSQL = "DELETE FROM chat_messages";
                 try (PreparedStatement pstmt = conn.prepareStatement(deleteMessagesSQL)) {
                     int deletedMessages = pstmt.executeUpdate();
@@ -642,6 +934,13 @@ public class ChatService {
      */
     public void markMessagesAsRead(int senderId, int receiverId) {
         String sql = "UPDATE chat_messages SET is_read = 1 WHERE sender_id = ? AND receiver_id = ? AND is_read = 0";
+        // Recounted rather than zeroed, in case a message arrived between the two statements
+        String summarySql = """
+            UPDATE chat_conversations
+            SET unread_count = (SELECT COUNT(*) FROM chat_messages
+                                WHERE sender_id = ? AND receiver_id = ? AND is_read = 0)
+            WHERE owner_id = ? AND peer_id = ?
+        """;
 
         try (Connection conn = DatabaseConfig.getConnection();
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
@@ -652,6 +951,14 @@ public class ChatService {
             int updatedRows = pstmt.executeUpdate();
             if (updatedRows > 0) {
                 logger.debug("Marked {} messages as read", updatedRows);
+
+                try (PreparedStatement summaryStmt = conn.prepareStatement(summarySql)) {
+                    summaryStmt.setInt(1, senderId);
+                    summaryStmt.setInt(2, receiverId);
+                    summaryStmt.setInt(3, receiverId);
+                    summaryStmt.setInt(4, senderId);
+                    summaryStmt.executeUpdate();
+                }
             }
 
         } catch (SQLException e) {
@@ -660,30 +967,65 @@ public class ChatService {
     }
 
     /**
-     * Get file extension from filename
+     * Get file data for download
      */
-    private String getFileExtension(String fileName) {
-        if (fileName != null && fileName.contains(".")) {
-            return fileName.substring(fileName.lastIndexOf(".") + 1);
+    public byte[] getFileData(String filePath) {
+        try {
+            Path path = Paths.get(filePath);
+            if (Files.exists(path)) {
+                return Files.readAllBytes(path);
+            }
+        } catch (IOException e) {
+            logger.error("Error reading file: {}", filePath, e);
         }
-        return "txt";
+        return null;
     }
 
     /**
-     * Get file data for download
+     * Open a stored file for streaming, e.g. to decode a preview; null if it is missing
      */
-    public byte[] getFileData(String filePath) {
+    public InputStream openFileStream(String filePath) {
         try {
             Path path = Paths.get(filePath);
             if (Files.exists(path)) {
-                return Files.readAllBytes(path);
+                return attachmentStore.openStream(path);
             }
         } catch (IOException e) {
-            logger.error("Error reading file: {}", filePath, e);
+            logger.error("Error opening file: {}", filePath, e);
         }
         return null;
     }
 
+    /**
+     * Copy a stored file to a destination without loading it into memory
+     */
+    public boolean copyFile(String filePath, Path destination) {
+        try {
+            Path path = Paths.get(filePath);
+            if (Files.exists(path)) {
+                attachmentStore.copyTo(path, destination);
+                return true;
+            }
+        } catch (IOException e) {
+            logger.error("Error copying file {} to {}", filePath, destination, e);
+        }
+        return false;
+    }
+
+    /**
+     * Read part of a stored file into a buffer; returns the bytes read, or -1 past the end
+     */
+    public int readFileRange(String filePath, long offset, ByteBuffer destination) throws IOException {
+        return attachmentStore.readRange(Paths.get(filePath), offset, destination);
+    }
+
+    /**
+     * Store holding attachment content, also used to send and receive it over the chat socket
+     */
+    public ChatAttachmentStore getAttachmentStore() {
+        return attachmentStore;
+    }
+
     /**
      * Get admin users (for chat recipient selection)
      */
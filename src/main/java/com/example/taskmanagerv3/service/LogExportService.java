@@ -1,20 +1,17 @@
 package com.example.taskmanagerv3.service;
 
 import org.apache.poi.ss.usermodel.*;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.*;
-import java.nio.file.Files;
-import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.function.Consumer;
 
 /**
  * Service for exporting application logs to various formats
@@ -22,10 +19,11 @@ import java.util.regex.Pattern;
 public class LogExportService {
     private static final Logger logger = LoggerFactory.getLogger(LogExportService.class);
     
-    private static final String LOG_FILE_PATH = "logs/workflow-manager.log";
-    private static final Pattern LOG_PATTERN = Pattern.compile(
-        "(\\d{4}-\\d{2}-\\d{2} \\d{2}:\\d{2}:\\d{2}\\.\\d{3}) \\[([^\\]]+)\\] (\\w+)\\s+([^\\s]+) - (.+)"
-    );
+    // Shared so file indexes survive between exports
+    private static final LogQueryEngine logQueryEngine = new LogQueryEngine(Paths.get("logs"), "workflow-manager");
+    private static final String[] EXCEL_HEADERS = {"Timestamp", "Thread", "Level", "Logger", "Message"};
+    // Fixed Excel column widths in characters
+    private static final int[] EXCEL_WIDTHS = {24, 24, 7, 40, 120};
     
     /**
      * Log entry model
@@ -54,54 +52,36 @@ public class LogExportService {
     }
     
     /**
-     * Export logs to Excel format
+     * Export logs to Excel format. Entries are written as they are read from the log, so
+     * memory use stays the same however many fall in the range.
      */
     public boolean exportLogsToExcel(File outputFile, LocalDateTime fromDate, LocalDateTime toDate) {
+        SXSSFWorkbook workbook = StreamingWorkbook.create();
         try {
-            List<LogEntry> logEntries = parseLogFile(fromDate, toDate);
+            Sheet sheet = StreamingWorkbook.createTableSheet(workbook, "Application Logs",
+                EXCEL_HEADERS, EXCEL_WIDTHS, createHeaderStyle(workbook));
             
-            try (Workbook workbook = new XSSFWorkbook()) {
-                Sheet sheet = workbook.createSheet("Application Logs");
-                
-                // Create header row
-                Row headerRow = sheet.createRow(0);
-                CellStyle headerStyle = createHeaderStyle(workbook);
-                
-                String[] headers = {"Timestamp", "Thread", "Level", "Logger", "Message"};
-                for (int i = 0; i < headers.length; i++) {
-                    Cell cell = headerRow.createCell(i);
-                    cell.setCellValue(headers[i]);
-                    cell.setCellStyle(headerStyle);
-                }
-                
-                // Add data rows
-                int rowNum = 1;
-                for (LogEntry entry : logEntries) {
-                    Row row = sheet.createRow(rowNum++);
-                    row.createCell(0).setCellValue(entry.getTimestamp());
-                    row.createCell(1).setCellValue(entry.getThread());
-                    row.createCell(2).setCellValue(entry.getLevel());
-                    row.createCell(3).setCellValue(entry.getLogger());
-                    row.createCell(4).setCellValue(entry.getMessage());
-                }
-                
-                // Auto-size columns
-                for (int i = 0; i < headers.length; i++) {
-                    sheet.autoSizeColumn(i);
-                }
-                
-                // Write to file
-                try (FileOutputStream fileOut = new FileOutputStream(outputFile)) {
-                    workbook.write(fileOut);
-                }
-            }
+            // Add data rows
+            int[] rowNum = {1};
+            forEachLogEntry(fromDate, toDate, entry -> {
+                Row row = sheet.createRow(rowNum[0]++);
+                row.createCell(0).setCellValue(entry.getTimestamp());
+                row.createCell(1).setCellValue(entry.getThread());
+                row.createCell(2).setCellValue(entry.getLevel());
+                row.createCell(3).setCellValue(entry.getLogger());
+                row.createCell(4).setCellValue(entry.getMessage());
+            });
             
-            logger.info("Logs exported to Excel: {}", outputFile.getAbsolutePath());
+            StreamingWorkbook.write(workbook, outputFile);
+            
+            logger.info("Logs exported to Excel: {} ({} entries)", outputFile.getAbsolutePath(), rowNum[0] - 1);
             return true;
             
         } catch (Exception e) {
             logger.error("Error exporting logs to Excel", e);
             return false;
+        } finally {
+            StreamingWorkbook.close(workbook);
         }
     }
     
@@ -178,44 +158,18 @@ public class LogExportService {
      */
     private List<LogEntry> parseLogFile(LocalDateTime fromDate, LocalDateTime toDate) throws IOException {
         List<LogEntry> entries = new ArrayList<>();
-        Path logPath = Paths.get(LOG_FILE_PATH);
-        
-        if (!Files.exists(logPath)) {
-            logger.warn("Log file not found: {}", LOG_FILE_PATH);
-            return entries;
-        }
-        
-        try (BufferedReader reader = Files.newBufferedReader(logPath)) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                Matcher matcher = LOG_PATTERN.matcher(line);
-                if (matcher.matches()) {
-                    String timestamp = matcher.group(1);
-                    String thread = matcher.group(2);
-                    String level = matcher.group(3);
-                    String loggerName = matcher.group(4);
-                    String message = matcher.group(5);
-                    
-                    // Parse timestamp and check if within range
-                    try {
-                        LocalDateTime logTime = LocalDateTime.parse(timestamp, 
-                            DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss.SSS"));
-                        
-                        if ((logTime.isEqual(fromDate) || logTime.isAfter(fromDate)) &&
-                            (logTime.isEqual(toDate) || logTime.isBefore(toDate))) {
-                            entries.add(new LogEntry(timestamp, thread, level, loggerName, message));
-                        }
-                    } catch (Exception e) {
-                        // Skip entries with invalid timestamps
-                        logger.debug("Skipping log entry with invalid timestamp: {}", timestamp);
-                    }
-                }
-            }
-        }
-        
+        forEachLogEntry(fromDate, toDate, entries::add);
         return entries;
     }
     
+    /**
+     * Pass each log entry within the date range to a consumer, oldest first
+     */
+    private void forEachLogEntry(LocalDateTime fromDate, LocalDateTime toDate, Consumer<LogEntry> consumer)
+            throws IOException {
+        logQueryEngine.forEach(fromDate, toDate, consumer);
+    }
+    
     /**
      * Create header style for Excel
      */
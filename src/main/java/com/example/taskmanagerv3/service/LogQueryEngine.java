@@ -0,0 +1,373 @@
+package com.example.taskmanagerv3.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Reads the log entries in a time range from the active log file and the daily files
+ * logback rolls it into (name.yyyy-MM-dd.log).
+ *
+ * Only files whose day falls in the range are opened. Each file keeps a sparse index of
+ * the first timestamp after every {@link #INDEX_INTERVAL} bytes, so a query seeks close to
+ * its start instead of reading from the top, and it stops at the first entry past its end.
+ * Rolled files never change, so their index is built once; the active file's index is
+ * extended as the file grows. Lines are checked by their timestamp bytes and only those
+ * in range are decoded and matched.
+ *
+ * Rolled files are memory-mapped. The active file is read through the channel instead,
+ * because a live mapping would stop logback from renaming it at rollover on Windows.
+ */
+public class LogQueryEngine {
+    private static final Logger logger = LoggerFactory.getLogger(LogQueryEngine.class);
+
+    static final int INDEX_INTERVAL = 64 * 1024;
+    private static final int WINDOW_SIZE = 4 * 1024 * 1024;
+    private static final int PROBE_SIZE = 4 * 1024;
+    private static final int TIMESTAMP_LENGTH = 23; // yyyy-MM-dd HH:mm:ss.SSS
+    private static final long MILLIS_PER_DAY = 86_400_000L;
+    // Threads stamp entries before taking the appender lock, so the file can be a little out of order
+    private static final long ORDER_SLACK_MILLIS = 1_000;
+
+    private static final Pattern LOG_PATTERN = Pattern.compile(
+        "(\\d{4}-\\d{2}-\\d{2} \\d{2}:\\d{2}:\\d{2}\\.\\d{3}) \\[([^\\]]+)\\] (\\w+)\\s+([^\\s]+) - (.+)"
+    );
+
+    private final Path directory;
+    private final String activeName;
+    private final Pattern rolledName;
+    private final Map<Path, FileIndex> indexes = new ConcurrentHashMap<>();
+
+    /**
+     * Query the logs in a directory, e.g. "logs" and "workflow-manager" for
+     * logs/workflow-manager.log and logs/workflow-manager.2025-06-20.log
+     */
+    public LogQueryEngine(Path directory, String baseName) {
+        this.directory = directory;
+        this.activeName = baseName + ".log";
+        this.rolledName = Pattern.compile(Pattern.quote(baseName) + "\\.(\\d{4}-\\d{2}-\\d{2})\\.log");
+    }
+
+    /**
+     * Pass every entry from fromDate to toDate (inclusive) to a consumer, oldest first
+     */
+    public void forEach(LocalDateTime fromDate, LocalDateTime toDate, Consumer<LogExportService.LogEntry> consumer)
+            throws IOException {
+        long from = toMillis(fromDate);
+        long to = toMillis(toDate);
+
+        indexes.keySet().removeIf(path -> !Files.exists(path)); // Rolled files past maxHistory
+        for (LogFile file : filesFor(fromDate, toDate)) {
+            if (!scan(file, from, to, consumer)) {
+                return; // Past toDate; later files are newer still
+            }
+        }
+    }
+
+    /**
+     * Rolled files of the days in the range, oldest first, then the active file if it was
+     * written to since fromDate
+     */
+    private List<LogFile> filesFor(LocalDateTime fromDate, LocalDateTime toDate) throws IOException {
+        List<LogFile> files = new ArrayList<>();
+        if (!Files.isDirectory(directory)) {
+            logger.warn("Log directory not found: {}", directory);
+            return files;
+        }
+
+        LocalDate fromDay = fromDate.toLocalDate();
+        LocalDate toDay = toDate.toLocalDate();
+        try (Stream<Path> paths = Files.list(directory)) {
+            paths.forEach(path -> {
+                Matcher matcher = rolledName.matcher(path.getFileName().toString());
+                if (matcher.matches()) {
+                    LocalDate day = LocalDate.parse(matcher.group(1));
+                    if (!day.isBefore(fromDay) && !day.isAfter(toDay)) {
+                        files.add(new LogFile(path, day, false));
+                    }
+                }
+            });
+        }
+        files.sort(Comparator.comparing(file -> file.day));
+
+        Path active = directory.resolve(activeName);
+        if (Files.exists(active)) {
+            LocalDateTime lastWrite = LocalDateTime.ofInstant(
+                Files.getLastModifiedTime(active).toInstant(), ZoneId.systemDefault());
+            if (!lastWrite.isBefore(fromDate)) {
+                files.add(new LogFile(active, null, true));
+            }
+        }
+        return files;
+    }
+
+    /**
+     * Scan one file from its indexed position before `from`. Returns false once an entry
+     * past `to` was seen.
+     */
+    private boolean scan(LogFile file, long from, long to, Consumer<LogExportService.LogEntry> consumer)
+            throws IOException {
+        try (FileChannel channel = FileChannel.open(file.path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            ByteBuffer probeBuffer = ByteBuffer.allocate(PROBE_SIZE);
+            long[] first = probe(channel, 0, probeBuffer);
+            if (first != null && first[1] > to + ORDER_SLACK_MILLIS) {
+                return false; // Starts after the range, no need to index it
+            }
+            long firstTime = first != null ? first[1] : -1;
+            long position = indexFor(file.path, channel, size, firstTime, probeBuffer)
+                .offsetBefore(from - ORDER_SLACK_MILLIS);
+            ByteBuffer readBuffer = file.active ? ByteBuffer.allocate((int) Math.min(WINDOW_SIZE, size)) : null;
+
+            while (position < size) {
+                int length = (int) Math.min(WINDOW_SIZE, size - position);
+                ByteBuffer window = file.active
+                    ? read(channel, position, length, readBuffer)
+                    : channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+                int limit = window.limit();
+                boolean last = position + limit >= size;
+
+                int lineStart = 0;
+                for (int i = 0; i < limit; i++) {
+                    if (window.get(i) == '\n') {
+                        if (!line(window, lineStart, i, from, to, consumer)) {
+                            return false;
+                        }
+                        lineStart = i + 1;
+                    }
+                }
+                if (last || limit == 0) {
+                    return lineStart >= limit || line(window, lineStart, limit, from, to, consumer);
+                }
+                // Continue from the unfinished line; one longer than a window is skipped
+                position += lineStart > 0 ? lineStart : limit;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Handle the line in [start, end) of a window. Returns false if it is past `to`.
+     */
+    private boolean line(ByteBuffer window, int start, int end, long from, long to,
+                         Consumer<LogExportService.LogEntry> consumer) {
+        long time = timestampAt(window, start, end);
+        if (time < 0) {
+            return true; // Stack trace or other continuation line
+        }
+        if (time > to + ORDER_SLACK_MILLIS) {
+            return false;
+        }
+        if (time < from || time > to) {
+            return true;
+        }
+
+        if (end > start && window.get(end - 1) == '\r') {
+            end--;
+        }
+        byte[] bytes = new byte[end - start];
+        window.get(start, bytes);
+        Matcher matcher = LOG_PATTERN.matcher(new String(bytes, StandardCharsets.UTF_8));
+        if (matcher.matches()) {
+            consumer.accept(new LogExportService.LogEntry(matcher.group(1), matcher.group(2), matcher.group(3),
+                matcher.group(4), matcher.group(5)));
+        }
+        return true;
+    }
+
+    /**
+     * The file's index, rebuilt if the file was replaced (rolled over) and extended if it grew
+     */
+    private FileIndex indexFor(Path path, FileChannel channel, long size, long firstTime, ByteBuffer probeBuffer)
+            throws IOException {
+        FileIndex index = indexes.compute(path, (key, existing) ->
+            existing != null && existing.firstTime == firstTime && existing.indexedSize <= size
+                ? existing : new FileIndex(firstTime));
+        synchronized (index) {
+            index.extend(channel, size, probeBuffer);
+        }
+        return index;
+    }
+
+    /**
+     * Offset and time of the first entry starting at or after a position, looking one probe
+     * ahead only; null if there is none that close
+     */
+    private static long[] probe(FileChannel channel, long position, ByteBuffer buffer) throws IOException {
+        long start = Math.max(0, position - 1); // Include the byte before, to tell whether a line starts at position
+        buffer.clear();
+        int read = channel.read(buffer, start);
+        if (read <= 0) {
+            return null;
+        }
+
+        int i = position == 0 ? 0 : nextLine(buffer, 0, read);
+        while (i >= 0 && i + TIMESTAMP_LENGTH <= read) {
+            long time = timestampAt(buffer, i, read);
+            if (time >= 0) {
+                return new long[] {start + i, time};
+            }
+            i = nextLine(buffer, i, read);
+        }
+        return null;
+    }
+
+    private static int nextLine(ByteBuffer buffer, int from, int end) {
+        for (int i = from; i < end; i++) {
+            if (buffer.get(i) == '\n') {
+                return i + 1;
+            }
+        }
+        return -1;
+    }
+
+    private static ByteBuffer read(FileChannel channel, long position, int length, ByteBuffer buffer)
+            throws IOException {
+        buffer.clear();
+        buffer.limit(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                break;
+            }
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    /**
+     * Milliseconds of the timestamp a line starts with, on the same scale as
+     * {@link #toMillis}; -1 if it does not start with one
+     */
+    private static long timestampAt(ByteBuffer buffer, int start, int end) {
+        if (end - start < TIMESTAMP_LENGTH
+                || buffer.get(start + 4) != '-' || buffer.get(start + 7) != '-' || buffer.get(start + 10) != ' '
+                || buffer.get(start + 13) != ':' || buffer.get(start + 16) != ':' || buffer.get(start + 19) != '.') {
+            return -1;
+        }
+        int year = digits(buffer, start, 4);
+        int month = digits(buffer, start + 5, 2);
+        int day = digits(buffer, start + 8, 2);
+        int hour = digits(buffer, start + 11, 2);
+        int minute = digits(buffer, start + 14, 2);
+        int second = digits(buffer, start + 17, 2);
+        int millis = digits(buffer, start + 20, 3);
+        if ((year | month | day | hour | minute | second | millis) < 0) {
+            return -1;
+        }
+        try {
+            return LocalDate.of(year, month, day).toEpochDay() * MILLIS_PER_DAY
+                + ((hour * 60L + minute) * 60 + second) * 1000 + millis;
+        } catch (DateTimeException e) {
+            return -1;
+        }
+    }
+
+    private static int digits(ByteBuffer buffer, int start, int count) {
+        int value = 0;
+        for (int i = start; i < start + count; i++) {
+            int digit = buffer.get(i) - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    private static long toMillis(LocalDateTime time) {
+        return time.toLocalDate().toEpochDay() * MILLIS_PER_DAY + time.toLocalTime().toNanoOfDay() / 1_000_000;
+    }
+
+    /**
+     * Number of index entries for a file, for tests
+     */
+    int indexSize(Path path) {
+        FileIndex index = indexes.get(path);
+        return index != null ? index.count : 0;
+    }
+
+    private static final class LogFile {
+        private final Path path;
+        private final LocalDate day; // null for the active file
+        private final boolean active;
+
+        LogFile(Path path, LocalDate day, boolean active) {
+            this.path = path;
+            this.day = day;
+            this.active = active;
+        }
+    }
+
+    /**
+     * Sparse (time, offset) pairs of one file in file order. Identified by the time of the
+     * file's first entry, which changes when logback starts a new file under the same name.
+     */
+    private static final class FileIndex {
+        private final long firstTime;
+        private long[] times = new long[16];
+        private long[] offsets = new long[16];
+        private int count;
+        private long indexedSize;
+        private long nextProbe;
+
+        FileIndex(long firstTime) {
+            this.firstTime = firstTime;
+        }
+
+        void extend(FileChannel channel, long size, ByteBuffer probeBuffer) throws IOException {
+            for (; nextProbe < size; nextProbe += INDEX_INTERVAL) {
+                long[] entry = probe(channel, nextProbe, probeBuffer);
+                if (entry != null && entry[0] < size && (count == 0 || entry[0] > offsets[count - 1])) {
+                    if (count == times.length) {
+                        times = Arrays.copyOf(times, count * 2);
+                        offsets = Arrays.copyOf(offsets, count * 2);
+                    }
+                    times[count] = entry[1];
+                    offsets[count] = entry[0];
+                    count++;
+                }
+            }
+            indexedSize = Math.max(indexedSize, size);
+        }
+
+        /**
+         * Offset of the last indexed entry before the given time, or 0 if there is none
+         */
+        synchronized long offsetBefore(long time) {
+            int low = 0;
+            int high = count - 1;
+            long offset = 0;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                if (times[mid] < time) {
+                    offset = offsets[mid];
+                    low = mid + 1;
+                } else {
+                    high = mid - 1;
+                }
+            }
+            return offset;
+        }
+    }
+}
@@ -4,18 +4,23 @@ import com.example.taskmanagerv3.model.Task;
 import com.example.taskmanagerv3.model.TaskStatus;
 import com.example.taskmanagerv3.model.TaskPriority;
 import com.example.taskmanagerv3.model.User;
+import com.example.taskmanagerv3.util.ChartImageCache;
 import org.apache.poi.ss.usermodel.*;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
 import org.jfree.chart.JFreeChart;
-import org.jfree.chart.ChartUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.*;
+import java.nio.file.Files;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 /**
@@ -23,73 +28,121 @@ import java.util.stream.Collectors;
  */
 public class StatisticsExportService {
     private static final Logger logger = LoggerFactory.getLogger(StatisticsExportService.class);
+    private static final int CHART_WIDTH = 800;
+    private static final int CHART_HEIGHT = 600;
+    private static final DateTimeFormatter DATE_TIME_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
+    
+    // Column headers and fixed widths (in characters) of the table sheets
+    private static final String[] TASK_DETAIL_HEADERS = {"Task ID", "Title", "Status", "Priority", "Assigned User",
+        "Created Date", "Due Date", "Completed Date", "Estimated Hours", "Actual Hours"};
+    private static final int[] TASK_DETAIL_WIDTHS = {9, 45, 13, 10, 24, 17, 17, 17, 16, 13};
+    private static final String[] USER_STATISTICS_HEADERS = {"User", "Total Tasks", "Completed", "In Progress",
+        "Pending", "Overdue"};
+    private static final int[] USER_STATISTICS_WIDTHS = {28, 12, 12, 12, 12, 12};
+    private static final String[] TIME_ANALYSIS_HEADERS = {"Task ID", "Title", "Estimated Hours", "Actual Hours",
+        "Variance", "Variance %"};
+    private static final int[] TIME_ANALYSIS_WIDTHS = {9, 45, 16, 13, 10, 11};
     
     private final ChartGeneratorService chartGenerator;
+    private final TaskService taskService;
     
     public StatisticsExportService() {
         this.chartGenerator = new ChartGeneratorService();
+        this.taskService = new TaskService();
     }
     
     /**
      * Export comprehensive statistics report to Excel
      */
     public boolean exportStatisticsToExcel(File outputFile, List<Task> tasks, List<User> users) {
-        try (Workbook workbook = new XSSFWorkbook()) {
-            
-            // Create summary sheet
-            createSummarySheet(workbook, tasks, users);
-            
-            // Create task details sheet
-            createTaskDetailsSheet(workbook, tasks, users);
+        return writeStatisticsWorkbook(outputFile, consumer -> {
+            tasks.forEach(consumer);
+            return true;
+        }, users);
+    }
+    
+    /**
+     * Export comprehensive statistics report to Excel, reading the tasks matching a query
+     * from the database one row at a time; memory use stays the same however many match
+     */
+    public boolean exportStatisticsToExcel(File outputFile, TaskService.TaskQuery query, List<User> users) {
+        return writeStatisticsWorkbook(outputFile, consumer -> taskService.forEachTask(query, consumer), users);
+    }
+    
+    private boolean writeStatisticsWorkbook(File outputFile, TaskSource tasks, List<User> users) {
+        SXSSFWorkbook workbook = StreamingWorkbook.create();
+        try {
+            CellStyle headerStyle = createHeaderStyle(workbook);
+            CellStyle dataStyle = createDataStyle(workbook);
             
-            // Create user statistics sheet
-            createUserStatisticsSheet(workbook, tasks, users);
+            // Sheets are created in display order; the summaries are filled in once every task was read
+            Sheet summarySheet = workbook.createSheet("Summary");
+            Sheet detailsSheet = StreamingWorkbook.createTableSheet(workbook, "Task Details",
+                TASK_DETAIL_HEADERS, TASK_DETAIL_WIDTHS, headerStyle);
+            Sheet userSheet = StreamingWorkbook.createTableSheet(workbook, "User Statistics",
+                USER_STATISTICS_HEADERS, USER_STATISTICS_WIDTHS, headerStyle);
+            Sheet timeSheet = StreamingWorkbook.createTableSheet(workbook, "Time Analysis",
+                TIME_ANALYSIS_HEADERS, TIME_ANALYSIS_WIDTHS, headerStyle);
             
-            // Create time analysis sheet
-            createTimeAnalysisSheet(workbook, tasks);
+            Map<Integer, String> userIdToName = users.stream()
+                .collect(Collectors.toMap(User::getUserId, User::getDisplayName));
+            TaskReportStatistics statistics = TaskReportStatistics.counting();
+            int[] nextRow = {1, 1}; // Task details, time analysis
             
-            // Write to file
-            try (FileOutputStream fileOut = new FileOutputStream(outputFile)) {
-                workbook.write(fileOut);
+            boolean read = tasks.forEach(task -> {
+                statistics.add(task);
+                addTaskDetailRow(detailsSheet.createRow(nextRow[0]++), task, userIdToName);
+                if (task.getStatus() == TaskStatus.COMPLETED && task.getEstimatedHours() > 0 && task.getActualHours() > 0) {
+                    addTimeAnalysisRow(timeSheet.createRow(nextRow[1]++), task);
+                }
+            });
+            if (!read) {
+                return false;
             }
             
-            logger.info("Statistics exported to Excel: {}", outputFile.getAbsolutePath());
+            fillSummarySheet(summarySheet, statistics, users, headerStyle, dataStyle);
+            fillUserStatisticsSheet(userSheet, statistics, users);
+            
+            StreamingWorkbook.write(workbook, outputFile);
+            logger.info("Statistics exported to Excel: {} ({} tasks)", outputFile.getAbsolutePath(),
+                statistics.getTotalTasks());
             return true;
             
         } catch (Exception e) {
             logger.error("Error exporting statistics to Excel", e);
             return false;
+        } finally {
+            StreamingWorkbook.close(workbook);
         }
     }
     
     /**
-     * Export charts as images
+     * Export charts as images from statistics already computed
      */
-    public boolean exportChartsAsImages(String outputDirectory, List<Task> tasks, List<User> users) {
+    public boolean exportChartsAsImages(String outputDirectory, TaskReportStatistics statistics, List<User> users) {
         try {
             File dir = new File(outputDirectory);
             if (!dir.exists()) {
                 dir.mkdirs();
             }
             
-            // Generate and save charts
-            JFreeChart statusChart = chartGenerator.generateTaskStatusChart(tasks);
-            ChartUtils.saveChartAsPNG(new File(dir, "task_status_chart.png"), statusChart, 800, 600);
-            
-            JFreeChart priorityChart = chartGenerator.generateTaskPriorityChart(tasks);
-            ChartUtils.saveChartAsPNG(new File(dir, "task_priority_chart.png"), priorityChart, 800, 600);
+            // Build the charts, then render them in parallel; unchanged ones come from the cache
+            LocalDate today = LocalDate.now();
+            Map<String, JFreeChart> charts = new LinkedHashMap<>();
+            charts.put("task_status_chart.png", chartGenerator.generateTaskStatusChart(statistics));
+            charts.put("task_priority_chart.png", chartGenerator.generateTaskPriorityChart(statistics));
+            charts.put("tasks_per_user_chart.png", chartGenerator.generateTasksPerUserChart(statistics, users));
+            charts.put("completion_trend_chart.png", chartGenerator.generateTaskCompletionTrendChart(
+                taskService.getDailyTaskCounts(today.minusDays(ChartGeneratorService.TREND_DAYS), today)));
+            charts.put("workload_distribution_chart.png", chartGenerator.generateWorkloadDistributionChart(statistics, users));
+            charts.put("estimated_vs_actual_hours_chart.png", chartGenerator.generateEstimatedVsActualHoursChart(statistics));
             
-            JFreeChart userChart = chartGenerator.generateTasksPerUserChart(tasks, users);
-            ChartUtils.saveChartAsPNG(new File(dir, "tasks_per_user_chart.png"), userChart, 800, 600);
-            
-            JFreeChart trendChart = chartGenerator.generateTaskCompletionTrendChart(tasks);
-            ChartUtils.saveChartAsPNG(new File(dir, "completion_trend_chart.png"), trendChart, 800, 600);
-            
-            JFreeChart workloadChart = chartGenerator.generateWorkloadDistributionChart(tasks, users);
-            ChartUtils.saveChartAsPNG(new File(dir, "workload_distribution_chart.png"), workloadChart, 800, 600);
-            
-            JFreeChart hoursChart = chartGenerator.generateEstimatedVsActualHoursChart(tasks);
-            ChartUtils.saveChartAsPNG(new File(dir, "estimated_vs_actual_hours_chart.png"), hoursChart, 800, 600);
+            List<byte[]> images = ChartImageCache.getInstance().getPngs(
+                new ArrayList<>(charts.values()), CHART_WIDTH, CHART_HEIGHT);
+            int i = 0;
+            for (String fileName : charts.keySet()) {
+                Files.write(new File(dir, fileName).toPath(), images.get(i++));
+            }
             
             logger.info("Charts exported to directory: {}", outputDirectory);
             return true;
@@ -101,12 +154,11 @@ public class StatisticsExportService {
     }
     
     /**
-     * Create summary sheet with key statistics
+     * Fill summary sheet with key statistics
      */
-    private void createSummarySheet(Workbook workbook, List<Task> tasks, List<User> users) {
-        Sheet sheet = workbook.createSheet("Summary");
-        CellStyle headerStyle = createHeaderStyle(workbook);
-        CellStyle dataStyle = createDataStyle(workbook);
+    private void fillSummarySheet(Sheet sheet, TaskReportStatistics statistics, List<User> users,
+                                  CellStyle headerStyle, CellStyle dataStyle) {
+        StreamingWorkbook.setColumnWidths(sheet, 36, 20);
         
         int rowNum = 0;
         
@@ -124,7 +176,7 @@ public class StatisticsExportService {
         
         // Overall statistics
         rowNum++;
-        createStatisticRow(sheet, rowNum++, "Total Tasks", tasks.size(), headerStyle, dataStyle);
+        createStatisticRow(sheet, rowNum++, "Total Tasks", statistics.getTotalTasks(), headerStyle, dataStyle);
         createStatisticRow(sheet, rowNum++, "Total Users", users.size(), headerStyle, dataStyle);
         createStatisticRow(sheet, rowNum++, "Active Users", 
             (int) users.stream().filter(User::isActive).count(), headerStyle, dataStyle);
@@ -135,12 +187,8 @@ public class StatisticsExportService {
         statusHeaderRow.createCell(0).setCellValue("Task Status Breakdown");
         statusHeaderRow.getCell(0).setCellStyle(headerStyle);
         
-        Map<TaskStatus, Long> statusCounts = tasks.stream()
-            .collect(Collectors.groupingBy(Task::getStatus, Collectors.counting()));
-        
         for (TaskStatus status : TaskStatus.values()) {
-            long count = statusCounts.getOrDefault(status, 0L);
-            createStatisticRow(sheet, rowNum++, status.toString(), (int) count, headerStyle, dataStyle);
+            createStatisticRow(sheet, rowNum++, status.toString(), statistics.getCount(status), headerStyle, dataStyle);
         }
         
         // Task priority breakdown
@@ -149,147 +197,58 @@ public class StatisticsExportService {
         priorityHeaderRow.createCell(0).setCellValue("Task Priority Breakdown");
         priorityHeaderRow.getCell(0).setCellStyle(headerStyle);
         
-        Map<TaskPriority, Long> priorityCounts = tasks.stream()
-            .collect(Collectors.groupingBy(Task::getPriority, Collectors.counting()));
-        
         for (TaskPriority priority : TaskPriority.values()) {
-            long count = priorityCounts.getOrDefault(priority, 0L);
-            createStatisticRow(sheet, rowNum++, priority.toString(), (int) count, headerStyle, dataStyle);
+            createStatisticRow(sheet, rowNum++, priority.toString(), statistics.getCount(priority), headerStyle, dataStyle);
         }
-        
-        // Auto-size columns
-        sheet.autoSizeColumn(0);
-        sheet.autoSizeColumn(1);
     }
     
     /**
-     * Create task details sheet
+     * Add one task to the task details sheet
      */
-    private void createTaskDetailsSheet(Workbook workbook, List<Task> tasks, List<User> users) {
-        Sheet sheet = workbook.createSheet("Task Details");
-        CellStyle headerStyle = createHeaderStyle(workbook);
-        
-        Map<Integer, String> userIdToName = users.stream()
-            .collect(Collectors.toMap(User::getUserId, User::getDisplayName));
-        
-        // Create header row
-        Row headerRow = sheet.createRow(0);
-        String[] headers = {"Task ID", "Title", "Status", "Priority", "Assigned User", 
-                           "Created Date", "Due Date", "Completed Date", "Estimated Hours", "Actual Hours"};
-        
-        for (int i = 0; i < headers.length; i++) {
-            Cell cell = headerRow.createCell(i);
-            cell.setCellValue(headers[i]);
-            cell.setCellStyle(headerStyle);
-        }
-        
-        // Add data rows
-        int rowNum = 1;
-        for (Task task : tasks) {
-            Row row = sheet.createRow(rowNum++);
-            row.createCell(0).setCellValue(task.getTaskId());
-            row.createCell(1).setCellValue(task.getTitle());
-            row.createCell(2).setCellValue(task.getStatus().toString());
-            row.createCell(3).setCellValue(task.getPriority().toString());
-            row.createCell(4).setCellValue(userIdToName.getOrDefault(task.getAssignedUserId(), "Unknown"));
-            row.createCell(5).setCellValue(task.getCreatedAt().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm")));
-            row.createCell(6).setCellValue(task.getDueDate() != null ? 
-                task.getDueDate().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm")) : "");
-            row.createCell(7).setCellValue(task.getCompletedAt() != null ? 
-                task.getCompletedAt().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm")) : "");
-            row.createCell(8).setCellValue(task.getEstimatedHours());
-            row.createCell(9).setCellValue(task.getActualHours());
-        }
-        
-        // Auto-size columns
-        for (int i = 0; i < headers.length; i++) {
-            sheet.autoSizeColumn(i);
-        }
+    private void addTaskDetailRow(Row row, Task task, Map<Integer, String> userIdToName) {
+        row.createCell(0).setCellValue(task.getTaskId());
+        row.createCell(1).setCellValue(task.getTitle());
+        row.createCell(2).setCellValue(task.getStatus().toString());
+        row.createCell(3).setCellValue(task.getPriority().toString());
+        row.createCell(4).setCellValue(userIdToName.getOrDefault(task.getAssignedUserId(), "Unknown"));
+        row.createCell(5).setCellValue(task.getCreatedAt().format(DATE_TIME_FORMAT));
+        row.createCell(6).setCellValue(task.getDueDate() != null ? task.getDueDate().format(DATE_TIME_FORMAT) : "");
+        row.createCell(7).setCellValue(task.getCompletedAt() != null ? task.getCompletedAt().format(DATE_TIME_FORMAT) : "");
+        row.createCell(8).setCellValue(task.getEstimatedHours());
+        row.createCell(9).setCellValue(task.getActualHours());
     }
     
     /**
-     * Create user statistics sheet
+     * Fill user statistics sheet, one row per user after the header
      */
-    private void createUserStatisticsSheet(Workbook workbook, List<Task> tasks, List<User> users) {
-        Sheet sheet = workbook.createSheet("User Statistics");
-        CellStyle headerStyle = createHeaderStyle(workbook);
-        
-        // Create header row
-        Row headerRow = sheet.createRow(0);
-        String[] headers = {"User", "Total Tasks", "Completed", "In Progress", "Pending", "Overdue"};
-        
-        for (int i = 0; i < headers.length; i++) {
-            Cell cell = headerRow.createCell(i);
-            cell.setCellValue(headers[i]);
-            cell.setCellStyle(headerStyle);
-        }
-        
-        // Calculate user statistics
-        Map<Integer, List<Task>> tasksByUser = tasks.stream()
-            .collect(Collectors.groupingBy(Task::getAssignedUserId));
-        
+    private void fillUserStatisticsSheet(Sheet sheet, TaskReportStatistics statistics, List<User> users) {
         int rowNum = 1;
         for (User user : users) {
-            List<Task> userTasks = tasksByUser.getOrDefault(user.getUserId(), List.of());
+            TaskService.UserWorkload workload = statistics.getWorkload(user.getUserId());
             
             Row row = sheet.createRow(rowNum++);
             row.createCell(0).setCellValue(user.getDisplayName());
-            row.createCell(1).setCellValue(userTasks.size());
-            row.createCell(2).setCellValue((int) userTasks.stream().filter(t -> t.getStatus() == TaskStatus.COMPLETED).count());
-            row.createCell(3).setCellValue((int) userTasks.stream().filter(t -> t.getStatus() == TaskStatus.IN_PROGRESS).count());
-            row.createCell(4).setCellValue((int) userTasks.stream().filter(t -> 
-                t.getStatus() != TaskStatus.COMPLETED && t.getStatus() != TaskStatus.CANCELLED).count());
-            row.createCell(5).setCellValue((int) userTasks.stream().filter(Task::isOverdue).count());
-        }
-        
-        // Auto-size columns
-        for (int i = 0; i < headers.length; i++) {
-            sheet.autoSizeColumn(i);
+            row.createCell(1).setCellValue(workload.getTotalTasks());
+            row.createCell(2).setCellValue(workload.getCompletedTasks());
+            row.createCell(3).setCellValue(workload.getInProgressTasks());
+            row.createCell(4).setCellValue(workload.getPendingTasks());
+            row.createCell(5).setCellValue(workload.getOverdueTasks());
         }
     }
     
     /**
-     * Create time analysis sheet
+     * Add one completed task with estimated and actual hours to the time analysis sheet
      */
-    private void createTimeAnalysisSheet(Workbook workbook, List<Task> tasks) {
-        Sheet sheet = workbook.createSheet("Time Analysis");
-        CellStyle headerStyle = createHeaderStyle(workbook);
-        
-        List<Task> completedTasks = tasks.stream()
-            .filter(task -> task.getStatus() == TaskStatus.COMPLETED)
-            .filter(task -> task.getEstimatedHours() > 0 && task.getActualHours() > 0)
-            .collect(Collectors.toList());
-        
-        // Create header row
-        Row headerRow = sheet.createRow(0);
-        String[] headers = {"Task ID", "Title", "Estimated Hours", "Actual Hours", "Variance", "Variance %"};
+    private void addTimeAnalysisRow(Row row, Task task) {
+        int variance = task.getActualHours() - task.getEstimatedHours();
+        double variancePercent = (double) variance / task.getEstimatedHours() * 100;
         
-        for (int i = 0; i < headers.length; i++) {
-            Cell cell = headerRow.createCell(i);
-            cell.setCellValue(headers[i]);
-            cell.setCellStyle(headerStyle);
-        }
-        
-        // Add data rows
-        int rowNum = 1;
-        for (Task task : completedTasks) {
-            int variance = task.getActualHours() - task.getEstimatedHours();
-            double variancePercent = task.getEstimatedHours() > 0 ? 
-                (double) variance / task.getEstimatedHours() * 100 : 0;
-            
-            Row row = sheet.createRow(rowNum++);
-            row.createCell(0).setCellValue(task.getTaskId());
-            row.createCell(1).setCellValue(task.getTitle());
-            row.createCell(2).setCellValue(task.getEstimatedHours());
-            row.createCell(3).setCellValue(task.getActualHours());
-            row.createCell(4).setCellValue(variance);
-            row.createCell(5).setCellValue(String.format("%.1f%%", variancePercent));
-        }
-        
-        // Auto-size columns
-        for (int i = 0; i < headers.length; i++) {
-            sheet.autoSizeColumn(i);
-        }
+        row.createCell(0).setCellValue(task.getTaskId());
+        row.createCell(1).setCellValue(task.getTitle());
+        row.createCell(2).setCellValue(task.getEstimatedHours());
+        row.createCell(3).setCellValue(task.getActualHours());
+        row.createCell(4).setCellValue(variance);
+        row.createCell(5).setCellValue(String.format("%.1f%%", variancePercent));
     }
     
     /**
@@ -328,4 +287,11 @@ public class StatisticsExportService {
         valueCell.setCellValue(value);
         valueCell.setCellStyle(dataStyle);
     }
+    
+    /**
+     * Feeds tasks to a consumer one at a time, returning false if they could not all be read
+     */
+    private interface TaskSource {
+        boolean forEach(Consumer<Task> consumer);
+    }
 }
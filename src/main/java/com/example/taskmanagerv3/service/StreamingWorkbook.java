@@ -0,0 +1,76 @@
+package com.example.taskmanagerv3.service;
+
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+/**
+ * Helpers for Excel exports written through POI's streaming SXSSF workbook.
+ *
+ * Only the last {@link #ROW_WINDOW} rows of each sheet stay in memory; older rows are
+ * flushed to a compressed temporary file, so an export uses the same memory for a
+ * hundred rows as for a million. Flushed rows cannot be measured, so columns get fixed
+ * widths instead of being auto-sized.
+ */
+final class StreamingWorkbook {
+    static final int ROW_WINDOW = 200;
+
+    private StreamingWorkbook() {
+    }
+
+    static SXSSFWorkbook create() {
+        SXSSFWorkbook workbook = new SXSSFWorkbook(ROW_WINDOW);
+        workbook.setCompressTempFiles(true);
+        return workbook;
+    }
+
+    /**
+     * Create a sheet with a styled header row and one fixed width per column, in characters
+     */
+    static Sheet createTableSheet(SXSSFWorkbook workbook, String name, String[] headers, int[] widths,
+                                  CellStyle headerStyle) {
+        Sheet sheet = workbook.createSheet(name);
+        setColumnWidths(sheet, widths);
+
+        Row headerRow = sheet.createRow(0);
+        for (int i = 0; i < headers.length; i++) {
+            Cell cell = headerRow.createCell(i);
+            cell.setCellValue(headers[i]);
+            cell.setCellStyle(headerStyle);
+        }
+        return sheet;
+    }
+
+    static void setColumnWidths(Sheet sheet, int... widths) {
+        for (int i = 0; i < widths.length; i++) {
+            sheet.setColumnWidth(i, widths[i] * 256);
+        }
+    }
+
+    /**
+     * Write the workbook to a file
+     */
+    static void write(SXSSFWorkbook workbook, File outputFile) throws IOException {
+        try (FileOutputStream fileOut = new FileOutputStream(outputFile)) {
+            workbook.write(fileOut);
+        }
+    }
+
+    /**
+     * Release the workbook and its temporary files, whether or not it was written
+     */
+    static void close(SXSSFWorkbook workbook) {
+        workbook.dispose();
+        try {
+            workbook.close();
+        } catch (IOException ignored) {
+            // The workbook is discarded either way
+        }
+    }
+}
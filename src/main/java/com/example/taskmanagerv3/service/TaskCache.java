@@ -0,0 +1,470 @@
+package com.example.taskmanagerv3.service;
+
+import com.example.taskmanagerv3.model.Task;
+import com.example.taskmanagerv3.model.TaskStatus;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Write-through in-memory cache of tasks, indexed by task id, assigned user and status.
+ *
+ * Tasks are cached per scope: one scope per assigned user, plus one for the whole table.
+ * A loaded scope is trusted for a short window, then revalidated with a cheap version
+ * probe (row count, MAX(updated_at) and rows changed since the last validation).
+ * Writes made through this cache are remembered so they are not mistaken for changes
+ * made by other clients. Every write also takes a sequence number, so a list read
+ * that started before a write cannot overwrite it when it is loaded afterwards. Writes
+ * are remembered for WRITE_RETENTION_MILLIS; a read that started before a forgotten
+ * write is returned to its caller but not cached.
+ */
+public class TaskCache {
+    public static final int ALL_TASKS_SCOPE = -1;
+    private static final long VALIDATION_WINDOW_MILLIS = 2_000;
+    // Force a full reload now and then, in case the probe missed a change
+    private static final long MAX_SCOPE_AGE_MILLIS = 60_000;
+    // How long writes are remembered for list reads still in flight
+    static final long WRITE_RETENTION_MILLIS = MAX_SCOPE_AGE_MILLIS;
+
+    // Newest first, matching ORDER BY created_at DESC
+    private static final Comparator<Task> CREATED_DESC = Comparator
+        .comparing(Task::getCreatedAt, Comparator.nullsLast(Comparator.reverseOrder()))
+        .thenComparing(Task::getTaskId, Comparator.reverseOrder());
+
+    private final Map<Integer, Task> tasksById = new HashMap<>();
+    private final Map<Integer, Set<Integer>> taskIdsByUser = new HashMap<>();
+    private final Map<TaskStatus, Set<Integer>> taskIdsByStatus = new EnumMap<>(TaskStatus.class);
+    private final Map<Integer, ScopeState> scopes = new HashMap<>();
+    // Latest write of each task made through this cache, oldest first; the task is null once deleted
+    private final LinkedHashMap<Integer, Write> lastWrites = new LinkedHashMap<>();
+    private long writeSequence;
+    private long forgottenSequence; // Writes up to this sequence are no longer in lastWrites
+
+    private long hits;
+    private long revalidations;
+    private long reloads;
+
+    /**
+     * Get a scope's tasks if it was validated within the trust window, otherwise null
+     */
+    public synchronized List<Task> getIfFresh(int scope) {
+        ScopeState state = scopes.get(scope);
+        if (state == null || System.currentTimeMillis() - state.validatedAt > VALIDATION_WINDOW_MILLIS) {
+            return null;
+        }
+        hits++;
+        return snapshot(scope);
+    }
+
+    /**
+     * Get the timestamp to pass to the version probe for a scope, or null if the scope is not loaded
+     */
+    public synchronized LocalDateTime getProbeSince(int scope) {
+        ScopeState state = scopes.get(scope);
+        return state == null ? null : state.validatedMaxUpdatedAt;
+    }
+
+    public synchronized boolean isLoaded(int scope) {
+        return scopes.containsKey(scope);
+    }
+
+    /**
+     * Check a loaded scope against a fresh version probe.
+     * Returns the cached tasks if nothing changed behind our back, otherwise drops the scope and returns null.
+     */
+    public synchronized List<Task> revalidate(int scope, VersionProbe probe) {
+        ScopeState state = scopes.get(scope);
+        if (state == null) {
+            return null;
+        }
+        if (System.currentTimeMillis() - state.loadedAt > MAX_SCOPE_AGE_MILLIS) {
+            scopes.remove(scope);
+            return null;
+        }
+
+        LocalDateTime knownMax = max(state.validatedMaxUpdatedAt, state.ownMaxUpdatedAt);
+        boolean unchanged = probe.getRowCount() == state.expectedCount
+            && probe.getChangedSince() == state.ownWrites.size()
+            && (probe.getMaxUpdatedAt() == null || knownMax == null || !probe.getMaxUpdatedAt().isAfter(knownMax));
+
+        if (!unchanged) {
+            scopes.remove(scope);
+            return null;
+        }
+
+        state.validatedMaxUpdatedAt = probe.getMaxUpdatedAt();
+        state.ownWrites.clear();
+        state.ownMaxUpdatedAt = null;
+        state.validatedAt = System.currentTimeMillis();
+        revalidations++;
+        return snapshot(scope);
+    }
+
+    /**
+     * Get the current write sequence; take it before reading a scope and pass it to
+     * {@link #load(int, List, VersionProbe, long)}
+     */
+    public synchronized long getWriteSequence() {
+        return writeSequence;
+    }
+
+    /**
+     * Replace a scope's contents with tasks freshly read from the database, with no
+     * write made since the read started
+     */
+    public synchronized void load(int scope, List<Task> tasks, VersionProbe probe) {
+        load(scope, tasks, probe, writeSequence);
+    }
+
+    /**
+     * Replace a scope's contents with tasks freshly read from the database. Tasks written
+     * through this cache after readSequence are newer than the read, so they are kept as
+     * written instead of the rows read.
+     */
+    public synchronized void load(int scope, List<Task> tasks, VersionProbe probe, long readSequence) {
+        if (readSequence < forgottenSequence) {
+            return; // Started before writes that are no longer remembered, so it may be stale
+        }
+
+        if (scope == ALL_TASKS_SCOPE) {
+            for (Task task : new ArrayList<>(tasksById.values())) {
+                unindex(task);
+            }
+        } else {
+            for (Integer taskId : new ArrayList<>(taskIdsByUser.getOrDefault(scope, Set.of()))) {
+                unindex(tasksById.get(taskId));
+            }
+        }
+
+        for (Task task : tasks) {
+            Task existing = tasksById.get(task.getTaskId());
+            if (existing != null) {
+                unindex(existing);
+            }
+            if (!isWrittenAfter(task.getTaskId(), readSequence)) {
+                index(new Task(task));
+            }
+        }
+
+        ScopeState state = new ScopeState();
+        state.validatedMaxUpdatedAt = probe != null ? probe.getMaxUpdatedAt() : maxUpdatedAt(tasks);
+
+        // Writes the read may have missed: index them as written and expect them in the next probe
+        for (Write write : lastWrites.values()) {
+            if (write.sequence <= readSequence || write.task == null) {
+                continue;
+            }
+            Task existing = tasksById.get(write.task.getTaskId());
+            if (existing != null) {
+                unindex(existing);
+            }
+            index(new Task(write.task));
+            if (scope == ALL_TASKS_SCOPE || write.task.getAssignedUserId() == scope) {
+                LocalDateTime updatedAt = write.task.getUpdatedAt();
+                if (updatedAt == null || state.validatedMaxUpdatedAt == null
+                        || updatedAt.isAfter(state.validatedMaxUpdatedAt)) {
+                    state.ownWrites.add(write.task.getTaskId());
+                    state.ownMaxUpdatedAt = max(state.ownMaxUpdatedAt, updatedAt);
+                }
+            }
+        }
+
+        state.expectedCount = scope == ALL_TASKS_SCOPE
+            ? tasksById.size()
+            : taskIdsByUser.getOrDefault(scope, Set.of()).size();
+        state.validatedAt = System.currentTimeMillis();
+        state.loadedAt = state.validatedAt;
+        scopes.put(scope, state);
+        reloads++;
+    }
+
+    /**
+     * Get a single task if a scope containing it is fresh
+     */
+    public synchronized Task getTask(int taskId) {
+        Task task = tasksById.get(taskId);
+        if (task == null) {
+            return null;
+        }
+        long now = System.currentTimeMillis();
+        if (isFresh(task.getAssignedUserId(), now) || isFresh(ALL_TASKS_SCOPE, now)) {
+            hits++;
+            return new Task(task);
+        }
+        return null;
+    }
+
+    /**
+     * Get a user's tasks with the given status if that user's scope is fresh
+     */
+    public synchronized List<Task> getByUserAndStatus(int userId, TaskStatus status) {
+        if (!isFresh(userId, System.currentTimeMillis())) {
+            return null;
+        }
+        hits++;
+        Set<Integer> userIds = taskIdsByUser.getOrDefault(userId, Set.of());
+        List<Task> result = new ArrayList<>();
+        for (Integer taskId : taskIdsByStatus.getOrDefault(status, Set.of())) {
+            if (userIds.contains(taskId)) {
+                result.add(new Task(tasksById.get(taskId)));
+            }
+        }
+        result.sort(CREATED_DESC);
+        return result;
+    }
+
+    /**
+     * Record a task written through TaskService (created or updated)
+     */
+    public synchronized void put(Task task, boolean created) {
+        recordWrite(task.getTaskId(), new Task(task));
+
+        Task existing = tasksById.get(task.getTaskId());
+        if (existing != null) {
+            unindex(existing);
+        }
+
+        if (isLoaded(task.getAssignedUserId()) || isLoaded(ALL_TASKS_SCOPE)) {
+            index(new Task(task));
+        }
+
+        recordOwnWrite(task.getAssignedUserId(), task, created);
+        recordOwnWrite(ALL_TASKS_SCOPE, task, created);
+    }
+
+    /**
+     * Record a task deleted through TaskService
+     */
+    public synchronized void remove(int taskId) {
+        recordWrite(taskId, null);
+
+        Task existing = tasksById.get(taskId);
+        if (existing == null) {
+            return; // Not part of any loaded scope
+        }
+
+        unindex(existing);
+        for (int scope : new int[]{existing.getAssignedUserId(), ALL_TASKS_SCOPE}) {
+            ScopeState state = scopes.get(scope);
+            if (state != null) {
+                state.expectedCount--;
+                state.ownWrites.remove(taskId);
+            }
+        }
+    }
+
+    /**
+     * Forget a task another client changed, so the next read of it or of a scope holding
+     * it goes to the database
+     */
+    public synchronized void invalidate(int taskId) {
+        Task existing = tasksById.get(taskId);
+        if (existing != null) {
+            scopes.remove(existing.getAssignedUserId());
+            scopes.remove(ALL_TASKS_SCOPE);
+        }
+    }
+
+    /**
+     * Drop everything
+     */
+    public synchronized void clear() {
+        tasksById.clear();
+        taskIdsByUser.clear();
+        taskIdsByStatus.clear();
+        scopes.clear();
+        lastWrites.clear();
+        forgottenSequence = writeSequence;
+    }
+
+    /**
+     * Forget writes older than the retention time
+     */
+    synchronized void pruneWrites(long now) {
+        Iterator<Write> iterator = lastWrites.values().iterator();
+        while (iterator.hasNext()) {
+            Write write = iterator.next();
+            if (now - write.writtenAt <= WRITE_RETENTION_MILLIS) {
+                break; // The rest are newer
+            }
+            iterator.remove();
+            forgottenSequence = write.sequence;
+        }
+    }
+
+    public synchronized CacheStatistics getStatistics() {
+        return new CacheStatistics(tasksById.size(), scopes.size(), hits, revalidations, reloads);
+    }
+
+    private void recordWrite(int taskId, Task task) {
+        long now = System.currentTimeMillis();
+        pruneWrites(now);
+        lastWrites.remove(taskId); // Re-inserted at the end, keeping the map in write order
+        lastWrites.put(taskId, new Write(++writeSequence, task, now));
+    }
+
+    private void recordOwnWrite(int scope, Task task, boolean created) {
+        ScopeState state = scopes.get(scope);
+        if (state == null) {
+            return;
+        }
+        if (created) {
+            state.expectedCount++;
+        }
+        state.ownWrites.add(task.getTaskId());
+        state.ownMaxUpdatedAt = max(state.ownMaxUpdatedAt, task.getUpdatedAt());
+    }
+
+    private boolean isWrittenAfter(int taskId, long sequence) {
+        Write write = lastWrites.get(taskId);
+        return write != null && write.sequence > sequence;
+    }
+
+    private boolean isFresh(int scope, long now) {
+        ScopeState state = scopes.get(scope);
+        return state != null && now - state.validatedAt <= VALIDATION_WINDOW_MILLIS;
+    }
+
+    private List<Task> snapshot(int scope) {
+        List<Task> result = new ArrayList<>();
+        if (scope == ALL_TASKS_SCOPE) {
+            for (Task task : tasksById.values()) {
+                result.add(new Task(task));
+            }
+        } else {
+            for (Integer taskId : taskIdsByUser.getOrDefault(scope, Set.of())) {
+                result.add(new Task(tasksById.get(taskId)));
+            }
+        }
+        result.sort(CREATED_DESC);
+        return result;
+    }
+
+    private void index(Task task) {
+        tasksById.put(task.getTaskId(), task);
+        taskIdsByUser.computeIfAbsent(task.getAssignedUserId(), k -> new HashSet<>()).add(task.getTaskId());
+        if (task.getStatus() != null) {
+            taskIdsByStatus.computeIfAbsent(task.getStatus(), k -> new HashSet<>()).add(task.getTaskId());
+        }
+    }
+
+    private void unindex(Task task) {
+        if (task == null) {
+            return;
+        }
+        tasksById.remove(task.getTaskId());
+        Set<Integer> userTasks = taskIdsByUser.get(task.getAssignedUserId());
+        if (userTasks != null) {
+            userTasks.remove(task.getTaskId());
+            if (userTasks.isEmpty()) {
+                taskIdsByUser.remove(task.getAssignedUserId());
+            }
+        }
+        if (task.getStatus() != null) {
+            Set<Integer> statusTasks = taskIdsByStatus.get(task.getStatus());
+            if (statusTasks != null) {
+                statusTasks.remove(task.getTaskId());
+            }
+        }
+    }
+
+    private static LocalDateTime maxUpdatedAt(List<Task> tasks) {
+        LocalDateTime result = null;
+        for (Task task : tasks) {
+            result = max(result, task.getUpdatedAt());
+        }
+        return result;
+    }
+
+    private static LocalDateTime max(LocalDateTime a, LocalDateTime b) {
+        if (a == null) return b;
+        if (b == null) return a;
+        return a.isAfter(b) ? a : b;
+    }
+
+    /**
+     * Validation state of one cached scope
+     */
+    private static class ScopeState {
+        private LocalDateTime validatedMaxUpdatedAt;
+        private int expectedCount;
+        private final Set<Integer> ownWrites = new HashSet<>();
+        private LocalDateTime ownMaxUpdatedAt;
+        private long validatedAt;
+        private long loadedAt;
+    }
+
+    /**
+     * A task as written through this cache, or null if it was deleted
+     */
+    private static class Write {
+        private final long sequence;
+        private final Task task;
+        private final long writtenAt;
+
+        Write(long sequence, Task task, long writtenAt) {
+            this.sequence = sequence;
+            this.task = task;
+            this.writtenAt = writtenAt;
+        }
+    }
+
+    /**
+     * Version stamp of a scope as seen by the database
+     */
+    public static class VersionProbe {
+        private final int rowCount;
+        private final LocalDateTime maxUpdatedAt;
+        private final int changedSince;
+
+        public VersionProbe(int rowCount, LocalDateTime maxUpdatedAt, int changedSince) {
+            this.rowCount = rowCount;
+            this.maxUpdatedAt = maxUpdatedAt;
+            this.changedSince = changedSince;
+        }
+
+        public int getRowCount() { return rowCount; }
+        public LocalDateTime getMaxUpdatedAt() { return maxUpdatedAt; }
+        public int getChangedSince() { return changedSince; }
+    }
+
+    /**
+     * Snapshot of task cache metrics
+     */
+    public static class CacheStatistics {
+        private final int cachedTasks;
+        private final int loadedScopes;
+        private final long hits;
+        private final long revalidations;
+        private final long reloads;
+
+        public CacheStatistics(int cachedTasks, int loadedScopes, long hits, long revalidations, long reloads) {
+            this.cachedTasks = cachedTasks;
+            this.loadedScopes = loadedScopes;
+            this.hits = hits;
+            this.revalidations = revalidations;
+            this.reloads = reloads;
+        }
+
+        public int getCachedTasks() { return cachedTasks; }
+        public int getLoadedScopes() { return loadedScopes; }
+        public long getHits() { return hits; }
+        public long getRevalidations() { return revalidations; }
+        public long getReloads() { return reloads; }
+
+        @Override
+        public String toString() {
+            return String.format("Task cache: tasks=%d, scopes=%d, hits=%d, revalidations=%d, reloads=%d",
+                               cachedTasks, loadedScopes, hits, revalidations, reloads);
+        }
+    }
+}
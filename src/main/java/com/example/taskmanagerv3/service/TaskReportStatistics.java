@@ -0,0 +1,138 @@
+package com.example.taskmanagerv3.service;
+
+import com.example.taskmanagerv3.model.Task;
+import com.example.taskmanagerv3.model.TaskPriority;
+import com.example.taskmanagerv3.model.TaskStatus;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Every metric the statistics reports and charts need, computed in one pass over a task list.
+ *
+ * Counts are kept in int arrays indexed by enum ordinal, per assignee in a
+ * {@link TaskService.UserWorkload}. Partial results merge, so large lists are summarized on
+ * a parallel stream; the completed tasks with hours kept for the hours chart are the first
+ * in list order either way. Streaming exports build one with {@link #counting()} and add
+ * tasks as they are read.
+ */
+public class TaskReportStatistics {
+    // Below this many tasks splitting the list costs more than it saves
+    static final int PARALLEL_THRESHOLD = 20_000;
+    // Completed tasks with hours kept, as many as the estimated vs actual hours chart shows
+    public static final int MAX_COMPLETED_WITH_HOURS = 20;
+
+    private final LocalDateTime now;
+    private final int[] statusCounts = new int[TaskStatus.values().length];
+    private final int[] priorityCounts = new int[TaskPriority.values().length];
+    private final Map<Integer, TaskService.UserWorkload> workloads = new HashMap<>();
+    private final List<Task> completedWithHours = new ArrayList<>();
+    private int totalTasks;
+    private int overdueTasks;
+    private long estimatedHours;
+    private long actualHours;
+
+    private TaskReportStatistics(LocalDateTime now) {
+        this.now = now;
+    }
+
+    /**
+     * Summarize the given tasks, overdue meaning due before now and not completed
+     */
+    public static TaskReportStatistics of(List<Task> tasks) {
+        return of(tasks, LocalDateTime.now());
+    }
+
+    static TaskReportStatistics of(List<Task> tasks, LocalDateTime now) {
+        return (tasks.size() >= PARALLEL_THRESHOLD ? tasks.parallelStream() : tasks.stream())
+            .collect(() -> new TaskReportStatistics(now), TaskReportStatistics::add, TaskReportStatistics::merge);
+    }
+
+    /**
+     * Empty statistics to add tasks to one at a time. Only counts and a bounded number of
+     * tasks are kept, so memory use does not grow with the tasks added.
+     */
+    public static TaskReportStatistics counting() {
+        return new TaskReportStatistics(LocalDateTime.now());
+    }
+
+    public void add(Task task) {
+        boolean overdue = task.getDueDate() != null && now.isAfter(task.getDueDate())
+            && task.getStatus() != TaskStatus.COMPLETED;
+
+        statusCounts[task.getStatus().ordinal()]++;
+        priorityCounts[task.getPriority().ordinal()]++;
+        totalTasks++;
+        if (overdue) {
+            overdueTasks++;
+        }
+        estimatedHours += task.getEstimatedHours();
+        actualHours += task.getActualHours();
+        workloads.computeIfAbsent(task.getAssignedUserId(), TaskService.UserWorkload::new)
+            .add(task.getStatus(), task.getPriority(), 1, overdue ? 1 : 0);
+
+        if (completedWithHours.size() < MAX_COMPLETED_WITH_HOURS && task.getStatus() == TaskStatus.COMPLETED
+                && (task.getEstimatedHours() > 0 || task.getActualHours() > 0)) {
+            completedWithHours.add(task);
+        }
+    }
+
+    /**
+     * Fold in the result for the tasks that follow this one's in the list
+     */
+    private void merge(TaskReportStatistics other) {
+        for (int i = 0; i < statusCounts.length; i++) {
+            statusCounts[i] += other.statusCounts[i];
+        }
+        for (int i = 0; i < priorityCounts.length; i++) {
+            priorityCounts[i] += other.priorityCounts[i];
+        }
+        for (TaskService.UserWorkload workload : other.workloads.values()) {
+            workloads.merge(workload.getUserId(), workload, TaskService.UserWorkload::merge);
+        }
+        for (Task task : other.completedWithHours) {
+            if (completedWithHours.size() >= MAX_COMPLETED_WITH_HOURS) {
+                break;
+            }
+            completedWithHours.add(task);
+        }
+        totalTasks += other.totalTasks;
+        overdueTasks += other.overdueTasks;
+        estimatedHours += other.estimatedHours;
+        actualHours += other.actualHours;
+    }
+
+    public int getTotalTasks() { return totalTasks; }
+    public int getOverdueTasks() { return overdueTasks; }
+    public long getEstimatedHours() { return estimatedHours; }
+    public long getActualHours() { return actualHours; }
+    public int getCount(TaskStatus status) { return statusCounts[status.ordinal()]; }
+    public int getCount(TaskPriority priority) { return priorityCounts[priority.ordinal()]; }
+
+    /**
+     * Per-assignee counts, only for users with at least one task
+     */
+    public Map<Integer, TaskService.UserWorkload> getWorkloads() {
+        return Collections.unmodifiableMap(workloads);
+    }
+
+    /**
+     * Counts for one assignee, empty if they have no tasks
+     */
+    public TaskService.UserWorkload getWorkload(int userId) {
+        TaskService.UserWorkload workload = workloads.get(userId);
+        return workload != null ? workload : new TaskService.UserWorkload(userId);
+    }
+
+    /**
+     * The first {@link #MAX_COMPLETED_WITH_HOURS} completed tasks with estimated or actual
+     * hours, in list order
+     */
+    public List<Task> getCompletedWithHours() {
+        return Collections.unmodifiableList(completedWithHours);
+    }
+}
@@ -2,16 +2,23 @@ package com.example.taskmanagerv3.service;
 
 import com.example.taskmanagerv3.config.DatabaseConfig;
 import com.example.taskmanagerv3.model.Task;
+import com.example.taskmanagerv3.model.TaskChangeEvent;
 import com.example.taskmanagerv3.model.TaskPriority;
 import com.example.taskmanagerv3.model.TaskStatus;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.sql.*;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
 
 /**
  * Service class for task-related operations
@@ -19,6 +26,49 @@ import java.util.Optional;
 public class TaskService {
     private static final Logger logger = LoggerFactory.getLogger(TaskService.class);
 
+    // Shared by every TaskService instance so controllers reading the same user's tasks hit memory
+    private static final TaskCache taskCache = new TaskCache();
+    private static final TaskStatsRollup statsRollup = new TaskStatsRollup();
+
+    private static final LocalDateTime PROBE_EPOCH = LocalDateTime.of(1900, 1, 1, 0, 0);
+
+    private static final String FULL_COLUMNS = """
+        task_id, title, description, status, priority, assigned_user_id,
+        created_by_user_id, created_at, updated_at, due_date, completed_at,
+        estimated_hours, actual_hours, progress_percentage, comments,
+        attachments, project_id
+        """;
+
+    // Everything except the large description, comments and attachments columns
+    private static final String SUMMARY_COLUMNS = """
+        task_id, title, status, priority, assigned_user_id,
+        created_by_user_id, created_at, updated_at, due_date, completed_at,
+        estimated_hours, actual_hours, progress_percentage, project_id
+        """;
+
+    private static final int STREAM_FETCH_SIZE = 500;
+
+    // Told about every successful create, update and delete; the chat client relays them to other clients
+    private static final List<Consumer<TaskChangeEvent>> changeListeners = new CopyOnWriteArrayList<>();
+
+    public static void addChangeListener(Consumer<TaskChangeEvent> listener) {
+        changeListeners.add(listener);
+    }
+
+    public static void removeChangeListener(Consumer<TaskChangeEvent> listener) {
+        changeListeners.remove(listener);
+    }
+
+    private static void publishChange(TaskChangeEvent event) {
+        for (Consumer<TaskChangeEvent> listener : changeListeners) {
+            try {
+                listener.accept(event);
+            } catch (RuntimeException e) {
+                logger.warn("Task change listener failed for {}: {}", event, e.getMessage());
+            }
+        }
+    }
+
     /**
      * Create new task
      */
@@ -26,11 +76,15 @@ public class TaskService {
         String query = """
             INSERT INTO Tasks (title, description, status, priority, assigned_user_id,
                              created_by_user_id, due_date, estimated_hours, comments, project_id)
+            OUTPUT INSERTED.task_id, INSERTED.created_at, INSERTED.updated_at
             VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
             """;
 
         try (Connection conn = DatabaseConfig.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(query, Statement.RETURN_GENERATED_KEYS)) {
+             PreparedStatement stmt = conn.prepareStatement(query)) {
+
+            // The task and its daily statistics are written together
+            conn.setAutoCommit(false);
 
             stmt.setString(1, task.getTitle());
             stmt.setString(2, task.getDescription());
@@ -49,13 +103,24 @@ public class TaskService {
             stmt.setString(9, task.getComments());
             stmt.setInt(10, task.getProjectId());
 
-            int affectedRows = stmt.executeUpdate();
+            ResultSet rs = stmt.executeQuery();
+
+            if (rs.next()) {
+                task.setTaskId(rs.getInt("task_id"));
+
+                // Cache the row as the database stored it
+                Task cached = new Task(task);
+                cached.setCreatedAt(rs.getTimestamp("created_at").toLocalDateTime());
+                cached.setUpdatedAt(rs.getTimestamp("updated_at").toLocalDateTime());
+                cached.setCompletedAt(null);
+                cached.setActualHours(0);
+                cached.setAttachments(null);
+                statsRollup.apply(conn, TaskStatsRollup.diff(null, statsState(cached)));
+                conn.commit();
+
+                taskCache.put(cached, true);
+                publishChange(TaskChangeEvent.created(cached));
 
-            if (affectedRows > 0) {
-                ResultSet generatedKeys = stmt.getGeneratedKeys();
-                if (generatedKeys.next()) {
-                    task.setTaskId(generatedKeys.getInt(1));
-                }
                 logger.info("Task created successfully: {}", task.getTitle());
                 return true;
             }
@@ -71,6 +136,11 @@ public class TaskService {
      * Get task by ID
      */
     public Optional<Task> getTaskById(int taskId) {
+        Task cached = taskCache.getTask(taskId);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+
         String query = """
             SELECT task_id, title, description, status, priority, assigned_user_id,
                    created_by_user_id, created_at, updated_at, due_date, completed_at,
@@ -97,11 +167,25 @@ public class TaskService {
         return Optional.empty();
     }
 
+    /**
+     * Read a task another client reported changing, skipping the cached copy
+     */
+    public Optional<Task> reloadTask(int taskId) {
+        taskCache.invalidate(taskId);
+        return getTaskById(taskId);
+    }
+
     /**
      * Get all tasks
      */
     public List<Task> getAllTasks() {
+        List<Task> cached = getCachedTasks(TaskCache.ALL_TASKS_SCOPE);
+        if (cached != null) {
+            return cached;
+        }
+
         List<Task> tasks = new ArrayList<>();
+        long readSequence = taskCache.getWriteSequence(); // Writes after this are newer than the rows read
         String query = """
             SELECT task_id, title, description, status, priority, assigned_user_id,
                    created_by_user_id, created_at, updated_at, due_date, completed_at,
@@ -118,6 +202,7 @@ public class TaskService {
             while (rs.next()) {
                 tasks.add(mapResultSetToTask(rs));
             }
+            taskCache.load(TaskCache.ALL_TASKS_SCOPE, tasks, null, readSequence);
 
         } catch (SQLException e) {
             logger.error("Error getting all tasks", e);
@@ -130,7 +215,13 @@ public class TaskService {
      * Get tasks by assigned user ID
      */
     public List<Task> getTasksByUserId(int userId) {
+        List<Task> cached = getCachedTasks(userId);
+        if (cached != null) {
+            return cached;
+        }
+
         List<Task> tasks = new ArrayList<>();
+        long readSequence = taskCache.getWriteSequence();
         String query = """
             SELECT task_id, title, description, status, priority, assigned_user_id,
                    created_by_user_id, created_at, updated_at, due_date, completed_at,
@@ -150,6 +241,7 @@ public class TaskService {
             while (rs.next()) {
                 tasks.add(mapResultSetToTask(rs));
             }
+            taskCache.load(userId, tasks, null, readSequence);
 
         } catch (SQLException e) {
             logger.error("Error getting tasks by user ID: {}", userId, e);
@@ -158,6 +250,80 @@ public class TaskService {
         return tasks;
     }
 
+    /**
+     * Get tasks assigned to a user with the given status
+     */
+    public List<Task> getTasksByUserIdAndStatus(int userId, TaskStatus status) {
+        List<Task> cached = taskCache.getByUserAndStatus(userId, status);
+        if (cached != null) {
+            return cached;
+        }
+
+        List<Task> tasks = new ArrayList<>();
+        for (Task task : getTasksByUserId(userId)) {
+            if (task.getStatus() == status) {
+                tasks.add(task);
+            }
+        }
+        return tasks;
+    }
+
+    /**
+     * Serve a cached scope if it is fresh or still matches the database version stamp
+     */
+    private List<Task> getCachedTasks(int scope) {
+        List<Task> cached = taskCache.getIfFresh(scope);
+        if (cached != null || !taskCache.isLoaded(scope)) {
+            return cached;
+        }
+
+        TaskCache.VersionProbe probe = probeVersion(scope, taskCache.getProbeSince(scope));
+        return probe != null ? taskCache.revalidate(scope, probe) : null;
+    }
+
+    /**
+     * Read the version stamp of a cache scope: row count, latest updated_at and rows changed since a point in time
+     */
+    private TaskCache.VersionProbe probeVersion(int scope, LocalDateTime since) {
+        String query = """
+            SELECT COUNT(*) AS row_count,
+                   MAX(updated_at) AS max_updated_at,
+                   SUM(CASE WHEN updated_at > ? THEN 1 ELSE 0 END) AS changed_since
+            FROM Tasks
+            """ + (scope == TaskCache.ALL_TASKS_SCOPE ? "" : "WHERE assigned_user_id = ?");
+
+        try (Connection conn = DatabaseConfig.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(query)) {
+
+            stmt.setTimestamp(1, Timestamp.valueOf(since != null ? since : PROBE_EPOCH));
+            if (scope != TaskCache.ALL_TASKS_SCOPE) {
+                stmt.setInt(2, scope);
+            }
+
+            ResultSet rs = stmt.executeQuery();
+            if (rs.next()) {
+                Timestamp maxUpdatedAt = rs.getTimestamp("max_updated_at");
+                return new TaskCache.VersionProbe(
+                    rs.getInt("row_count"),
+                    maxUpdatedAt != null ? maxUpdatedAt.toLocalDateTime() : null,
+                    rs.getInt("changed_since")
+                );
+            }
+
+        } catch (SQLException e) {
+            logger.error("Error probing task version for scope: {}", scope, e);
+        }
+
+        return null;
+    }
+
+    /**
+     * Get task cache metrics
+     */
+    public static TaskCache.CacheStatistics getCacheStatistics() {
+        return taskCache.getStatistics();
+    }
+
     /**
      * Update task
      */
@@ -166,13 +332,21 @@ public class TaskService {
             UPDATE Tasks
             SET title = ?, description = ?, status = ?, priority = ?,
                 due_date = ?, estimated_hours = ?, actual_hours = ?,
-                progress_percentage = ?, comments = ?, updated_at = GETDATE()
+                progress_percentage = ?, comments = ?, updated_at = GETDATE(),
+                completed_at = CASE WHEN ? = 'COMPLETED' THEN ISNULL(completed_at, GETDATE()) ELSE NULL END
+            OUTPUT INSERTED.assigned_user_id, INSERTED.created_by_user_id, INSERTED.created_at,
+                   INSERTED.updated_at, INSERTED.completed_at, INSERTED.project_id,
+                   DELETED.status AS previous_status, DELETED.priority AS previous_priority,
+                   DELETED.completed_at AS previous_completed_at
             WHERE task_id = ?
             """;
 
         try (Connection conn = DatabaseConfig.getConnection();
              PreparedStatement stmt = conn.prepareStatement(query)) {
 
+            // The task and its daily statistics are written together
+            conn.setAutoCommit(false);
+
             stmt.setString(1, task.getTitle());
             stmt.setString(2, task.getDescription());
             stmt.setString(3, task.getStatus().name());
@@ -188,11 +362,34 @@ public class TaskService {
             stmt.setInt(7, task.getActualHours());
             stmt.setDouble(8, task.getProgressPercentage());
             stmt.setString(9, task.getComments());
-            stmt.setInt(10, task.getTaskId());
+            stmt.setString(10, task.getStatus().name());
+            stmt.setInt(11, task.getTaskId());
 
-            int affectedRows = stmt.executeUpdate();
+            ResultSet rs = stmt.executeQuery();
+
+            if (rs.next()) {
+                // Cache the row as the database stored it
+                Task cached = new Task(task);
+                cached.setAssignedUserId(rs.getInt("assigned_user_id"));
+                cached.setCreatedByUserId(rs.getInt("created_by_user_id"));
+                cached.setProjectId(rs.getInt("project_id"));
+                Timestamp createdAt = rs.getTimestamp("created_at");
+                cached.setCreatedAt(createdAt != null ? createdAt.toLocalDateTime() : null);
+                cached.setUpdatedAt(rs.getTimestamp("updated_at").toLocalDateTime());
+                Timestamp completedAt = rs.getTimestamp("completed_at");
+                cached.setCompletedAt(completedAt != null ? completedAt.toLocalDateTime() : null);
+
+                TaskStatus previousStatus = TaskStatus.valueOf(rs.getString("previous_status"));
+                Timestamp previousCompletedAt = rs.getTimestamp("previous_completed_at");
+                TaskStatsRollup.TaskState before = new TaskStatsRollup.TaskState(cached.getCreatedAt(),
+                    cached.getAssignedUserId(), previousStatus, TaskPriority.valueOf(rs.getString("previous_priority")),
+                    previousCompletedAt != null ? previousCompletedAt.toLocalDateTime() : null);
+                statsRollup.apply(conn, TaskStatsRollup.diff(before, statsState(cached)));
+                conn.commit();
+
+                taskCache.put(cached, false);
+                publishChange(TaskChangeEvent.updated(cached));
 
-            if (affectedRows > 0) {
                 logger.info("Task updated successfully: {}", task.getTitle());
                 return true;
             }
@@ -208,15 +405,35 @@ public class TaskService {
      * Delete task
      */
     public boolean deleteTask(int taskId) {
-        String query = "DELETE FROM Tasks WHERE task_id = ?";
+        String query = """
+            DELETE FROM Tasks
+            OUTPUT DELETED.assigned_user_id, DELETED.status, DELETED.priority, DELETED.created_at, DELETED.completed_at
+            WHERE task_id = ?
+            """;
 
         try (Connection conn = DatabaseConfig.getConnection();
              PreparedStatement stmt = conn.prepareStatement(query)) {
 
+            // The task and its daily statistics are written together
+            conn.setAutoCommit(false);
+
             stmt.setInt(1, taskId);
-            int affectedRows = stmt.executeUpdate();
+            ResultSet rs = stmt.executeQuery();
 
-            if (affectedRows > 0) {
+            if (rs.next()) {
+                int assignedUserId = rs.getInt("assigned_user_id");
+                TaskStatus status = TaskStatus.valueOf(rs.getString("status"));
+                Timestamp createdAt = rs.getTimestamp("created_at");
+                Timestamp completedAt = rs.getTimestamp("completed_at");
+                TaskStatsRollup.TaskState before = new TaskStatsRollup.TaskState(
+                    createdAt != null ? createdAt.toLocalDateTime() : null, assignedUserId, status,
+                    TaskPriority.valueOf(rs.getString("priority")),
+                    completedAt != null ? completedAt.toLocalDateTime() : null);
+                statsRollup.apply(conn, TaskStatsRollup.diff(before, null));
+                conn.commit();
+
+                taskCache.remove(taskId);
+                publishChange(TaskChangeEvent.deleted(taskId, assignedUserId));
                 logger.info("Task deleted successfully: {}", taskId);
                 return true;
             }
@@ -229,16 +446,17 @@ public class TaskService {
     }
 
     /**
-     * Get task statistics
+     * Get task statistics. Status counts come from the daily rollup; overdue depends on the
+     * current time, so it is counted from Tasks with the status and due date index.
      */
     public TaskStatistics getTaskStatistics() {
         String query = """
             SELECT
-                COUNT(*) as total_tasks,
-                SUM(CASE WHEN status = 'COMPLETED' THEN 1 ELSE 0 END) as completed_tasks,
-                SUM(CASE WHEN status IN ('TODO', 'IN_PROGRESS', 'REVIEW') THEN 1 ELSE 0 END) as pending_tasks,
-                SUM(CASE WHEN due_date < GETDATE() AND status != 'COMPLETED' THEN 1 ELSE 0 END) as overdue_tasks
-            FROM Tasks
+                ISNULL(SUM(created_count), 0) as total_tasks,
+                ISNULL(SUM(CASE WHEN status = 'COMPLETED' THEN created_count ELSE 0 END), 0) as completed_tasks,
+                ISNULL(SUM(CASE WHEN status IN ('TODO', 'IN_PROGRESS', 'REVIEW') THEN created_count ELSE 0 END), 0) as pending_tasks,
+                (SELECT COUNT(*) FROM Tasks WHERE due_date < GETDATE() AND status != 'COMPLETED') as overdue_tasks
+            FROM task_daily_stats
             """;
 
         try (Connection conn = DatabaseConfig.getConnection();
@@ -262,53 +480,204 @@ public class TaskService {
     }
 
     /**
-     * Get weekly task creation statistics for a specific user
-     * Returns array of 7 integers representing task counts for each day of the week (Monday to Sunday)
+     * Get one page of tasks matching a query, using keyset pagination on (created_at, task_id).
+     * Pass the previous page's cursor to continue; null starts from the beginning.
      */
-    public int[] getWeeklyTaskCreationStats(int userId) {
-        int[] weeklyStats = new int[7]; // Monday to Sunday
+    public TaskPage getTaskPage(TaskQuery query, PageCursor after, int pageSize) {
+        List<Object> params = new ArrayList<>();
+        StringBuilder where = buildWhereClause(query, params);
+        boolean newestFirst = query.isNewestFirst();
+
+        if (after != null) {
+            String op = newestFirst ? "<" : ">";
+            appendCondition(where, "(created_at " + op + " ? OR (created_at = ? AND task_id " + op + " ?))");
+            params.add(Timestamp.valueOf(after.getCreatedAt()));
+            params.add(Timestamp.valueOf(after.getCreatedAt()));
+            params.add(after.getTaskId());
+        }
 
-        String query = """
-            SELECT
-                DATEPART(WEEKDAY, created_at) as day_of_week,
-                COUNT(*) as task_count
-            FROM Tasks
-            WHERE assigned_user_id = ?
-                AND created_at >= DATEADD(DAY, -7, GETDATE())
-                AND created_at <= GETDATE()
-            GROUP BY DATEPART(WEEKDAY, created_at)
-            """;
+        String direction = newestFirst ? "DESC" : "ASC";
+        String sql = "SELECT TOP (?) " + (query.isSummaryOnly() ? SUMMARY_COLUMNS : FULL_COLUMNS)
+            + " FROM Tasks" + where
+            + " ORDER BY created_at " + direction + ", task_id " + direction;
+
+        List<Task> tasks = new ArrayList<>();
+        boolean hasMore = false;
 
         try (Connection conn = DatabaseConfig.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(query)) {
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
 
-            stmt.setInt(1, userId);
-            ResultSet rs = stmt.executeQuery();
+            // Fetch one extra row to learn whether another page exists
+            stmt.setInt(1, pageSize + 1);
+            bindParameters(stmt, params, 2);
 
+            ResultSet rs = stmt.executeQuery();
             while (rs.next()) {
-                int dayOfWeek = rs.getInt("day_of_week");
-                int taskCount = rs.getInt("task_count");
-
-                // SQL Server: Sunday=1, Monday=2, ..., Saturday=7
-                // Convert to array index: Monday=0, Tuesday=1, ..., Sunday=6
-                int arrayIndex;
-                if (dayOfWeek == 1) { // Sunday
-                    arrayIndex = 6;
-                } else { // Monday to Saturday
-                    arrayIndex = dayOfWeek - 2;
+                if (tasks.size() == pageSize) {
+                    hasMore = true;
+                    break;
                 }
+                tasks.add(query.isSummaryOnly() ? mapResultSetToTaskSummary(rs) : mapResultSetToTask(rs));
+            }
 
-                if (arrayIndex >= 0 && arrayIndex < 7) {
-                    weeklyStats[arrayIndex] = taskCount;
+        } catch (SQLException e) {
+            logger.error("Error getting task page", e);
+        }
+
+        PageCursor next = null;
+        if (hasMore) {
+            Task last = tasks.get(tasks.size() - 1);
+            next = new PageCursor(last.getCreatedAt(), last.getTaskId());
+        }
+        return new TaskPage(tasks, next);
+    }
+
+    /**
+     * Count tasks matching a query
+     */
+    public int countTasks(TaskQuery query) {
+        List<Object> params = new ArrayList<>();
+        String sql = "SELECT COUNT(*) FROM Tasks" + buildWhereClause(query, params);
+
+        try (Connection conn = DatabaseConfig.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            bindParameters(stmt, params, 1);
+            ResultSet rs = stmt.executeQuery();
+            if (rs.next()) {
+                return rs.getInt(1);
+            }
+
+        } catch (SQLException e) {
+            logger.error("Error counting tasks", e);
+        }
+
+        return 0;
+    }
+
+    /**
+     * Stream every task matching a query to a consumer, one row at a time, without building a list
+     */
+    public boolean forEachTask(TaskQuery query, Consumer<Task> consumer) {
+        List<Object> params = new ArrayList<>();
+        String direction = query.isNewestFirst() ? "DESC" : "ASC";
+        String sql = "SELECT " + (query.isSummaryOnly() ? SUMMARY_COLUMNS : FULL_COLUMNS)
+            + " FROM Tasks" + buildWhereClause(query, params)
+            + " ORDER BY created_at " + direction + ", task_id " + direction;
+
+        try (Connection conn = DatabaseConfig.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setFetchSize(STREAM_FETCH_SIZE);
+            bindParameters(stmt, params, 1);
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    consumer.accept(query.isSummaryOnly() ? mapResultSetToTaskSummary(rs) : mapResultSetToTask(rs));
                 }
             }
+            return true;
+
+        } catch (SQLException e) {
+            logger.error("Error streaming tasks", e);
+            return false;
+        }
+    }
+
+    /**
+     * Build the WHERE clause for a task query, collecting its parameters in order
+     */
+    private StringBuilder buildWhereClause(TaskQuery query, List<Object> params) {
+        StringBuilder where = new StringBuilder();
 
-            logger.info("Weekly task creation stats for user {}: {}", userId, java.util.Arrays.toString(weeklyStats));
+        if (query.getStatus() != null) {
+            appendCondition(where, "status = ?");
+            params.add(query.getStatus().name());
+        }
+        if (query.getPriority() != null) {
+            appendCondition(where, "priority = ?");
+            params.add(query.getPriority().name());
+        }
+        if (query.getAssignedUserId() != null) {
+            appendCondition(where, "assigned_user_id = ?");
+            params.add(query.getAssignedUserId());
+        }
+        if (query.getCreatedFrom() != null) {
+            appendCondition(where, "created_at >= ?");
+            params.add(Timestamp.valueOf(query.getCreatedFrom()));
+        }
+        if (query.getCreatedTo() != null) {
+            appendCondition(where, "created_at <= ?");
+            params.add(Timestamp.valueOf(query.getCreatedTo()));
+        }
+        if (query.getSearchText() != null && !query.getSearchText().isBlank()) {
+            appendCondition(where, "(title LIKE ? ESCAPE '\\' OR description LIKE ? ESCAPE '\\')");
+            String pattern = "%" + escapeLike(query.getSearchText().trim()) + "%";
+            params.add(pattern);
+            params.add(pattern);
+        }
+
+        return where;
+    }
+
+    private void appendCondition(StringBuilder where, String condition) {
+        where.append(where.length() == 0 ? " WHERE " : " AND ").append(condition);
+    }
+
+    private void bindParameters(PreparedStatement stmt, List<Object> params, int firstIndex) throws SQLException {
+        int index = firstIndex;
+        for (Object param : params) {
+            stmt.setObject(index++, param);
+        }
+    }
+
+    private String escapeLike(String text) {
+        return text.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_").replace("[", "\\[");
+    }
+
+    /**
+     * Get per-user task counts by status, priority and overdue in a single grouped query
+     */
+    public Map<Integer, UserWorkload> getUserWorkloads() {
+        Map<Integer, UserWorkload> workloads = new HashMap<>();
+        String query = """
+            SELECT assigned_user_id, status, priority,
+                   COUNT(*) AS task_count,
+                   SUM(CASE WHEN due_date < GETDATE() AND status != 'COMPLETED' THEN 1 ELSE 0 END) AS overdue_count
+            FROM Tasks
+            GROUP BY assigned_user_id, status, priority
+            """;
+
+        try (Connection conn = DatabaseConfig.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(query);
+             ResultSet rs = stmt.executeQuery()) {
+
+            while (rs.next()) {
+                int userId = rs.getInt("assigned_user_id");
+                workloads.computeIfAbsent(userId, UserWorkload::new).add(
+                    TaskStatus.valueOf(rs.getString("status")),
+                    TaskPriority.valueOf(rs.getString("priority")),
+                    rs.getInt("task_count"),
+                    rs.getInt("overdue_count")
+                );
+            }
 
         } catch (SQLException e) {
-            logger.error("Error getting weekly task creation statistics for user: {}", userId, e);
+            logger.error("Error getting user workloads", e);
         }
 
+        return workloads;
+    }
+
+    /**
+     * Get weekly task creation statistics for a specific user
+     * Returns array of 7 integers representing task counts for each day of the week (Monday to Sunday),
+     * over the last 7 days including today
+     */
+    public int[] getWeeklyTaskCreationStats(int userId) {
+        LocalDate today = LocalDate.now();
+        int[] weeklyStats = createdPerWeekday(userId, today.minusDays(6), today);
+        logger.info("Weekly task creation stats for user {}: {}", userId, java.util.Arrays.toString(weeklyStats));
         return weeklyStats;
     }
 
@@ -317,49 +686,80 @@ public class TaskService {
      * Returns array of 7 integers representing task counts for each day of the current week
      */
     public int[] getCurrentWeekTaskStats(int userId) {
-        int[] weeklyStats = new int[7]; // Monday to Sunday
+        LocalDate monday = LocalDate.now().with(DayOfWeek.MONDAY);
+        int[] weeklyStats = createdPerWeekday(userId, monday, monday.plusDays(6));
+        logger.info("Current week task stats for user {}: {}", userId, java.util.Arrays.toString(weeklyStats));
+        return weeklyStats;
+    }
 
-        String query = """
-            SELECT
-                DATEPART(WEEKDAY, created_at) as day_of_week,
-                COUNT(*) as task_count
-            FROM Tasks
-            WHERE assigned_user_id = ?
-                AND created_at >= DATEADD(DAY, -(DATEPART(WEEKDAY, GETDATE()) + 5) % 7, GETDATE())
-                AND created_at < DATEADD(DAY, 7 - (DATEPART(WEEKDAY, GETDATE()) + 5) % 7, GETDATE())
-            GROUP BY DATEPART(WEEKDAY, created_at)
-            """;
+    /**
+     * Tasks created per day of the week (Monday first) between two dates, read from the daily rollup
+     */
+    private int[] createdPerWeekday(int userId, LocalDate from, LocalDate to) {
+        int[] weeklyStats = new int[7];
+        for (Map.Entry<LocalDate, TaskStatsRollup.DailyCounts> day : statsRollup.getDailyCounts(userId, from, to).entrySet()) {
+            weeklyStats[day.getKey().getDayOfWeek().getValue() - 1] += day.getValue().getCreated();
+        }
+        return weeklyStats;
+    }
 
-        try (Connection conn = DatabaseConfig.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(query)) {
+    /**
+     * Tasks created and completed per day between two dates (inclusive), for every user
+     */
+    public Map<LocalDate, TaskStatsRollup.DailyCounts> getDailyTaskCounts(LocalDate from, LocalDate to) {
+        return statsRollup.getDailyCounts(null, from, to);
+    }
 
-            stmt.setInt(1, userId);
-            ResultSet rs = stmt.executeQuery();
+    /**
+     * Rebuild the daily statistics from Tasks every night
+     */
+    public static void scheduleStatisticsReconcile() {
+        statsRollup.scheduleNightlyReconcile();
+    }
 
-            while (rs.next()) {
-                int dayOfWeek = rs.getInt("day_of_week");
-                int taskCount = rs.getInt("task_count");
-
-                // Convert SQL Server day of week to array index
-                int arrayIndex;
-                if (dayOfWeek == 1) { // Sunday
-                    arrayIndex = 6;
-                } else { // Monday to Saturday
-                    arrayIndex = dayOfWeek - 2;
-                }
+    private static TaskStatsRollup.TaskState statsState(Task task) {
+        return new TaskStatsRollup.TaskState(task.getCreatedAt(), task.getAssignedUserId(), task.getStatus(),
+            task.getPriority(), task.getCompletedAt());
+    }
 
-                if (arrayIndex >= 0 && arrayIndex < 7) {
-                    weeklyStats[arrayIndex] = taskCount;
-                }
-            }
+    /**
+     * Map a summary projection row to a Task; description, comments and attachments are left empty
+     */
+    private Task mapResultSetToTaskSummary(ResultSet rs) throws SQLException {
+        Task task = new Task();
+        task.setTaskId(rs.getInt("task_id"));
+        task.setTitle(rs.getString("title"));
+        task.setStatus(TaskStatus.valueOf(rs.getString("status")));
+        task.setPriority(TaskPriority.valueOf(rs.getString("priority")));
+        task.setAssignedUserId(rs.getInt("assigned_user_id"));
+        task.setCreatedByUserId(rs.getInt("created_by_user_id"));
 
-            logger.info("Current week task stats for user {}: {}", userId, java.util.Arrays.toString(weeklyStats));
+        Timestamp createdAt = rs.getTimestamp("created_at");
+        if (createdAt != null) {
+            task.setCreatedAt(createdAt.toLocalDateTime());
+        }
 
-        } catch (SQLException e) {
-            logger.error("Error getting current week task statistics for user: {}", userId, e);
+        Timestamp updatedAt = rs.getTimestamp("updated_at");
+        if (updatedAt != null) {
+            task.setUpdatedAt(updatedAt.toLocalDateTime());
         }
 
-        return weeklyStats;
+        Timestamp dueDate = rs.getTimestamp("due_date");
+        if (dueDate != null) {
+            task.setDueDate(dueDate.toLocalDateTime());
+        }
+
+        Timestamp completedAt = rs.getTimestamp("completed_at");
+        if (completedAt != null) {
+            task.setCompletedAt(completedAt.toLocalDateTime());
+        }
+
+        task.setEstimatedHours(rs.getInt("estimated_hours"));
+        task.setActualHours(rs.getInt("actual_hours"));
+        task.setProgressPercentage(rs.getDouble("progress_percentage"));
+        task.setProjectId(rs.getInt("project_id"));
+
+        return task;
     }
 
     /**
@@ -426,4 +826,137 @@ public class TaskService {
         public int getPendingTasks() { return pendingTasks; }
         public int getOverdueTasks() { return overdueTasks; }
     }
+
+    /**
+     * Inner class for per-user task counts
+     */
+    public static class UserWorkload {
+        private final int userId;
+        private final int[] statusCounts = new int[TaskStatus.values().length];
+        private final int[] priorityCounts = new int[TaskPriority.values().length];
+        private int totalTasks;
+        private int overdueTasks;
+
+        public UserWorkload(int userId) {
+            this.userId = userId;
+        }
+
+        void add(TaskStatus status, TaskPriority priority, int count, int overdue) {
+            statusCounts[status.ordinal()] += count;
+            priorityCounts[priority.ordinal()] += count;
+            totalTasks += count;
+            overdueTasks += overdue;
+        }
+
+        UserWorkload merge(UserWorkload other) {
+            for (int i = 0; i < statusCounts.length; i++) {
+                statusCounts[i] += other.statusCounts[i];
+            }
+            for (int i = 0; i < priorityCounts.length; i++) {
+                priorityCounts[i] += other.priorityCounts[i];
+            }
+            totalTasks += other.totalTasks;
+            overdueTasks += other.overdueTasks;
+            return this;
+        }
+
+        public int getUserId() { return userId; }
+        public int getTotalTasks() { return totalTasks; }
+        public int getOverdueTasks() { return overdueTasks; }
+        public int getCount(TaskStatus status) { return statusCounts[status.ordinal()]; }
+        public int getCount(TaskPriority priority) { return priorityCounts[priority.ordinal()]; }
+        public int getCompletedTasks() { return getCount(TaskStatus.COMPLETED); }
+        public int getInProgressTasks() { return getCount(TaskStatus.IN_PROGRESS); }
+
+        /**
+         * Tasks not yet completed (including cancelled)
+         */
+        public int getActiveTasks() { return totalTasks - getCompletedTasks(); }
+
+        /**
+         * Tasks neither completed nor cancelled
+         */
+        public int getPendingTasks() { return totalTasks - getCompletedTasks() - getCount(TaskStatus.CANCELLED); }
+
+        public double getCompletionRate() {
+            return totalTasks == 0 ? 0.0 : (double) getCompletedTasks() / totalTasks * 100;
+        }
+    }
+
+    /**
+     * Server-side filter and sort options for paged and streamed task listings
+     */
+    public static class TaskQuery {
+        private TaskStatus status;
+        private TaskPriority priority;
+        private Integer assignedUserId;
+        private String searchText;
+        private LocalDateTime createdFrom;
+        private LocalDateTime createdTo;
+        private boolean newestFirst = true;
+        private boolean summaryOnly = true;
+
+        public TaskStatus getStatus() { return status; }
+        public void setStatus(TaskStatus status) { this.status = status; }
+
+        public TaskPriority getPriority() { return priority; }
+        public void setPriority(TaskPriority priority) { this.priority = priority; }
+
+        public Integer getAssignedUserId() { return assignedUserId; }
+        public void setAssignedUserId(Integer assignedUserId) { this.assignedUserId = assignedUserId; }
+
+        public String getSearchText() { return searchText; }
+        public void setSearchText(String searchText) { this.searchText = searchText; }
+
+        public LocalDateTime getCreatedFrom() { return createdFrom; }
+        public void setCreatedFrom(LocalDateTime createdFrom) { this.createdFrom = createdFrom; }
+
+        public LocalDateTime getCreatedTo() { return createdTo; }
+        public void setCreatedTo(LocalDateTime createdTo) { this.createdTo = createdTo; }
+
+        /**
+         * Sort by created_at, newest first (default) or oldest first
+         */
+        public boolean isNewestFirst() { return newestFirst; }
+        public void setNewestFirst(boolean newestFirst) { this.newestFirst = newestFirst; }
+
+        /**
+         * Skip description, comments and attachments (default); load the full task with getTaskById when opened
+         */
+        public boolean isSummaryOnly() { return summaryOnly; }
+        public void setSummaryOnly(boolean summaryOnly) { this.summaryOnly = summaryOnly; }
+    }
+
+    /**
+     * Position after the last row of a page
+     */
+    public static class PageCursor {
+        private final LocalDateTime createdAt;
+        private final int taskId;
+
+        public PageCursor(LocalDateTime createdAt, int taskId) {
+            this.createdAt = createdAt;
+            this.taskId = taskId;
+        }
+
+        public LocalDateTime getCreatedAt() { return createdAt; }
+        public int getTaskId() { return taskId; }
+    }
+
+    /**
+     * One page of tasks and the cursor for the next page (null on the last page)
+     */
+    public static class TaskPage {
+        private final List<Task> tasks;
+        private final PageCursor nextCursor;
+
+        public TaskPage(List<Task> tasks, PageCursor nextCursor) {
+            this.tasks = tasks;
+            this.nextCursor = nextCursor;
+        }
+
+        public List<Task> getTasks() { return tasks; }
+        public PageCursor getNextCursor() { return nextCursor; }
+        public boolean hasMore() { return nextCursor != null; }
+    }
 }
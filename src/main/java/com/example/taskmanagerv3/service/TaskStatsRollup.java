@@ -0,0 +1,338 @@
+package com.example.taskmanagerv3.service;
+
+import com.example.taskmanagerv3.config.DatabaseConfig;
+import com.example.taskmanagerv3.model.TaskPriority;
+import com.example.taskmanagerv3.model.TaskStatus;
+import com.example.taskmanagerv3.util.AppExecutors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.sql.Statement;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Daily task counts per (day, assignee, status, priority), kept in task_daily_stats so
+ * statistics and charts read a few rows instead of scanning Tasks.
+ *
+ * A task adds one to created_count on the day it was created and, once completed, one to
+ * completed_count on the day it was completed, both under its current assignee, status
+ * and priority. TaskService applies the difference between a task's old and new state in
+ * the same transaction as the write. A nightly reconcile rebuilds the table from Tasks,
+ * repairing anything a failed adjustment or a change made outside the app left behind.
+ */
+public class TaskStatsRollup {
+    private static final Logger logger = LoggerFactory.getLogger(TaskStatsRollup.class);
+    private static final LocalTime RECONCILE_AT = LocalTime.of(2, 0);
+
+    private static final String REBUILD_SQL = """
+        INSERT INTO task_daily_stats (stat_date, user_id, status, priority, created_count, completed_count)
+        SELECT stat_date, user_id, status, priority, SUM(created), SUM(completed)
+        FROM (
+            SELECT CAST(created_at AS DATE) AS stat_date, assigned_user_id AS user_id, status, priority,
+                   1 AS created, 0 AS completed
+            FROM Tasks
+            WHERE created_at IS NOT NULL
+            UNION ALL
+            SELECT CAST(completed_at AS DATE), assigned_user_id, status, priority, 0, 1
+            FROM Tasks
+            WHERE completed_at IS NOT NULL
+        ) AS contributions
+        GROUP BY stat_date, user_id, status, priority
+        """;
+
+    /**
+     * Apply counter adjustments inside the caller's transaction. If they fail, only they are
+     * rolled back and the task write goes on; the counts stay off until the next reconcile.
+     * A failure that ended the transaction (a deadlock, or an error SQL Server treats as
+     * fatal to it) is thrown instead, so the task write fails rather than commit nothing.
+     */
+    public void apply(Connection conn, List<Delta> deltas) throws SQLException {
+        if (deltas.isEmpty()) {
+            return;
+        }
+
+        String sql = """
+            MERGE task_daily_stats WITH (HOLDLOCK) AS target
+            USING (VALUES (?, ?, ?, ?, ?, ?)) AS source (stat_date, user_id, status, priority, created, completed)
+            ON target.stat_date = source.stat_date AND target.user_id = source.user_id
+               AND target.status = source.status AND target.priority = source.priority
+            WHEN MATCHED THEN
+                UPDATE SET created_count = target.created_count + source.created,
+                           completed_count = target.completed_count + source.completed
+            WHEN NOT MATCHED THEN
+                INSERT (stat_date, user_id, status, priority, created_count, completed_count)
+                VALUES (source.stat_date, source.user_id, source.status, source.priority, source.created, source.completed);
+            """;
+
+        Savepoint savepoint = conn.setSavepoint();
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            for (Delta delta : deltas) {
+                stmt.setDate(1, Date.valueOf(delta.day));
+                stmt.setInt(2, delta.userId);
+                stmt.setString(3, delta.status.name());
+                stmt.setString(4, delta.priority.name());
+                stmt.setInt(5, delta.created);
+                stmt.setInt(6, delta.completed);
+                stmt.addBatch();
+            }
+            stmt.executeBatch();
+        } catch (SQLException e) {
+            if (!isCommittable(conn)) {
+                throw e;
+            }
+            conn.rollback(savepoint);
+            logger.warn("Could not update daily task statistics, they are stale until the next reconcile: {}",
+                e.getMessage());
+            return;
+        }
+
+        try {
+            conn.releaseSavepoint(savepoint);
+        } catch (SQLException e) {
+            // Drivers without RELEASE SAVEPOINT keep it until the transaction ends, which is harmless
+            logger.debug("Savepoint not released: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Whether the connection's transaction is still open and can be committed
+     */
+    private static boolean isCommittable(Connection conn) {
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT XACT_STATE()")) {
+            return rs.next() && rs.getInt(1) == 1;
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Counter adjustments that turn a task's contribution in one state into its contribution
+     * in another. Pass null for the state before a create or after a delete.
+     */
+    public static List<Delta> diff(TaskState before, TaskState after) {
+        Map<List<Object>, Delta> merged = new LinkedHashMap<>();
+        if (before != null) {
+            before.contribute(merged, -1);
+        }
+        if (after != null) {
+            after.contribute(merged, 1);
+        }
+        List<Delta> deltas = new ArrayList<>();
+        for (Delta delta : merged.values()) {
+            if (delta.created != 0 || delta.completed != 0) {
+                deltas.add(delta);
+            }
+        }
+        return deltas;
+    }
+
+    /**
+     * Rebuild the table from Tasks in one transaction. Tasks is share-locked first, so
+     * writers wait for the rebuild instead of deadlocking with it.
+     */
+    public boolean reconcile() {
+        long started = System.currentTimeMillis();
+        try (Connection conn = DatabaseConfig.getConnection()) {
+            conn.setAutoCommit(false);
+            try (Statement stmt = conn.createStatement()) {
+                stmt.execute("SELECT COUNT(*) FROM Tasks WITH (TABLOCK, HOLDLOCK)");
+                stmt.executeUpdate("DELETE FROM task_daily_stats");
+                int rows = stmt.executeUpdate(REBUILD_SQL);
+                conn.commit();
+                logger.info("Daily task statistics reconciled: {} rows in {} ms", rows,
+                    System.currentTimeMillis() - started);
+                return true;
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            logger.error("Error reconciling daily task statistics", e);
+            return false;
+        }
+    }
+
+    /**
+     * Reconcile at the next RECONCILE_AT on a shared worker, then schedule the night after.
+     * Each run is timed from the wall clock, so it stays at RECONCILE_AT across daylight
+     * saving changes and clock adjustments. Called by the process that hosts the chat
+     * server, so one reconcile runs per installation.
+     */
+    public void scheduleNightlyReconcile() {
+        scheduleReconcileAfter(LocalDateTime.now());
+    }
+
+    private void scheduleReconcileAfter(LocalDateTime after) {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime next = after.toLocalDate().atTime(RECONCILE_AT);
+        if (!next.isAfter(after)) {
+            next = next.plusDays(1);
+        }
+        // The next run is never the one just done, even if the clock reads slightly early
+        LocalDateTime following = next;
+        Runnable scheduleFollowing = () -> scheduleReconcileAfter(max(LocalDateTime.now(), following));
+
+        AppExecutors executors = AppExecutors.getInstance();
+        try {
+            executors.schedule(() -> {
+                boolean started = executors.execute(() -> {
+                    try {
+                        reconcile();
+                    } finally {
+                        scheduleFollowing.run();
+                    }
+                });
+                if (!started) {
+                    scheduleFollowing.run(); // Workers busy tonight; try again tomorrow
+                }
+            }, Math.max(0, Duration.between(now, next).toMillis()), TimeUnit.MILLISECONDS);
+            logger.info("Daily task statistics reconcile scheduled at {}", next);
+        } catch (RejectedExecutionException e) {
+            logger.debug("Daily task statistics reconcile not scheduled, the application is shutting down");
+        }
+    }
+
+    private static LocalDateTime max(LocalDateTime a, LocalDateTime b) {
+        return a.isAfter(b) ? a : b;
+    }
+
+    /**
+     * Tasks created and completed per day between two dates (inclusive), optionally for one
+     * assignee only. Days without any are missing from the map.
+     */
+    public Map<LocalDate, DailyCounts> getDailyCounts(Integer userId, LocalDate from, LocalDate to) {
+        Map<LocalDate, DailyCounts> counts = new TreeMap<>();
+        StringBuilder sql = new StringBuilder("""
+            SELECT stat_date, SUM(created_count) AS created, SUM(completed_count) AS completed
+            FROM task_daily_stats
+            WHERE stat_date BETWEEN ? AND ?
+            """);
+        if (userId != null) {
+            sql.append(" AND user_id = ?");
+        }
+        sql.append(" GROUP BY stat_date");
+
+        try (Connection conn = DatabaseConfig.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql.toString())) {
+
+            stmt.setDate(1, Date.valueOf(from));
+            stmt.setDate(2, Date.valueOf(to));
+            if (userId != null) {
+                stmt.setInt(3, userId);
+            }
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    counts.put(rs.getDate("stat_date").toLocalDate(),
+                        new DailyCounts(rs.getInt("created"), rs.getInt("completed")));
+                }
+            }
+
+        } catch (SQLException e) {
+            logger.error("Error reading daily task statistics from {} to {}", from, to, e);
+        }
+
+        return counts;
+    }
+
+    /**
+     * The part of a task's row the counts depend on
+     */
+    public static class TaskState {
+        private final LocalDate createdDay;
+        private final int userId;
+        private final TaskStatus status;
+        private final TaskPriority priority;
+        private final LocalDate completedDay; // null while not completed
+
+        public TaskState(LocalDateTime createdAt, int userId, TaskStatus status, TaskPriority priority,
+                         LocalDateTime completedAt) {
+            this.createdDay = createdAt != null ? createdAt.toLocalDate() : null;
+            this.userId = userId;
+            this.status = status;
+            this.priority = priority;
+            this.completedDay = completedAt != null ? completedAt.toLocalDate() : null;
+        }
+
+        private void contribute(Map<List<Object>, Delta> deltas, int sign) {
+            if (createdDay != null) {
+                delta(deltas, createdDay).created += sign;
+            }
+            if (completedDay != null) {
+                delta(deltas, completedDay).completed += sign;
+            }
+        }
+
+        private Delta delta(Map<List<Object>, Delta> deltas, LocalDate day) {
+            return deltas.computeIfAbsent(List.of(day, userId, status, priority),
+                key -> new Delta(day, userId, status, priority));
+        }
+    }
+
+    /**
+     * Adjustment of one table row
+     */
+    public static class Delta {
+        private final LocalDate day;
+        private final int userId;
+        private final TaskStatus status;
+        private final TaskPriority priority;
+        private int created;
+        private int completed;
+
+        Delta(LocalDate day, int userId, TaskStatus status, TaskPriority priority) {
+            this.day = day;
+            this.userId = userId;
+            this.status = status;
+            this.priority = priority;
+        }
+
+        public LocalDate getDay() { return day; }
+        public int getUserId() { return userId; }
+        public TaskStatus getStatus() { return status; }
+        public TaskPriority getPriority() { return priority; }
+        public int getCreated() { return created; }
+        public int getCompleted() { return completed; }
+
+        @Override
+        public String toString() {
+            return String.format("Delta{%s user=%d %s/%s created=%+d completed=%+d}",
+                day, userId, status, priority, created, completed);
+        }
+    }
+
+    /**
+     * Tasks created and completed on one day
+     */
+    public static class DailyCounts {
+        private final int created;
+        private final int completed;
+
+        public DailyCounts(int created, int completed) {
+            this.created = created;
+            this.completed = completed;
+        }
+
+        public int getCreated() { return created; }
+        public int getCompleted() { return completed; }
+    }
+}
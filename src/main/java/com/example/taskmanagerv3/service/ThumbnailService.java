@@ -0,0 +1,146 @@
+package com.example.taskmanagerv3.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Iterator;
+
+/**
+ * Generates fixed-size PNG previews of images and stores them next to the originals.
+ *
+ * A thumbnail of {@code photo.jpg} at 300x200 is {@code photo.jpg.thumb-300x200.png}.
+ * Large sources are subsampled while decoding, so a thumbnail never needs the full
+ * image in memory. Images smaller than the box are not scaled up.
+ */
+public class ThumbnailService {
+    private static final Logger logger = LoggerFactory.getLogger(ThumbnailService.class);
+
+    /**
+     * Bounding boxes the views render previews at
+     */
+    public enum Size {
+        CHAT_PREVIEW(300, 200),
+        AVATAR(128, 128);
+
+        private final int width;
+        private final int height;
+
+        Size(int width, int height) {
+            this.width = width;
+            this.height = height;
+        }
+
+        public int getWidth() { return width; }
+        public int getHeight() { return height; }
+    }
+
+    /**
+     * Where the thumbnail of an image at the given size is stored
+     */
+    public Path thumbnailPath(Path original, Size size) {
+        return original.resolveSibling(original.getFileName() + ".thumb-" + size.width + "x" + size.height + ".png");
+    }
+
+    /**
+     * Get the thumbnail of an image, generating it if it does not exist yet.
+     * Returns null if the file is missing or is not a readable image.
+     */
+    public Path getOrCreate(Path original, Size size) {
+        Path thumbnail = thumbnailPath(original, size);
+        if (Files.exists(thumbnail)) {
+            return thumbnail;
+        }
+        if (!Files.exists(original)) {
+            return null;
+        }
+
+        try {
+            return generate(original, size) ? thumbnail : null;
+        } catch (IOException e) {
+            logger.warn("Could not create thumbnail of {}: {}", original, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Write the thumbnail of an image, replacing an existing one (e.g. after the original
+     * was overwritten). Returns false if the file is not a readable image.
+     */
+    public boolean generate(Path original, Size size) throws IOException {
+        BufferedImage source = readSubsampled(original, size);
+        if (source == null) {
+            return false;
+        }
+
+        double scale = Math.min(1.0, Math.min((double) size.width / source.getWidth(),
+                                              (double) size.height / source.getHeight()));
+        int width = Math.max(1, (int) Math.round(source.getWidth() * scale));
+        int height = Math.max(1, (int) Math.round(source.getHeight() * scale));
+
+        BufferedImage thumbnail = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = thumbnail.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            g.drawImage(source, 0, 0, width, height, null);
+        } finally {
+            g.dispose();
+        }
+
+        Path target = thumbnailPath(original, size);
+        Path temp = Files.createTempFile(target.toAbsolutePath().getParent(), "thumb-", ".tmp");
+        try {
+            ImageIO.write(thumbnail, "png", temp.toFile());
+            try {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+
+        logger.debug("Created {}x{} thumbnail of {}", width, height, original);
+        return true;
+    }
+
+    /**
+     * Decode an image, skipping rows and columns so it is still at least twice the box
+     * size (for a smooth downscale) but no larger than needed
+     */
+    private BufferedImage readSubsampled(Path original, Size size) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(original.toFile())) {
+            if (input == null) {
+                return null;
+            }
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+            if (!readers.hasNext()) {
+                return null;
+            }
+
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                int step = Math.max(1, Math.min(reader.getWidth(0) / (2 * size.width),
+                                                reader.getHeight(0) / (2 * size.height)));
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceSubsampling(step, step, 0, 0);
+                return reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+}
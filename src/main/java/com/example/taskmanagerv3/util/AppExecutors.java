@@ -0,0 +1,186 @@
+package com.example.taskmanagerv3.util;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Application-wide thread pools for work that must stay off the JavaFX thread.
+ *
+ * Controllers hand background jobs to a fixed pool of worker threads and schedule
+ * periodic jobs on one scheduler thread instead of starting threads of their own, so
+ * the thread count stays the same however long the application runs and however often
+ * views are swapped. Work that belongs to a view goes through its {@link ViewScope}.
+ * Work that blocks for long or must run in order, like a socket reader, gets a dedicated
+ * thread from {@link #newSingleThreadExecutor}, which is stopped with the pools.
+ */
+public final class AppExecutors {
+    private static final Logger logger = LoggerFactory.getLogger(AppExecutors.class);
+    private static final int WORKER_THREADS = Math.max(2, Math.min(8, Runtime.getRuntime().availableProcessors()));
+    private static final int WORKER_QUEUE_CAPACITY = 1_000;
+    private static final long WORKER_KEEP_ALIVE_SECONDS = 60;
+
+    private static AppExecutors instance;
+
+    private final ThreadPoolExecutor workers;
+    private final ScheduledThreadPoolExecutor scheduler;
+    private final List<ExecutorService> dedicated = new CopyOnWriteArrayList<>();
+    private final AtomicLong tasksRejected = new AtomicLong();
+
+    private AppExecutors() {
+        workers = new ThreadPoolExecutor(WORKER_THREADS, WORKER_THREADS,
+            WORKER_KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(WORKER_QUEUE_CAPACITY), namedThreads("app-worker"));
+        workers.allowCoreThreadTimeOut(true); // No idle threads while nothing is loading
+
+        scheduler = new ScheduledThreadPoolExecutor(1, namedThreads("app-scheduler"));
+        scheduler.setRemoveOnCancelPolicy(true);
+        scheduler.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+    }
+
+    /**
+     * Get singleton instance
+     */
+    public static synchronized AppExecutors getInstance() {
+        if (instance == null) {
+            instance = new AppExecutors();
+        }
+        return instance;
+    }
+
+    /**
+     * Run a task on a worker thread. Returns false if it was rejected because the
+     * queue is full or the application is shutting down.
+     */
+    public boolean execute(Runnable task) {
+        try {
+            workers.execute(logged(task));
+            return true;
+        } catch (RejectedExecutionException e) {
+            tasksRejected.incrementAndGet();
+            logger.warn("Background task rejected ({} queued, shutdown={})", workers.getQueue().size(), workers.isShutdown());
+            return false;
+        }
+    }
+
+    /**
+     * Run tasks in parallel on the workers and wait for all of them, returning their results
+     * in order. The calling thread runs every task no worker has started yet, so this cannot
+     * starve even when called from a worker while the others are busy.
+     */
+    public <T> List<T> invokeAll(List<Callable<T>> tasks) throws ExecutionException, InterruptedException {
+        List<FutureTask<T>> futures = new ArrayList<>(tasks.size());
+        for (Callable<T> task : tasks) {
+            FutureTask<T> future = new FutureTask<>(task);
+            futures.add(future);
+            if (!execute(future)) {
+                break; // The rest run on the calling thread below
+            }
+        }
+        for (int i = futures.size(); i < tasks.size(); i++) {
+            futures.add(new FutureTask<>(tasks.get(i)));
+        }
+
+        for (FutureTask<T> future : futures) {
+            future.run(); // No-op for tasks a worker already started
+        }
+        List<T> results = new ArrayList<>(futures.size());
+        for (FutureTask<T> future : futures) {
+            results.add(future.get());
+        }
+        return results;
+    }
+
+    /**
+     * Run a task once on the scheduler thread after a delay. Like periodic tasks it must be
+     * quick; hand blocking work to {@link #execute}.
+     */
+    public ScheduledFuture<?> schedule(Runnable task, long delay, TimeUnit unit) {
+        return scheduler.schedule(logged(task), delay, unit);
+    }
+
+    /**
+     * Create an executor with one named daemon thread, for work that would hold a worker
+     * for long or must run in order. It is shut down with the pools if its owner has not
+     * done so already.
+     */
+    public ExecutorService newSingleThreadExecutor(String name) {
+        dedicated.removeIf(ExecutorService::isShutdown);
+        ExecutorService executor = Executors.newSingleThreadExecutor(namedThreads(name));
+        dedicated.add(executor);
+        return executor;
+    }
+
+    /**
+     * Run a task on the scheduler thread at a fixed rate. The task must be quick, e.g.
+     * hand work to {@link #execute} or to the JavaFX thread; an exception is logged and
+     * does not stop later runs.
+     */
+    public ScheduledFuture<?> scheduleAtFixedRate(Runnable task, long initialDelay, long period, TimeUnit unit) {
+        return scheduler.scheduleAtFixedRate(logged(task), initialDelay, period, unit);
+    }
+
+    /**
+     * Stop both pools; queued work is dropped. Called when the application exits.
+     */
+    public void shutdown() {
+        scheduler.shutdownNow();
+        for (ExecutorService executor : dedicated) {
+            executor.shutdownNow();
+        }
+        dedicated.clear();
+        workers.shutdown();
+        try {
+            if (!workers.awaitTermination(2, TimeUnit.SECONDS)) {
+                workers.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            workers.shutdownNow();
+        }
+        logger.info("Background executors stopped");
+    }
+
+    public String getStatistics() {
+        return String.format("Executors: workers=%d/%d active, queued=%d, completed=%d, rejected=%d, scheduled=%d, dedicated=%d",
+                           workers.getActiveCount(), workers.getPoolSize(), workers.getQueue().size(),
+                           workers.getCompletedTaskCount(), tasksRejected.get(), scheduler.getQueue().size(),
+                           dedicated.size());
+    }
+
+    private static Runnable logged(Runnable task) {
+        return () -> {
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                logger.error("Background task failed", e);
+            }
+        };
+    }
+
+    private static ThreadFactory namedThreads(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
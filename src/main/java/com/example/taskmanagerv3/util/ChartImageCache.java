@@ -0,0 +1,173 @@
+package com.example.taskmanagerv3.util;
+
+import org.jfree.chart.ChartUtils;
+import org.jfree.chart.JFreeChart;
+import org.jfree.chart.plot.CategoryPlot;
+import org.jfree.chart.plot.PiePlot;
+import org.jfree.chart.plot.Plot;
+import org.jfree.chart.plot.XYPlot;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Bounded LRU cache of rendered chart images as PNG bytes, shared by the statistics screen
+ * and chart exports.
+ *
+ * A chart is looked up by its title, plot type, dataset and size. Datasets compare by
+ * content, so a chart rebuilt from unchanged data is served from the cache and only charts
+ * whose data moved are rendered again. Misses are rendered on the shared workers.
+ */
+public class ChartImageCache {
+    private static final long MAX_BYTES = 16L * 1024 * 1024;
+
+    private static ChartImageCache instance;
+
+    private final LinkedHashMap<Key, byte[]> images = new LinkedHashMap<>(32, 0.75f, true);
+    private long totalBytes;
+    private long hits;
+    private long misses;
+
+    private ChartImageCache() {
+    }
+
+    /**
+     * Get singleton instance
+     */
+    public static synchronized ChartImageCache getInstance() {
+        if (instance == null) {
+            instance = new ChartImageCache();
+        }
+        return instance;
+    }
+
+    /**
+     * Get a chart rendered as PNG at the given size
+     */
+    public byte[] getPng(JFreeChart chart, int width, int height) throws IOException {
+        Key key = keyOf(chart, width, height);
+        if (key != null) {
+            synchronized (this) {
+                byte[] cached = images.get(key);
+                if (cached != null) {
+                    hits++;
+                    return cached;
+                }
+                misses++;
+            }
+        }
+
+        byte[] png = ChartUtils.encodeAsPNG(chart.createBufferedImage(width, height));
+        if (key != null) {
+            put(key, png);
+        }
+        return png;
+    }
+
+    /**
+     * Get several charts rendered as PNG at the same size, rendering those not cached in parallel
+     */
+    public List<byte[]> getPngs(List<JFreeChart> charts, int width, int height) throws IOException {
+        List<Callable<byte[]>> renders = new ArrayList<>(charts.size());
+        for (JFreeChart chart : charts) {
+            renders.add(() -> getPng(chart, width, height));
+        }
+
+        try {
+            return AppExecutors.getInstance().invokeAll(renders);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException("Chart rendering failed", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while rendering charts", e);
+        }
+    }
+
+    private synchronized void put(Key key, byte[] png) {
+        byte[] previous = images.put(key, png);
+        if (previous != null) {
+            totalBytes -= previous.length;
+        }
+        totalBytes += png.length;
+
+        Iterator<Map.Entry<Key, byte[]>> eldest = images.entrySet().iterator();
+        while (totalBytes > MAX_BYTES && eldest.hasNext()) {
+            Map.Entry<Key, byte[]> entry = eldest.next();
+            if (entry.getKey().equals(key)) {
+                continue;
+            }
+            totalBytes -= entry.getValue().length;
+            eldest.remove();
+        }
+    }
+
+    /**
+     * Cache key of a chart, or null for plot types whose dataset is not known here
+     */
+    private static Key keyOf(JFreeChart chart, int width, int height) {
+        Plot plot = chart.getPlot();
+        Object dataset;
+        if (plot instanceof PiePlot) {
+            dataset = ((PiePlot<?>) plot).getDataset();
+        } else if (plot instanceof CategoryPlot) {
+            dataset = ((CategoryPlot) plot).getDataset();
+        } else if (plot instanceof XYPlot) {
+            dataset = ((XYPlot) plot).getDataset();
+        } else {
+            return null;
+        }
+        String title = chart.getTitle() != null ? chart.getTitle().getText() : null;
+        return new Key(title, plot.getClass(), dataset, width, height);
+    }
+
+    public synchronized String getStatistics() {
+        return String.format("Chart image cache: entries=%d, bytes=%d, hits=%d, misses=%d",
+                           images.size(), totalBytes, hits, misses);
+    }
+
+    /**
+     * Charts are never changed after they are built, so the key can hold their dataset as is
+     */
+    private static final class Key {
+        private final String title;
+        private final Class<?> plotType;
+        private final Object dataset;
+        private final int width;
+        private final int height;
+        private final int hash;
+
+        Key(String title, Class<?> plotType, Object dataset, int width, int height) {
+            this.title = title;
+            this.plotType = plotType;
+            this.dataset = dataset;
+            this.width = width;
+            this.height = height;
+            this.hash = Objects.hash(title, plotType, dataset, width, height);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key other = (Key) o;
+            return hash == other.hash && width == other.width && height == other.height
+                && plotType == other.plotType && Objects.equals(title, other.title)
+                && Objects.equals(dataset, other.dataset);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package com.example.taskmanagerv3.util;
+
+import com.example.taskmanagerv3.service.ThumbnailService;
+import javafx.application.Platform;
+import javafx.scene.image.Image;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Bounded LRU cache of decoded thumbnail images, shared by the chat and profile views.
+ *
+ * Entries are weighed by their decoded size (width x height x 4 bytes); the least
+ * recently used ones are dropped once the total passes the budget. Thumbnails missing
+ * on disk, e.g. for files uploaded before thumbnails existed, are generated on first use;
+ * views on the JavaFX thread ask with a callback so that happens on a worker instead.
+ */
+public class ImageCache {
+    private static final Logger logger = LoggerFactory.getLogger(ImageCache.class);
+    private static final long MAX_BYTES = 48L * 1024 * 1024;
+
+    private static ImageCache instance;
+
+    private final ThumbnailService thumbnailService = new ThumbnailService();
+    private final LinkedHashMap<Path, Image> images = new LinkedHashMap<>(64, 0.75f, true);
+    // Thumbnails being generated and the callbacks waiting for them
+    private final Map<Path, List<Consumer<Image>>> pending = new HashMap<>();
+    private long totalBytes;
+    private long hits;
+    private long misses;
+
+    private ImageCache() {
+    }
+
+    /**
+     * Get singleton instance
+     */
+    public static synchronized ImageCache getInstance() {
+        if (instance == null) {
+            instance = new ImageCache();
+        }
+        return instance;
+    }
+
+    /**
+     * Get the thumbnail of an image at the given size, or null if it is not a readable image
+     */
+    public Image getThumbnail(Path original, ThumbnailService.Size size) {
+        Path thumbnailPath = thumbnailService.thumbnailPath(original, size);
+        synchronized (this) {
+            Image cached = images.get(thumbnailPath);
+            if (cached != null) {
+                hits++;
+                return cached;
+            }
+            misses++;
+        }
+
+        Path created = thumbnailService.getOrCreate(original, size);
+        if (created == null) {
+            return null;
+        }
+        Image image = new Image(created.toUri().toString());
+        if (image.isError()) {
+            logger.warn("Could not load thumbnail {}", created);
+            return null;
+        }
+
+        put(thumbnailPath, image);
+        return image;
+    }
+
+    /**
+     * Get the thumbnail of an image without generating it on the calling thread.
+     * Returns it if it is cached or already stored; otherwise returns null, generates it
+     * on a worker and passes it to onLoaded on the JavaFX thread (null if the file is not
+     * a readable image).
+     */
+    public Image getThumbnail(Path original, ThumbnailService.Size size, Consumer<Image> onLoaded) {
+        Path thumbnailPath = thumbnailService.thumbnailPath(original, size);
+        synchronized (this) {
+            Image cached = images.get(thumbnailPath);
+            if (cached != null) {
+                hits++;
+                return cached;
+            }
+        }
+        if (Files.exists(thumbnailPath)) {
+            return getThumbnail(original, size); // Only a small PNG to decode
+        }
+
+        synchronized (this) {
+            List<Consumer<Image>> waiting = pending.get(thumbnailPath);
+            if (waiting != null) {
+                waiting.add(onLoaded);
+                return null;
+            }
+            pending.put(thumbnailPath, new ArrayList<>(List.of(onLoaded)));
+        }
+        if (!AppExecutors.getInstance().execute(() -> generate(original, size, thumbnailPath))) {
+            complete(thumbnailPath, null);
+        }
+        return null;
+    }
+
+    private void generate(Path original, ThumbnailService.Size size, Path thumbnailPath) {
+        Image image = null;
+        try {
+            image = getThumbnail(original, size);
+        } finally {
+            complete(thumbnailPath, image);
+        }
+    }
+
+    private void complete(Path thumbnailPath, Image image) {
+        List<Consumer<Image>> waiting;
+        synchronized (this) {
+            waiting = pending.remove(thumbnailPath);
+        }
+        if (waiting != null) {
+            Platform.runLater(() -> waiting.forEach(callback -> callback.accept(image)));
+        }
+    }
+
+    /**
+     * Drop the cached thumbnails of an image whose file was replaced
+     */
+    public synchronized void invalidate(Path original) {
+        for (ThumbnailService.Size size : ThumbnailService.Size.values()) {
+            Image removed = images.remove(thumbnailService.thumbnailPath(original, size));
+            if (removed != null) {
+                totalBytes -= weight(removed);
+            }
+        }
+    }
+
+    private synchronized void put(Path key, Image image) {
+        Image previous = images.put(key, image);
+        if (previous != null) {
+            totalBytes -= weight(previous);
+        }
+        totalBytes += weight(image);
+
+        Iterator<Map.Entry<Path, Image>> eldest = images.entrySet().iterator();
+        while (totalBytes > MAX_BYTES && eldest.hasNext()) {
+            Map.Entry<Path, Image> entry = eldest.next();
+            if (entry.getKey().equals(key)) {
+                continue;
+            }
+            totalBytes -= weight(entry.getValue());
+            eldest.remove();
+        }
+    }
+
+    private static long weight(Image image) {
+        return (long) image.getWidth() * (long) image.getHeight() * 4;
+    }
+
+    public synchronized String getStatistics() {
+        return String.format("Image cache: entries=%d, bytes=%d, hits=%d, misses=%d",
+                           images.size(), totalBytes, hits, misses);
+    }
+}
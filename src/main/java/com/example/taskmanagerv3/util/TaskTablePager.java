@@ -0,0 +1,113 @@
+package com.example.taskmanagerv3.util;
+
+import com.example.taskmanagerv3.model.Task;
+import com.example.taskmanagerv3.service.TaskService;
+import javafx.application.Platform;
+import javafx.geometry.Orientation;
+import javafx.scene.Node;
+import javafx.scene.control.ScrollBar;
+import javafx.scene.control.TableView;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+
+/**
+ * Keyset paging of a task table. Pages of task summaries are read after a cursor on a
+ * shared worker and appended to the table's items, and the next page is loaded when the
+ * table is scrolled near the bottom. Used from the JavaFX thread only.
+ */
+public class TaskTablePager {
+    private static final Logger logger = LoggerFactory.getLogger(TaskTablePager.class);
+    // Share of the scroll range past which the next page is loaded
+    private static final double LOAD_NEXT_AT = 0.9;
+
+    private final TableView<Task> table;
+    private final TaskService taskService;
+    private final int pageSize;
+    private final Consumer<Exception> onError;
+
+    // generation discards pages from a query that has since been replaced
+    private TaskService.TaskQuery query = new TaskService.TaskQuery();
+    private TaskService.PageCursor nextCursor;
+    private boolean loading;
+    private int generation;
+
+    public TaskTablePager(TableView<Task> table, TaskService taskService, int pageSize, Consumer<Exception> onError) {
+        this.table = table;
+        this.taskService = taskService;
+        this.pageSize = pageSize;
+        this.onError = onError;
+
+        table.skinProperty().addListener((obs, oldSkin, newSkin) -> {
+            for (Node node : table.lookupAll(".scroll-bar")) {
+                if (node instanceof ScrollBar scrollBar && scrollBar.getOrientation() == Orientation.VERTICAL) {
+                    scrollBar.valueProperty().addListener((o, oldValue, newValue) -> {
+                        if (newValue.doubleValue() >= scrollBar.getMax() * LOAD_NEXT_AT) {
+                            loadNextPage();
+                        }
+                    });
+                }
+            }
+        });
+    }
+
+    /**
+     * Clear the table and load the first page of a query. If onTotal is given, it is passed
+     * the number of matching tasks along with the page.
+     */
+    public void reload(TaskService.TaskQuery query, IntConsumer onTotal) {
+        this.query = query;
+        generation++;
+        nextCursor = null;
+        table.getItems().clear();
+        table.scrollTo(0);
+        loadPage(null, onTotal);
+    }
+
+    /**
+     * Load the page after the last loaded row, if there is one
+     */
+    public void loadNextPage() {
+        if (nextCursor != null && !loading) {
+            loadPage(nextCursor, null);
+        }
+    }
+
+    private void loadPage(TaskService.PageCursor cursor, IntConsumer onTotal) {
+        int pageGeneration = generation;
+        TaskService.TaskQuery pageQuery = query;
+        loading = true;
+
+        if (!AppExecutors.getInstance().execute(() -> {
+            try {
+                TaskService.TaskPage page = taskService.getTaskPage(pageQuery, cursor, pageSize);
+                int total = onTotal != null ? taskService.countTasks(pageQuery) : -1;
+
+                Platform.runLater(() -> {
+                    if (pageGeneration != generation) {
+                        return; // Reloaded while this page was loading
+                    }
+                    table.getItems().addAll(page.getTasks());
+                    nextCursor = page.getNextCursor();
+                    loading = false;
+                    if (onTotal != null) {
+                        onTotal.accept(total);
+                    }
+                });
+
+            } catch (Exception e) {
+                logger.error("Error loading task page", e);
+                Platform.runLater(() -> {
+                    if (pageGeneration == generation) {
+                        loading = false;
+                    }
+                    onError.accept(e);
+                });
+            }
+        })) {
+            loading = false;
+        }
+    }
+}
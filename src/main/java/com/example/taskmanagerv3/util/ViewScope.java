@@ -0,0 +1,159 @@
+package com.example.taskmanagerv3.util;
+
+import javafx.application.Platform;
+import javafx.beans.value.ChangeListener;
+import javafx.scene.Node;
+import javafx.scene.Scene;
+import javafx.stage.Window;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Background and periodic work that belongs to one view, run on the shared
+ * {@link AppExecutors} pools.
+ *
+ * The scope closes when the view's scene is taken off its window (another view is shown
+ * in its place) or the window is closed. Closing stops periodic jobs and drops queued
+ * jobs that have not started; running jobs are left to finish, as they may be halfway
+ * through a database write.
+ */
+public class ViewScope {
+    private static final Logger logger = LoggerFactory.getLogger(ViewScope.class);
+
+    private final String name;
+    private final AppExecutors executors = AppExecutors.getInstance();
+    private final Set<Future<?>> jobs = ConcurrentHashMap.newKeySet();
+    private final List<Runnable> closeActions = new CopyOnWriteArrayList<>();
+    private volatile boolean closed;
+
+    public ViewScope(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Close this scope when the node's scene leaves its window or the window is hidden
+     */
+    public ViewScope bindTo(Node node) {
+        ChangeListener<Boolean> showingListener = (observable, wasShowing, showing) -> {
+            if (!showing) {
+                close();
+            }
+        };
+        ChangeListener<Window> windowListener = (observable, oldWindow, newWindow) -> {
+            if (oldWindow != null) {
+                oldWindow.showingProperty().removeListener(showingListener);
+                close(); // Another scene was put on the window
+            } else if (newWindow != null) {
+                newWindow.showingProperty().addListener(showingListener);
+            }
+        };
+        ChangeListener<Scene> sceneListener = (observable, oldScene, newScene) -> {
+            if (oldScene != null) {
+                oldScene.windowProperty().removeListener(windowListener);
+            }
+            if (newScene != null) {
+                newScene.windowProperty().addListener(windowListener);
+                windowListener.changed(null, null, newScene.getWindow());
+            }
+        };
+
+        // FXML controllers bind in initialize(), before the view is put in a scene
+        node.sceneProperty().addListener(sceneListener);
+        sceneListener.changed(null, null, node.getScene());
+        return this;
+    }
+
+    /**
+     * Run a task on a worker thread, unless the view is gone by the time it would start.
+     * Returns false if the view is already closed or the task was rejected.
+     */
+    public boolean execute(Runnable task) {
+        if (closed) {
+            return false;
+        }
+        FutureTask<Void> job = new FutureTask<>(() -> {
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                logger.error("Background task of {} failed", name, e);
+            }
+        }, null) {
+            @Override
+            protected void done() {
+                jobs.remove(this);
+            }
+        };
+        jobs.add(job);
+        if (!executors.execute(job)) {
+            jobs.remove(job);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Run an action on the JavaFX thread at a fixed rate while the view is shown
+     */
+    public void scheduleOnFxThread(Runnable action, long initialDelay, long period, TimeUnit unit) {
+        if (closed) {
+            return;
+        }
+        ScheduledFuture<?> job = executors.scheduleAtFixedRate(() -> Platform.runLater(() -> {
+            if (!closed) {
+                action.run();
+            }
+        }), initialDelay, period, unit);
+        jobs.add(job);
+        if (closed) {
+            job.cancel(false); // Closed while scheduling
+        }
+    }
+
+    /**
+     * Run an action when the scope closes, e.g. to unregister a listener; runs now if already closed
+     */
+    public void onClose(Runnable action) {
+        closeActions.add(action);
+        if (closed && closeActions.remove(action)) {
+            action.run();
+        }
+    }
+
+    /**
+     * Stop periodic jobs, drop queued ones and run the close actions
+     */
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        for (Future<?> job : jobs) {
+            job.cancel(false);
+        }
+        jobs.clear();
+        for (Runnable action : closeActions) {
+            if (!closeActions.remove(action)) {
+                continue; // Already run by onClose
+            }
+            try {
+                action.run();
+            } catch (RuntimeException e) {
+                logger.warn("Close action of {} failed: {}", name, e.getMessage());
+            }
+        }
+        logger.debug("View scope {} closed", name);
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+}
@@ -0,0 +1,254 @@
+package com.example.taskmanagerv3.websocket;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Compact binary encoding of a chat message.
+ *
+ * Layout: format tag, message type ordinal, a flags byte saying which optional
+ * header fields follow, the fields themselves, then the data value with a type tag.
+ * Data types without a dedicated tag are embedded with Java serialization, so any
+ * MessageType and payload can be carried.
+ *
+ * File chunks and acks have their own tags, so chunk bytes are written as-is.
+ *
+ * MessageType and FileAck.Status ordinals are on the wire: only append new values to the end.
+ */
+public final class BinaryMessageCodec {
+    /** First body byte of a binary frame; Java serialization bodies start with 0xAC */
+    public static final byte FORMAT_TAG = 0x01;
+
+    private static final int HAS_MESSAGE_ID = 1;
+    private static final int HAS_TIMESTAMP = 1 << 1;
+    private static final int HAS_SENDER_ID = 1 << 2;
+    private static final int HAS_SENDER_NAME = 1 << 3;
+    private static final int HAS_RECEIVER_ID = 1 << 4;
+    private static final int HAS_PERSISTED_ID = 1 << 5;
+
+    private static final byte DATA_NULL = 0;
+    private static final byte DATA_STRING = 1;
+    private static final byte DATA_INTEGER = 2;
+    private static final byte DATA_LONG = 3;
+    private static final byte DATA_BOOLEAN = 4;
+    private static final byte DATA_BYTES = 5;
+    private static final byte DATA_USER_CONNECT = 6;
+    private static final byte DATA_FILE_CHUNK = 7;
+    private static final byte DATA_FILE_ACK = 8;
+    private static final byte DATA_SERIALIZED = 127;
+
+    private static final MessageType[] TYPES = MessageType.values();
+    private static final FileAck.Status[] ACK_STATUSES = FileAck.Status.values();
+
+    private BinaryMessageCodec() {
+    }
+
+    /**
+     * Write a message body (no frame header)
+     */
+    public static void write(DataOutputStream out, ChatMessage message) throws IOException {
+        out.writeByte(FORMAT_TAG);
+        out.writeByte(message.getType().ordinal());
+
+        int flags = 0;
+        if (message.getMessageId() != null) flags |= HAS_MESSAGE_ID;
+        if (message.getTimestamp() != null) flags |= HAS_TIMESTAMP;
+        if (message.getSenderId() != null) flags |= HAS_SENDER_ID;
+        if (message.getSenderName() != null) flags |= HAS_SENDER_NAME;
+        if (message.getReceiverId() != null) flags |= HAS_RECEIVER_ID;
+        if (message.getPersistedId() != null) flags |= HAS_PERSISTED_ID;
+        out.writeByte(flags);
+
+        if (message.getMessageId() != null) writeString(out, message.getMessageId());
+        if (message.getTimestamp() != null) {
+            out.writeLong(message.getTimestamp().toEpochSecond(ZoneOffset.UTC));
+            out.writeInt(message.getTimestamp().getNano());
+        }
+        if (message.getSenderId() != null) out.writeInt(message.getSenderId());
+        if (message.getSenderName() != null) writeString(out, message.getSenderName());
+        if (message.getReceiverId() != null) out.writeInt(message.getReceiverId());
+        if (message.getPersistedId() != null) out.writeInt(message.getPersistedId());
+
+        writeData(out, message.getData());
+    }
+
+    /**
+     * Read a message body written by {@link #write}
+     */
+    public static ChatMessage read(DataInputStream in) throws IOException {
+        if (in.readByte() != FORMAT_TAG) {
+            throw new IOException("Not a binary chat frame");
+        }
+        int ordinal = in.readUnsignedByte();
+        if (ordinal >= TYPES.length) {
+            throw new IOException("Unknown message type ordinal: " + ordinal);
+        }
+
+        ChatMessage message = new ChatMessage();
+        message.setType(TYPES[ordinal]);
+
+        int flags = in.readUnsignedByte();
+        message.setMessageId((flags & HAS_MESSAGE_ID) != 0 ? readString(in) : null);
+        if ((flags & HAS_TIMESTAMP) != 0) {
+            long seconds = in.readLong();
+            int nanos = in.readInt();
+            if (nanos < 0 || nanos > 999_999_999) {
+                throw new IOException("Invalid timestamp nanos: " + nanos);
+            }
+            try {
+                message.setTimestamp(LocalDateTime.ofEpochSecond(seconds, nanos, ZoneOffset.UTC));
+            } catch (DateTimeException e) {
+                throw new IOException("Invalid timestamp seconds: " + seconds, e);
+            }
+        } else {
+            message.setTimestamp(null);
+        }
+        if ((flags & HAS_SENDER_ID) != 0) message.setSenderId(in.readInt());
+        if ((flags & HAS_SENDER_NAME) != 0) message.setSenderName(readString(in));
+        if ((flags & HAS_RECEIVER_ID) != 0) message.setReceiverId(in.readInt());
+        if ((flags & HAS_PERSISTED_ID) != 0) message.setPersistedId(in.readInt());
+
+        message.setData(readData(in));
+        return message;
+    }
+
+    private static void writeData(DataOutputStream out, Object data) throws IOException {
+        if (data == null) {
+            out.writeByte(DATA_NULL);
+        } else if (data instanceof String) {
+            out.writeByte(DATA_STRING);
+            writeString(out, (String) data);
+        } else if (data instanceof Integer) {
+            out.writeByte(DATA_INTEGER);
+            out.writeInt((Integer) data);
+        } else if (data instanceof Long) {
+            out.writeByte(DATA_LONG);
+            out.writeLong((Long) data);
+        } else if (data instanceof Boolean) {
+            out.writeByte(DATA_BOOLEAN);
+            out.writeBoolean((Boolean) data);
+        } else if (data instanceof byte[]) {
+            out.writeByte(DATA_BYTES);
+            writeBytes(out, (byte[]) data);
+        } else if (data instanceof UserConnectData) {
+            UserConnectData connect = (UserConnectData) data;
+            out.writeByte(DATA_USER_CONNECT);
+            out.writeInt(connect.getUserId());
+            writeNullableString(out, connect.getUsername());
+            out.writeBoolean(connect.isAdmin());
+            writeNullableString(out, connect.getSupportedFormats());
+            out.writeBoolean(connect.getLastSeenMessageId() != null);
+            if (connect.getLastSeenMessageId() != null) {
+                out.writeInt(connect.getLastSeenMessageId());
+            }
+            writeNullableString(out, connect.getSessionId());
+        } else if (data instanceof FileChunk) {
+            FileChunk chunk = (FileChunk) data;
+            out.writeByte(DATA_FILE_CHUNK);
+            writeString(out, chunk.getTransferId());
+            out.writeLong(chunk.getOffset());
+            out.writeInt(chunk.getChecksum());
+            writeBytes(out, chunk.getData());
+        } else if (data instanceof FileAck) {
+            FileAck ack = (FileAck) data;
+            out.writeByte(DATA_FILE_ACK);
+            writeString(out, ack.getTransferId());
+            out.writeByte(ack.getStatus().ordinal());
+            out.writeLong(ack.getOffset());
+            out.writeInt(ack.getWindow());
+            writeNullableString(out, ack.getReason());
+        } else if (data instanceof Serializable) {
+            out.writeByte(DATA_SERIALIZED);
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try (ObjectOutputStream objectOut = new ObjectOutputStream(bytes)) {
+                objectOut.writeObject(data);
+            }
+            writeBytes(out, bytes.toByteArray());
+        } else {
+            throw new NotSerializableException(data.getClass().getName());
+        }
+    }
+
+    private static Object readData(DataInputStream in) throws IOException {
+        byte tag = in.readByte();
+        switch (tag) {
+            case DATA_NULL:
+                return null;
+            case DATA_STRING:
+                return readString(in);
+            case DATA_INTEGER:
+                return in.readInt();
+            case DATA_LONG:
+                return in.readLong();
+            case DATA_BOOLEAN:
+                return in.readBoolean();
+            case DATA_BYTES:
+                return readBytes(in);
+            case DATA_USER_CONNECT:
+                UserConnectData connect = new UserConnectData(in.readInt(), readNullableString(in), in.readBoolean());
+                connect.setSupportedFormats(readNullableString(in));
+                connect.setLastSeenMessageId(in.readBoolean() ? in.readInt() : null);
+                connect.setSessionId(readNullableString(in));
+                return connect;
+            case DATA_FILE_CHUNK:
+                String chunkTransferId = readString(in);
+                long offset = in.readLong();
+                int checksum = in.readInt();
+                return new FileChunk(chunkTransferId, offset, readBytes(in), checksum);
+            case DATA_FILE_ACK:
+                String ackTransferId = readString(in);
+                int status = in.readUnsignedByte();
+                if (status >= ACK_STATUSES.length) {
+                    throw new IOException("Unknown file ack status: " + status);
+                }
+                return new FileAck(ackTransferId, ACK_STATUSES[status], in.readLong(), in.readInt(), readNullableString(in));
+            case DATA_SERIALIZED:
+                byte[] bytes = readBytes(in);
+                try (ObjectInputStream objectIn = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+                    return objectIn.readObject();
+                } catch (ClassNotFoundException e) {
+                    throw new IOException("Failed to deserialize message data: " + e.getMessage(), e);
+                }
+            default:
+                throw new IOException("Unknown data tag: " + tag);
+        }
+    }
+
+    // Strings are length-prefixed UTF-8; writeUTF would cap chat text at 64 KB
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        writeBytes(out, value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        return new String(readBytes(in), StandardCharsets.UTF_8);
+    }
+
+    private static void writeNullableString(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            writeString(out, value);
+        }
+    }
+
+    private static String readNullableString(DataInputStream in) throws IOException {
+        return in.readBoolean() ? readString(in) : null;
+    }
+
+    private static void writeBytes(DataOutputStream out, byte[] value) throws IOException {
+        out.writeInt(value.length);
+        out.write(value);
+    }
+
+    private static byte[] readBytes(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0 || length > FrameCodec.MAX_FRAME_BYTES) {
+            throw new IOException("Invalid field length: " + length);
+        }
+        byte[] value = new byte[length];
+        in.readFully(value);
+        return value;
+    }
+}
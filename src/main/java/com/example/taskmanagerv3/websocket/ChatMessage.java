@@ -17,6 +17,7 @@ public class ChatMessage implements Serializable {
     private Integer senderId;
     private String senderName;
     private Integer receiverId;
+    private Integer persistedId; // chat_messages.message_id once the relay has stored it
 
     public ChatMessage() {
         this.messageId = generateMessageId();
@@ -35,7 +36,8 @@ public class ChatMessage implements Serializable {
     }
 
     private String generateMessageId() {
-        return "msg_" + UUID.randomUUID().toString().substring(0, 8);
+        // Full UUID: the id doubles as the idempotency key when the message is stored
+        return "msg_" + UUID.randomUUID();
     }
 
     // Getters and Setters
@@ -95,6 +97,14 @@ public class ChatMessage implements Serializable {
         this.receiverId = receiverId;
     }
 
+    public Integer getPersistedId() {
+        return persistedId;
+    }
+
+    public void setPersistedId(Integer persistedId) {
+        this.persistedId = persistedId;
+    }
+
     @Override
     public String toString() {
         return String.format("ChatMessage{id='%s', type=%s, senderId=%d, receiverId=%d, timestamp=%s}",
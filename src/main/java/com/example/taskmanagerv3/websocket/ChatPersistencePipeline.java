@@ -0,0 +1,227 @@
+package com.example.taskmanagerv3.websocket;
+
+import com.example.taskmanagerv3.service.ChatService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Stores relayed chat messages in chat_messages off the selector thread.
+ *
+ * The selector thread only queues a message. A single writer thread takes whatever has
+ * queued up since its last round trip (up to the batch size) and stores it with one
+ * JDBC batch, so under load many messages share a commit. Each message's id is its
+ * idempotency key: a client that retries a save after losing the ack gets the same row.
+ * Once a batch is stored, each message is forwarded to its receiver carrying the
+ * assigned message_id, and its author gets a MESSAGE_ACK with the same id. A message
+ * that could not be stored is still delivered and its author gets an ERROR for it,
+ * so the client can save the message itself.
+ */
+public class ChatPersistencePipeline {
+    private static final Logger logger = LoggerFactory.getLogger(ChatPersistencePipeline.class);
+    public static final int DEFAULT_CAPACITY = 10_000;
+    public static final int DEFAULT_BATCH_SIZE = 200;
+    private static final long STOP_TIMEOUT_MILLIS = 10_000;
+
+    private final WebSocketServer server;
+    private final ChatService chatService;
+    private final BlockingQueue<PendingMessage> queue;
+    private final int batchSize;
+    private Thread writerThread;
+    private volatile boolean running = false;
+
+    private final AtomicLong messagesQueued = new AtomicLong();
+    private final AtomicLong messagesRejected = new AtomicLong();
+    private final AtomicLong messagesStored = new AtomicLong();
+    private final AtomicLong messagesFailed = new AtomicLong();
+    private final AtomicLong batchesWritten = new AtomicLong();
+
+    public ChatPersistencePipeline(WebSocketServer server, ChatService chatService) {
+        this(server, chatService, DEFAULT_CAPACITY, DEFAULT_BATCH_SIZE);
+    }
+
+    public ChatPersistencePipeline(WebSocketServer server, ChatService chatService, int capacity, int batchSize) {
+        if (capacity <= 0 || batchSize <= 0) {
+            throw new IllegalArgumentException("Invalid persistence queue limits");
+        }
+        this.server = server;
+        this.chatService = chatService;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.batchSize = batchSize;
+    }
+
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        writerThread = new Thread(this::runWriter, "chat-persistence");
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    /**
+     * Stop accepting messages and store everything already queued
+     */
+    public synchronized void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        writerThread.interrupt();
+        try {
+            writerThread.join(STOP_TIMEOUT_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (writerThread.isAlive()) {
+            logger.warn("Chat persistence did not finish within {} ms, {} messages pending",
+                STOP_TIMEOUT_MILLIS, queue.size());
+        }
+        writerThread = null;
+    }
+
+    /**
+     * Queue a chat message from a sender. Returns false if the pipeline is stopped or full,
+     * in which case the caller relays the message without storing it.
+     */
+    public boolean submit(ClientConnection sender, ChatMessage message) {
+        if (!running || !queue.offer(new PendingMessage(sender, message))) {
+            messagesRejected.incrementAndGet();
+            return false;
+        }
+        messagesQueued.incrementAndGet();
+        return true;
+    }
+
+    private void runWriter() {
+        List<PendingMessage> batch = new ArrayList<>(batchSize);
+        while (running) {
+            try {
+                batch.add(queue.take());
+            } catch (InterruptedException e) {
+                break;
+            }
+            queue.drainTo(batch, batchSize - 1);
+            writeBatch(batch);
+            batch.clear();
+        }
+
+        // Flush what was accepted before stop
+        Thread.interrupted();
+        while (queue.drainTo(batch, batchSize) > 0) {
+            writeBatch(batch);
+            batch.clear();
+        }
+    }
+
+    private void writeBatch(List<PendingMessage> batch) {
+        List<com.example.taskmanagerv3.model.ChatMessage> rows = new ArrayList<>(batch.size());
+        for (PendingMessage pending : batch) {
+            rows.add(toRow(pending.message));
+        }
+
+        Map<String, Integer> ids;
+        try {
+            ids = chatService.saveChatMessageBatch(rows);
+        } catch (RuntimeException e) {
+            logger.error("Error storing chat message batch: {}", e.getMessage());
+            ids = Map.of();
+        }
+        batchesWritten.incrementAndGet();
+
+        for (PendingMessage pending : batch) {
+            ChatMessage message = pending.message;
+            Integer persistedId = ids.get(message.getMessageId());
+
+            if (persistedId != null) {
+                messagesStored.incrementAndGet();
+                message.setPersistedId(persistedId);
+
+                ChatMessage ack = new ChatMessage(MessageType.MESSAGE_ACK, persistedId);
+                ack.setMessageId(message.getMessageId());
+                pending.sender.sendMessage(ack);
+            } else {
+                messagesFailed.incrementAndGet();
+
+                ChatMessage error = new ChatMessage(MessageType.ERROR, "Message could not be stored");
+                error.setMessageId(message.getMessageId());
+                pending.sender.sendMessage(error);
+            }
+
+            server.sendToUser(message.getReceiverId(), message);
+        }
+    }
+
+    private com.example.taskmanagerv3.model.ChatMessage toRow(ChatMessage message) {
+        com.example.taskmanagerv3.model.ChatMessage row = new com.example.taskmanagerv3.model.ChatMessage();
+        row.setSenderId(message.getSenderId());
+        row.setReceiverId(message.getReceiverId());
+        row.setMessage((String) message.getData());
+        row.setTimestamp(message.getTimestamp());
+        row.setClientMessageId(message.getMessageId());
+        return row;
+    }
+
+    public PersistenceStatistics getStatistics() {
+        return new PersistenceStatistics(queue.size(), messagesQueued.get(), messagesRejected.get(),
+            messagesStored.get(), messagesFailed.get(), batchesWritten.get());
+    }
+
+    private static class PendingMessage {
+        private final ClientConnection sender;
+        private final ChatMessage message;
+
+        PendingMessage(ClientConnection sender, ChatMessage message) {
+            this.sender = sender;
+            this.message = message;
+        }
+    }
+
+    /**
+     * Persistence pipeline counters
+     */
+    public static class PersistenceStatistics {
+        private final int pendingMessages;
+        private final long messagesQueued;
+        private final long messagesRejected;
+        private final long messagesStored;
+        private final long messagesFailed;
+        private final long batchesWritten;
+
+        public PersistenceStatistics(int pendingMessages, long messagesQueued, long messagesRejected,
+                                     long messagesStored, long messagesFailed, long batchesWritten) {
+            this.pendingMessages = pendingMessages;
+            this.messagesQueued = messagesQueued;
+            this.messagesRejected = messagesRejected;
+            this.messagesStored = messagesStored;
+            this.messagesFailed = messagesFailed;
+            this.batchesWritten = batchesWritten;
+        }
+
+        public int getPendingMessages() { return pendingMessages; }
+        public long getMessagesQueued() { return messagesQueued; }
+        public long getMessagesRejected() { return messagesRejected; }
+        public long getMessagesStored() { return messagesStored; }
+        public long getMessagesFailed() { return messagesFailed; }
+        public long getBatchesWritten() { return batchesWritten; }
+
+        public double getAverageBatchSize() {
+            long stored = messagesStored + messagesFailed;
+            return batchesWritten > 0 ? (double) stored / batchesWritten : 0.0;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("Chat persistence: pending=%d, queued=%d, rejected=%d, stored=%d, failed=%d, batches=%d (avg %.1f)",
+                               pendingMessages, messagesQueued, messagesRejected, messagesStored, messagesFailed,
+                               batchesWritten, getAverageBatchSize());
+        }
+    }
+}
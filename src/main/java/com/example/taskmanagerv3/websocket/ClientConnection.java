@@ -1,65 +1,125 @@
 package com.example.taskmanagerv3.websocket;
 
+import com.example.taskmanagerv3.model.TaskChangeEvent;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.*;
-import java.net.Socket;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
 import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
 
 /**
- * Represents a client connection to the WebSocket server
+ * Represents a client connection to the WebSocket server.
+ *
+ * Reads and writes are driven by the server's selector thread. Outgoing frames are
+ * queued here and flushed when the socket is writable, so a slow client never blocks
+ * the sender. The queue is bounded by the server's {@link OutboundQueuePolicy}.
  */
-public class ClientConnection implements Runnable {
+public class ClientConnection {
     private static final Logger logger = LoggerFactory.getLogger(ClientConnection.class);
+    private static final int READ_BUFFER_BYTES = 16 * 1024;
+
+    private final WebSocketServer server;
+    private final SocketChannel channel;
+    private final SelectionKey key;
+    private final ByteBuffer readBuffer = ByteBuffer.allocate(READ_BUFFER_BYTES);
+    private ByteBuffer frameBody; // Body of the frame currently being read
+    private final FileTransferHandler fileTransfers;
+
+    // Guarded by outbound
+    private final ArrayDeque<OutboundFrame> outbound = new ArrayDeque<>();
+    private long queuedBytes;
+    private long overflowSince; // 0 while under the soft limit
+    private int peakQueuedFrames;
+    private long framesSent;
+    private long bytesSent;
+    private long framesDropped;
+    private long overflowEvents;
+    private List<ByteBuffer> heldFrames; // Live frames sent during a replay, null when none runs
+    private long heldBytes;
+
+    private volatile boolean connected = true;
+    private volatile WireFormat wireFormat = WireFormat.JAVA;
+    private volatile long lastReadAt;
 
-    private final Socket socket;
-    private ObjectOutputStream out;
-    private ObjectInputStream in;
-    private boolean connected = true;
-    
     // User information
-    private Integer userId;
-    private String username;
-    private boolean isAdmin = false;
-    private LocalDateTime connectedAt;
+    private volatile Integer userId;
+    private volatile String username;
+    private volatile boolean isAdmin = false;
+    private volatile String sessionId; // Client's login session, from USER_CONNECT
+    private final LocalDateTime connectedAt;
 
-    public ClientConnection(Socket socket) {
-        this.socket = socket;
+    ClientConnection(WebSocketServer server, SocketChannel channel, SelectionKey key) {
+        this.server = server;
+        this.channel = channel;
+        this.key = key;
         this.connectedAt = LocalDateTime.now();
-        
-        try {
-            // Create streams
-            out = new ObjectOutputStream(socket.getOutputStream());
-            in = new ObjectInputStream(socket.getInputStream());
-            logger.debug("Client connection streams created successfully");
-        } catch (IOException e) {
-            logger.error("Failed to create client streams: {}", e.getMessage());
-            close();
+        this.lastReadAt = System.currentTimeMillis();
+        this.fileTransfers = server.newFileTransferHandler(this);
+    }
+
+    /**
+     * Read whatever is available and handle every complete frame.
+     * Called on the selector thread.
+     */
+    void onReadable() throws IOException {
+        int read = channel.read(readBuffer);
+        if (read < 0) {
+            throw new IOException("Connection closed by client");
+        }
+        lastReadAt = System.currentTimeMillis();
+
+        readBuffer.flip();
+        while (connected) {
+            if (frameBody == null) {
+                if (readBuffer.remaining() < FrameCodec.HEADER_BYTES) {
+                    break;
+                }
+                frameBody = ByteBuffer.allocate(FrameCodec.checkLength(readBuffer.getInt()));
+            }
+
+            int chunk = Math.min(readBuffer.remaining(), frameBody.remaining());
+            readBuffer.get(frameBody.array(), frameBody.position(), chunk);
+            frameBody.position(frameBody.position() + chunk);
+
+            if (frameBody.hasRemaining()) {
+                break;
+            }
+            ChatMessage message = FrameCodec.decode(frameBody.array(), 0, frameBody.capacity());
+            frameBody = null;
+            handleMessage(message);
         }
+        readBuffer.compact();
     }
 
-    @Override
-    public void run() {
-        try {
-            while (connected && !socket.isClosed()) {
-                try {
-                    Object obj = in.readObject();
-                    if (obj instanceof ChatMessage) {
-                        handleMessage((ChatMessage) obj);
-                    } else {
-                        logger.warn("Received unknown object type: {}", obj.getClass().getSimpleName());
-                    }
-                } catch (ClassNotFoundException e) {
-                    logger.error("Failed to deserialize message: {}", e.getMessage());
+    /**
+     * Write queued frames until the queue is empty or the socket buffer is full.
+     * Called on the selector thread.
+     */
+    void onWritable() throws IOException {
+        synchronized (outbound) {
+            while (!outbound.isEmpty()) {
+                ByteBuffer buffer = outbound.peek().buffer;
+                bytesSent += channel.write(buffer);
+                if (buffer.hasRemaining()) {
+                    break; // Socket buffer full, wait for the next OP_WRITE
                 }
+                outbound.poll();
+                queuedBytes -= buffer.limit();
+                framesSent++;
             }
-        } catch (IOException e) {
-            if (connected) {
-                logger.info("Client connection lost: {}", e.getMessage());
+            if (overflowSince != 0 && !server.getOutboundQueuePolicy().isOverSoftLimit(outbound.size(), queuedBytes)) {
+                overflowSince = 0;
+            }
+            if (key.isValid()) {
+                key.interestOps(outbound.isEmpty() ? SelectionKey.OP_READ : SelectionKey.OP_READ | SelectionKey.OP_WRITE);
             }
-        } finally {
-            close();
         }
     }
 
@@ -69,7 +129,7 @@ public class ClientConnection implements Runnable {
     private void handleMessage(ChatMessage message) {
         try {
             logger.debug("Received message type: {} from user: {}", message.getType(), userId);
-            
+
             switch (message.getType()) {
                 case USER_CONNECT:
                     handleUserConnect(message);
@@ -86,6 +146,14 @@ public class ClientConnection implements Runnable {
                 case HEARTBEAT:
                     handleHeartbeat(message);
                     break;
+                case FILE_MESSAGE:
+                case FILE_CHUNK:
+                case FILE_ACK:
+                    handleFileTransfer(message);
+                    break;
+                case TASK_CHANGED:
+                    handleTaskChanged(message);
+                    break;
                 default:
                     logger.warn("Unknown message type: {}", message.getType());
             }
@@ -100,15 +168,27 @@ public class ClientConnection implements Runnable {
     private void handleUserConnect(ChatMessage message) {
         try {
             UserConnectData data = (UserConnectData) message.getData();
-            WebSocketServer.getInstance().registerUser(this, data.getUserId(), data.getUsername(), data.isAdmin());
-            
-            // Send connection acknowledgment
-            ChatMessage ack = new ChatMessage(MessageType.CONNECTION_ACK, "Connected successfully");
-            sendMessage(ack);
-            
-            logger.info("User {} connected successfully", data.getUsername());
+            sessionId = data.getSessionId();
+            if (data.getLastSeenMessageId() != null) {
+                beginReplay(); // Before registering, so no live message overtakes what was missed
+            }
+            server.registerUser(this, data.getUserId(), data.getUsername(), data.isAdmin());
+
+            // Choose the wire format from what the client offered; the ack names it
+            wireFormat = WireFormat.negotiate(data.getSupportedFormats());
+            ChatMessage ack = new ChatMessage(MessageType.CONNECTION_ACK, wireFormat.name());
+            sendAheadOfHeld(ack);
+
+            if (userId != null && connected) {
+                server.replayOfflineMessages(this, data.getLastSeenMessageId()); // Ends the replay
+            } else {
+                endReplay();
+            }
+
+            logger.info("User {} connected successfully using {} format", data.getUsername(), wireFormat);
         } catch (Exception e) {
             logger.error("Error handling user connect: {}", e.getMessage());
+            endReplay();
         }
     }
 
@@ -121,14 +201,23 @@ public class ClientConnection implements Runnable {
             message.setSenderId(userId);
             message.setSenderName(username);
             message.setTimestamp(LocalDateTime.now());
-            
-            // Forward to recipient
-            if (message.getReceiverId() != null) {
-                WebSocketServer.getInstance().sendToUser(message.getReceiverId(), message);
+
+            // Direct text messages are stored by the relay, then forwarded with their message_id
+            if (message.getReceiverId() != null && userId != null && message.getData() instanceof String
+                    && server.getPersistencePipeline().submit(this, message)) {
+                logger.debug("Chat message from {} to {} queued for storage", userId, message.getReceiverId());
+            } else if (message.getReceiverId() != null) {
+                if (message.getData() instanceof String) {
+                    // Storage queue is full; the author stores the message itself
+                    ChatMessage error = new ChatMessage(MessageType.ERROR, "Message could not be stored");
+                    error.setMessageId(message.getMessageId());
+                    sendMessage(error);
+                }
+                server.sendToUser(message.getReceiverId(), message);
                 logger.debug("Chat message forwarded from {} to {}", userId, message.getReceiverId());
             } else {
                 // Broadcast to all users (if no specific recipient)
-                WebSocketServer.getInstance().broadcast(message);
+                server.broadcast(message);
                 logger.debug("Chat message broadcasted from {}", userId);
             }
         } catch (Exception e) {
@@ -137,29 +226,56 @@ public class ClientConnection implements Runnable {
     }
 
     /**
-     * Handle typing start
+     * Handle typing start; repeats while already typing only extend the indicator's TTL
      */
     private void handleTypingStart(ChatMessage message) {
         message.setSenderId(userId);
         message.setSenderName(username);
-        
-        if (message.getReceiverId() != null) {
-            WebSocketServer.getInstance().sendToUser(message.getReceiverId(), message);
+
+        if (userId != null && message.getReceiverId() != null
+                && server.getTypingCoalescer().onStart(userId, username, message.getReceiverId(), System.currentTimeMillis())) {
+            server.sendToUser(message.getReceiverId(), message);
         }
     }
 
     /**
-     * Handle typing stop
+     * Handle typing stop; dropped if the receiver is not being shown an indicator
      */
     private void handleTypingStop(ChatMessage message) {
         message.setSenderId(userId);
         message.setSenderName(username);
-        
-        if (message.getReceiverId() != null) {
-            WebSocketServer.getInstance().sendToUser(message.getReceiverId(), message);
+
+        if (userId != null && message.getReceiverId() != null
+                && server.getTypingCoalescer().onStop(userId, message.getReceiverId())) {
+            server.sendToUser(message.getReceiverId(), message);
         }
     }
 
+    /**
+     * Handle file transfer frames. Attachments go to and from the server's store a chunk
+     * at a time; the disk work runs on the server's file transfer thread.
+     */
+    private void handleFileTransfer(ChatMessage message) {
+        if (userId == null) {
+            logger.warn("File transfer from unregistered connection ignored");
+            return;
+        }
+        fileTransfers.onMessage(message);
+    }
+
+    /**
+     * Handle a task change made by this client, relaying it to the dashboards that show the task
+     */
+    private void handleTaskChanged(ChatMessage message) {
+        if (userId == null || !(message.getData() instanceof TaskChangeEvent)) {
+            logger.warn("Task change from unregistered connection ignored");
+            return;
+        }
+        message.setSenderId(userId);
+        message.setSenderName(username);
+        server.sendTaskChange(message);
+    }
+
     /**
      * Handle heartbeat
      */
@@ -172,17 +288,190 @@ public class ClientConnection implements Runnable {
      * Send message to this client
      */
     public void sendMessage(ChatMessage message) {
-        if (!connected || out == null) {
+        if (!connected) {
+            return;
+        }
+
+        try {
+            sendFrame(FrameCodec.encode(message, wireFormat), message.getType());
+            logger.debug("Message queued for user {}: {}", userId, message.getType());
+        } catch (IOException e) {
+            logger.error("Failed to encode message for user {}: {}", userId, e.getMessage());
+        }
+    }
+
+    /**
+     * Queue a message ahead of the live frames held back during a replay: the connection
+     * ack and the replayed messages themselves
+     */
+    void sendAheadOfHeld(ChatMessage message) {
+        if (!connected) {
             return;
         }
-        
+
+        ByteBuffer frame;
         try {
-            out.writeObject(message);
-            out.flush();
-            logger.debug("Message sent to user {}: {}", userId, message.getType());
+            frame = FrameCodec.encode(message, wireFormat);
         } catch (IOException e) {
-            logger.error("Failed to send message to user {}: {}", userId, e.getMessage());
-            close();
+            logger.error("Failed to encode message for user {}: {}", userId, e.getMessage());
+            return;
+        }
+
+        OutboundQueuePolicy policy = server.getOutboundQueuePolicy();
+        boolean wasEmpty;
+        synchronized (outbound) {
+            wasEmpty = enqueue(frame, policy.isDroppable(message.getType()), policy);
+        }
+        if (wasEmpty) {
+            server.requestWrite(this);
+        }
+    }
+
+    /**
+     * Hold back live messages until {@link #endReplay()}, so they reach the client after
+     * what it missed
+     */
+    void beginReplay() {
+        synchronized (outbound) {
+            if (heldFrames == null) {
+                heldFrames = new ArrayList<>();
+                heldBytes = 0;
+            }
+        }
+    }
+
+    /**
+     * Queue the live messages held back during a replay, in the order they were sent
+     */
+    void endReplay() {
+        OutboundQueuePolicy policy = server.getOutboundQueuePolicy();
+        boolean wasEmpty = false;
+        synchronized (outbound) {
+            if (heldFrames == null) {
+                return;
+            }
+            List<ByteBuffer> held = heldFrames;
+            heldFrames = null;
+            heldBytes = 0;
+            for (ByteBuffer frame : held) {
+                wasEmpty |= enqueue(frame, false, policy);
+            }
+        }
+        if (wasEmpty && connected) {
+            server.requestWrite(this);
+        }
+    }
+
+    /**
+     * Queue an encoded frame. The buffer is shared between recipients, so only its
+     * position is consumed here, through a duplicate.
+     */
+    void sendFrame(ByteBuffer frame, MessageType type) {
+        if (!connected) {
+            return;
+        }
+
+        OutboundQueuePolicy policy = server.getOutboundQueuePolicy();
+        boolean droppable = policy.isDroppable(type);
+        boolean wasEmpty;
+
+        synchronized (outbound) {
+            if (heldFrames != null && !droppable) {
+                // Typing and heartbeat frames are not worth holding; they go out as usual
+                heldFrames.add(frame);
+                heldBytes += frame.limit();
+                if (policy.isOverHardLimit(outbound.size() + heldFrames.size(), queuedBytes + heldBytes)) {
+                    logger.warn("Messages held during replay hit hard limit for user {}, disconnecting", userId);
+                    server.closeLater(this);
+                }
+                return;
+            }
+            wasEmpty = enqueue(frame, droppable, policy);
+        }
+
+        if (wasEmpty) {
+            server.requestWrite(this);
+        }
+    }
+
+    /**
+     * Add a frame to the queue, applying the overflow policy. Returns true if the queue
+     * was empty, i.e. write interest must be requested. Called holding the outbound lock.
+     */
+    private boolean enqueue(ByteBuffer frame, boolean droppable, OutboundQueuePolicy policy) {
+        if (policy.isOverSoftLimit(outbound.size() + 1, queuedBytes + frame.limit())) {
+            if (droppable) {
+                framesDropped++;
+                return false;
+            }
+            dropQueuedDroppableFrames();
+        }
+
+        boolean wasEmpty = outbound.isEmpty();
+        outbound.add(new OutboundFrame(frame.duplicate(), droppable));
+        queuedBytes += frame.limit();
+        peakQueuedFrames = Math.max(peakQueuedFrames, outbound.size());
+
+        if (policy.isOverSoftLimit(outbound.size(), queuedBytes)) {
+            if (overflowSince == 0) {
+                overflowSince = System.currentTimeMillis();
+                overflowEvents++;
+                logger.warn("Outbound queue over limit for user {} ({} frames, {} bytes)",
+                    userId, outbound.size(), queuedBytes);
+            }
+            if (policy.isOverHardLimit(outbound.size(), queuedBytes)) {
+                logger.warn("Outbound queue hit hard limit for user {}, disconnecting slow client", userId);
+                server.closeLater(this);
+                return false;
+            }
+        }
+        return wasEmpty;
+    }
+
+    /**
+     * Discard queued droppable frames, except one that is partly written
+     */
+    private void dropQueuedDroppableFrames() {
+        Iterator<OutboundFrame> frames = outbound.iterator();
+        boolean head = true;
+        while (frames.hasNext()) {
+            OutboundFrame frame = frames.next();
+            if (frame.droppable && !(head && frame.buffer.position() > 0)) {
+                frames.remove();
+                queuedBytes -= frame.buffer.limit();
+                framesDropped++;
+            }
+            head = false;
+        }
+    }
+
+    /**
+     * Whether the queue has stayed over its soft limit for longer than the grace period
+     */
+    boolean isOverflowExpired(long now) {
+        synchronized (outbound) {
+            return overflowSince != 0 && now - overflowSince > server.getOutboundQueuePolicy().getOverflowGraceMillis();
+        }
+    }
+
+    /**
+     * Snapshot of this connection's outbound queue metrics
+     */
+    public QueueStatistics getQueueStatistics() {
+        synchronized (outbound) {
+            return new QueueStatistics(userId, outbound.size(), queuedBytes, peakQueuedFrames,
+                framesSent, bytesSent, framesDropped, overflowEvents);
+        }
+    }
+
+    /**
+     * Enable write interest if frames are waiting. Called on the selector thread.
+     */
+    void enableWriteInterest() {
+        synchronized (outbound) {
+            if (!outbound.isEmpty() && key.isValid()) {
+                key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+            }
         }
     }
 
@@ -193,21 +482,27 @@ public class ClientConnection implements Runnable {
         if (!connected) {
             return;
         }
-        
+
         connected = false;
-        
+        key.cancel();
+
         try {
-            if (in != null) in.close();
-            if (out != null) out.close();
-            if (socket != null && !socket.isClosed()) {
-                socket.close();
-            }
+            channel.close();
         } catch (IOException e) {
             logger.error("Error closing connection: {}", e.getMessage());
         }
-        
+
+        synchronized (outbound) {
+            outbound.clear();
+            queuedBytes = 0;
+            overflowSince = 0;
+            heldFrames = null;
+            heldBytes = 0;
+        }
+        fileTransfers.closeLater();
+
         // Remove from server
-        WebSocketServer.getInstance().removeConnection(this);
+        server.removeConnection(this);
         logger.debug("Client connection closed for user: {}", userId);
     }
 
@@ -220,9 +515,17 @@ public class ClientConnection implements Runnable {
         this.isAdmin = isAdmin;
     }
 
+    WireFormat getWireFormat() {
+        return wireFormat;
+    }
+
+    long getLastReadAt() {
+        return lastReadAt;
+    }
+
     // Getters
     public boolean isConnected() {
-        return connected && !socket.isClosed();
+        return connected && channel.isOpen();
     }
 
     public Integer getUserId() {
@@ -237,7 +540,66 @@ public class ClientConnection implements Runnable {
         return isAdmin;
     }
 
+    String getSessionId() {
+        return sessionId;
+    }
+
     public LocalDateTime getConnectedAt() {
         return connectedAt;
     }
+
+    /**
+     * A queued frame and whether the overflow policy may discard it
+     */
+    private static class OutboundFrame {
+        private final ByteBuffer buffer;
+        private final boolean droppable;
+
+        OutboundFrame(ByteBuffer buffer, boolean droppable) {
+            this.buffer = buffer;
+            this.droppable = droppable;
+        }
+    }
+
+    /**
+     * Outbound queue metrics for one connection
+     */
+    public static class QueueStatistics {
+        private final Integer userId;
+        private final int queuedFrames;
+        private final long queuedBytes;
+        private final int peakQueuedFrames;
+        private final long framesSent;
+        private final long bytesSent;
+        private final long framesDropped;
+        private final long overflowEvents;
+
+        public QueueStatistics(Integer userId, int queuedFrames, long queuedBytes, int peakQueuedFrames,
+                               long framesSent, long bytesSent, long framesDropped, long overflowEvents) {
+            this.userId = userId;
+            this.queuedFrames = queuedFrames;
+            this.queuedBytes = queuedBytes;
+            this.peakQueuedFrames = peakQueuedFrames;
+            this.framesSent = framesSent;
+            this.bytesSent = bytesSent;
+            this.framesDropped = framesDropped;
+            this.overflowEvents = overflowEvents;
+        }
+
+        public Integer getUserId() { return userId; }
+        public int getQueuedFrames() { return queuedFrames; }
+        public long getQueuedBytes() { return queuedBytes; }
+        public int getPeakQueuedFrames() { return peakQueuedFrames; }
+        public long getFramesSent() { return framesSent; }
+        public long getBytesSent() { return bytesSent; }
+        public long getFramesDropped() { return framesDropped; }
+        public long getOverflowEvents() { return overflowEvents; }
+
+        @Override
+        public String toString() {
+            return String.format("Queue[user=%s]: depth=%d (%d bytes), peak=%d, sent=%d (%d bytes), dropped=%d, overflows=%d",
+                               userId, queuedFrames, queuedBytes, peakQueuedFrames, framesSent, bytesSent,
+                               framesDropped, overflowEvents);
+        }
+    }
 }
@@ -0,0 +1,102 @@
+package com.example.taskmanagerv3.websocket;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Index of registered chat sessions by user id and by role.
+ *
+ * A user may have several sessions open at once (e.g. two logins), and each is kept.
+ * Adding or removing a session touches only its own entries, and fan-out to a user
+ * or to the admins reads just the matching sessions.
+ */
+public class ConnectionRegistry {
+    private final ConcurrentHashMap<Integer, Set<ClientConnection>> sessionsByUser = new ConcurrentHashMap<>();
+    private final Set<ClientConnection> adminSessions = ConcurrentHashMap.newKeySet();
+    private final Set<ClientConnection> userSessions = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Add a session under its user id and role. Unregister it first if its user info is about to change.
+     */
+    public void register(ClientConnection connection) {
+        Integer userId = connection.getUserId();
+        if (userId == null) {
+            throw new IllegalArgumentException("Connection has no user");
+        }
+
+        // Add inside compute so a concurrent unregister cannot drop the set we add to
+        sessionsByUser.compute(userId, (id, sessions) -> {
+            Set<ClientConnection> result = sessions != null ? sessions : ConcurrentHashMap.newKeySet();
+            result.add(connection);
+            return result;
+        });
+        (connection.isAdmin() ? adminSessions : userSessions).add(connection);
+    }
+
+    /**
+     * Remove a session. Returns true if it was the user's last session.
+     */
+    public boolean unregister(ClientConnection connection) {
+        Integer userId = connection.getUserId();
+        if (userId == null) {
+            return false;
+        }
+
+        adminSessions.remove(connection);
+        userSessions.remove(connection);
+
+        boolean[] lastSession = {false};
+        sessionsByUser.computeIfPresent(userId, (id, sessions) -> {
+            sessions.remove(connection);
+            if (sessions.isEmpty()) {
+                lastSession[0] = true;
+                return null; // Drop the empty entry
+            }
+            return sessions;
+        });
+        return lastSession[0];
+    }
+
+    /**
+     * Every open session of a user, empty if the user is offline
+     */
+    public Set<ClientConnection> getSessions(int userId) {
+        Set<ClientConnection> sessions = sessionsByUser.get(userId);
+        return sessions != null ? Collections.unmodifiableSet(sessions) : Set.of();
+    }
+
+    public Set<ClientConnection> getAdminSessions() {
+        return Collections.unmodifiableSet(adminSessions);
+    }
+
+    public Set<ClientConnection> getUserSessions() {
+        return Collections.unmodifiableSet(userSessions);
+    }
+
+    public boolean isOnline(int userId) {
+        for (ClientConnection connection : getSessions(userId)) {
+            if (connection.isConnected()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Number of distinct users with at least one session
+     */
+    public int getOnlineUserCount() {
+        return sessionsByUser.size();
+    }
+
+    public int getSessionCount() {
+        return adminSessions.size() + userSessions.size();
+    }
+
+    public void clear() {
+        sessionsByUser.clear();
+        adminSessions.clear();
+        userSessions.clear();
+    }
+}
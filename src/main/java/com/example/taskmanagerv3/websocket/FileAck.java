@@ -0,0 +1,50 @@
+package com.example.taskmanagerv3.websocket;
+
+import java.io.Serializable;
+
+/**
+ * Data for a FILE_ACK, sent by the receiving side of a transfer.
+ *
+ * The offset is how many bytes the receiver holds, contiguous and verified; the sender
+ * may have at most {@code window} bytes past it in flight.
+ */
+public class FileAck implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    public enum Status {
+        CONTINUE, // Keep sending within the window
+        RESEND,   // A chunk was lost or corrupted: send again from the offset
+        COMPLETE, // The whole file arrived and matched its hash
+        FAILED    // The transfer was refused or the content did not match
+    }
+
+    private final String transferId;
+    private final Status status;
+    private final long offset;
+    private final int window;
+    private final String reason;
+
+    public FileAck(String transferId, Status status, long offset, int window, String reason) {
+        this.transferId = transferId;
+        this.status = status;
+        this.offset = offset;
+        this.window = window;
+        this.reason = reason;
+    }
+
+    public static FileAck failed(String transferId, String reason) {
+        return new FileAck(transferId, Status.FAILED, 0, 0, reason);
+    }
+
+    public String getTransferId() { return transferId; }
+    public Status getStatus() { return status; }
+    public long getOffset() { return offset; }
+    public int getWindow() { return window; }
+    public String getReason() { return reason; }
+
+    @Override
+    public String toString() {
+        return String.format("FileAck{id=%s, %s, offset=%d, window=%d%s}", transferId, status, offset, window,
+                reason != null ? ", reason=" + reason : "");
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.taskmanagerv3.websocket;
+
+import java.io.Serializable;
+import java.util.zip.CRC32;
+
+/**
+ * Data for a FILE_CHUNK: bytes of a transfer at an offset, with their CRC32
+ */
+public class FileChunk implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final String transferId;
+    private final long offset;
+    private final byte[] data;
+    private final int checksum;
+
+    public FileChunk(String transferId, long offset, byte[] data, int checksum) {
+        this.transferId = transferId;
+        this.offset = offset;
+        this.data = data;
+        this.checksum = checksum;
+    }
+
+    /**
+     * Chunk of the given bytes, checksummed
+     */
+    public static FileChunk of(String transferId, long offset, byte[] data) {
+        return new FileChunk(transferId, offset, data, checksum(data));
+    }
+
+    /**
+     * Whether the bytes still match the checksum they were sent with
+     */
+    public boolean isIntact() {
+        return data != null && checksum(data) == checksum;
+    }
+
+    static int checksum(byte[] data) {
+        CRC32 crc = new CRC32();
+        crc.update(data, 0, data.length);
+        return (int) crc.getValue();
+    }
+
+    public String getTransferId() { return transferId; }
+    public long getOffset() { return offset; }
+    public byte[] getData() { return data; }
+    public int getChecksum() { return checksum; }
+
+    @Override
+    public String toString() {
+        return String.format("FileChunk{id=%s, offset=%d, length=%d}", transferId, offset, data != null ? data.length : 0);
+    }
+}
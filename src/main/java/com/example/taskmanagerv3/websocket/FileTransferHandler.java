@@ -0,0 +1,645 @@
+package com.example.taskmanagerv3.websocket;
+
+import com.example.taskmanagerv3.service.ChatAttachmentStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * One end of the chunked attachment transfers on a chat connection.
+ *
+ * A FILE_MESSAGE opens a transfer of one attachment, named by its SHA-256. The sending
+ * side reads the file a chunk at a time and sends FILE_CHUNKs, each with a CRC32; the
+ * receiving side writes them to a partial file in the attachment store and answers each
+ * chunk with a FILE_ACK carrying its verified offset and window. The sender never has
+ * more than the window in flight, so no more than that is buffered anywhere on the way,
+ * the relay's outbound queue included. A lost or corrupted chunk makes the receiver ask
+ * for a resend from its offset. The finished partial file is hashed and only stored if
+ * it matches; a transfer that was cut off resumes from it when requested again.
+ *
+ * The server keeps a handler per connection, run on its file transfer thread. The client
+ * keeps one on its listener thread and asks again for its open transfers on reconnect.
+ */
+public class FileTransferHandler {
+    private static final Logger logger = LoggerFactory.getLogger(FileTransferHandler.class);
+    public static final int CHUNK_SIZE = 64 * 1024;
+    public static final int WINDOW_BYTES = 4 * CHUNK_SIZE;
+    // Largest attachment accepted; anything stored is kept for good
+    public static final long MAX_FILE_BYTES = 100L * 1024 * 1024;
+    // Largest window a receiver may grant; caps what one transfer queues on the relay
+    private static final int MAX_WINDOW_BYTES = 4 * WINDOW_BYTES;
+    private static final int MAX_TRANSFERS = 8;
+    // Chunk bytes handed to the executor but not written yet; only a peer ignoring its windows gets past this
+    private static final long MAX_PENDING_BYTES = (long) MAX_TRANSFERS * MAX_WINDOW_BYTES;
+
+    private final ChatAttachmentStore store;
+    private final Consumer<ChatMessage> sink;
+    private final Executor executor;
+    private final Predicate<String> canDownload;
+    private final AtomicLong pendingBytes = new AtomicLong();
+
+    // Guarded by this
+    private final Map<String, Outgoing> outgoing = new HashMap<>();
+    private final Map<String, Incoming> incoming = new HashMap<>();
+
+    /**
+     * @param sink     sends a message to the other end of the connection
+     * @param executor runs the disk work for received messages, in order
+     */
+    public FileTransferHandler(ChatAttachmentStore store, Consumer<ChatMessage> sink, Executor executor) {
+        this(store, sink, executor, hash -> true);
+    }
+
+    /**
+     * @param canDownload whether the other end may fetch the stored content with a hash;
+     *                    called on the executor
+     */
+    public FileTransferHandler(ChatAttachmentStore store, Consumer<ChatMessage> sink, Executor executor,
+                               Predicate<String> canDownload) {
+        this.store = store;
+        this.sink = sink;
+        this.executor = executor;
+        this.canDownload = canDownload;
+    }
+
+    /**
+     * Handle a FILE_MESSAGE, FILE_CHUNK or FILE_ACK from the other end
+     */
+    public void onMessage(ChatMessage message) {
+        Object data = message.getData();
+        if (data instanceof FileChunk) {
+            FileChunk chunk = (FileChunk) data;
+            long length = chunk.getData() != null ? chunk.getData().length : 0;
+            if (pendingBytes.addAndGet(length) > MAX_PENDING_BYTES) {
+                pendingBytes.addAndGet(-length);
+                logger.warn("Dropping chunk of transfer {}: peer is sending past its window", chunk.getTransferId());
+                return;
+            }
+            try {
+                executor.execute(() -> {
+                    try {
+                        handleChunk(chunk);
+                    } finally {
+                        pendingBytes.addAndGet(-length);
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                pendingBytes.addAndGet(-length);
+                rejected(chunk.getTransferId());
+            }
+        } else if (data instanceof FileAck) {
+            FileAck ack = (FileAck) data;
+            try {
+                executor.execute(() -> handleAck(ack));
+            } catch (RejectedExecutionException e) {
+                rejected(ack.getTransferId());
+            }
+        } else if (data instanceof FileTransferRequest) {
+            FileTransferRequest request = (FileTransferRequest) data;
+            try {
+                executor.execute(() -> handleRequest(request));
+            } catch (RejectedExecutionException e) {
+                rejected(request.getTransferId());
+            }
+        } else {
+            logger.warn("Unexpected {} payload: {}", message.getType(), data);
+        }
+    }
+
+    /**
+     * Push stored content to the other end. Completes once the other end holds it.
+     */
+    public synchronized CompletableFuture<Void> upload(String hash, Path source) {
+        CompletableFuture<Void> result = new CompletableFuture<>();
+        if (!ChatAttachmentStore.isValidHash(hash)) {
+            result.completeExceptionally(new IOException("Not a stored attachment: " + hash));
+            return result;
+        }
+        if (outgoing.size() >= MAX_TRANSFERS) {
+            result.completeExceptionally(new IOException("Too many file transfers in progress"));
+            return result;
+        }
+
+        try {
+            if (Files.size(source) > MAX_FILE_BYTES) {
+                result.completeExceptionally(new IOException("File is too large to send"));
+                return result;
+            }
+            Outgoing transfer = new Outgoing(newTransferId(), hash, source, Files.size(source), result);
+            transfer.channel = FileChannel.open(source, StandardOpenOption.READ);
+            outgoing.put(transfer.id, transfer);
+            send(MessageType.FILE_MESSAGE, FileTransferRequest.upload(transfer.id, hash, transfer.size));
+        } catch (IOException e) {
+            result.completeExceptionally(e);
+        }
+        return result;
+    }
+
+    /**
+     * Fetch content from the other end into the local store. Completes with the stored path.
+     */
+    public synchronized CompletableFuture<Path> download(String hash, long size) {
+        CompletableFuture<Path> result = new CompletableFuture<>();
+        if (!ChatAttachmentStore.isValidHash(hash) || size < 0) {
+            result.completeExceptionally(new IOException("Not a stored attachment: " + hash));
+            return result;
+        }
+        if (store.contains(hash)) {
+            result.complete(store.pathFor(hash));
+            return result;
+        }
+        for (Incoming transfer : incoming.values()) {
+            if (transfer.hash.equals(hash) && transfer.download != null) {
+                return transfer.download; // Already on its way
+            }
+        }
+        if (incoming.size() >= MAX_TRANSFERS) {
+            result.completeExceptionally(new IOException("Too many file transfers in progress"));
+            return result;
+        }
+
+        Incoming transfer = new Incoming(newTransferId(), hash, size, result);
+        try {
+            openPartial(transfer);
+        } catch (IOException e) {
+            result.completeExceptionally(e);
+            return result;
+        }
+        incoming.put(transfer.id, transfer);
+        requestDownload(transfer);
+        return result;
+    }
+
+    /**
+     * The connection was lost: release the files, keeping the transfers this end opened
+     * so {@link #resume()} can pick them up where they stopped
+     */
+    public synchronized void suspend() {
+        for (Outgoing transfer : new ArrayList<>(outgoing.values())) {
+            closeQuietly(transfer.channel);
+            transfer.channel = null;
+            if (transfer.upload == null) {
+                outgoing.remove(transfer.id); // Sent for the peer, which asks again
+            }
+        }
+        for (Incoming transfer : new ArrayList<>(incoming.values())) {
+            closeQuietly(transfer.channel);
+            transfer.channel = null;
+            if (transfer.download == null) {
+                incoming.remove(transfer.id);
+            }
+        }
+    }
+
+    /**
+     * The connection is back: ask again for every transfer this end opened. Uploads start
+     * from the offset the other end acks; downloads from what the partial file holds.
+     */
+    public synchronized void resume() {
+        for (Outgoing transfer : new ArrayList<>(outgoing.values())) {
+            try {
+                transfer.channel = FileChannel.open(transfer.source, StandardOpenOption.READ);
+                transfer.nextOffset = 0;
+                transfer.windowEnd = 0;
+                send(MessageType.FILE_MESSAGE, FileTransferRequest.upload(transfer.id, transfer.hash, transfer.size));
+            } catch (IOException e) {
+                finishOutgoing(transfer, e);
+            }
+        }
+        for (Incoming transfer : new ArrayList<>(incoming.values())) {
+            try {
+                openPartial(transfer);
+                requestDownload(transfer);
+            } catch (IOException e) {
+                failIncoming(transfer, e.getMessage(), false);
+            }
+        }
+        if (!outgoing.isEmpty() || !incoming.isEmpty()) {
+            logger.info("Resuming {} upload(s) and {} download(s)", outgoing.size(), incoming.size());
+        }
+    }
+
+    /**
+     * The connection is closed for good: release the files and fail every open transfer.
+     * Partial files stay, so a later request for the same content resumes.
+     */
+    public synchronized void close() {
+        IOException closed = new IOException("Connection closed");
+        for (Outgoing transfer : new ArrayList<>(outgoing.values())) {
+            finishOutgoing(transfer, closed);
+        }
+        for (Incoming transfer : new ArrayList<>(incoming.values())) {
+            closeQuietly(transfer.channel);
+            incoming.remove(transfer.id);
+            if (transfer.download != null) {
+                transfer.download.completeExceptionally(closed);
+            }
+        }
+    }
+
+    /**
+     * {@link #close()} on the executor, after the work already queued for this connection
+     */
+    public void closeLater() {
+        try {
+            executor.execute(this::close);
+        } catch (RejectedExecutionException e) {
+            close();
+        }
+    }
+
+    /**
+     * The executor refused the work for a message of a transfer. Later messages of it could
+     * no longer be handled in order, so the transfer fails on both ends.
+     */
+    private synchronized void rejected(String transferId) {
+        if (transferId == null) {
+            return;
+        }
+        String reason = "Too busy to handle the transfer";
+        logger.warn("Transfer {}: {}", transferId, reason);
+        send(MessageType.FILE_ACK, FileAck.failed(transferId, reason));
+        Incoming receiving = incoming.get(transferId);
+        if (receiving != null) {
+            failIncoming(receiving, reason, false); // The partial file is sound, keep it to resume from
+        }
+        Outgoing sending = outgoing.get(transferId);
+        if (sending != null) {
+            finishOutgoing(sending, new IOException(reason));
+        }
+    }
+
+    private synchronized void handleRequest(FileTransferRequest request) {
+        String id = request.getTransferId();
+        if (id == null || outgoing.containsKey(id) || incoming.containsKey(id)) {
+            return;
+        }
+        if (!ChatAttachmentStore.isValidHash(request.getFileHash()) || request.getFileSize() < 0) {
+            send(MessageType.FILE_ACK, FileAck.failed(id, "Invalid file"));
+            return;
+        }
+
+        if (request.isUpload()) {
+            acceptUpload(request);
+        } else {
+            serveDownload(request);
+        }
+    }
+
+    /**
+     * The other end pushes content: receive it unless it is already stored
+     */
+    private void acceptUpload(FileTransferRequest request) {
+        String id = request.getTransferId();
+        if (request.getFileSize() > MAX_FILE_BYTES) {
+            send(MessageType.FILE_ACK, FileAck.failed(id, "File is too large"));
+            return;
+        }
+        if (store.contains(request.getFileHash())) {
+            send(MessageType.FILE_ACK, new FileAck(id, FileAck.Status.COMPLETE, request.getFileSize(), 0, null));
+            return;
+        }
+        if (incoming.size() >= MAX_TRANSFERS) {
+            send(MessageType.FILE_ACK, FileAck.failed(id, "Too many file transfers in progress"));
+            return;
+        }
+
+        Incoming transfer = new Incoming(id, request.getFileHash(), request.getFileSize(), null);
+        try {
+            openPartial(transfer);
+        } catch (IOException e) {
+            send(MessageType.FILE_ACK, FileAck.failed(id, e.getMessage()));
+            return;
+        }
+        incoming.put(id, transfer);
+        if (transfer.offset == transfer.size) {
+            finishIncoming(transfer);
+        } else {
+            sendAck(transfer, FileAck.Status.CONTINUE);
+        }
+    }
+
+    /**
+     * The other end asks for content: send it from the offset it already holds
+     */
+    private void serveDownload(FileTransferRequest request) {
+        String id = request.getTransferId();
+        if (!canDownload.test(request.getFileHash())) {
+            logger.warn("Transfer {}: download of {} refused", id, request.getFileHash());
+            send(MessageType.FILE_ACK, FileAck.failed(id, "File not found"));
+            return;
+        }
+        if (!store.contains(request.getFileHash())) {
+            send(MessageType.FILE_ACK, FileAck.failed(id, "File not found"));
+            return;
+        }
+        if (outgoing.size() >= MAX_TRANSFERS) {
+            send(MessageType.FILE_ACK, FileAck.failed(id, "Too many file transfers in progress"));
+            return;
+        }
+
+        Path source = store.pathFor(request.getFileHash());
+        Outgoing transfer = new Outgoing(id, request.getFileHash(), source, request.getFileSize(), null);
+        try {
+            transfer.channel = FileChannel.open(source, StandardOpenOption.READ);
+            if (transfer.channel.size() != transfer.size) {
+                closeQuietly(transfer.channel);
+                send(MessageType.FILE_ACK, FileAck.failed(id, "File size mismatch"));
+                return;
+            }
+        } catch (IOException e) {
+            send(MessageType.FILE_ACK, FileAck.failed(id, e.getMessage()));
+            return;
+        }
+
+        transfer.nextOffset = clamp(request.getOffset(), transfer.size);
+        transfer.windowEnd = transfer.nextOffset + Math.min(Math.max(request.getWindow(), 0), MAX_WINDOW_BYTES);
+        outgoing.put(id, transfer);
+        pump(transfer);
+    }
+
+    private synchronized void handleChunk(FileChunk chunk) {
+        Incoming transfer = incoming.get(chunk.getTransferId());
+        if (transfer == null || transfer.channel == null) {
+            return; // Finished, failed or suspended
+        }
+        if (chunk.getOffset() < transfer.offset) {
+            return; // Sent again after a resend request, already written
+        }
+        if (chunk.getOffset() > transfer.offset || !chunk.isIntact()) {
+            // Everything after a gap is discarded until the sender goes back to the offset
+            if (!transfer.resendRequested) {
+                transfer.resendRequested = true;
+                logger.debug("Transfer {}: asking for a resend from {}", transfer.id, transfer.offset);
+                sendAck(transfer, FileAck.Status.RESEND);
+            }
+            return;
+        }
+
+        byte[] data = chunk.getData();
+        if (data.length == 0 || transfer.offset + data.length > transfer.size) {
+            failIncoming(transfer, "Chunk past the end of the file", true);
+            return;
+        }
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(data);
+            while (buffer.hasRemaining()) {
+                transfer.channel.write(buffer, transfer.offset + buffer.position());
+            }
+        } catch (IOException e) {
+            failIncoming(transfer, e.getMessage(), true);
+            return;
+        }
+
+        transfer.offset += data.length;
+        transfer.resendRequested = false;
+        if (transfer.offset == transfer.size) {
+            finishIncoming(transfer);
+        } else {
+            sendAck(transfer, FileAck.Status.CONTINUE);
+        }
+    }
+
+    private synchronized void handleAck(FileAck ack) {
+        Outgoing transfer = outgoing.get(ack.getTransferId());
+        if (transfer == null) {
+            // A sender that gives up tells the receiver with a FAILED ack too
+            Incoming receiving = incoming.get(ack.getTransferId());
+            if (receiving != null && ack.getStatus() == FileAck.Status.FAILED) {
+                failIncoming(receiving, ack.getReason(), false);
+            }
+            return;
+        }
+
+        switch (ack.getStatus()) {
+            case COMPLETE:
+                finishOutgoing(transfer, null);
+                return;
+            case FAILED:
+                finishOutgoing(transfer, new IOException("Transfer refused: " + ack.getReason()));
+                return;
+            case RESEND:
+                transfer.nextOffset = clamp(ack.getOffset(), transfer.size);
+                break;
+            default:
+                // The first ack of an upload says where to start
+                transfer.nextOffset = Math.max(transfer.nextOffset, clamp(ack.getOffset(), transfer.size));
+                break;
+        }
+        transfer.windowEnd = ack.getOffset() + Math.min(Math.max(ack.getWindow(), 0), MAX_WINDOW_BYTES);
+        pump(transfer);
+    }
+
+    /**
+     * Send chunks until the window is used up or the file is sent
+     */
+    private void pump(Outgoing transfer) {
+        try {
+            while (transfer.channel != null && transfer.nextOffset < transfer.size
+                    && transfer.nextOffset < transfer.windowEnd) {
+                int length = (int) Math.min(CHUNK_SIZE,
+                    Math.min(transfer.size - transfer.nextOffset, transfer.windowEnd - transfer.nextOffset));
+                ByteBuffer buffer = ByteBuffer.allocate(length);
+                while (buffer.hasRemaining()) {
+                    if (transfer.channel.read(buffer, transfer.nextOffset + buffer.position()) < 0) {
+                        throw new IOException("File is shorter than announced");
+                    }
+                }
+                send(MessageType.FILE_CHUNK, FileChunk.of(transfer.id, transfer.nextOffset, buffer.array()));
+                transfer.nextOffset += length;
+            }
+        } catch (IOException e) {
+            send(MessageType.FILE_ACK, FileAck.failed(transfer.id, e.getMessage()));
+            finishOutgoing(transfer, e);
+        }
+    }
+
+    private void finishOutgoing(Outgoing transfer, IOException error) {
+        closeQuietly(transfer.channel);
+        transfer.channel = null;
+        outgoing.remove(transfer.id);
+
+        if (error == null) {
+            logger.info("Sent {} ({} bytes)", transfer.hash, transfer.size);
+            if (transfer.upload != null) {
+                transfer.upload.complete(null);
+            }
+        } else {
+            logger.warn("Sending {} failed: {}", transfer.hash, error.getMessage());
+            if (transfer.upload != null) {
+                transfer.upload.completeExceptionally(error);
+            }
+        }
+    }
+
+    /**
+     * Store a fully received file if its hash matches, and tell the sender either way
+     */
+    private void finishIncoming(Incoming transfer) {
+        closeQuietly(transfer.channel);
+        transfer.channel = null;
+        incoming.remove(transfer.id);
+
+        try {
+            ChatAttachmentStore.StoredFile stored = store.commitPartial(transfer.hash, transfer.partial);
+            send(MessageType.FILE_ACK, new FileAck(transfer.id, FileAck.Status.COMPLETE, transfer.size, 0, null));
+            logger.info("Received {} ({} bytes)", transfer.hash, transfer.size);
+            if (transfer.download != null) {
+                transfer.download.complete(stored.getPath());
+            }
+        } catch (IOException e) {
+            logger.warn("Received file rejected: {}", e.getMessage());
+            send(MessageType.FILE_ACK, FileAck.failed(transfer.id, e.getMessage()));
+            if (transfer.download != null) {
+                transfer.download.completeExceptionally(e);
+            }
+        }
+    }
+
+    /**
+     * Drop a transfer being received. A bad chunk also drops the partial file, which can
+     * no longer be trusted to resume from.
+     */
+    private void failIncoming(Incoming transfer, String reason, boolean notifySender) {
+        closeQuietly(transfer.channel);
+        transfer.channel = null;
+        incoming.remove(transfer.id);
+        if (notifySender) {
+            send(MessageType.FILE_ACK, FileAck.failed(transfer.id, reason));
+            try {
+                Files.deleteIfExists(transfer.partial);
+            } catch (IOException e) {
+                logger.warn("Could not delete partial file {}: {}", transfer.partial, e.getMessage());
+            }
+        }
+
+        logger.warn("Receiving {} failed: {}", transfer.hash, reason);
+        if (transfer.download != null) {
+            transfer.download.completeExceptionally(new IOException(reason));
+        }
+    }
+
+    /**
+     * Open (or reopen) the partial file of a transfer being received, and resume after the
+     * last whole chunk it holds. The file is locked, so the same content is never written
+     * by two transfers at once.
+     */
+    private void openPartial(Incoming transfer) throws IOException {
+        Path partial = store.partialPath(transfer.hash);
+        FileChannel channel = FileChannel.open(partial, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        FileLock lock;
+        try {
+            lock = channel.tryLock();
+        } catch (OverlappingFileLockException e) {
+            lock = null;
+        }
+        if (lock == null) {
+            channel.close();
+            throw new IOException("File is already being received");
+        }
+
+        long resumeAt = Math.min(channel.size(), transfer.size) / CHUNK_SIZE * CHUNK_SIZE;
+        channel.truncate(resumeAt);
+        transfer.partial = partial;
+        transfer.channel = channel;
+        transfer.offset = resumeAt;
+        transfer.resendRequested = false;
+    }
+
+    private void requestDownload(Incoming transfer) {
+        if (transfer.offset == transfer.size) {
+            finishIncoming(transfer);
+            return;
+        }
+        send(MessageType.FILE_MESSAGE, FileTransferRequest.download(transfer.id, transfer.hash, transfer.size,
+            transfer.offset, WINDOW_BYTES));
+    }
+
+    private void sendAck(Incoming transfer, FileAck.Status status) {
+        send(MessageType.FILE_ACK, new FileAck(transfer.id, status, transfer.offset, WINDOW_BYTES, null));
+    }
+
+    private void send(MessageType type, Object data) {
+        sink.accept(new ChatMessage(type, data));
+    }
+
+    private static long clamp(long offset, long size) {
+        return Math.max(0, Math.min(offset, size));
+    }
+
+    private static String newTransferId() {
+        return "xfer_" + UUID.randomUUID();
+    }
+
+    private static void closeQuietly(FileChannel channel) {
+        if (channel == null) {
+            return;
+        }
+        try {
+            channel.close(); // Also releases the partial file's lock
+        } catch (IOException e) {
+            logger.warn("Error closing transfer file: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * A file this end sends
+     */
+    private static final class Outgoing {
+        private final String id;
+        private final String hash;
+        private final Path source;
+        private final long size;
+        private final CompletableFuture<Void> upload; // Null when sending for the other end's download
+        private FileChannel channel; // Null while suspended
+        private long nextOffset;
+        private long windowEnd;
+
+        Outgoing(String id, String hash, Path source, long size, CompletableFuture<Void> upload) {
+            this.id = id;
+            this.hash = hash;
+            this.source = source;
+            this.size = size;
+            this.upload = upload;
+        }
+    }
+
+    /**
+     * A file this end receives
+     */
+    private static final class Incoming {
+        private final String id;
+        private final String hash;
+        private final long size;
+        private final CompletableFuture<Path> download; // Null when receiving the other end's upload
+        private Path partial;
+        private FileChannel channel; // Null while suspended
+        private long offset;
+        private boolean resendRequested;
+
+        Incoming(String id, String hash, long size, CompletableFuture<Path> download) {
+            this.id = id;
+            this.hash = hash;
+            this.size = size;
+            this.download = download;
+        }
+    }
+}
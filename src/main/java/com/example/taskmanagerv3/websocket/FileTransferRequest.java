@@ -0,0 +1,53 @@
+package com.example.taskmanagerv3.websocket;
+
+import java.io.Serializable;
+
+/**
+ * Data for a FILE_MESSAGE, which opens a chunked file transfer.
+ *
+ * An upload announces content its sender is about to push; the other side answers
+ * with a FILE_ACK giving the offset to start from. A download asks the other side to
+ * push the content, starting at the offset the requester already holds.
+ */
+public class FileTransferRequest implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final String transferId;
+    private final String fileHash; // SHA-256 of the content, also its name in the attachment store
+    private final long fileSize;
+    private final boolean upload;
+    private final long offset; // Downloads only: bytes the requester already holds
+    private final int window; // Downloads only: bytes that may be sent past the offset before an ack
+
+    private FileTransferRequest(String transferId, String fileHash, long fileSize, boolean upload,
+                                long offset, int window) {
+        this.transferId = transferId;
+        this.fileHash = fileHash;
+        this.fileSize = fileSize;
+        this.upload = upload;
+        this.offset = offset;
+        this.window = window;
+    }
+
+    public static FileTransferRequest upload(String transferId, String fileHash, long fileSize) {
+        return new FileTransferRequest(transferId, fileHash, fileSize, true, 0, 0);
+    }
+
+    public static FileTransferRequest download(String transferId, String fileHash, long fileSize,
+                                               long offset, int window) {
+        return new FileTransferRequest(transferId, fileHash, fileSize, false, offset, window);
+    }
+
+    public String getTransferId() { return transferId; }
+    public String getFileHash() { return fileHash; }
+    public long getFileSize() { return fileSize; }
+    public boolean isUpload() { return upload; }
+    public long getOffset() { return offset; }
+    public int getWindow() { return window; }
+
+    @Override
+    public String toString() {
+        return String.format("FileTransferRequest{id=%s, %s %s, size=%d, offset=%d}",
+                transferId, upload ? "upload" : "download", fileHash, fileSize, offset);
+    }
+}
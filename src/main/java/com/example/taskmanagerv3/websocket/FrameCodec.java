@@ -0,0 +1,104 @@
+package com.example.taskmanagerv3.websocket;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+
+/**
+ * Length-prefixed framing for chat messages.
+ *
+ * Each frame is a 4-byte big-endian body length followed by the encoded message,
+ * so the non-blocking server can find message boundaries without a blocking stream.
+ * The body is either {@link BinaryMessageCodec} output or a Java serialization stream;
+ * decoding tells them apart by the first byte, so either side may switch formats
+ * without breaking the other.
+ */
+public final class FrameCodec {
+    public static final int HEADER_BYTES = 4;
+    public static final int MAX_FRAME_BYTES = 8 * 1024 * 1024;
+
+    private FrameCodec() {
+    }
+
+    /**
+     * Encode a message as a complete frame with Java serialization, which every peer understands
+     */
+    public static ByteBuffer encode(ChatMessage message) throws IOException {
+        return encode(message, WireFormat.JAVA);
+    }
+
+    /**
+     * Encode a message as a complete frame, ready to write
+     */
+    public static ByteBuffer encode(ChatMessage message, WireFormat format) throws IOException {
+        // File chunks are sized up front so their bytes are not copied while the buffer grows
+        int sizeHint = message.getData() instanceof FileChunk ? ((FileChunk) message.getData()).getData().length + 256 : 256;
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(sizeHint);
+        bytes.write(new byte[HEADER_BYTES]); // Length is filled in below
+        if (format == WireFormat.BINARY) {
+            DataOutputStream out = new DataOutputStream(bytes);
+            BinaryMessageCodec.write(out, message);
+            out.flush();
+        } else {
+            try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+                out.writeObject(message);
+            }
+        }
+
+        byte[] frame = bytes.toByteArray();
+        int bodyLength = frame.length - HEADER_BYTES;
+        if (bodyLength > MAX_FRAME_BYTES) {
+            throw new IOException("Message too large: " + bodyLength + " bytes");
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(frame);
+        buffer.putInt(0, bodyLength);
+        return buffer;
+    }
+
+    /**
+     * Decode a frame body (without the length header)
+     */
+    public static ChatMessage decode(byte[] body, int offset, int length) throws IOException {
+        if (length > 0 && body[offset] == BinaryMessageCodec.FORMAT_TAG) {
+            return BinaryMessageCodec.read(new DataInputStream(new ByteArrayInputStream(body, offset, length)));
+        }
+
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(body, offset, length))) {
+            Object obj = in.readObject();
+            if (!(obj instanceof ChatMessage)) {
+                throw new IOException("Unexpected object type: " + obj.getClass().getSimpleName());
+            }
+            return (ChatMessage) obj;
+        } catch (ClassNotFoundException e) {
+            throw new IOException("Failed to deserialize message: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Validate a length read from a frame header
+     */
+    public static int checkLength(int length) throws IOException {
+        if (length <= 0 || length > MAX_FRAME_BYTES) {
+            throw new IOException("Invalid frame length: " + length);
+        }
+        return length;
+    }
+
+    /**
+     * Write one frame to a blocking stream
+     */
+    public static void writeFrame(DataOutputStream out, ChatMessage message, WireFormat format) throws IOException {
+        ByteBuffer frame = encode(message, format);
+        out.write(frame.array(), frame.arrayOffset(), frame.limit());
+        out.flush();
+    }
+
+    /**
+     * Read one frame from a blocking stream
+     */
+    public static ChatMessage readFrame(DataInputStream in) throws IOException {
+        int length = checkLength(in.readInt());
+        byte[] body = new byte[length];
+        in.readFully(body);
+        return decode(body, 0, length);
+    }
+}
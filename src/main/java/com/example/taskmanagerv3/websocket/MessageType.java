@@ -11,7 +11,7 @@ public enum MessageType {
     
     // Chat messages
     CHAT_MESSAGE,
-    FILE_MESSAGE,
+    FILE_MESSAGE, // Opens a chunked file transfer (FileTransferRequest)
     CHAT_WITH_FILES,
     
     // Typing indicators
@@ -25,5 +25,18 @@ public enum MessageType {
     
     // System messages
     HEARTBEAT,
-    ERROR
+    ERROR,
+    
+    // Sent to the author once the relay has stored a chat message
+    MESSAGE_ACK,
+
+    // Chunked file transfer, after a FILE_MESSAGE
+    FILE_CHUNK,
+    FILE_ACK,
+
+    // A task was created, updated or deleted (TaskChangeEvent)
+    TASK_CHANGED,
+
+    // The server could not replay everything missed while disconnected; reload the history
+    HISTORY_GAP
 }
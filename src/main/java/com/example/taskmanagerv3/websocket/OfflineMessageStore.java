@@ -0,0 +1,220 @@
+package com.example.taskmanagerv3.websocket;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Chat messages held for users who went offline, replayed when they reconnect.
+ *
+ * A user is tracked from the moment their last session closes. Each tracked user gets
+ * a bounded queue; when it overflows, the oldest messages spill over to the database,
+ * where the relay has already stored them, and the queue remembers which stored range
+ * spilled so a reconnect reads just that range back. The queue belongs to the session
+ * that closed and is only handed back to a reconnect presenting the same session id.
+ * Queues of users who stay offline past the retention time are dropped. Users who were
+ * never tracked are not queued for.
+ */
+public class OfflineMessageStore {
+    public static final int DEFAULT_MAX_MESSAGES_PER_USER = 200;
+    public static final long DEFAULT_RETENTION_MILLIS = 24L * 60 * 60 * 1000;
+
+    private static final EnumSet<MessageType> QUEUED_TYPES =
+        EnumSet.of(MessageType.CHAT_MESSAGE, MessageType.FILE_MESSAGE, MessageType.CHAT_WITH_FILES);
+
+    private final int maxMessagesPerUser;
+    private final long retentionMillis;
+    private final Map<Integer, UserQueue> queues = new HashMap<>();
+
+    private long messagesQueued;
+    private long messagesSpilled;
+    private long messagesLost;
+    private long queuesExpired;
+
+    public OfflineMessageStore() {
+        this(DEFAULT_MAX_MESSAGES_PER_USER, DEFAULT_RETENTION_MILLIS);
+    }
+
+    public OfflineMessageStore(int maxMessagesPerUser, long retentionMillis) {
+        if (maxMessagesPerUser <= 0 || retentionMillis <= 0) {
+            throw new IllegalArgumentException("Invalid offline queue limits");
+        }
+        this.maxMessagesPerUser = maxMessagesPerUser;
+        this.retentionMillis = retentionMillis;
+    }
+
+    /**
+     * Start queueing for a user whose last session is closing. A queue kept for another
+     * session of the user is replaced.
+     */
+    public synchronized void track(int userId, String sessionId, long now) {
+        UserQueue queue = queues.get(userId);
+        if (queue == null || !Objects.equals(queue.sessionId, sessionId)) {
+            queues.put(userId, new UserQueue(sessionId, now));
+        } else {
+            queue.trackedSince = now;
+        }
+    }
+
+    /**
+     * Queue a message for an offline user. Returns false if the user is not tracked or
+     * the message type is not kept (typing, presence and other transient frames).
+     */
+    public synchronized boolean store(int userId, ChatMessage message) {
+        UserQueue queue = queues.get(userId);
+        if (queue == null || !QUEUED_TYPES.contains(message.getType())) {
+            return false;
+        }
+
+        queue.messages.addLast(message);
+        messagesQueued++;
+        if (message.getPersistedId() != null
+                && (queue.newestStoredId == null || message.getPersistedId() > queue.newestStoredId)) {
+            queue.newestStoredId = message.getPersistedId();
+        }
+
+        if (queue.messages.size() > maxMessagesPerUser) {
+            ChatMessage oldest = queue.messages.removeFirst();
+            if (oldest.getPersistedId() != null) {
+                // Still in chat_messages; replay reads it back from there
+                if (queue.spilledAfterId == null || oldest.getPersistedId() <= queue.spilledAfterId) {
+                    queue.spilledAfterId = oldest.getPersistedId() - 1;
+                }
+                messagesSpilled++;
+            } else {
+                messagesLost++;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Stop tracking a user who is back online and return the backlog if it was kept for
+     * this session. Null if the user was not tracked or the session id does not match;
+     * that queue is dropped either way, since the user no longer misses messages.
+     */
+    public synchronized Backlog take(int userId, String sessionId) {
+        UserQueue queue = queues.remove(userId);
+        if (queue == null || queue.sessionId == null || !queue.sessionId.equals(sessionId)) {
+            return null;
+        }
+        return new Backlog(new ArrayList<>(queue.messages), queue.spilledAfterId, queue.newestStoredId);
+    }
+
+    /**
+     * Drop queues of users who have been offline longer than the retention time
+     */
+    public synchronized int expire(long now) {
+        int expired = 0;
+        Iterator<UserQueue> iterator = queues.values().iterator();
+        while (iterator.hasNext()) {
+            if (now - iterator.next().trackedSince > retentionMillis) {
+                iterator.remove();
+                expired++;
+            }
+        }
+        queuesExpired += expired;
+        return expired;
+    }
+
+    public synchronized OfflineStatistics getStatistics() {
+        int queuedNow = 0;
+        for (UserQueue queue : queues.values()) {
+            queuedNow += queue.messages.size();
+        }
+        return new OfflineStatistics(queues.size(), queuedNow, messagesQueued, messagesSpilled, messagesLost,
+            queuesExpired);
+    }
+
+    private static class UserQueue {
+        private final String sessionId;
+        private final ArrayDeque<ChatMessage> messages = new ArrayDeque<>();
+        private long trackedSince;
+        private Integer spilledAfterId; // Messages with a larger message_id may have spilled
+        private Integer newestStoredId; // Largest message_id queued, spilled or not
+
+        UserQueue(String sessionId, long trackedSince) {
+            this.sessionId = sessionId;
+            this.trackedSince = trackedSince;
+        }
+    }
+
+    /**
+     * What a reconnecting user missed: the queued messages, oldest first, and if the queue
+     * overflowed, the range of stored messages (after spilledAfterId, up to newestStoredId)
+     * to read back from the database
+     */
+    public static class Backlog {
+        private final List<ChatMessage> messages;
+        private final Integer spilledAfterId;
+        private final Integer newestStoredId;
+
+        public Backlog(List<ChatMessage> messages, Integer spilledAfterId, Integer newestStoredId) {
+            this.messages = messages;
+            this.spilledAfterId = spilledAfterId;
+            this.newestStoredId = newestStoredId;
+        }
+
+        public List<ChatMessage> getMessages() { return messages; }
+        public Integer getSpilledAfterId() { return spilledAfterId; }
+        public Integer getNewestStoredId() { return newestStoredId; }
+
+        public boolean isSpilled() {
+            return spilledAfterId != null;
+        }
+
+        /**
+         * Queued messages the relay could not store; a database replay does not cover them
+         */
+        public List<ChatMessage> getUnstoredMessages() {
+            List<ChatMessage> unstored = new ArrayList<>();
+            for (ChatMessage message : messages) {
+                if (message.getPersistedId() == null) {
+                    unstored.add(message);
+                }
+            }
+            return unstored;
+        }
+    }
+
+    /**
+     * Offline queue counters
+     */
+    public static class OfflineStatistics {
+        private final int trackedUsers;
+        private final int queuedMessages;
+        private final long messagesQueued;
+        private final long messagesSpilled;
+        private final long messagesLost;
+        private final long queuesExpired;
+
+        public OfflineStatistics(int trackedUsers, int queuedMessages, long messagesQueued, long messagesSpilled,
+                                 long messagesLost, long queuesExpired) {
+            this.trackedUsers = trackedUsers;
+            this.queuedMessages = queuedMessages;
+            this.messagesQueued = messagesQueued;
+            this.messagesSpilled = messagesSpilled;
+            this.messagesLost = messagesLost;
+            this.queuesExpired = queuesExpired;
+        }
+
+        public int getTrackedUsers() { return trackedUsers; }
+        public int getQueuedMessages() { return queuedMessages; }
+        public long getMessagesQueued() { return messagesQueued; }
+        public long getMessagesSpilled() { return messagesSpilled; }
+        public long getMessagesLost() { return messagesLost; }
+        public long getQueuesExpired() { return queuesExpired; }
+
+        @Override
+        public String toString() {
+            return String.format("Offline queues: users=%d, queued=%d, total=%d, spilled=%d, lost=%d, expired=%d",
+                               trackedUsers, queuedMessages, messagesQueued, messagesSpilled, messagesLost,
+                               queuesExpired);
+        }
+    }
+}
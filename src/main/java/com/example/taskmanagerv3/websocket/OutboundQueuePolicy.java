@@ -0,0 +1,59 @@
+package com.example.taskmanagerv3.websocket;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Limits and overflow behaviour for each connection's outbound frame queue.
+ *
+ * When a queue passes its soft limits, droppable frames (typing indicators by default)
+ * are discarded first, newest and queued alike. Other frames are still accepted up to
+ * the hard limit, but if the queue stays over its soft limit for longer than the grace
+ * period, or reaches the hard limit, the client is disconnected.
+ */
+public class OutboundQueuePolicy {
+    private final int maxFrames;
+    private final long maxBytes;
+    private final int hardLimitFactor;
+    private final long overflowGraceMillis;
+    private final EnumSet<MessageType> droppableTypes;
+
+    public OutboundQueuePolicy(int maxFrames, long maxBytes, int hardLimitFactor, long overflowGraceMillis,
+                               Set<MessageType> droppableTypes) {
+        if (maxFrames <= 0 || maxBytes <= 0 || hardLimitFactor < 1 || overflowGraceMillis < 0) {
+            throw new IllegalArgumentException("Invalid outbound queue limits");
+        }
+        this.maxFrames = maxFrames;
+        this.maxBytes = maxBytes;
+        this.hardLimitFactor = hardLimitFactor;
+        this.overflowGraceMillis = overflowGraceMillis;
+        this.droppableTypes = droppableTypes.isEmpty()
+            ? EnumSet.noneOf(MessageType.class) : EnumSet.copyOf(droppableTypes);
+    }
+
+    /**
+     * 1000 frames / 16 MB soft limit, twice that as the hard limit, 10 seconds grace
+     */
+    public static OutboundQueuePolicy defaults() {
+        return new OutboundQueuePolicy(1_000, 16L * 1024 * 1024, 2, 10_000,
+            EnumSet.of(MessageType.TYPING_START, MessageType.TYPING_STOP, MessageType.HEARTBEAT));
+    }
+
+    public boolean isDroppable(MessageType type) {
+        return type != null && droppableTypes.contains(type);
+    }
+
+    public boolean isOverSoftLimit(int frames, long bytes) {
+        return frames > maxFrames || bytes > maxBytes;
+    }
+
+    public boolean isOverHardLimit(int frames, long bytes) {
+        return frames > (long) maxFrames * hardLimitFactor || bytes > maxBytes * hardLimitFactor;
+    }
+
+    public int getMaxFrames() { return maxFrames; }
+    public long getMaxBytes() { return maxBytes; }
+    public int getHardLimitFactor() { return hardLimitFactor; }
+    public long getOverflowGraceMillis() { return overflowGraceMillis; }
+    public Set<MessageType> getDroppableTypes() { return EnumSet.copyOf(droppableTypes); }
+}
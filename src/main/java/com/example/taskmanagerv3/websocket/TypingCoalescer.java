@@ -0,0 +1,167 @@
+package com.example.taskmanagerv3.websocket;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Collapses typing indicators per sender and receiver into state changes.
+ *
+ * A pair is either idle or typing. Only the idle -> typing and typing -> idle
+ * transitions are forwarded; repeated TYPING_START events (one per keystroke) just
+ * extend the pair's TTL, and a TYPING_STOP for an idle pair is dropped. When a TTL
+ * runs out without a new START, or the sender goes offline, the relay sends the
+ * receiver a TYPING_STOP itself so the indicator never sticks.
+ */
+public class TypingCoalescer {
+    public static final long DEFAULT_TTL_MILLIS = 5_000;
+
+    private final long ttlMillis;
+    private final Map<Long, TypingState> typing = new HashMap<>();
+
+    private long startsReceived;
+    private long stopsReceived;
+    private long framesForwarded;
+    private long framesSuppressed;
+    private long stopsSynthesized;
+
+    public TypingCoalescer() {
+        this(DEFAULT_TTL_MILLIS);
+    }
+
+    public TypingCoalescer(long ttlMillis) {
+        this.ttlMillis = ttlMillis;
+    }
+
+    /**
+     * Record a TYPING_START. Returns true if it should be forwarded to the receiver.
+     */
+    public synchronized boolean onStart(int senderId, String senderName, int receiverId, long now) {
+        startsReceived++;
+        TypingState state = typing.get(key(senderId, receiverId));
+        if (state != null) {
+            state.expiresAt = now + ttlMillis;
+            framesSuppressed++;
+            return false;
+        }
+
+        typing.put(key(senderId, receiverId), new TypingState(senderId, senderName, receiverId, now + ttlMillis));
+        framesForwarded++;
+        return true;
+    }
+
+    /**
+     * Record a TYPING_STOP. Returns true if it should be forwarded to the receiver.
+     */
+    public synchronized boolean onStop(int senderId, int receiverId) {
+        stopsReceived++;
+        if (typing.remove(key(senderId, receiverId)) == null) {
+            framesSuppressed++;
+            return false;
+        }
+        framesForwarded++;
+        return true;
+    }
+
+    /**
+     * Remove pairs whose TTL has passed; the caller sends each receiver a TYPING_STOP
+     */
+    public synchronized List<TypingState> expire(long now) {
+        List<TypingState> expired = new ArrayList<>();
+        Iterator<TypingState> states = typing.values().iterator();
+        while (states.hasNext()) {
+            TypingState state = states.next();
+            if (state.expiresAt <= now) {
+                states.remove();
+                expired.add(state);
+            }
+        }
+        stopsSynthesized += expired.size();
+        return expired;
+    }
+
+    /**
+     * Remove every pair for a sender who went offline; the caller sends each receiver a TYPING_STOP
+     */
+    public synchronized List<TypingState> removeSender(int senderId) {
+        List<TypingState> removed = new ArrayList<>();
+        Iterator<TypingState> states = typing.values().iterator();
+        while (states.hasNext()) {
+            TypingState state = states.next();
+            if (state.senderId == senderId) {
+                states.remove();
+                removed.add(state);
+            }
+        }
+        stopsSynthesized += removed.size();
+        return removed;
+    }
+
+    public synchronized TypingStatistics getStatistics() {
+        return new TypingStatistics(typing.size(), startsReceived, stopsReceived, framesForwarded,
+            framesSuppressed, stopsSynthesized);
+    }
+
+    private static long key(int senderId, int receiverId) {
+        return ((long) senderId << 32) | (receiverId & 0xFFFFFFFFL);
+    }
+
+    /**
+     * A sender currently shown as typing to a receiver
+     */
+    public static class TypingState {
+        private final int senderId;
+        private final String senderName;
+        private final int receiverId;
+        private long expiresAt;
+
+        TypingState(int senderId, String senderName, int receiverId, long expiresAt) {
+            this.senderId = senderId;
+            this.senderName = senderName;
+            this.receiverId = receiverId;
+            this.expiresAt = expiresAt;
+        }
+
+        public int getSenderId() { return senderId; }
+        public String getSenderName() { return senderName; }
+        public int getReceiverId() { return receiverId; }
+    }
+
+    /**
+     * Typing relay counters; framesSuppressed is the number of frames saved
+     */
+    public static class TypingStatistics {
+        private final int activePairs;
+        private final long startsReceived;
+        private final long stopsReceived;
+        private final long framesForwarded;
+        private final long framesSuppressed;
+        private final long stopsSynthesized;
+
+        public TypingStatistics(int activePairs, long startsReceived, long stopsReceived, long framesForwarded,
+                                long framesSuppressed, long stopsSynthesized) {
+            this.activePairs = activePairs;
+            this.startsReceived = startsReceived;
+            this.stopsReceived = stopsReceived;
+            this.framesForwarded = framesForwarded;
+            this.framesSuppressed = framesSuppressed;
+            this.stopsSynthesized = stopsSynthesized;
+        }
+
+        public int getActivePairs() { return activePairs; }
+        public long getStartsReceived() { return startsReceived; }
+        public long getStopsReceived() { return stopsReceived; }
+        public long getFramesForwarded() { return framesForwarded; }
+        public long getFramesSuppressed() { return framesSuppressed; }
+        public long getStopsSynthesized() { return stopsSynthesized; }
+
+        @Override
+        public String toString() {
+            return String.format("Typing relay: active=%d, received=%d starts/%d stops, forwarded=%d, saved=%d, expired=%d",
+                               activePairs, startsReceived, stopsReceived, framesForwarded, framesSuppressed,
+                               stopsSynthesized);
+        }
+    }
+}
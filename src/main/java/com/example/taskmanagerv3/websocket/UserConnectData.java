@@ -11,6 +11,9 @@ public class UserConnectData implements Serializable {
     private int userId;
     private String username;
     private boolean isAdmin;
+    private String supportedFormats; // Comma-separated WireFormat names; null from older clients
+    private Integer lastSeenMessageId; // Newest message_id received before a reconnect; null on a fresh login
+    private String sessionId; // Random per login, kept across reconnects; null from older clients
 
     public UserConnectData() {}
 
@@ -45,6 +48,30 @@ public class UserConnectData implements Serializable {
         isAdmin = admin;
     }
 
+    public String getSupportedFormats() {
+        return supportedFormats;
+    }
+
+    public void setSupportedFormats(String supportedFormats) {
+        this.supportedFormats = supportedFormats;
+    }
+
+    public Integer getLastSeenMessageId() {
+        return lastSeenMessageId;
+    }
+
+    public void setLastSeenMessageId(Integer lastSeenMessageId) {
+        this.lastSeenMessageId = lastSeenMessageId;
+    }
+
+    public String getSessionId() {
+        return sessionId;
+    }
+
+    public void setSessionId(String sessionId) {
+        this.sessionId = sessionId;
+    }
+
     @Override
     public String toString() {
         return String.format("UserConnectData{userId=%d, username='%s', isAdmin=%s}", 
@@ -1,14 +1,25 @@
 package com.example.taskmanagerv3.websocket;
 
+import com.example.taskmanagerv3.model.TaskChangeEvent;
+import com.example.taskmanagerv3.service.ChatAttachmentStore;
+import com.example.taskmanagerv3.service.ChatService;
+import com.example.taskmanagerv3.service.TaskService;
+import com.example.taskmanagerv3.util.AppExecutors;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.*;
 import java.net.Socket;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -20,28 +31,41 @@ public class WebSocketClient {
     private static final int SERVER_PORT = 9876;
     private static final int RECONNECT_DELAY_SECONDS = 5;
     private static final int HEARTBEAT_INTERVAL_SECONDS = 30;
+    private static final int MAX_PENDING_TASK_CHANGES = 500;
 
     private static WebSocketClient instance;
 
     private Socket socket;
-    private ObjectOutputStream out;
-    private ObjectInputStream in;
+    private DataOutputStream out;
+    private DataInputStream in;
     private boolean connected = false;
+    private volatile WireFormat wireFormat = WireFormat.JAVA;
+    // Set once the server acknowledges this connection; it ignores task changes before that
+    private volatile boolean acknowledged;
     private boolean shouldReconnect = true;
 
-    private ExecutorService executorService;
-    private ScheduledExecutorService scheduledExecutor;
+    private final ExecutorService listenerExecutor; // Blocks reading the socket, so not a shared worker
+    private volatile ScheduledFuture<?> heartbeat;
     private CopyOnWriteArrayList<WebSocketMessageListener> listeners;
+    private final FileTransferHandler fileTransfers; // Runs on the listener thread
 
     // User information
     private Integer userId;
     private String username;
     private boolean isAdmin;
+    // Newest relayed message_id received this login; sent on reconnect so the server replays only newer ones
+    private volatile Integer lastSeenMessageId;
+    // Identifies this login to the server across reconnects; only this session gets its offline backlog
+    private volatile String sessionId;
+    // Task changes made while not connected, oldest first; sent when the server next acknowledges us
+    private final Deque<TaskChangeEvent> pendingTaskChanges = new ArrayDeque<>();
 
     private WebSocketClient() {
         listeners = new CopyOnWriteArrayList<>();
-        executorService = Executors.newSingleThreadExecutor();
-        scheduledExecutor = Executors.newScheduledThreadPool(2);
+        listenerExecutor = AppExecutors.getInstance().newSingleThreadExecutor("chat-client-listener");
+        fileTransfers = new FileTransferHandler(new ChatAttachmentStore(Paths.get(ChatService.CHAT_FILES_DIR)),
+            this::sendMessage, Runnable::run);
+        TaskService.addChangeListener(this::sendTaskChange);
     }
 
     public static synchronized WebSocketClient getInstance() {
@@ -59,10 +83,26 @@ public class WebSocketClient {
         this.username = username;
         this.isAdmin = isAdmin;
         this.shouldReconnect = true;
+        this.lastSeenMessageId = null; // Fresh login: the chat views load history themselves
+        this.sessionId = UUID.randomUUID().toString();
 
         return attemptConnection();
     }
 
+    /**
+     * Connect unless already connected as this user. Shared by the views that need the
+     * connection, so whichever opens first connects and the rest reuse it.
+     */
+    public synchronized boolean ensureConnected(int userId, String username, boolean isAdmin) {
+        if (isConnected() && this.userId != null && this.userId == userId) {
+            return true;
+        }
+        if (isConnected()) {
+            disconnect(); // Still connected as the user who logged out
+        }
+        return connect(userId, username, isAdmin);
+    }
+
     /**
      * Attempt to connect to server
      */
@@ -75,12 +115,14 @@ public class WebSocketClient {
 
             logger.info("Connecting to WebSocket server at {}:{}", SERVER_HOST, SERVER_PORT);
             socket = new Socket(SERVER_HOST, SERVER_PORT);
-            out = new ObjectOutputStream(socket.getOutputStream());
-            in = new ObjectInputStream(socket.getInputStream());
+            socket.setTcpNoDelay(true);
+            out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+            in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            wireFormat = WireFormat.JAVA; // Until the server acknowledges our offer
             connected = true;
 
             // Start message listener
-            executorService.execute(this::listenForMessages);
+            listenerExecutor.execute(this::listenForMessages);
 
             // Send connection message
             sendUserConnect();
@@ -134,9 +176,15 @@ public class WebSocketClient {
             logger.error("Error closing connection: {}", e.getMessage());
         }
 
+        acknowledged = false;
+
         // Stop heartbeat
         stopHeartbeat();
 
+        // Keep open transfers to resume after a reconnect. Not done inline: this may run
+        // inside sendMessage, which the transfer handler calls while holding its own lock.
+        AppExecutors.getInstance().execute(shouldReconnect ? fileTransfers::suspend : fileTransfers::close);
+
         // Notify listeners
         notifyDisconnected();
 
@@ -148,17 +196,20 @@ public class WebSocketClient {
      */
     private void sendUserConnect() {
         UserConnectData connectData = new UserConnectData(userId, username, isAdmin);
+        connectData.setSupportedFormats(WireFormat.supported());
+        connectData.setLastSeenMessageId(lastSeenMessageId);
+        connectData.setSessionId(sessionId);
         ChatMessage message = new ChatMessage(MessageType.USER_CONNECT, connectData);
         sendMessage(message);
     }
 
     /**
-     * Send message to server
+     * Send message to server. Returns false if it could not be written.
      */
-    public void sendMessage(ChatMessage message) {
+    public synchronized boolean sendMessage(ChatMessage message) {
         if (!connected || out == null) {
             logger.warn("Cannot send message - not connected to server");
-            return;
+            return false;
         }
 
         try {
@@ -170,13 +221,14 @@ public class WebSocketClient {
                 message.setSenderName(username);
             }
 
-            out.writeObject(message);
-            out.flush();
+            FrameCodec.writeFrame(out, message, wireFormat);
             logger.debug("Message sent: {}", message.getType());
+            return true;
 
         } catch (IOException e) {
             logger.error("Error sending message: {}", e.getMessage());
             handleConnectionLost();
+            return false;
         }
     }
 
@@ -188,6 +240,81 @@ public class WebSocketClient {
         sendMessage(message);
     }
 
+    /**
+     * Send chat message under a given message id. The server stores the message using
+     * the id as its idempotency key and answers with MESSAGE_ACK carrying the message_id.
+     */
+    public boolean sendChatMessage(String messageId, String messageText, Integer receiverId) {
+        ChatMessage message = new ChatMessage(MessageType.CHAT_MESSAGE, messageText, receiverId);
+        message.setMessageId(messageId);
+        return sendMessage(message);
+    }
+
+    /**
+     * New message id to use as a chat message's idempotency key
+     */
+    public static String newMessageId() {
+        return new ChatMessage().getMessageId();
+    }
+
+    /**
+     * Push an attachment from the local store to the server's, so clients that do not share
+     * this disk can fetch it. Completes once the server holds the content.
+     */
+    public CompletableFuture<Void> uploadAttachment(String fileHash, Path source) {
+        if (!isConnected()) {
+            return CompletableFuture.failedFuture(new IOException("Not connected to server"));
+        }
+        return fileTransfers.upload(fileHash, source);
+    }
+
+    /**
+     * Fetch an attachment uploaded from another machine into the local store.
+     * Completes with its local path.
+     */
+    public CompletableFuture<Path> downloadAttachment(String fileHash, long fileSize) {
+        if (!isConnected()) {
+            return CompletableFuture.failedFuture(new IOException("Not connected to server"));
+        }
+        return fileTransfers.download(fileHash, fileSize);
+    }
+
+    /**
+     * Tell the server about a task this client changed, so it can update other dashboards.
+     * Changes made while disconnected are queued and sent after the next connection is
+     * acknowledged, as those dashboards only poll while they are disconnected themselves.
+     */
+    private void sendTaskChange(TaskChangeEvent event) {
+        synchronized (pendingTaskChanges) {
+            if (acknowledged && pendingTaskChanges.isEmpty()
+                    && sendMessage(new ChatMessage(MessageType.TASK_CHANGED, event))) {
+                return;
+            }
+            if (pendingTaskChanges.size() == MAX_PENDING_TASK_CHANGES) {
+                logger.warn("Too many task changes waiting for the server, dropping {}", pendingTaskChanges.peekFirst());
+                pendingTaskChanges.pollFirst();
+            }
+            pendingTaskChanges.addLast(event);
+        }
+    }
+
+    /**
+     * Send the task changes queued while disconnected, in the order they were made
+     */
+    private void sendPendingTaskChanges() {
+        synchronized (pendingTaskChanges) {
+            int sent = 0;
+            while (!pendingTaskChanges.isEmpty()
+                    && sendMessage(new ChatMessage(MessageType.TASK_CHANGED, pendingTaskChanges.peekFirst()))) {
+                pendingTaskChanges.pollFirst();
+                sent++;
+            }
+            if (sent > 0) {
+                logger.info("Sent {} task change(s) made while disconnected", sent);
+            }
+        }
+    }
+
     /**
      * Send typing notification
      */
@@ -203,15 +330,27 @@ public class WebSocketClient {
     private void listenForMessages() {
         try {
             while (connected) {
-                try {
-                    Object obj = in.readObject();
-                    if (obj instanceof ChatMessage) {
-                        ChatMessage message = (ChatMessage) obj;
-                        notifyMessageReceived(message);
+                ChatMessage message = FrameCodec.readFrame(in);
+                if (message.getType() == MessageType.FILE_MESSAGE || message.getType() == MessageType.FILE_CHUNK
+                        || message.getType() == MessageType.FILE_ACK) {
+                    fileTransfers.onMessage(message);
+                    continue;
+                }
+                if (message.getType() == MessageType.CONNECTION_ACK) {
+                    // An ack without a format list keeps Java serialization inside the frames.
+                    // Framing itself is not optional: servers from before it cannot be talked to.
+                    wireFormat = WireFormat.negotiate(String.valueOf(message.getData()));
+                    if (lastSeenMessageId == null) {
+                        lastSeenMessageId = 0; // From here on a reconnect asks for what it missed
                     }
-                } catch (ClassNotFoundException e) {
-                    logger.error("Unknown object received: {}", e.getMessage());
+                    fileTransfers.resume();
+                    acknowledged = true;
+                    sendPendingTaskChanges();
+                } else if (message.getType() == MessageType.CHAT_MESSAGE && message.getPersistedId() != null
+                        && (lastSeenMessageId == null || message.getPersistedId() > lastSeenMessageId)) {
+                    lastSeenMessageId = message.getPersistedId();
                 }
+                notifyMessageReceived(message);
             }
         } catch (IOException e) {
             if (connected) {
@@ -237,31 +376,42 @@ public class WebSocketClient {
      */
     private void scheduleReconnection() {
         logger.info("Scheduling reconnection in {} seconds", RECONNECT_DELAY_SECONDS);
-        scheduledExecutor.schedule(() -> {
-            if (shouldReconnect && !connected) {
-                logger.info("Attempting to reconnect...");
-                attemptConnection();
-            }
-        }, RECONNECT_DELAY_SECONDS, TimeUnit.SECONDS);
+        AppExecutors executors = AppExecutors.getInstance();
+        try {
+            // Connecting blocks, so the scheduler only hands it to a worker
+            executors.schedule(() -> executors.execute(() -> {
+                if (shouldReconnect && !connected) {
+                    logger.info("Attempting to reconnect...");
+                    attemptConnection();
+                }
+            }), RECONNECT_DELAY_SECONDS, TimeUnit.SECONDS);
+        } catch (RejectedExecutionException e) {
+            logger.debug("Not reconnecting, the application is shutting down");
+        }
     }
 
     /**
      * Start heartbeat
      */
     private void startHeartbeat() {
-        scheduledExecutor.scheduleAtFixedRate(() -> {
+        stopHeartbeat();
+        AppExecutors executors = AppExecutors.getInstance();
+        heartbeat = executors.scheduleAtFixedRate(() -> executors.execute(() -> {
             if (connected) {
-                ChatMessage heartbeat = new ChatMessage(MessageType.HEARTBEAT, "ping");
-                sendMessage(heartbeat);
+                sendMessage(new ChatMessage(MessageType.HEARTBEAT, "ping"));
             }
-        }, HEARTBEAT_INTERVAL_SECONDS, HEARTBEAT_INTERVAL_SECONDS, TimeUnit.SECONDS);
+        }), HEARTBEAT_INTERVAL_SECONDS, HEARTBEAT_INTERVAL_SECONDS, TimeUnit.SECONDS);
     }
 
     /**
      * Stop heartbeat
      */
     private void stopHeartbeat() {
-        // Heartbeat will stop automatically when scheduledExecutor is shutdown
+        ScheduledFuture<?> current = heartbeat;
+        if (current != null) {
+            current.cancel(false);
+            heartbeat = null;
+        }
     }
 
     // Listener management
@@ -335,12 +485,6 @@ public class WebSocketClient {
         shouldReconnect = false;
         closeConnection();
         
-        if (executorService != null && !executorService.isShutdown()) {
-            executorService.shutdown();
-        }
-        
-        if (scheduledExecutor != null && !scheduledExecutor.isShutdown()) {
-            scheduledExecutor.shutdown();
-        }
+        listenerExecutor.shutdown();
     }
 }
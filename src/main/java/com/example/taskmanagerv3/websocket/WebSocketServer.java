@@ -1,35 +1,75 @@
 package com.example.taskmanagerv3.websocket;
 
+import com.example.taskmanagerv3.model.TaskChangeEvent;
+import com.example.taskmanagerv3.service.ChatService;
+import com.example.taskmanagerv3.util.AppExecutors;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.*;
-import java.net.ServerSocket;
-import java.net.Socket;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.EnumMap;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 
 /**
- * Simple WebSocket-like server for real-time chat communication
- * Redesigned from scratch for better reliability and performance
+ * Simple WebSocket-like server for real-time chat communication.
+ *
+ * A single selector thread accepts connections and does all socket reads and writes,
+ * so the thread count stays fixed no matter how many clients are online. Message
+ * handlers run on that thread and must not block; sending only queues a frame.
  */
 public class WebSocketServer {
     private static final Logger logger = LoggerFactory.getLogger(WebSocketServer.class);
     private static final int PORT = 9876;
+    private static final long SELECT_TIMEOUT_MILLIS = 1_000;
+    // Clients send a heartbeat every 30 seconds; drop sockets that have gone quiet
+    private static final long IDLE_TIMEOUT_MILLIS = 90_000;
+    // Messages read per query when replaying a spilled backlog from the database
+    private static final int REPLAY_PAGE_SIZE = 100;
+    // Most messages replayed from the database; past that the client is told to reload its history
+    private static final int MAX_REPLAY_MESSAGES = 1_000;
     private static WebSocketServer instance;
 
-    private ServerSocket serverSocket;
-    private boolean running = false;
-    private ExecutorService executorService;
-    private CopyOnWriteArrayList<ClientConnection> connections;
-    private ConcurrentHashMap<Integer, ClientConnection> userConnections; // userId -> connection
+    private ServerSocketChannel serverChannel;
+    private Selector selector;
+    private Thread selectorThread;
+    private ExecutorService fileTransferExecutor; // Disk work of attachment transfers, off the selector thread
+    private volatile boolean running = false;
+    private volatile OutboundQueuePolicy outboundQueuePolicy = OutboundQueuePolicy.defaults();
+    private long lastIdleCheck;
+
+    private final Set<ClientConnection> connections; // Every open socket, registered or not
+    private final ConnectionRegistry registry; // Registered sessions by user and role
+    private final TypingCoalescer typingCoalescer;
+    private final ChatService chatService;
+    private final ChatPersistencePipeline persistencePipeline;
+    private final OfflineMessageStore offlineStore;
+    private final ConcurrentLinkedQueue<ClientConnection> pendingWrites;
+    private final ConcurrentLinkedQueue<ClientConnection> pendingCloses;
 
     private WebSocketServer() {
-        connections = new CopyOnWriteArrayList<>();
-        userConnections = new ConcurrentHashMap<>();
-        executorService = Executors.newCachedThreadPool();
+        connections = ConcurrentHashMap.newKeySet();
+        registry = new ConnectionRegistry();
+        typingCoalescer = new TypingCoalescer();
+        chatService = new ChatService();
+        persistencePipeline = new ChatPersistencePipeline(this, chatService);
+        offlineStore = new OfflineMessageStore();
+        pendingWrites = new ConcurrentLinkedQueue<>();
+        pendingCloses = new ConcurrentLinkedQueue<>();
     }
 
     public static synchronized WebSocketServer getInstance() {
@@ -49,16 +89,24 @@ public class WebSocketServer {
         }
 
         try {
-            serverSocket = new ServerSocket(PORT);
+            selector = Selector.open();
+            serverChannel = ServerSocketChannel.open();
+            serverChannel.bind(new InetSocketAddress(PORT));
+            serverChannel.configureBlocking(false);
+            serverChannel.register(selector, SelectionKey.OP_ACCEPT);
             running = true;
+            persistencePipeline.start();
+            fileTransferExecutor = AppExecutors.getInstance().newSingleThreadExecutor("chat-file-transfer");
             logger.info("WebSocket server started on port {}", PORT);
 
-            // Accept connections in background thread
-            executorService.execute(this::acceptConnections);
+            selectorThread = new Thread(this::runSelectorLoop, "chat-server-selector");
+            selectorThread.setDaemon(true);
+            selectorThread.start();
             return true;
 
         } catch (IOException e) {
             logger.error("Failed to start WebSocket server: {}", e.getMessage());
+            closeQuietly();
             return false;
         }
     }
@@ -74,56 +122,180 @@ public class WebSocketServer {
         running = false;
         logger.info("Stopping WebSocket server...");
 
+        // Store messages that are still queued before the connections go away
+        persistencePipeline.stop();
+
         // Close all client connections
         for (ClientConnection connection : connections) {
             connection.close();
         }
         connections.clear();
-        userConnections.clear();
+        registry.clear();
+        fileTransferExecutor.shutdown();
+
+        closeQuietly();
+        logger.info("WebSocket server stopped");
+    }
 
-        // Close server socket
+    private void closeQuietly() {
         try {
-            if (serverSocket != null && !serverSocket.isClosed()) {
-                serverSocket.close();
+            if (serverChannel != null) {
+                serverChannel.close();
+            }
+            if (selector != null) {
+                selector.close();
             }
         } catch (IOException e) {
             logger.error("Error closing server socket: {}", e.getMessage());
         }
-
-        // Shutdown executor
-        executorService.shutdown();
-        logger.info("WebSocket server stopped");
     }
 
     /**
-     * Accept incoming connections
+     * Accept connections and move bytes until the server stops
      */
-    private void acceptConnections() {
+    private void runSelectorLoop() {
         while (running) {
             try {
-                Socket clientSocket = serverSocket.accept();
-                logger.info("New client connected from: {}", clientSocket.getInetAddress().getHostAddress());
+                selector.select(SELECT_TIMEOUT_MILLIS);
 
-                ClientConnection connection = new ClientConnection(clientSocket);
-                connections.add(connection);
-                executorService.execute(connection);
+                ClientConnection connection;
+                while ((connection = pendingCloses.poll()) != null) {
+                    connection.close();
+                }
+                while ((connection = pendingWrites.poll()) != null) {
+                    connection.enableWriteInterest();
+                }
+
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    handleKey(key);
+                }
 
+                checkConnections();
+
+            } catch (ClosedSelectorException e) {
+                break;
             } catch (IOException e) {
                 if (running) {
-                    logger.error("Error accepting client connection: {}", e.getMessage());
+                    logger.error("Error in server selector loop: {}", e.getMessage());
                 }
+            } catch (RuntimeException e) {
+                logger.error("Unexpected error in server selector loop", e);
             }
         }
     }
 
+    private void handleKey(SelectionKey key) {
+        if (!key.isValid()) {
+            return;
+        }
+
+        if (key.isAcceptable()) {
+            acceptConnection();
+            return;
+        }
+
+        ClientConnection connection = (ClientConnection) key.attachment();
+        try {
+            if (key.isReadable()) {
+                connection.onReadable();
+            }
+            if (key.isValid() && key.isWritable()) {
+                connection.onWritable();
+            }
+        } catch (IOException e) {
+            logger.info("Client connection lost: {}", e.getMessage());
+            connection.close();
+        } catch (RuntimeException e) {
+            // A malformed message must not take down the selector thread and every other client with it
+            logger.error("Error handling client connection, closing it", e);
+            connection.close();
+        }
+    }
+
     /**
-     * Send message to specific user
+     * Accept incoming connections
+     */
+    private void acceptConnection() {
+        try {
+            SocketChannel channel;
+            while ((channel = serverChannel.accept()) != null) {
+                channel.configureBlocking(false);
+                channel.socket().setTcpNoDelay(true);
+                logger.info("New client connected from: {}", channel.socket().getInetAddress().getHostAddress());
+
+                SelectionKey key = channel.register(selector, SelectionKey.OP_READ);
+                ClientConnection connection = new ClientConnection(this, channel, key);
+                key.attach(connection);
+                connections.add(connection);
+            }
+        } catch (IOException e) {
+            if (running) {
+                logger.error("Error accepting client connection: {}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Close connections that went quiet or whose outbound queue stayed over its limit
+     */
+    private void checkConnections() {
+        long now = System.currentTimeMillis();
+        if (now - lastIdleCheck < SELECT_TIMEOUT_MILLIS) {
+            return;
+        }
+        lastIdleCheck = now;
+
+        for (ClientConnection connection : connections) {
+            if (now - connection.getLastReadAt() > IDLE_TIMEOUT_MILLIS) {
+                logger.info("Closing idle connection for user {}", connection.getUserId());
+                connection.close();
+            } else if (connection.isOverflowExpired(now)) {
+                logger.warn("Closing slow connection for user {}: {}", connection.getUserId(),
+                    connection.getQueueStatistics());
+                connection.close();
+            }
+        }
+
+        for (TypingCoalescer.TypingState state : typingCoalescer.expire(now)) {
+            sendTypingStop(state);
+        }
+
+        int expired = offlineStore.expire(now);
+        if (expired > 0) {
+            logger.info("Dropped {} offline queue(s) past retention", expired);
+        }
+    }
+
+    /**
+     * Tell a receiver that a sender stopped typing, on the sender's behalf
+     */
+    private void sendTypingStop(TypingCoalescer.TypingState state) {
+        ChatMessage stop = new ChatMessage(MessageType.TYPING_STOP, null, state.getReceiverId());
+        stop.setSenderId(state.getSenderId());
+        stop.setSenderName(state.getSenderName());
+        sendToUser(state.getReceiverId(), stop);
+    }
+
+    /**
+     * Send message to every session of a specific user
      */
     public void sendToUser(int userId, ChatMessage message) {
-        ClientConnection connection = userConnections.get(userId);
-        if (connection != null && connection.isConnected()) {
-            connection.sendMessage(message);
-            logger.debug("Message sent to user {}: {}", userId, message.getType());
+        Map<WireFormat, ByteBuffer> frames = new EnumMap<>(WireFormat.class);
+
+        int sentCount = 0;
+        for (ClientConnection connection : registry.getSessions(userId)) {
+            if (connection.isConnected() && sendShared(connection, message, frames)) {
+                sentCount++;
+            }
+        }
+
+        if (sentCount > 0) {
+            logger.debug("Message sent to user {} ({} sessions): {}", userId, sentCount, message.getType());
+        } else if (offlineStore.store(userId, message)) {
+            logger.debug("User {} offline, message queued for replay: {}", userId, message.getType());
         } else {
             logger.warn("User {} not connected or connection lost", userId);
         }
@@ -133,10 +305,11 @@ public class WebSocketServer {
      * Broadcast message to all connected users
      */
     public void broadcast(ChatMessage message) {
+        Map<WireFormat, ByteBuffer> frames = new EnumMap<>(WireFormat.class);
+
         int sentCount = 0;
         for (ClientConnection connection : connections) {
-            if (connection.isConnected()) {
-                connection.sendMessage(message);
+            if (connection.isConnected() && sendShared(connection, message, frames)) {
                 sentCount++;
             }
         }
@@ -147,36 +320,148 @@ public class WebSocketServer {
      * Send message to all admins
      */
     public void sendToAdmins(ChatMessage message) {
+        Map<WireFormat, ByteBuffer> frames = new EnumMap<>(WireFormat.class);
+
         int sentCount = 0;
-        for (ClientConnection connection : connections) {
-            if (connection.isConnected() && connection.isAdmin()) {
-                connection.sendMessage(message);
+        for (ClientConnection connection : registry.getAdminSessions()) {
+            if (connection.isConnected() && sendShared(connection, message, frames)) {
                 sentCount++;
             }
         }
         logger.debug("Message sent to {} admins: {}", sentCount, message.getType());
     }
 
+    /**
+     * Send a task change to the assignee's sessions and to every admin, once per session.
+     * Not queued for offline users: dashboards load current data when they open. The event
+     * is only a hint to re-read the task, so a client cannot push task data to others.
+     */
+    public void sendTaskChange(ChatMessage message) {
+        TaskChangeEvent event = (TaskChangeEvent) message.getData();
+        Map<WireFormat, ByteBuffer> frames = new EnumMap<>(WireFormat.class);
+        Set<ClientConnection> targets = new LinkedHashSet<>(registry.getSessions(event.getAssignedUserId()));
+        targets.addAll(registry.getAdminSessions());
+
+        int sentCount = 0;
+        for (ClientConnection connection : targets) {
+            if (connection.isConnected() && sendShared(connection, message, frames)) {
+                sentCount++;
+            }
+        }
+        logger.debug("Task change sent to {} sessions: {}", sentCount, event);
+    }
+
+    /**
+     * Send a fan-out message, encoding it at most once per wire format and sharing the bytes
+     */
+    private boolean sendShared(ClientConnection connection, ChatMessage message, Map<WireFormat, ByteBuffer> frames) {
+        WireFormat format = connection.getWireFormat();
+        ByteBuffer frame = frames.get(format);
+        if (frame == null) {
+            try {
+                frame = FrameCodec.encode(message, format);
+            } catch (IOException e) {
+                logger.error("Failed to encode message {}: {}", message.getType(), e.getMessage());
+                return false;
+            }
+            frames.put(format, frame);
+        }
+        connection.sendFrame(frame, message.getType());
+        return true;
+    }
+
     /**
      * Get number of connected users
      */
     public int getConnectedUsersCount() {
-        return userConnections.size();
+        return registry.getOnlineUserCount();
     }
 
     /**
      * Check if user is online
      */
     public boolean isUserOnline(int userId) {
-        ClientConnection connection = userConnections.get(userId);
-        return connection != null && connection.isConnected();
+        return registry.isOnline(userId);
+    }
+
+    /**
+     * Get number of registered sessions; a user logged in twice counts twice
+     */
+    public int getSessionCount() {
+        return registry.getSessionCount();
+    }
+
+    /**
+     * Get outbound queue metrics for every open connection
+     */
+    public List<ClientConnection.QueueStatistics> getQueueStatistics() {
+        List<ClientConnection.QueueStatistics> statistics = new ArrayList<>();
+        for (ClientConnection connection : connections) {
+            statistics.add(connection.getQueueStatistics());
+        }
+        return statistics;
+    }
+
+    public TypingCoalescer getTypingCoalescer() {
+        return typingCoalescer;
+    }
+
+    public ChatPersistencePipeline getPersistencePipeline() {
+        return persistencePipeline;
+    }
+
+    public OfflineMessageStore.OfflineStatistics getOfflineStatistics() {
+        return offlineStore.getStatistics();
+    }
+
+    public OutboundQueuePolicy getOutboundQueuePolicy() {
+        return outboundQueuePolicy;
+    }
+
+    /**
+     * Replace the outbound queue limits; applies to frames queued from now on
+     */
+    public void setOutboundQueuePolicy(OutboundQueuePolicy outboundQueuePolicy) {
+        this.outboundQueuePolicy = outboundQueuePolicy;
     }
 
     /**
      * Check if server is running
      */
     public boolean isRunning() {
-        return running && serverSocket != null && !serverSocket.isClosed();
+        return running && serverChannel != null && serverChannel.isOpen();
+    }
+
+    /**
+     * File transfer endpoint for a new connection, serving attachments from the chat store
+     * only to the sender and receiver of a message that carries them
+     */
+    FileTransferHandler newFileTransferHandler(ClientConnection connection) {
+        return new FileTransferHandler(chatService.getAttachmentStore(), connection::sendMessage, fileTransferExecutor,
+            hash -> {
+                Integer userId = connection.getUserId();
+                return userId != null && chatService.isAttachmentParticipant(hash, userId);
+            });
+    }
+
+    /**
+     * Ask the selector thread to start writing a connection's queued frames
+     */
+    void requestWrite(ClientConnection connection) {
+        if (Thread.currentThread() == selectorThread) {
+            connection.enableWriteInterest();
+        } else {
+            pendingWrites.add(connection);
+            selector.wakeup();
+        }
+    }
+
+    /**
+     * Close a connection from the selector thread, e.g. when its queue overflows mid-broadcast
+     */
+    void closeLater(ClientConnection connection) {
+        pendingCloses.add(connection);
+        selector.wakeup();
     }
 
     /**
@@ -185,8 +470,19 @@ public class WebSocketServer {
     void removeConnection(ClientConnection connection) {
         connections.remove(connection);
         if (connection.getUserId() != null) {
-            userConnections.remove(connection.getUserId());
-            logger.info("User {} disconnected", connection.getUserId());
+            // Start queueing before the last session goes, so nothing sent in between is lost
+            Set<ClientConnection> sessions = registry.getSessions(connection.getUserId());
+            if (sessions.size() == 1 && sessions.contains(connection)) {
+                offlineStore.track(connection.getUserId(), connection.getSessionId(), System.currentTimeMillis());
+            }
+
+            boolean lastSession = registry.unregister(connection);
+            if (lastSession) {
+                for (TypingCoalescer.TypingState state : typingCoalescer.removeSender(connection.getUserId())) {
+                    sendTypingStop(state);
+                }
+            }
+            logger.info("User {} disconnected{}", connection.getUserId(), lastSession ? "" : " (other sessions still open)");
         }
     }
 
@@ -194,8 +490,121 @@ public class WebSocketServer {
      * Register user connection
      */
     void registerUser(ClientConnection connection, int userId, String username, boolean isAdmin) {
+        registry.unregister(connection); // In case this session re-registers as someone else
         connection.setUserInfo(userId, username, isAdmin);
-        userConnections.put(userId, connection);
+        registry.register(connection);
+        if (!connection.isConnected()) {
+            registry.unregister(connection); // Closed by another thread while registering
+            return;
+        }
         logger.info("User {} ({}) registered as {}", username, userId, isAdmin ? "admin" : "user");
     }
+
+    /**
+     * Send a newly registered session what its user missed while offline, then release the
+     * live messages held back meanwhile.
+     *
+     * A fresh login (no last-seen id) loads its history itself, so the backlog is dropped.
+     * USER_CONNECT is not authenticated, so a backlog is only replayed to the session it was
+     * kept for; nothing is read from the database for a user id alone. A complete backlog is
+     * replayed from memory; if it spilled, the spilled range is paged back from chat_messages
+     * on a background thread. When the gap cannot be covered (no backlog for this session,
+     * or more than MAX_REPLAY_MESSAGES missed) the client is sent HISTORY_GAP and reloads.
+     */
+    void replayOfflineMessages(ClientConnection connection, Integer lastSeenMessageId) {
+        int userId = connection.getUserId();
+        OfflineMessageStore.Backlog backlog = offlineStore.take(userId, connection.getSessionId());
+        if (lastSeenMessageId == null) {
+            connection.endReplay();
+            return;
+        }
+
+        if (backlog == null) {
+            logger.info("No backlog kept for this session of user {}, asking it to reload", userId);
+            connection.sendAheadOfHeld(new ChatMessage(MessageType.HISTORY_GAP, lastSeenMessageId));
+            connection.endReplay();
+            return;
+        }
+
+        if (!backlog.isSpilled()) {
+            int replayed = 0;
+            for (ChatMessage message : backlog.getMessages()) {
+                if (message.getPersistedId() == null || message.getPersistedId() > lastSeenMessageId) {
+                    connection.sendAheadOfHeld(message);
+                    replayed++;
+                }
+            }
+            connection.endReplay();
+            logger.info("Replayed {} queued message(s) to user {}", replayed, userId);
+            return;
+        }
+
+        int afterId = Math.max(lastSeenMessageId, backlog.getSpilledAfterId());
+        int upToId = backlog.getNewestStoredId();
+        List<ChatMessage> unstored = backlog.getUnstoredMessages();
+
+        boolean started = AppExecutors.getInstance().execute(() -> {
+            try {
+                replayStoredMessages(connection, userId, afterId, upToId, unstored);
+            } finally {
+                connection.endReplay();
+            }
+        });
+        if (!started) {
+            connection.sendAheadOfHeld(new ChatMessage(MessageType.HISTORY_GAP, lastSeenMessageId));
+            connection.endReplay();
+        }
+    }
+
+    /**
+     * Page a spilled backlog forward from chat_messages, oldest first, followed by the
+     * queued messages the relay could not store
+     */
+    private void replayStoredMessages(ClientConnection connection, int userId, int afterId, int upToId,
+                                      List<ChatMessage> unstored) {
+        int cursor = afterId;
+        int replayed = 0;
+        boolean covered = true;
+        while (cursor < upToId && connection.isConnected()) {
+            if (replayed >= MAX_REPLAY_MESSAGES) {
+                covered = false;
+                break;
+            }
+            List<com.example.taskmanagerv3.model.ChatMessage> page =
+                chatService.getMessagesReceivedBetween(userId, cursor, upToId, REPLAY_PAGE_SIZE);
+            if (page == null) {
+                covered = false;
+                break;
+            }
+            for (com.example.taskmanagerv3.model.ChatMessage row : page) {
+                connection.sendAheadOfHeld(toChatMessage(row));
+                cursor = row.getMessageId();
+            }
+            replayed += page.size();
+            if (page.size() < REPLAY_PAGE_SIZE) {
+                break;
+            }
+        }
+
+        for (ChatMessage message : unstored) {
+            connection.sendAheadOfHeld(message);
+        }
+        if (!covered) {
+            connection.sendAheadOfHeld(new ChatMessage(MessageType.HISTORY_GAP, cursor));
+        }
+        logger.info("Replayed {} stored and {} unstored message(s) after {} to user {}{}",
+            replayed, unstored.size(), afterId, userId, covered ? "" : ", rest left to a reload");
+    }
+
+    private ChatMessage toChatMessage(com.example.taskmanagerv3.model.ChatMessage row) {
+        ChatMessage message = new ChatMessage(MessageType.CHAT_MESSAGE, row.getMessage(), row.getReceiverId());
+        message.setSenderId(row.getSenderId());
+        message.setSenderName(row.getSenderName());
+        message.setTimestamp(row.getTimestamp());
+        message.setPersistedId(row.getMessageId());
+        if (row.getClientMessageId() != null) {
+            message.setMessageId(row.getClientMessageId()); // Same id the live relay carried
+        }
+        return message;
+    }
 }
@@ -0,0 +1,34 @@
+package com.example.taskmanagerv3.websocket;
+
+/**
+ * Encodings a chat frame body can use.
+ *
+ * Every peer can decode JAVA. A client lists the formats it supports in its
+ * USER_CONNECT message and the server answers with its choice in CONNECTION_ACK;
+ * until then both sides send JAVA.
+ */
+public enum WireFormat {
+    BINARY,
+    JAVA;
+
+    /**
+     * Pick the preferred format from a comma-separated list offered by a client
+     */
+    public static WireFormat negotiate(String offered) {
+        if (offered != null) {
+            for (String name : offered.split(",")) {
+                if (BINARY.name().equalsIgnoreCase(name.trim())) {
+                    return BINARY;
+                }
+            }
+        }
+        return JAVA;
+    }
+
+    /**
+     * Formats this build supports, in order of preference
+     */
+    public static String supported() {
+        return BINARY.name() + "," + JAVA.name();
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.taskmanagerv3.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test class for the content-addressed chat attachment store
+ */
+public class ChatAttachmentStoreTest {
+
+    private static final String CONTENT = "hello attachment";
+
+    @TempDir
+    Path tempDir;
+
+    private ChatAttachmentStore store;
+
+    @BeforeEach
+    void setUp() {
+        store = new ChatAttachmentStore(tempDir.resolve("chat_files"));
+    }
+
+    @Test
+    @DisplayName("Identical uploads are stored once under their hash")
+    void testDeduplicates() throws IOException {
+        Path first = writeSource("a.txt", CONTENT);
+        Path second = writeSource("b.txt", CONTENT);
+
+        ChatAttachmentStore.StoredFile stored = store.store(first);
+        ChatAttachmentStore.StoredFile again = store.store(second);
+        ChatAttachmentStore.StoredFile fromStream =
+            store.store(new ByteArrayInputStream(CONTENT.getBytes(StandardCharsets.UTF_8)));
+
+        assertTrue(stored.isNew());
+        assertFalse(again.isNew());
+        assertFalse(fromStream.isNew());
+        assertEquals(stored.getPath(), again.getPath());
+        assertEquals(stored.getHash(), fromStream.getHash());
+        assertEquals(CONTENT.length(), stored.getSize());
+        assertEquals(stored.getHash(), stored.getPath().getFileName().toString());
+        assertEquals(CONTENT, Files.readString(stored.getPath()));
+
+        try (var files = Files.walk(tempDir.resolve("chat_files"))) {
+            assertEquals(1, files.filter(Files::isRegularFile).count(), "No temporary files left behind");
+        }
+    }
+
+    @Test
+    @DisplayName("Ranged reads, streams and copies return the stored bytes")
+    void testReads() throws IOException {
+        ChatAttachmentStore.StoredFile stored = store.store(writeSource("a.txt", CONTENT));
+
+        ByteBuffer buffer = ByteBuffer.allocate(10);
+        assertEquals(10, store.readRange(stored.getPath(), 6, buffer));
+        assertEquals("attachment", new String(buffer.array(), StandardCharsets.UTF_8));
+        assertEquals(-1, store.readRange(stored.getPath(), CONTENT.length(), ByteBuffer.allocate(4)));
+
+        try (InputStream in = store.openStream(stored.getPath())) {
+            assertEquals(CONTENT, new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        }
+
+        Path copy = tempDir.resolve("download.txt");
+        assertEquals(CONTENT.length(), store.copyTo(stored.getPath(), copy));
+        assertEquals(CONTENT, Files.readString(copy));
+    }
+
+    private Path writeSource(String name, String content) throws IOException {
+        return Files.writeString(tempDir.resolve(name), content);
+    }
+}
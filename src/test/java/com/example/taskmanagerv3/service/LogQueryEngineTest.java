@@ -0,0 +1,126 @@
+package com.example.taskmanagerv3.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test class for reading log entries by time range across rolled log files
+ */
+public class LogQueryEngineTest {
+
+    private static final DateTimeFormatter TIMESTAMP = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss.SSS");
+    private static final LocalDate FIRST_DAY = LocalDate.of(2025, 6, 20);
+    private static final int ENTRIES_PER_DAY = 2_000;
+
+    @TempDir
+    Path logDir;
+
+    private LogQueryEngine engine;
+    private final List<String> written = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() throws IOException {
+        engine = new LogQueryEngine(logDir, "workflow-manager");
+        // Two rolled days and the active file for the third
+        writeDay(FIRST_DAY, logDir.resolve("workflow-manager.2025-06-20.log"));
+        writeDay(FIRST_DAY.plusDays(1), logDir.resolve("workflow-manager.2025-06-21.log"));
+        writeDay(FIRST_DAY.plusDays(2), logDir.resolve("workflow-manager.log"));
+        Files.writeString(logDir.resolve("other.2025-06-21.log"), line(FIRST_DAY.plusDays(1).atTime(12, 0), 0) + "\n");
+    }
+
+    @Test
+    @DisplayName("Entries in a range come back in order, across files, with continuation lines skipped")
+    void testRangeAcrossFiles() throws IOException {
+        LocalDateTime from = FIRST_DAY.atTime(20, 0);
+        LocalDateTime to = FIRST_DAY.plusDays(2).atTime(3, 30, 0, 500_000_000);
+
+        assertEquals(expected(from, to), query(from, to));
+        assertTrue(engine.indexSize(logDir.resolve("workflow-manager.2025-06-20.log")) > 1);
+        assertTrue(engine.indexSize(logDir.resolve("workflow-manager.log")) > 1);
+    }
+
+    @Test
+    @DisplayName("A range inside one day only reads that day's file")
+    void testSingleDay() throws IOException {
+        LocalDateTime from = FIRST_DAY.plusDays(1).atTime(9, 15);
+        LocalDateTime to = FIRST_DAY.plusDays(1).atTime(9, 45);
+
+        assertEquals(expected(from, to), query(from, to));
+        assertEquals(0, engine.indexSize(logDir.resolve("workflow-manager.2025-06-20.log")));
+        assertEquals(0, engine.indexSize(logDir.resolve("workflow-manager.log")));
+    }
+
+    @Test
+    @DisplayName("Entries appended to the active file are found, and a new active file is indexed afresh")
+    void testActiveFileGrowsAndRolls() throws IOException {
+        LocalDateTime from = FIRST_DAY.plusDays(2).atStartOfDay();
+        LocalDateTime to = FIRST_DAY.plusDays(3).atStartOfDay();
+        Path active = logDir.resolve("workflow-manager.log");
+        assertEquals(expected(from, to), query(from, to));
+
+        LocalDateTime late = FIRST_DAY.plusDays(2).atTime(23, 59, 59);
+        String appended = line(late, 99);
+        Files.writeString(active, appended + "\n", StandardOpenOption.APPEND);
+        List<String> result = query(late, to);
+        assertEquals(List.of(appended), result);
+
+        // Rollover: the active file is replaced by a small one starting later
+        String fresh = line(FIRST_DAY.plusDays(3).atTime(0, 0, 1), 1);
+        Files.writeString(active, fresh + "\n");
+        assertEquals(List.of(fresh), query(FIRST_DAY.plusDays(3).atStartOfDay(), FIRST_DAY.plusDays(3).atTime(1, 0)));
+    }
+
+    private List<String> query(LocalDateTime from, LocalDateTime to) throws IOException {
+        List<String> lines = new ArrayList<>();
+        engine.forEach(from, to, entry -> lines.add(String.format("%s [%s] %-5s %s - %s",
+            entry.getTimestamp(), entry.getThread(), entry.getLevel(), entry.getLogger(), entry.getMessage())));
+        return lines;
+    }
+
+    private List<String> expected(LocalDateTime from, LocalDateTime to) {
+        List<String> lines = new ArrayList<>();
+        for (String line : written) {
+            LocalDateTime time = LocalDateTime.parse(line.substring(0, 23), TIMESTAMP);
+            if (!time.isBefore(from) && !time.isAfter(to)) {
+                lines.add(line);
+            }
+        }
+        return lines;
+    }
+
+    private void writeDay(LocalDate day, Path file) throws IOException {
+        StringBuilder content = new StringBuilder();
+        long step = 86_400_000L / ENTRIES_PER_DAY;
+        for (int i = 0; i < ENTRIES_PER_DAY; i++) {
+            String line = line(day.atStartOfDay().plusNanos(i * step * 1_000_000), i);
+            written.add(line);
+            content.append(line).append('\n');
+            if (i % 100 == 0) {
+                content.append("java.lang.IllegalStateException: failure ").append(i).append('\n');
+                content.append("\tat com.example.taskmanagerv3.service.TaskService.updateTask(TaskService.java:1)\n");
+            }
+        }
+        Files.write(file, content.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String line(LocalDateTime time, int i) {
+        String level = i % 7 == 0 ? "WARN" : "INFO";
+        return String.format("%s [app-worker-%d] %-5s c.e.t.service.TaskService - Entry %d with some padding text %s",
+            time.format(TIMESTAMP), i % 4, level, i, "x".repeat(i % 40));
+    }
+}
@@ -0,0 +1,163 @@
+package com.example.taskmanagerv3.service;
+
+import com.example.taskmanagerv3.model.Task;
+import com.example.taskmanagerv3.model.TaskStatus;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test class for TaskCache indexing and version-stamp revalidation
+ */
+public class TaskCacheTest {
+
+    private static final LocalDateTime BASE_TIME = LocalDateTime.of(2025, 6, 1, 9, 0);
+
+    private TaskCache taskCache;
+
+    @BeforeEach
+    void setUp() {
+        taskCache = new TaskCache();
+    }
+
+    @Test
+    @DisplayName("Loaded user scope is served from memory, newest first")
+    void testLoadAndServeUserScope() {
+        taskCache.load(1, List.of(task(10, 1, TaskStatus.TODO, 0), task(11, 1, TaskStatus.COMPLETED, 5)), null);
+
+        List<Task> tasks = taskCache.getIfFresh(1);
+
+        assertNotNull(tasks, "Freshly loaded scope should be served from memory");
+        assertEquals(2, tasks.size());
+        assertEquals(11, tasks.get(0).getTaskId(), "Newest task should come first");
+        assertNull(taskCache.getIfFresh(2), "Unloaded scope should not be served");
+    }
+
+    @Test
+    @DisplayName("Returned tasks are copies that do not alias the cache")
+    void testReturnedTasksAreCopies() {
+        taskCache.load(1, List.of(task(10, 1, TaskStatus.TODO, 0)), null);
+
+        taskCache.getIfFresh(1).get(0).setTitle("changed by caller");
+
+        assertEquals("Task 10", taskCache.getTask(10).getTitle());
+    }
+
+    @Test
+    @DisplayName("Status index follows write-through updates")
+    void testStatusIndexWriteThrough() {
+        taskCache.load(1, List.of(task(10, 1, TaskStatus.TODO, 0), task(11, 1, TaskStatus.TODO, 1)), null);
+
+        Task updated = task(10, 1, TaskStatus.COMPLETED, 0);
+        updated.setUpdatedAt(BASE_TIME.plusHours(1));
+        taskCache.put(updated, false);
+
+        assertEquals(1, taskCache.getByUserAndStatus(1, TaskStatus.TODO).size());
+        assertEquals(10, taskCache.getByUserAndStatus(1, TaskStatus.COMPLETED).get(0).getTaskId());
+    }
+
+    @Test
+    @DisplayName("Own writes do not invalidate the scope on revalidation")
+    void testRevalidateWithOwnWrites() {
+        taskCache.load(1, List.of(task(10, 1, TaskStatus.TODO, 0)), null);
+
+        Task created = task(12, 1, TaskStatus.TODO, 10);
+        created.setUpdatedAt(BASE_TIME.plusHours(2));
+        taskCache.put(created, true);
+
+        // Database sees both rows, one of them changed since the last validation
+        TaskCache.VersionProbe probe = new TaskCache.VersionProbe(2, BASE_TIME.plusHours(2), 1);
+
+        assertNotNull(taskCache.revalidate(1, probe), "Scope should survive its own writes");
+        assertEquals(2, taskCache.revalidate(1, new TaskCache.VersionProbe(2, BASE_TIME.plusHours(2), 0)).size());
+    }
+
+    @Test
+    @DisplayName("Changes by other clients invalidate the scope")
+    void testRevalidateDetectsForeignChanges() {
+        taskCache.load(1, List.of(task(10, 1, TaskStatus.TODO, 0)), null);
+
+        TaskCache.VersionProbe foreignUpdate = new TaskCache.VersionProbe(1, BASE_TIME.plusHours(3), 1);
+
+        assertNull(taskCache.revalidate(1, foreignUpdate), "Foreign update should force a reload");
+        assertFalse(taskCache.isLoaded(1));
+    }
+
+    @Test
+    @DisplayName("Delete removes the task from every index")
+    void testRemove() {
+        taskCache.load(1, List.of(task(10, 1, TaskStatus.TODO, 0), task(11, 1, TaskStatus.TODO, 1)), null);
+
+        taskCache.remove(10);
+
+        assertNull(taskCache.getTask(10));
+        assertEquals(1, taskCache.getIfFresh(1).size());
+        assertNotNull(taskCache.revalidate(1, new TaskCache.VersionProbe(1, BASE_TIME.plusMinutes(1), 0)),
+            "Expected row count should follow the delete");
+    }
+
+    @Test
+    @DisplayName("A list read before a write does not overwrite that write when loaded")
+    void testLoadKeepsNewerWrites() {
+        long readSequence = taskCache.getWriteSequence();
+
+        // Written while the read is in flight: an update, a create and a delete
+        Task updated = task(10, 1, TaskStatus.COMPLETED, 0);
+        updated.setUpdatedAt(BASE_TIME.plusHours(1));
+        taskCache.put(updated, false);
+        Task created = task(12, 1, TaskStatus.TODO, 61);
+        taskCache.put(created, true);
+        taskCache.remove(11);
+
+        taskCache.load(1, List.of(task(10, 1, TaskStatus.TODO, 0), task(11, 1, TaskStatus.TODO, 1)), null, readSequence);
+
+        List<Task> tasks = taskCache.getIfFresh(1);
+        assertEquals(2, tasks.size());
+        assertEquals(12, tasks.get(0).getTaskId());
+        assertEquals(TaskStatus.COMPLETED, tasks.get(1).getStatus());
+        assertNotNull(taskCache.revalidate(1, new TaskCache.VersionProbe(2, BASE_TIME.plusHours(1).plusMinutes(1), 2)),
+            "Kept writes should count as our own in the next probe");
+    }
+
+    @Test
+    @DisplayName("Old writes are forgotten, and a read that started before them is not cached")
+    void testOldWritesForgotten() {
+        long readSequence = taskCache.getWriteSequence();
+        taskCache.put(task(10, 1, TaskStatus.COMPLETED, 0), false);
+
+        taskCache.pruneWrites(System.currentTimeMillis() + TaskCache.WRITE_RETENTION_MILLIS + 1);
+
+        taskCache.load(1, List.of(task(10, 1, TaskStatus.TODO, 0)), null, readSequence);
+        assertFalse(taskCache.isLoaded(1), "The read may predate the forgotten write");
+
+        taskCache.load(1, List.of(task(10, 1, TaskStatus.COMPLETED, 0)), null, taskCache.getWriteSequence());
+        assertTrue(taskCache.isLoaded(1));
+    }
+
+    @Test
+    @DisplayName("A task changed by another client is no longer served from memory")
+    void testInvalidate() {
+        taskCache.load(1, List.of(task(10, 1, TaskStatus.TODO, 0)), null);
+        taskCache.load(TaskCache.ALL_TASKS_SCOPE, List.of(task(10, 1, TaskStatus.TODO, 0)), null);
+
+        taskCache.invalidate(10);
+
+        assertNull(taskCache.getTask(10));
+        assertFalse(taskCache.isLoaded(1));
+        assertFalse(taskCache.isLoaded(TaskCache.ALL_TASKS_SCOPE));
+    }
+
+    private Task task(int taskId, int userId, TaskStatus status, int minutesAfterBase) {
+        Task task = new Task("Task " + taskId, "", userId, 99);
+        task.setTaskId(taskId);
+        task.setStatus(status);
+        task.setCreatedAt(BASE_TIME.plusMinutes(minutesAfterBase));
+        task.setUpdatedAt(BASE_TIME.plusMinutes(minutesAfterBase));
+        return task;
+    }
+}
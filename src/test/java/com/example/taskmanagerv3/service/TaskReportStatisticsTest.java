@@ -0,0 +1,123 @@
+package com.example.taskmanagerv3.service;
+
+import com.example.taskmanagerv3.model.Task;
+import com.example.taskmanagerv3.model.TaskPriority;
+import com.example.taskmanagerv3.model.TaskStatus;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test class for the single-pass task statistics used by reports and charts
+ */
+public class TaskReportStatisticsTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2025, 6, 10, 12, 0);
+
+    @Test
+    @DisplayName("Counts by status, priority, assignee and overdue come from one pass")
+    void testCounts() {
+        List<Task> tasks = List.of(
+            task(1, 1, TaskStatus.COMPLETED, TaskPriority.HIGH, NOW.minusDays(1), 4, 5),
+            task(2, 1, TaskStatus.IN_PROGRESS, TaskPriority.HIGH, NOW.minusDays(1), 0, 0),
+            task(3, 2, TaskStatus.TODO, TaskPriority.LOW, NOW.plusDays(1), 2, 0),
+            task(4, 2, TaskStatus.CANCELLED, TaskPriority.URGENT, null, 0, 0));
+
+        TaskReportStatistics statistics = TaskReportStatistics.of(tasks, NOW);
+
+        assertEquals(4, statistics.getTotalTasks());
+        assertEquals(1, statistics.getCount(TaskStatus.COMPLETED));
+        assertEquals(0, statistics.getCount(TaskStatus.REVIEW));
+        assertEquals(2, statistics.getCount(TaskPriority.HIGH));
+        assertEquals(1, statistics.getOverdueTasks());
+        assertEquals(6, statistics.getEstimatedHours());
+        assertEquals(5, statistics.getActualHours());
+
+        TaskService.UserWorkload first = statistics.getWorkload(1);
+        assertEquals(2, first.getTotalTasks());
+        assertEquals(1, first.getCompletedTasks());
+        assertEquals(1, first.getOverdueTasks());
+        assertEquals(1, statistics.getWorkload(2).getPendingTasks());
+        assertEquals(0, statistics.getWorkload(3).getTotalTasks());
+        assertEquals(2, statistics.getWorkloads().size());
+
+        assertEquals(1, statistics.getCompletedWithHours().size());
+        assertEquals(1, statistics.getCompletedWithHours().get(0).getTaskId());
+    }
+
+    @Test
+    @DisplayName("A list summarized in parallel gives exact counts and keeps list order")
+    void testParallelMatchesSequential() {
+        TaskStatus[] statuses = TaskStatus.values();
+        TaskPriority[] priorities = TaskPriority.values();
+        List<Task> tasks = new ArrayList<>();
+        for (int i = 0; i < TaskReportStatistics.PARALLEL_THRESHOLD * 2; i++) {
+            tasks.add(task(i, i % 37, statuses[i % statuses.length], priorities[i % priorities.length],
+                NOW.plusHours(i % 11 - 5), i % 3, i % 4));
+        }
+
+        TaskReportStatistics parallel = TaskReportStatistics.of(tasks, NOW);
+
+        int overdue = 0;
+        List<Integer> completedIds = new ArrayList<>();
+        for (Task task : tasks) {
+            if (task.getDueDate().isBefore(NOW) && task.getStatus() != TaskStatus.COMPLETED) {
+                overdue++;
+            }
+            if (task.getStatus() == TaskStatus.COMPLETED && (task.getEstimatedHours() > 0 || task.getActualHours() > 0)) {
+                completedIds.add(task.getTaskId());
+            }
+        }
+
+        assertEquals(tasks.size(), parallel.getTotalTasks());
+        assertEquals(overdue, parallel.getOverdueTasks());
+        for (TaskStatus status : statuses) {
+            assertEquals(tasks.stream().filter(t -> t.getStatus() == status).count(), parallel.getCount(status));
+        }
+        for (int userId = 0; userId < 37; userId++) {
+            int expected = 0;
+            for (Task task : tasks) {
+                if (task.getAssignedUserId() == userId && task.getStatus() == TaskStatus.REVIEW) {
+                    expected++;
+                }
+            }
+            assertEquals(expected, parallel.getWorkload(userId).getCount(TaskStatus.REVIEW));
+        }
+
+        List<Integer> parallelIds = new ArrayList<>();
+        for (Task task : parallel.getCompletedWithHours()) {
+            parallelIds.add(task.getTaskId());
+        }
+        assertEquals(completedIds.subList(0, TaskReportStatistics.MAX_COMPLETED_WITH_HOURS), parallelIds);
+    }
+
+    @Test
+    @DisplayName("Counting statistics take tasks one at a time and keep only the charted ones")
+    void testCounting() {
+        TaskReportStatistics statistics = TaskReportStatistics.counting();
+        statistics.add(task(1, 1, TaskStatus.COMPLETED, TaskPriority.LOW, null, 3, 4));
+        statistics.add(task(2, 2, TaskStatus.TODO, TaskPriority.LOW, null, 1, 0));
+
+        assertEquals(2, statistics.getTotalTasks());
+        assertEquals(2, statistics.getCount(TaskPriority.LOW));
+        assertEquals(1, statistics.getWorkload(1).getCompletedTasks());
+        assertEquals(1, statistics.getCompletedWithHours().size());
+    }
+
+    private static Task task(int id, int userId, TaskStatus status, TaskPriority priority, LocalDateTime dueDate,
+                             int estimatedHours, int actualHours) {
+        Task task = new Task("Task " + id, null, userId, 1);
+        task.setTaskId(id);
+        task.setStatus(status);
+        task.setPriority(priority);
+        task.setDueDate(dueDate);
+        task.setEstimatedHours(estimatedHours);
+        task.setActualHours(actualHours);
+        return task;
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.taskmanagerv3.service;
+
+import com.example.taskmanagerv3.model.TaskPriority;
+import com.example.taskmanagerv3.model.TaskStatus;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test class for the counter adjustments of the daily task statistics rollup
+ */
+public class TaskStatsRollupTest {
+
+    private static final LocalDateTime CREATED = LocalDateTime.of(2025, 6, 2, 9, 0);
+    private static final LocalDateTime COMPLETED = LocalDateTime.of(2025, 6, 5, 17, 30);
+
+    @Test
+    @DisplayName("A new task adds one created on its creation day")
+    void testCreate() {
+        List<TaskStatsRollup.Delta> deltas = TaskStatsRollup.diff(null, state(TaskStatus.TODO, null));
+
+        assertEquals(1, deltas.size());
+        assertDelta(deltas.get(0), LocalDate.of(2025, 6, 2), TaskStatus.TODO, 1, 0);
+    }
+
+    @Test
+    @DisplayName("Completing a task moves its creation to the new status and adds one completed that day")
+    void testComplete() {
+        List<TaskStatsRollup.Delta> deltas = TaskStatsRollup.diff(
+            state(TaskStatus.IN_PROGRESS, null), state(TaskStatus.COMPLETED, COMPLETED));
+
+        assertEquals(3, deltas.size());
+        assertDelta(deltas.get(0), LocalDate.of(2025, 6, 2), TaskStatus.IN_PROGRESS, -1, 0);
+        assertDelta(deltas.get(1), LocalDate.of(2025, 6, 2), TaskStatus.COMPLETED, 1, 0);
+        assertDelta(deltas.get(2), LocalDate.of(2025, 6, 5), TaskStatus.COMPLETED, 0, 1);
+    }
+
+    @Test
+    @DisplayName("Edits that keep status, priority and completion change nothing")
+    void testUnchanged() {
+        assertTrue(TaskStatsRollup.diff(state(TaskStatus.REVIEW, null), state(TaskStatus.REVIEW, null)).isEmpty());
+        assertTrue(TaskStatsRollup.diff(state(TaskStatus.COMPLETED, COMPLETED), state(TaskStatus.COMPLETED, COMPLETED)).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Deleting a completed task takes back both its created and completed counts")
+    void testDelete() {
+        List<TaskStatsRollup.Delta> deltas = TaskStatsRollup.diff(state(TaskStatus.COMPLETED, COMPLETED), null);
+
+        assertEquals(2, deltas.size());
+        assertDelta(deltas.get(0), LocalDate.of(2025, 6, 2), TaskStatus.COMPLETED, -1, 0);
+        assertDelta(deltas.get(1), LocalDate.of(2025, 6, 5), TaskStatus.COMPLETED, 0, -1);
+    }
+
+    private static TaskStatsRollup.TaskState state(TaskStatus status, LocalDateTime completedAt) {
+        return new TaskStatsRollup.TaskState(CREATED, 4, status, TaskPriority.HIGH, completedAt);
+    }
+
+    private static void assertDelta(TaskStatsRollup.Delta delta, LocalDate day, TaskStatus status,
+                                    int created, int completed) {
+        assertEquals(day, delta.getDay());
+        assertEquals(4, delta.getUserId());
+        assertEquals(status, delta.getStatus());
+        assertEquals(TaskPriority.HIGH, delta.getPriority());
+        assertEquals(created, delta.getCreated());
+        assertEquals(completed, delta.getCompleted());
+    }
+}
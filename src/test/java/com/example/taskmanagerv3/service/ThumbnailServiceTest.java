@@ -0,0 +1,64 @@
+package com.example.taskmanagerv3.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test class for ThumbnailService
+ */
+public class ThumbnailServiceTest {
+
+    @TempDir
+    Path tempDir;
+
+    private final ThumbnailService thumbnailService = new ThumbnailService();
+
+    @Test
+    @DisplayName("Large images are scaled into the box, keeping their aspect ratio")
+    void testScalesDown() throws IOException {
+        Path original = writeImage("photo.jpg", "jpg", 4000, 3000);
+
+        Path thumbnail = thumbnailService.getOrCreate(original, ThumbnailService.Size.CHAT_PREVIEW);
+
+        assertEquals(original.resolveSibling("photo.jpg.thumb-300x200.png"), thumbnail);
+        BufferedImage image = ImageIO.read(thumbnail.toFile());
+        assertEquals(267, image.getWidth());
+        assertEquals(200, image.getHeight());
+    }
+
+    @Test
+    @DisplayName("Small images are not scaled up")
+    void testKeepsSmallImages() throws IOException {
+        Path original = writeImage("icon.png", "png", 50, 40);
+
+        Path thumbnail = thumbnailService.getOrCreate(original, ThumbnailService.Size.AVATAR);
+
+        BufferedImage image = ImageIO.read(thumbnail.toFile());
+        assertEquals(50, image.getWidth());
+        assertEquals(40, image.getHeight());
+    }
+
+    @Test
+    @DisplayName("Files that are not images get no thumbnail")
+    void testRejectsNonImages() throws IOException {
+        Path original = Files.writeString(tempDir.resolve("notes.txt"), "not an image");
+
+        assertNull(thumbnailService.getOrCreate(original, ThumbnailService.Size.AVATAR));
+        assertNull(thumbnailService.getOrCreate(tempDir.resolve("missing.png"), ThumbnailService.Size.AVATAR));
+    }
+
+    private Path writeImage(String name, String format, int width, int height) throws IOException {
+        Path path = tempDir.resolve(name);
+        ImageIO.write(new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB), format, path.toFile());
+        return path;
+    }
+}
@@ -0,0 +1,192 @@
+package com.example.taskmanagerv3.websocket;
+
+import com.example.taskmanagerv3.service.ChatAttachmentStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test class for chunked attachment transfers between a client and the server.
+ * Both ends run inline and their messages are delivered one at a time from queues.
+ */
+public class FileTransferHandlerTest {
+
+    private static final int FILE_SIZE = 20 * FileTransferHandler.CHUNK_SIZE + 123;
+
+    @TempDir
+    Path tempDir;
+
+    private ChatAttachmentStore clientStore;
+    private ChatAttachmentStore serverStore;
+    private final Deque<ChatMessage> toServer = new ArrayDeque<>();
+    private final Deque<ChatMessage> toClient = new ArrayDeque<>();
+    private FileTransferHandler client;
+    private FileTransferHandler server;
+    private long chunkBytesToServer;
+    private long chunkBytesToClient;
+    private long maxBytesInFlight;
+
+    @BeforeEach
+    void setUp() {
+        clientStore = new ChatAttachmentStore(tempDir.resolve("client"));
+        serverStore = new ChatAttachmentStore(tempDir.resolve("server"));
+        client = new FileTransferHandler(clientStore, toServer::add, Runnable::run);
+        server = new FileTransferHandler(serverStore, toClient::add, Runnable::run);
+    }
+
+    @Test
+    @DisplayName("Uploads arrive intact and never have more than the window in flight")
+    void testUpload() throws Exception {
+        ChatAttachmentStore.StoredFile stored = clientStore.store(writeRandomFile("upload.bin", FILE_SIZE));
+
+        CompletableFuture<Void> upload = client.upload(stored.getHash(), stored.getPath());
+        deliver(Integer.MAX_VALUE, -1);
+
+        assertTrue(upload.isDone() && !upload.isCompletedExceptionally());
+        assertArrayEquals(Files.readAllBytes(stored.getPath()), Files.readAllBytes(serverStore.pathFor(stored.getHash())));
+        assertEquals(FILE_SIZE, chunkBytesToServer);
+        assertTrue(maxBytesInFlight <= FileTransferHandler.WINDOW_BYTES, "In flight: " + maxBytesInFlight);
+
+        // Content the server already holds is not sent again
+        chunkBytesToServer = 0;
+        CompletableFuture<Void> again = client.upload(stored.getHash(), stored.getPath());
+        deliver(Integer.MAX_VALUE, -1);
+        assertTrue(again.isDone() && !again.isCompletedExceptionally());
+        assertEquals(0, chunkBytesToServer);
+    }
+
+    @Test
+    @DisplayName("A corrupted chunk is sent again and the file still arrives intact")
+    void testCorruptedChunkResent() throws Exception {
+        ChatAttachmentStore.StoredFile stored = clientStore.store(writeRandomFile("upload.bin", FILE_SIZE));
+
+        CompletableFuture<Void> upload = client.upload(stored.getHash(), stored.getPath());
+        deliver(Integer.MAX_VALUE, 3);
+
+        assertTrue(upload.isDone() && !upload.isCompletedExceptionally());
+        assertArrayEquals(Files.readAllBytes(stored.getPath()), Files.readAllBytes(serverStore.pathFor(stored.getHash())));
+        assertTrue(chunkBytesToServer > FILE_SIZE, "The bad chunk and those after it were sent twice");
+    }
+
+    @Test
+    @DisplayName("A download cut off midway resumes from the partial file on a new connection")
+    void testDownloadResumes() throws Exception {
+        ChatAttachmentStore.StoredFile stored = serverStore.store(writeRandomFile("original.bin", FILE_SIZE));
+
+        CompletableFuture<Path> download = client.download(stored.getHash(), stored.getSize());
+        deliver(20, -1);
+        assertFalse(download.isDone());
+
+        // Connection lost: the server's handler goes away with it, the client keeps its transfer
+        client.suspend();
+        server.close();
+        toServer.clear();
+        toClient.clear();
+        server = new FileTransferHandler(serverStore, toClient::add, Runnable::run);
+        long sentBeforeReconnect = chunkBytesToClient;
+        chunkBytesToClient = 0;
+
+        client.resume();
+        deliver(Integer.MAX_VALUE, -1);
+
+        assertEquals(clientStore.pathFor(stored.getHash()), download.get());
+        assertArrayEquals(Files.readAllBytes(stored.getPath()), Files.readAllBytes(download.get()));
+        assertTrue(sentBeforeReconnect > 0);
+        assertTrue(chunkBytesToClient < FILE_SIZE, "Resumed instead of starting over: " + chunkBytesToClient);
+    }
+
+    @Test
+    @DisplayName("Content that does not match its hash is not stored")
+    void testHashMismatchRejected() throws Exception {
+        ChatAttachmentStore.StoredFile stored = clientStore.store(writeRandomFile("upload.bin", FILE_SIZE));
+        String otherHash = clientStore.store(writeRandomFile("other.bin", 10)).getHash();
+
+        CompletableFuture<Void> upload = client.upload(otherHash, stored.getPath());
+        deliver(Integer.MAX_VALUE, -1);
+
+        assertTrue(upload.isCompletedExceptionally());
+        assertFalse(serverStore.contains(otherHash));
+        assertFalse(Files.exists(serverStore.partialPath(otherHash)));
+        assertTrue(client.download("../not-a-hash", 1).isCompletedExceptionally());
+    }
+
+    @Test
+    @DisplayName("Uploads over the size limit and downloads the peer may not see are refused")
+    void testRefusedTransfers() throws Exception {
+        String hash = clientStore.store(writeRandomFile("upload.bin", 10)).getHash();
+
+        server.onMessage(new ChatMessage(MessageType.FILE_MESSAGE,
+            FileTransferRequest.upload("xfer_big", hash, FileTransferHandler.MAX_FILE_BYTES + 1)));
+        FileAck ack = (FileAck) toClient.poll().getData();
+        assertEquals(FileAck.Status.FAILED, ack.getStatus());
+        assertFalse(Files.exists(serverStore.partialPath(hash)));
+
+        ChatAttachmentStore.StoredFile stored = serverStore.store(writeRandomFile("private.bin", FILE_SIZE));
+        server = new FileTransferHandler(serverStore, toClient::add, Runnable::run, h -> false);
+        CompletableFuture<Path> download = client.download(stored.getHash(), stored.getSize());
+        deliver(Integer.MAX_VALUE, -1);
+        assertTrue(download.isCompletedExceptionally());
+        assertEquals(0, chunkBytesToClient);
+    }
+
+    /**
+     * Deliver queued messages, alternating directions, for at most the given number of
+     * rounds. The chunk with the given index (counting from 0) is corrupted on the way.
+     */
+    private void deliver(int rounds, int corruptChunk) {
+        int chunkIndex = 0;
+        for (int round = 0; round < rounds && (!toServer.isEmpty() || !toClient.isEmpty()); round++) {
+            maxBytesInFlight = Math.max(maxBytesInFlight, Math.max(queuedChunkBytes(toServer), queuedChunkBytes(toClient)));
+
+            ChatMessage message = toServer.poll();
+            if (message != null) {
+                if (message.getData() instanceof FileChunk) {
+                    FileChunk chunk = (FileChunk) message.getData();
+                    chunkBytesToServer += chunk.getData().length;
+                    if (chunkIndex++ == corruptChunk) {
+                        byte[] damaged = Arrays.copyOf(chunk.getData(), chunk.getData().length);
+                        damaged[0] ^= 1;
+                        message.setData(new FileChunk(chunk.getTransferId(), chunk.getOffset(), damaged, chunk.getChecksum()));
+                    }
+                }
+                server.onMessage(message);
+            }
+
+            message = toClient.poll();
+            if (message != null) {
+                if (message.getData() instanceof FileChunk) {
+                    chunkBytesToClient += ((FileChunk) message.getData()).getData().length;
+                }
+                client.onMessage(message);
+            }
+        }
+    }
+
+    private long queuedChunkBytes(Deque<ChatMessage> queue) {
+        long bytes = 0;
+        for (ChatMessage message : queue) {
+            if (message.getData() instanceof FileChunk) {
+                bytes += ((FileChunk) message.getData()).getData().length;
+            }
+        }
+        return bytes;
+    }
+
+    private Path writeRandomFile(String name, int size) throws IOException {
+        byte[] content = new byte[size];
+        new Random(size).nextBytes(content);
+        return Files.write(tempDir.resolve(name), content);
+    }
+}
@@ -0,0 +1,162 @@
+package com.example.taskmanagerv3.websocket;
+
+import com.example.taskmanagerv3.model.Task;
+import com.example.taskmanagerv3.model.TaskChangeEvent;
+import com.example.taskmanagerv3.model.TaskStatus;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test class for chat frame encoding in both wire formats
+ */
+public class FrameCodecTest {
+
+    @Test
+    @DisplayName("Binary frames round-trip every header field")
+    void testBinaryRoundTrip() throws IOException {
+        ChatMessage message = new ChatMessage(MessageType.CHAT_MESSAGE, "Xin chào 👋", 7);
+        message.setSenderId(3);
+        message.setSenderName("alice");
+        message.setTimestamp(LocalDateTime.of(2025, 6, 1, 9, 30, 15, 123_456_789));
+        message.setPersistedId(4242);
+
+        ChatMessage decoded = roundTrip(message, WireFormat.BINARY);
+
+        assertEquals(message.getMessageId(), decoded.getMessageId());
+        assertEquals(MessageType.CHAT_MESSAGE, decoded.getType());
+        assertEquals("Xin chào 👋", decoded.getData());
+        assertEquals(3, decoded.getSenderId());
+        assertEquals("alice", decoded.getSenderName());
+        assertEquals(7, decoded.getReceiverId());
+        assertEquals(message.getTimestamp(), decoded.getTimestamp());
+        assertEquals(4242, decoded.getPersistedId());
+    }
+
+    @Test
+    @DisplayName("Binary frames carry connect data, nulls and arbitrary serializable payloads")
+    void testBinaryDataTypes() throws IOException {
+        UserConnectData connect = new UserConnectData(5, "bob", true);
+        connect.setSupportedFormats(WireFormat.supported());
+        connect.setSessionId("session-1");
+
+        UserConnectData decodedConnect = (UserConnectData) roundTrip(
+            new ChatMessage(MessageType.USER_CONNECT, connect), WireFormat.BINARY).getData();
+        assertEquals(5, decodedConnect.getUserId());
+        assertEquals("bob", decodedConnect.getUsername());
+        assertTrue(decodedConnect.isAdmin());
+        assertEquals(WireFormat.supported(), decodedConnect.getSupportedFormats());
+        assertEquals("session-1", decodedConnect.getSessionId());
+
+        ChatMessage typing = roundTrip(new ChatMessage(MessageType.TYPING_START, null, 2), WireFormat.BINARY);
+        assertNull(typing.getData());
+        assertNull(typing.getSenderId());
+
+        Payload payload = (Payload) roundTrip(
+            new ChatMessage(MessageType.ERROR, new Payload("details")), WireFormat.BINARY).getData();
+        assertEquals("details", payload.text);
+    }
+
+    @Test
+    @DisplayName("Binary frames carry file chunks and acks")
+    void testBinaryFileTransfer() throws IOException {
+        byte[] bytes = new byte[FileTransferHandler.CHUNK_SIZE];
+        bytes[7] = 42;
+        FileChunk chunk = (FileChunk) roundTrip(
+            new ChatMessage(MessageType.FILE_CHUNK, FileChunk.of("xfer_1", 65536L, bytes)), WireFormat.BINARY).getData();
+        assertEquals("xfer_1", chunk.getTransferId());
+        assertEquals(65536L, chunk.getOffset());
+        assertArrayEquals(bytes, chunk.getData());
+        assertTrue(chunk.isIntact());
+
+        FileAck ack = (FileAck) roundTrip(new ChatMessage(MessageType.FILE_ACK,
+            new FileAck("xfer_1", FileAck.Status.RESEND, 65536L, FileTransferHandler.WINDOW_BYTES, null)),
+            WireFormat.BINARY).getData();
+        assertEquals(FileAck.Status.RESEND, ack.getStatus());
+        assertEquals(65536L, ack.getOffset());
+        assertEquals(FileTransferHandler.WINDOW_BYTES, ack.getWindow());
+        assertNull(ack.getReason());
+    }
+
+    @Test
+    @DisplayName("Binary frames carry task change events without task data")
+    void testBinaryTaskChange() throws IOException {
+        Task task = new Task("Write report", "Quarterly numbers", 5, 1);
+        task.setTaskId(77);
+        task.setStatus(TaskStatus.REVIEW);
+
+        TaskChangeEvent event = (TaskChangeEvent) roundTrip(new ChatMessage(MessageType.TASK_CHANGED,
+            TaskChangeEvent.updated(task)), WireFormat.BINARY).getData();
+        assertEquals(TaskChangeEvent.Kind.UPDATED, event.getKind());
+        assertEquals(77, event.getTaskId());
+        assertEquals(5, event.getAssignedUserId());
+
+        TaskChangeEvent deleted = (TaskChangeEvent) roundTrip(new ChatMessage(MessageType.TASK_CHANGED,
+            TaskChangeEvent.deleted(77, 5)), WireFormat.BINARY).getData();
+        assertEquals(TaskChangeEvent.Kind.DELETED, deleted.getKind());
+        assertEquals(77, deleted.getTaskId());
+    }
+
+    @Test
+    @DisplayName("A binary frame with an impossible timestamp is rejected as an IOException")
+    void testBinaryInvalidTimestamp() throws IOException {
+        ChatMessage message = new ChatMessage(MessageType.CHAT_MESSAGE, "hello", 2);
+        message.setMessageId(null);
+        message.setTimestamp(LocalDateTime.of(2025, 6, 1, 9, 30));
+
+        // Body: format tag, type, flags, epoch seconds (8 bytes), nanos (4 bytes)
+        ByteBuffer badNanos = FrameCodec.encode(message, WireFormat.BINARY);
+        badNanos.putInt(FrameCodec.HEADER_BYTES + 3 + 8, 1_000_000_000);
+        assertThrows(IOException.class, () -> decode(badNanos));
+
+        ByteBuffer badSeconds = FrameCodec.encode(message, WireFormat.BINARY);
+        badSeconds.putLong(FrameCodec.HEADER_BYTES + 3, Long.MAX_VALUE);
+        assertThrows(IOException.class, () -> decode(badSeconds));
+    }
+
+    @Test
+    @DisplayName("Java serialization frames stay readable and binary is much smaller")
+    void testJavaFallback() throws IOException {
+        ChatMessage message = new ChatMessage(MessageType.CHAT_MESSAGE, "hello", 2);
+        message.setSenderId(1);
+
+        ChatMessage decoded = roundTrip(message, WireFormat.JAVA);
+
+        assertEquals("hello", decoded.getData());
+        assertTrue(FrameCodec.encode(message, WireFormat.BINARY).limit()
+            < FrameCodec.encode(message, WireFormat.JAVA).limit() / 4);
+    }
+
+    @Test
+    @DisplayName("Format negotiation prefers binary and falls back to Java serialization")
+    void testNegotiate() {
+        assertEquals(WireFormat.BINARY, WireFormat.negotiate("BINARY,JAVA"));
+        assertEquals(WireFormat.JAVA, WireFormat.negotiate(null));
+        assertEquals(WireFormat.JAVA, WireFormat.negotiate("Connected successfully"));
+    }
+
+    private ChatMessage roundTrip(ChatMessage message, WireFormat format) throws IOException {
+        ByteBuffer frame = FrameCodec.encode(message, format);
+        int length = frame.getInt(0);
+        assertEquals(frame.limit() - FrameCodec.HEADER_BYTES, length);
+        return decode(frame);
+    }
+
+    private ChatMessage decode(ByteBuffer frame) throws IOException {
+        return FrameCodec.decode(frame.array(), FrameCodec.HEADER_BYTES, frame.getInt(0));
+    }
+
+    private static class Payload implements Serializable {
+        private final String text;
+
+        Payload(String text) {
+            this.text = text;
+        }
+    }
+}
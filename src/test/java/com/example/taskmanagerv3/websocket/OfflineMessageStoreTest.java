@@ -0,0 +1,95 @@
+package com.example.taskmanagerv3.websocket;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test class for the chat relay's offline message queues
+ */
+public class OfflineMessageStoreTest {
+
+    private static final int MAX_MESSAGES = 3;
+    private static final long RETENTION = 1_000;
+
+    private OfflineMessageStore store;
+
+    @BeforeEach
+    void setUp() {
+        store = new OfflineMessageStore(MAX_MESSAGES, RETENTION);
+    }
+
+    @Test
+    @DisplayName("Only tracked users get chat messages queued")
+    void testOnlyTrackedUsersQueued() {
+        assertFalse(store.store(1, chat(10)), "User 1 never went offline here");
+        assertNull(store.take(1, "s1"));
+
+        store.track(1, "s1", 0);
+        assertTrue(store.store(1, chat(11)));
+        assertFalse(store.store(1, new ChatMessage(MessageType.TYPING_START, null, 1)));
+
+        OfflineMessageStore.Backlog backlog = store.take(1, "s1");
+        assertFalse(backlog.isSpilled());
+        assertEquals(1, backlog.getMessages().size());
+        assertEquals(11, backlog.getMessages().get(0).getPersistedId());
+        assertNull(store.take(1, "s1"), "Taking a backlog stops tracking");
+    }
+
+    @Test
+    @DisplayName("Overflow spills the oldest stored messages and remembers where the range starts")
+    void testOverflowSpills() {
+        store.track(1, "s1", 0);
+        for (int id = 20; id < 25; id++) {
+            store.store(1, chat(id));
+        }
+        store.store(1, chat(null));
+
+        OfflineMessageStore.Backlog backlog = store.take(1, "s1");
+        assertTrue(backlog.isSpilled());
+        assertEquals(20 - 1, backlog.getSpilledAfterId());
+        assertEquals(24, backlog.getNewestStoredId());
+        assertEquals(MAX_MESSAGES, backlog.getMessages().size());
+        assertEquals(1, backlog.getUnstoredMessages().size());
+        assertEquals(3, store.getStatistics().getMessagesSpilled());
+    }
+
+    @Test
+    @DisplayName("A backlog is only handed to the session it was kept for")
+    void testOtherSessionGetsNoBacklog() {
+        store.track(1, "s1", 0);
+        store.store(1, chat(40));
+
+        assertNull(store.take(1, "s2"), "Another session must not receive the backlog");
+        assertNull(store.take(1, "s1"), "The user is online again, so the queue is gone");
+
+        store.track(1, null, 0);
+        store.store(1, chat(41));
+        assertNull(store.take(1, null), "Clients without a session id get no backlog");
+
+        store.track(1, "s1", 0);
+        store.store(1, chat(42));
+        store.track(1, "s2", 100);
+        assertTrue(store.take(1, "s2").getMessages().isEmpty(), "Tracking another session starts a new queue");
+    }
+
+    @Test
+    @DisplayName("Queues of users offline past retention are dropped")
+    void testExpire() {
+        store.track(1, "s1", 0);
+        store.track(2, "s2", 800);
+        store.store(1, chat(30));
+
+        assertEquals(1, store.expire(1_500));
+        assertNull(store.take(1, "s1"));
+        assertNotNull(store.take(2, "s2"));
+    }
+
+    private ChatMessage chat(Integer persistedId) {
+        ChatMessage message = new ChatMessage(MessageType.CHAT_MESSAGE, "hi", 1);
+        message.setPersistedId(persistedId);
+        return message;
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.taskmanagerv3.websocket;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test class for typing-indicator coalescing in the chat relay
+ */
+public class TypingCoalescerTest {
+
+    private static final long TTL = 1_000;
+
+    private TypingCoalescer coalescer;
+
+    @BeforeEach
+    void setUp() {
+        coalescer = new TypingCoalescer(TTL);
+    }
+
+    @Test
+    @DisplayName("Only the first START of a burst and the matching STOP are forwarded")
+    void testKeystrokesCoalesced() {
+        assertTrue(coalescer.onStart(1, "alice", 2, 0));
+        for (int i = 1; i <= 20; i++) {
+            assertFalse(coalescer.onStart(1, "alice", 2, i * 50L));
+        }
+        assertTrue(coalescer.onStop(1, 2));
+        assertFalse(coalescer.onStop(1, 2), "Second STOP is redundant");
+
+        TypingCoalescer.TypingStatistics stats = coalescer.getStatistics();
+        assertEquals(2, stats.getFramesForwarded());
+        assertEquals(21, stats.getFramesSuppressed());
+    }
+
+    @Test
+    @DisplayName("Pairs are independent per sender and receiver")
+    void testPairsIndependent() {
+        assertTrue(coalescer.onStart(1, "alice", 2, 0));
+        assertTrue(coalescer.onStart(1, "alice", 3, 0));
+        assertTrue(coalescer.onStart(2, "bob", 1, 0));
+        assertEquals(3, coalescer.getStatistics().getActivePairs());
+    }
+
+    @Test
+    @DisplayName("Repeated STARTs extend the TTL, silence expires the pair")
+    void testExpiry() {
+        coalescer.onStart(1, "alice", 2, 0);
+        coalescer.onStart(1, "alice", 2, 900);
+
+        assertTrue(coalescer.expire(1_500).isEmpty(), "TTL was extended by the second START");
+
+        List<TypingCoalescer.TypingState> expired = coalescer.expire(1_900);
+        assertEquals(1, expired.size());
+        assertEquals(2, expired.get(0).getReceiverId());
+        assertEquals("alice", expired.get(0).getSenderName());
+        assertTrue(coalescer.onStart(1, "alice", 2, 2_000), "New burst after expiry is forwarded");
+    }
+
+    @Test
+    @DisplayName("A sender going offline clears all of their indicators")
+    void testRemoveSender() {
+        coalescer.onStart(1, "alice", 2, 0);
+        coalescer.onStart(1, "alice", 3, 0);
+        coalescer.onStart(4, "dan", 2, 0);
+
+        assertEquals(2, coalescer.removeSender(1).size());
+        assertEquals(1, coalescer.getStatistics().getActivePairs());
+        assertEquals(2, coalescer.getStatistics().getStopsSynthesized());
+    }
+}